@@ -0,0 +1,72 @@
+package edu.uci.ics.texera.workflow.operators.regex
+
+import com.fasterxml.jackson.annotation.{JsonProperty, JsonPropertyDescription}
+import com.google.common.base.Preconditions
+import com.kjetland.jackson.jsonSchema.annotations.JsonSchemaTitle
+import edu.uci.ics.texera.workflow.common.metadata.annotations.AutofillAttributeName
+import edu.uci.ics.texera.workflow.common.metadata.{
+  InputPort,
+  OperatorGroupConstants,
+  OperatorInfo,
+  OutputPort
+}
+import edu.uci.ics.texera.workflow.common.operators.OneToOneOpExecConfig
+import edu.uci.ics.texera.workflow.common.operators.flatmap.FlatMapOpDesc
+import edu.uci.ics.texera.workflow.common.tuple.schema.{AttributeType, Schema}
+
+/**
+  * Searches a list of regular expressions in a string column with one operator,
+  * which doesn't rescan the column for every regular expression.
+  * A tuple is output once for every regular expression it matches (any of them, not all of them
+  * as in a chain of Regex operators), with the index of the regular expression
+  * in the result attribute.
+  */
+class MultiRegexOpDesc extends FlatMapOpDesc {
+
+  @JsonProperty(value = "attribute", required = true)
+  @JsonPropertyDescription("column to search the regular expressions on")
+  @AutofillAttributeName
+  var attribute: String = _
+
+  @JsonProperty(value = "regexes", required = true)
+  @JsonSchemaTitle("Regular Expressions")
+  @JsonPropertyDescription("regular expressions, the id of a regular expression is its index")
+  var regexes: List[String] = List[String]()
+
+  @JsonProperty(required = false, defaultValue = "false")
+  @JsonSchemaTitle("Case Insensitive")
+  @JsonPropertyDescription("whether the regular expression match is case insensitive")
+  var caseInsensitive: Boolean = _
+
+  @JsonProperty(required = false, defaultValue = "false")
+  @JsonSchemaTitle("Linear Time")
+  @JsonPropertyDescription(
+    "whether the regular expressions are matched in linear time by RE2J, if RE2J supports them"
+  )
+  var linearTime: Boolean = _
+
+  @JsonProperty(value = "result attribute", required = true, defaultValue = "regex id")
+  @JsonPropertyDescription("column name of the id of the matching regular expression")
+  var resultAttribute: String = _
+
+  override def operatorExecutor: OneToOneOpExecConfig = {
+    new OneToOneOpExecConfig(this.operatorIdentifier, _ => new MultiRegexOpExec(this))
+  }
+
+  override def operatorInfo: OperatorInfo =
+    OperatorInfo(
+      userFriendlyName = "Multiple Regular Expressions",
+      operatorDescription = "Search a list of regular expressions in a string column in one pass",
+      operatorGroupName = OperatorGroupConstants.SEARCH_GROUP,
+      inputPorts = List(InputPort()),
+      outputPorts = List(OutputPort())
+    )
+
+  override def getOutputSchema(schemas: Array[Schema]): Schema = {
+    Preconditions.checkArgument(schemas.length == 1)
+    if (resultAttribute == null || resultAttribute.trim.isEmpty) {
+      return null
+    }
+    Schema.newBuilder.add(schemas(0)).add(resultAttribute, AttributeType.INTEGER).build
+  }
+}
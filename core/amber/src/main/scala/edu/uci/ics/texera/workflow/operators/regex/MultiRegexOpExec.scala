@@ -0,0 +1,145 @@
+package edu.uci.ics.texera.workflow.operators.regex
+
+import java.util.regex.{Pattern, PatternSyntaxException}
+
+import edu.uci.ics.texera.workflow.common.operators.flatmap.FlatMapOpExec
+import edu.uci.ics.texera.workflow.common.tuple.Tuple
+import edu.uci.ics.texera.workflow.common.tuple.schema.AttributeType
+
+import scala.collection.mutable
+
+object MultiRegexOpExec {
+
+  /*
+   * Regex pattern of the back references, which refer to the wrong groups when the regexes are combined.
+   */
+  private val BACK_REFERENCE: Pattern = Pattern.compile("\\\\[1-9]|\\\\k<")
+}
+
+/**
+  * The regular expressions (except those with back references) are combined into one alternation
+  * of groups, which is compiled into one automaton if linearTime is true.
+  * A value is scanned once by the combined regular expression, and the group that takes part in
+  * each match gives the id of the first regular expression that matches at its start.
+  * Since the scan tried every position outside the matches, the other combined regular expressions
+  * can only match at a position within a match, so only those positions are checked for them,
+  * or the value is scanned again by a regular expression compiled by RE2J, which can't match at a
+  * position with the text before it as context. A value without a match is only scanned once.
+  */
+class MultiRegexOpExec(val opDesc: MultiRegexOpDesc) extends FlatMapOpExec {
+  val compiledRegexes: Array[CompiledRegex] = opDesc.regexes
+    .map(regex => CompiledRegex.compile(regex, opDesc.caseInsensitive, opDesc.linearTime))
+    .toArray
+
+  // the ids of the regexes that are combined, and the other regexes, which are matched on every value
+  val (combinedIds, uncombinedIds) = opDesc.regexes.indices.partition(id =>
+    !MultiRegexOpExec.BACK_REFERENCE.matcher(opDesc.regexes(id)).find
+  )
+
+  // the combined regex and the group number of each combined regex in it
+  val combinedRegex: Option[(CompiledRegex, Array[Int])] =
+    if (combinedIds.size < 2) {
+      None
+    } else {
+      try {
+        val regex = CompiledRegex.compile(
+          combinedIds.map(id => "(" + opDesc.regexes(id) + ")").mkString("|"),
+          opDesc.caseInsensitive,
+          opDesc.linearTime
+        )
+        // a regex is numbered after the groups (and inner groups) of the regexes before it
+        val groups = combinedIds
+          .map(id => Pattern.compile(opDesc.regexes(id)).matcher("").groupCount + 1)
+          .scanLeft(1)(_ + _)
+          .init
+          .toArray
+        Some((regex, groups))
+      } catch {
+        // for example, a group name used by two regexes, the regexes are matched one by one
+        case _: PatternSyntaxException => None
+      }
+    }
+
+  // the regexes compiled by java.util.regex, which are matched at the positions within the matches
+  val anchoredPatterns: Array[Option[Pattern]] = opDesc.regexes.indices
+    .map(id =>
+      if (compiledRegexes(id).isLinearTime) None
+      else {
+        val flags = if (opDesc.caseInsensitive) Pattern.CASE_INSENSITIVE else 0
+        Some(Pattern.compile(opDesc.regexes(id), flags))
+      }
+    )
+    .toArray
+
+  this.setFlatMapFunc(this.matchRegexes)
+
+  def matchRegexes(tuple: Tuple): Iterator[Tuple] = {
+    val tupleValue = Option[Any](tuple.getField(opDesc.attribute)).map(x => x.toString)
+    if (tupleValue.isEmpty) {
+      return Iterator()
+    }
+    findMatchingIds(tupleValue.get).iterator
+      .map(id =>
+        Tuple.newBuilder
+          .add(tuple)
+          .add(opDesc.resultAttribute, AttributeType.INTEGER, Int.box(id))
+          .build
+      )
+  }
+
+  /**
+    * Finds the ids of the regular expressions that match the value, in ascending order.
+    */
+  def findMatchingIds(value: String): Seq[Int] = {
+    if (combinedRegex.isEmpty) {
+      return compiledRegexes.indices.filter(id => compiledRegexes(id).find(value))
+    }
+    val (regex, groups) = combinedRegex.get
+    val matched = new Array[Boolean](compiledRegexes.length)
+    // the [start, end) positions of the matches of the combined regex
+    val spans = mutable.ArrayBuffer[(Int, Int)]()
+    regex.findAllGroups(
+      value,
+      new CompiledRegex.GroupMatchCallback {
+        override def onMatch(start: Int, end: Int, groupStarts: Array[Int]): Unit = {
+          spans += ((start, end))
+          val index = groups.indexWhere(group => groupStarts(group) >= 0)
+          if (index >= 0) {
+            matched(combinedIds(index)) = true
+          }
+        }
+      }
+    )
+    if (spans.nonEmpty) {
+      combinedIds
+        .filter(id => !matched(id))
+        .foreach(id =>
+          matched(id) = anchoredPatterns(id) match {
+            case Some(pattern) => matchesWithinSpans(pattern, value, spans)
+            case None          => compiledRegexes(id).find(value)
+          }
+        )
+    }
+    uncombinedIds.foreach(id => matched(id) = compiledRegexes(id).find(value))
+    compiledRegexes.indices.filter(id => matched(id))
+  }
+
+  /*
+   * Checks if the pattern matches at a position within a span, or at the start of an empty span,
+   * with the text around the position as its context (for example, for "^" or a look-behind).
+   */
+  private def matchesWithinSpans(
+      pattern: Pattern,
+      value: String,
+      spans: Seq[(Int, Int)]
+  ): Boolean = {
+    val matcher = pattern.matcher(value).useTransparentBounds(true).useAnchoringBounds(false)
+    spans.exists {
+      case (start, end) =>
+        (start until math.max(end, start + 1)).exists(position =>
+          matcher.region(position, value.length).lookingAt()
+        )
+    }
+  }
+
+}
@@ -28,6 +28,13 @@ class RegexOpDesc extends FilterOpDesc {
   @JsonPropertyDescription("whether the regular expression match is case insensitive")
   var caseInsensitive: Boolean = _
 
+  @JsonProperty(required = false, defaultValue = "false")
+  @JsonSchemaTitle("Linear Time")
+  @JsonPropertyDescription(
+    "whether the regular expression is matched in linear time by RE2J, if RE2J supports it"
+  )
+  var linearTime: Boolean = _
+
   override def operatorExecutor: OneToOneOpExecConfig = {
     new OneToOneOpExecConfig(this.operatorIdentifier, _ => new RegexOpExec(this))
   }
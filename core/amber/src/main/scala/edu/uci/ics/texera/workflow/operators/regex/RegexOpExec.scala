@@ -1,14 +1,25 @@
 package edu.uci.ics.texera.workflow.operators.regex
 
-import java.util.regex.Pattern
-
 import edu.uci.ics.texera.workflow.common.operators.filter.FilterOpExec
 import edu.uci.ics.texera.workflow.common.tuple.Tuple
 
+object RegexOpExec {
+
+  /**
+    * Compiles the regex into a function that finds the regex in a string.
+    * If linearTime is true, the regex is matched by RE2J, which is automaton-based and matches
+    * in linear time, as long as RE2J finds the same matches as java.util.regex,
+    * otherwise by java.util.regex (see CompiledRegex).
+    */
+  def compile(regex: String, caseInsensitive: Boolean, linearTime: Boolean): String => Boolean = {
+    val compiledRegex = CompiledRegex.compile(regex, caseInsensitive, linearTime)
+    value => compiledRegex.find(value)
+  }
+}
+
 class RegexOpExec(val opDesc: RegexOpDesc) extends FilterOpExec {
-  val pattern: Pattern =
-    if (opDesc.caseInsensitive) Pattern.compile(opDesc.regex, Pattern.CASE_INSENSITIVE)
-    else Pattern.compile(opDesc.regex)
+  val find: String => Boolean =
+    RegexOpExec.compile(opDesc.regex, opDesc.caseInsensitive, opDesc.linearTime)
   this.setFilterFunc(this.matchRegex)
 
   def matchRegex(tuple: Tuple): Boolean = {
@@ -16,7 +27,7 @@ class RegexOpExec(val opDesc: RegexOpDesc) extends FilterOpExec {
     if (tupleValue.isEmpty)
       false
     else
-      pattern.matcher(tupleValue.get).find
+      find(tupleValue.get)
   }
 
 }
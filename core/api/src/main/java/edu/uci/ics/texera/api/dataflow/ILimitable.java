@@ -0,0 +1,16 @@
+package edu.uci.ics.texera.api.dataflow;
+
+/**
+ * ILimitable is implemented by the operators that can stop producing tuples after a limit,
+ *   an operator that only needs the first tuples of its input can push a limit down to the input through it
+ *   (see AbstractSingleInputOperator.isLimitPushDownAllowed()).
+ *
+ * The limit must be set before the operator is opened.
+ */
+public interface ILimitable extends IOperator {
+
+    void setLimit(int limit);
+
+    int getLimit();
+
+}
@@ -1,5 +1,8 @@
 package edu.uci.ics.texera.api.dataflow;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
@@ -11,10 +14,35 @@ public interface IOperator {
 
     static final int CLOSED = -1;
     static final int OPENED = 0;
+    
+    // the batch size used by the operators that pull their input in batches
+    static final int DEFAULT_BATCH_SIZE = 256;
 
     void open() throws TexeraException;
 
     Tuple getNextTuple() throws TexeraException;
+    
+    /**
+     * Gets the next batch of tuples, at most maxSize tuples are returned.
+     * It returns an empty list if there are no more tuples. 
+     * 
+     * Calls to getNextTuple() and getNextBatch() can be mixed, they consume the same stream of tuples.
+     * By default the batch is collected by calling getNextTuple(), operators that can produce tuples 
+     *   in batches (for example, DataReader and AbstractSingleInputOperator) override it to 
+     *   amortize the per-tuple calls and checks over the batch.
+     * 
+     * @param maxSize, the maximum number of tuples in the batch, must be positive
+     * @return the next tuples, an empty list if there are no more tuples
+     * @throws TexeraException
+     */
+    default List<Tuple> getNextBatch(int maxSize) throws TexeraException {
+        List<Tuple> batch = new ArrayList<>(Math.min(maxSize, DEFAULT_BATCH_SIZE));
+        Tuple tuple;
+        while (batch.size() < maxSize && (tuple = getNextTuple()) != null) {
+            batch.add(tuple);
+        }
+        return batch;
+    }
 
     void close() throws TexeraException;
 
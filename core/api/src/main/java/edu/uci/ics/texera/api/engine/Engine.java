@@ -3,7 +3,10 @@ package edu.uci.ics.texera.api.engine;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISink;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by chenli on 5/11/16.
@@ -27,8 +30,26 @@ public class Engine {
     }
 
     public void evaluate(Plan plan) throws TexeraException {
+        evaluate(plan, false);
+    }
+
+    /**
+     * Evaluates a plan by opening, draining and closing each of its sinks.
+     * 
+     * In parallel mode every sink runs on its own thread, and the call returns when all the sinks are done.
+     * The sinks sharing a part of the plan read it through the (synchronized) OneToNBroadcastConnector.
+     * The first error thrown by a sink is thrown after all the sinks are done.
+     * 
+     * @param plan, the plan to evaluate
+     * @param parallel, if the sinks are evaluated concurrently
+     * @throws TexeraException
+     */
+    public void evaluate(Plan plan, boolean parallel) throws TexeraException {
         HashMap<String, ISink> sinkMap = plan.getSinkMap();
-        if (sinkMap != null) {
+        if (sinkMap == null) {
+            return;
+        }
+        if (! parallel || sinkMap.size() <= 1) {
             ISink root;
             for (HashMap.Entry<String, ISink> entry : sinkMap.entrySet()) {
                 root = entry.getValue();
@@ -36,10 +57,49 @@ public class Engine {
                 root.processTuples();
                 root.close();
             }
-
+            return;
         }
 
+        AtomicReference<Throwable> sinkError = new AtomicReference<>();
+        List<Thread> sinkThreads = new ArrayList<>();
+        for (HashMap.Entry<String, ISink> entry : sinkMap.entrySet()) {
+            ISink root = entry.getValue();
+            Thread sinkThread = new Thread(() -> evaluateSink(root, sinkError), "texera-engine-sink-" + entry.getKey());
+            sinkThread.setDaemon(true);
+            sinkThread.start();
+            sinkThreads.add(sinkThread);
+        }
+        try {
+            for (Thread sinkThread : sinkThreads) {
+                sinkThread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TexeraException(e.getMessage(), e);
+        }
+        Throwable error = sinkError.get();
+        if (error instanceof TexeraException) {
+            throw (TexeraException) error;
+        } else if (error != null) {
+            throw new TexeraException(error.getMessage(), error);
+        }
     }
 
-    ;
+    /*
+     * Runs a sink on the current thread, the sink is always closed.
+     */
+    private static void evaluateSink(ISink root, AtomicReference<Throwable> sinkError) {
+        try {
+            root.open();
+            root.processTuples();
+        } catch (Throwable e) {
+            sinkError.compareAndSet(null, e);
+        } finally {
+            try {
+                root.close();
+            } catch (Throwable e) {
+                sinkError.compareAndSet(null, e);
+            }
+        }
+    }
 }
@@ -14,7 +14,7 @@ import edu.uci.ics.texera.api.constants.JsonConstants;
 @JsonDeserialize(using = ListFieldJsonDeserializer.class)
 public class ListField<T> implements IField {
 
-    private ImmutableList<T> list;
+    private List<T> list;
 
     @JsonCreator
     public ListField(
@@ -22,6 +22,22 @@ public class ListField<T> implements IField {
             List<T> list) {
         this.list = ImmutableList.copyOf(list);
     }
+    
+    private ListField(List<T> list, boolean copy) {
+        this.list = copy ? ImmutableList.copyOf(list) : list;
+    }
+    
+    /**
+     * Creates a ListField without copying the list. 
+     * This allows a list whose elements are computed lazily, the list must be unmodifiable.
+     * 
+     * @param unmodifiableList
+     * @return a ListField backed by the list
+     */
+    public static <T> ListField<T> wrap(List<T> unmodifiableList) {
+        checkNotNull(unmodifiableList);
+        return new ListField<T>(unmodifiableList, false);
+    }
 
     @Override
     public List<T> getValue() {
@@ -0,0 +1,351 @@
+package edu.uci.ics.texera.api.span;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ColumnarSpanList is an immutable list of spans stored in columns of primitive arrays,
+ *   instead of one Span object (with its key and value strings) per span.
+ *
+ * The start, end and token offset of every span are int arrays,
+ *   the attribute name and the key of a span are ids into tables of the distinct attribute names and keys,
+ *   the value of a span is the substring of the field value of its attribute, which is only created when it's accessed.
+ * A value that isn't the substring of the field value (or without a field value) is stored as it is.
+ *
+ * get() creates a Span object, operators that go through many spans (for example, the payload)
+ *   should use the getters of the columns (getStart(), getKey(), ...) instead.
+ * A ListField of a ColumnarSpanList should be created by ListField.wrap(), which doesn't copy the spans.
+ *
+ */
+public class ColumnarSpanList extends AbstractList<Span> {
+
+    private static final ColumnarSpanList EMPTY_LIST = new Builder().build();
+
+    // stored in place of a null value, which is different from a value that is the substring of the field value
+    private static final String NULL_VALUE = new String();
+
+    private final int size;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] tokenOffsets;
+    private final int[] attributeIds;
+    private final int[] keyIds;
+    // the values which are not the substrings of the field values, null if there isn't any
+    private final String[] values;
+
+    // the distinct attribute names and their field values (null if unknown), indexed by the attribute id
+    private final String[] attributeNames;
+    private final String[] fieldValues;
+    // the distinct keys, indexed by the key id
+    private final String[] keys;
+
+    private ColumnarSpanList(Builder builder) {
+        this.size = builder.size;
+        this.starts = Arrays.copyOf(builder.starts, size);
+        this.ends = Arrays.copyOf(builder.ends, size);
+        this.tokenOffsets = Arrays.copyOf(builder.tokenOffsets, size);
+        this.attributeIds = Arrays.copyOf(builder.attributeIds, size);
+        this.keyIds = Arrays.copyOf(builder.keyIds, size);
+        this.values = builder.values == null ? null : Arrays.copyOf(builder.values, size);
+        this.attributeNames = builder.attributeNames.toArray(new String[builder.attributeNames.size()]);
+        this.fieldValues = builder.fieldValues.toArray(new String[builder.fieldValues.size()]);
+        this.keys = builder.keys.toArray(new String[builder.keys.size()]);
+    }
+
+    public static ColumnarSpanList emptyList() {
+        return EMPTY_LIST;
+    }
+
+    /**
+     * Gets a list of spans as a ColumnarSpanList, the list is copied if it's not a ColumnarSpanList.
+     *
+     * @param spanList
+     * @return the ColumnarSpanList of the spans
+     */
+    public static ColumnarSpanList of(List<Span> spanList) {
+        if (spanList instanceof ColumnarSpanList) {
+            return (ColumnarSpanList) spanList;
+        }
+        return new Builder().addAll(spanList).build();
+    }
+
+    @Override
+    public Span get(int index) {
+        checkIndex(index);
+        return new Span(attributeNames[attributeIds[index]], starts[index], ends[index], keys[keyIds[index]],
+                getValue(index), tokenOffsets[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public String getAttributeName(int index) {
+        checkIndex(index);
+        return attributeNames[attributeIds[index]];
+    }
+
+    /**
+     * Gets the id of the attribute of a span, which is the same for all the spans of an attribute in this list.
+     *
+     * @param index
+     * @return the attribute id
+     */
+    public int getAttributeId(int index) {
+        checkIndex(index);
+        return attributeIds[index];
+    }
+
+    /**
+     * @param attributeName
+     * @return the id of the attribute in this list, or -1 if the attribute is not in the list
+     */
+    public int getAttributeIdOf(String attributeName) {
+        for (int i = 0; i < attributeNames.length; i++) {
+            if (Objects.equals(attributeNames[i], attributeName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getStart(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    public String getKey(int index) {
+        checkIndex(index);
+        return keys[keyIds[index]];
+    }
+
+    /**
+     * Gets the value of a span, the substring of the field value is created on every call.
+     *
+     * @param index
+     * @return the value of the span
+     */
+    public String getValue(int index) {
+        checkIndex(index);
+        if (values != null && values[index] != null) {
+            return values[index] == NULL_VALUE ? null : values[index];
+        }
+        return fieldValues[attributeIds[index]].substring(starts[index], ends[index]);
+    }
+
+    public int getTokenOffset(int index) {
+        checkIndex(index);
+        return tokenOffsets[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Builder of a ColumnarSpanList.
+     *
+     * The field value of an attribute should be set before its spans are added,
+     *   so that the values of the spans are not stored.
+     */
+    public static class Builder {
+
+        private int size = 0;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int[] tokenOffsets = new int[8];
+        private int[] attributeIds = new int[8];
+        private int[] keyIds = new int[8];
+        private String[] values = null;
+
+        private final List<String> attributeNames = new ArrayList<>();
+        private final List<String> fieldValues = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final Map<String, Integer> keyIdMap = new HashMap<>();
+
+        public Builder() {
+        }
+
+        /**
+         * Sets the field value of an attribute, the values of its spans are the substrings of the field value.
+         *
+         * @param attributeName
+         * @param fieldValue
+         * @return this builder
+         */
+        public Builder setFieldValue(String attributeName, String fieldValue) {
+            int attributeId = getAttributeId(attributeName);
+            String previousFieldValue = fieldValues.get(attributeId);
+            if (previousFieldValue != null && ! previousFieldValue.equals(fieldValue)) {
+                throw new IllegalArgumentException(
+                        String.format("attribute %s already has a different field value", attributeName));
+            }
+            fieldValues.set(attributeId, fieldValue);
+            return this;
+        }
+
+        /**
+         * Adds a span whose value is the substring of the field value of its attribute,
+         *   which must be set by setFieldValue() first.
+         *
+         * @return this builder
+         */
+        public Builder add(String attributeName, int start, int end, String key, int tokenOffset) {
+            int attributeId = getAttributeId(attributeName);
+            if (fieldValues.get(attributeId) == null) {
+                throw new IllegalArgumentException(
+                        String.format("the field value of attribute %s is not set", attributeName));
+            }
+            addSpan(attributeId, start, end, getKeyId(key), null, tokenOffset);
+            return this;
+        }
+
+        /**
+         * Adds a span, its value is only stored if it's not the substring of the field value of its attribute.
+         *
+         * @return this builder
+         */
+        public Builder add(String attributeName, int start, int end, String key, String value, int tokenOffset) {
+            int attributeId = getAttributeId(attributeName);
+            String storedValue;
+            if (value == null) {
+                storedValue = NULL_VALUE;
+            } else {
+                storedValue = isSubstring(attributeId, start, end, value) ? null : value;
+            }
+            addSpan(attributeId, start, end, getKeyId(key), storedValue, tokenOffset);
+            return this;
+        }
+
+        public Builder add(Span span) {
+            return add(span.getAttributeName(), span.getStart(), span.getEnd(), span.getKey(), span.getValue(),
+                    span.getTokenOffset());
+        }
+
+        /**
+         * Adds the span at an index of a ColumnarSpanList, without creating a Span object.
+         *
+         * @param spanList
+         * @param index
+         * @return this builder
+         */
+        public Builder add(ColumnarSpanList spanList, int index) {
+            spanList.checkIndex(index);
+            int fromAttributeId = spanList.attributeIds[index];
+            int attributeId = getAttributeId(spanList.attributeNames[fromAttributeId]);
+            int start = spanList.starts[index];
+            int end = spanList.ends[index];
+            String value = spanList.values == null ? null : spanList.values[index];
+            if (value == null) {
+                String fromFieldValue = spanList.fieldValues[fromAttributeId];
+                if (fieldValues.get(attributeId) == null) {
+                    fieldValues.set(attributeId, fromFieldValue);
+                } else if (! fieldValues.get(attributeId).equals(fromFieldValue)) {
+                    value = fromFieldValue.substring(start, end);
+                }
+            } else if (value != NULL_VALUE && isSubstring(attributeId, start, end, value)) {
+                value = null;
+            }
+            addSpan(attributeId, start, end, getKeyId(spanList.keys[spanList.keyIds[index]]), value,
+                    spanList.tokenOffsets[index]);
+            return this;
+        }
+
+        public Builder addAll(List<Span> spanList) {
+            if (spanList instanceof ColumnarSpanList) {
+                ColumnarSpanList columnarSpanList = (ColumnarSpanList) spanList;
+                for (int i = 0; i < columnarSpanList.size(); i++) {
+                    add(columnarSpanList, i);
+                }
+            } else {
+                for (Span span : spanList) {
+                    add(span);
+                }
+            }
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public ColumnarSpanList build() {
+            return new ColumnarSpanList(this);
+        }
+
+        private int getAttributeId(String attributeName) {
+            // a list has the spans of a few attributes, so they are searched linearly
+            for (int i = 0; i < attributeNames.size(); i++) {
+                if (Objects.equals(attributeNames.get(i), attributeName)) {
+                    return i;
+                }
+            }
+            attributeNames.add(attributeName);
+            fieldValues.add(null);
+            return attributeNames.size() - 1;
+        }
+
+        private int getKeyId(String key) {
+            Integer keyId = keyIdMap.get(key);
+            if (keyId == null) {
+                keyId = keys.size();
+                keyIdMap.put(key, keyId);
+                keys.add(key);
+            }
+            return keyId;
+        }
+
+        /*
+         * Checks if the value is the substring of the field value of the attribute from start to end.
+         */
+        private boolean isSubstring(int attributeId, int start, int end, String value) {
+            String fieldValue = fieldValues.get(attributeId);
+            return fieldValue != null && start >= 0 && end <= fieldValue.length()
+                    && value.length() == end - start && fieldValue.regionMatches(start, value, 0, value.length());
+        }
+
+        private void addSpan(int attributeId, int start, int end, int keyId, String value, int tokenOffset) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                tokenOffsets = Arrays.copyOf(tokenOffsets, capacity);
+                attributeIds = Arrays.copyOf(attributeIds, capacity);
+                keyIds = Arrays.copyOf(keyIds, capacity);
+                if (values != null) {
+                    values = Arrays.copyOf(values, capacity);
+                }
+            }
+            if (value != null && values == null) {
+                values = new String[starts.length];
+            }
+            starts[size] = start;
+            ends[size] = end;
+            tokenOffsets[size] = tokenOffset;
+            attributeIds[size] = attributeId;
+            keyIds[size] = keyId;
+            if (values != null) {
+                values[size] = value;
+            }
+            size++;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package edu.uci.ics.texera.api.span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnarSpanListTest {
+
+    private static final String FIELD_VALUE = "the quick brown fox jumps over the lazy dog";
+
+    /*
+     * Test that the spans of a ColumnarSpanList are the same as the spans added to it,
+     *   and the values are the substrings of the field value.
+     */
+    @Test
+    public void testSameSpans() {
+        List<Span> expectedSpans = Arrays.asList(
+                new Span("description", 4, 9, "quick", "quick", 1),
+                new Span("description", 31, 34, "the", "the", 6),
+                new Span("description", 0, 3, "the", "the", 0),
+                new Span("name", 0, 4, "name", "Bob", Span.INVALID_TOKEN_OFFSET),
+                new Span("description", 10, 15, "brown", "BROWN", 2),
+                new Span("description", 16, 19, "fox", null, 3));
+
+        ColumnarSpanList.Builder builder = new ColumnarSpanList.Builder();
+        builder.setFieldValue("description", FIELD_VALUE);
+        builder.addAll(expectedSpans);
+        ColumnarSpanList spanList = builder.build();
+
+        Assert.assertEquals(expectedSpans, spanList);
+        Assert.assertEquals(spanList, new ArrayList<>(expectedSpans));
+        Assert.assertEquals(expectedSpans.hashCode(), spanList.hashCode());
+        for (int i = 0; i < expectedSpans.size(); i++) {
+            Span span = expectedSpans.get(i);
+            Assert.assertEquals(span.getAttributeName(), spanList.getAttributeName(i));
+            Assert.assertEquals(span.getStart(), spanList.getStart(i));
+            Assert.assertEquals(span.getEnd(), spanList.getEnd(i));
+            Assert.assertEquals(span.getKey(), spanList.getKey(i));
+            Assert.assertEquals(span.getValue(), spanList.getValue(i));
+            Assert.assertEquals(span.getTokenOffset(), spanList.getTokenOffset(i));
+        }
+
+        // the keys are shared by the spans
+        Assert.assertSame(spanList.getKey(1), spanList.getKey(2));
+        Assert.assertEquals(spanList.getAttributeId(0), spanList.getAttributeIdOf("description"));
+        Assert.assertEquals(spanList.getAttributeId(3), spanList.getAttributeIdOf("name"));
+        Assert.assertEquals(-1, spanList.getAttributeIdOf("content"));
+    }
+
+    /*
+     * Test adding the spans of other ColumnarSpanLists, and converting a list of spans.
+     */
+    @Test
+    public void testAddSpanLists() {
+        ColumnarSpanList.Builder builder1 = new ColumnarSpanList.Builder();
+        builder1.setFieldValue("description", FIELD_VALUE);
+        builder1.add("description", 4, 9, "quick", 1);
+        ColumnarSpanList spanList1 = builder1.build();
+
+        ColumnarSpanList.Builder builder2 = new ColumnarSpanList.Builder();
+        builder2.setFieldValue("content", "lazy dog");
+        builder2.add("content", 5, 8, "dog", 1);
+        ColumnarSpanList spanList2 = builder2.build();
+
+        ColumnarSpanList spanList = new ColumnarSpanList.Builder().addAll(spanList1).addAll(spanList2).build();
+        Assert.assertEquals(Arrays.asList(new Span("description", 4, 9, "quick", "quick", 1),
+                new Span("content", 5, 8, "dog", "dog", 1)), spanList);
+
+        // the same attribute with a different field value keeps the values
+        ColumnarSpanList.Builder builder3 = new ColumnarSpanList.Builder();
+        builder3.setFieldValue("description", "lazy dog");
+        builder3.add("description", 5, 8, "dog", 1);
+        spanList = new ColumnarSpanList.Builder().addAll(spanList1).addAll(builder3.build()).build();
+        Assert.assertEquals("quick", spanList.getValue(0));
+        Assert.assertEquals("dog", spanList.getValue(1));
+
+        List<Span> spans = new ArrayList<>(spanList);
+        Assert.assertEquals(spanList, ColumnarSpanList.of(spans));
+        Assert.assertSame(spanList, ColumnarSpanList.of(spanList));
+        Assert.assertTrue(ColumnarSpanList.emptyList().isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        ColumnarSpanList.Builder builder = new ColumnarSpanList.Builder();
+        builder.setFieldValue("description", FIELD_VALUE);
+        builder.add("description", 4, 9, "quick", 1);
+        builder.build().add(new Span("description", 0, 3, "the", "the", 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFieldValueNotSet() {
+        new ColumnarSpanList.Builder().add("description", 4, 9, "quick", 1);
+    }
+
+}
@@ -3,8 +3,6 @@
  */
 package edu.uci.ics.texera.dataflow.aggregator;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -12,8 +10,6 @@ import java.util.List;
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.exception.TexeraException;
-import edu.uci.ics.texera.api.field.*;
-import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.schema.Schema.Builder;
@@ -27,25 +23,35 @@ import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
  * aggregations at a time i.e. MIN on a attribute A and SUM on attribute B. This is supported as AggregatorPredicate accepts a list of aggregations as
  * input.
  *
+ * The aggregations can be grouped by a list of attributes (of type DateField, DateTimeField, IntegerField, DoubleField, TextField, StringField),
+ * then there is one result tuple for each group, which has the group-by attributes followed by the aggregations. The groups are aggregated
+ * by a HashAggregationTable, which spills the groups to temporary files when there are more than maxGroupsInMemory groups.
+ *
  * @author avinash
  */
 public class Aggregator extends AbstractSingleInputOperator {
+    public static final int DEFAULT_MAX_GROUPS_IN_MEMORY = 1000000;
+
     private final AggregatorPredicate predicate;
+    private final int maxGroupsInMemory;
 
     private Schema inputSchema;
 
-    private int rowsCount = 0;
+    private HashAggregationTable aggregationTable = null;
 
     public Aggregator(AggregatorPredicate predicate) {
-        this.predicate = predicate;
+        this(predicate, DEFAULT_MAX_GROUPS_IN_MEMORY);
     }
 
-    private int getRowsCount() {
-        return rowsCount;
-    }
-
-    private void incrementRowsProcessed() {
-        rowsCount++;
+    /**
+     * Creates an Aggregator which spills the groups to temporary files when there are more than maxGroupsInMemory groups.
+     *
+     * @param predicate
+     * @param maxGroupsInMemory
+     */
+    public Aggregator(AggregatorPredicate predicate, int maxGroupsInMemory) {
+        this.predicate = predicate;
+        this.maxGroupsInMemory = maxGroupsInMemory;
     }
 
     /***
@@ -97,6 +103,15 @@ public class Aggregator extends AbstractSingleInputOperator {
             }
         }
 
+        for (String groupByAttributeName : predicate.getGroupByAttributeNames()) {
+            Schema.checkAttributeExists(inputSchema, groupByAttributeName);
+            AttributeType groupByType = inputSchema.getAttribute(groupByAttributeName).getType();
+            if (!Arrays.asList(AttributeType.DATETIME, AttributeType.DATE, AttributeType.STRING, AttributeType.TEXT, AttributeType.INTEGER, AttributeType.DOUBLE).contains(groupByType)) {
+                throw new TexeraException(
+                        AggregatorErrorMessages.ATTRIBUTE_TYPE_NOT_FIT_FOR_GROUP_BY(groupByAttributeName, groupByType.toString()));
+            }
+        }
+
         outputSchema = transformToOutputSchema(inputSchema);
     }
 
@@ -106,6 +121,9 @@ public class Aggregator extends AbstractSingleInputOperator {
 
         List<AggregationAttributeAndResult> aggregationItems = predicate.getAttributeAggregateResultList();
         Builder schemaBuilder = new Schema.Builder();
+        for (String groupByAttributeName : predicate.getGroupByAttributeNames()) {
+            schemaBuilder = schemaBuilder.add(inputSchema[0].getAttribute(groupByAttributeName));
+        }
         for (AggregationAttributeAndResult aggregationItem : aggregationItems) {
             schemaBuilder = schemaBuilder.add(aggregationItem.getResultAttributeName(), inputSchema[0].getAttribute(aggregationItem.getAttributeName()).getType());
         }
@@ -115,156 +133,34 @@ public class Aggregator extends AbstractSingleInputOperator {
 
     @Override
     protected Tuple computeNextMatchingTuple() throws TexeraException {
-        if (cursor == CLOSED || cursor >= 1) {
+        if (cursor == CLOSED) {
             return null;
         }
-        Tuple resultTuple = null;
-        List<IField> aggregatedResults = processAllTuples(inputOperator);
-        resultTuple = putResultsIntoTuple(aggregatedResults);
-        cursor++;
-        return resultTuple;
+        if (aggregationTable == null) {
+            aggregationTable = processAllTuples(inputOperator);
+        }
+        return aggregationTable.getNextResult();
     }
 
     /**
-     * Processes all the tuples from input operator and generates the aggregations requested by the user. The aggregations
-     * are put in a list. As the tuples from input operator are processed, the aggregations are updated in the list.
+     * Processes all the tuples from input operator and generates the aggregations requested by the user. The tuples are read
+     * in batches and accumulated in a HashAggregationTable, which produces one result tuple for each group.
      * @param inputOperator
-     * @return List<IField>
+     * @return HashAggregationTable
      */
-    private List<IField> processAllTuples(IOperator inputOperator) {
-        Tuple inputTuple = inputOperator.getNextTuple();
-        List<IField> aggregatedResults = new ArrayList<IField>();
-        if (inputTuple != null) {
-            aggregatedResults = initializeResultFieldsList(inputTuple);
-            incrementRowsProcessed();
-        }
-
-        List<AggregationAttributeAndResult> aggregationItems = predicate.getAttributeAggregateResultList();
-
-        while ((inputTuple = inputOperator.getNextTuple()) != null) {
-            incrementRowsProcessed();
-
-            for (int i = 0; i < aggregationItems.size(); i++) {
-                IField field = inputTuple.getField(aggregationItems.get(i).getAttributeName());
-                Attribute inputAttr = inputSchema.getAttribute(aggregationItems.get(i).getAttributeName());
-
-                switch (aggregationItems.get(i).getAggregatorType()) {
-                    case MIN: {
-                        if (compare(field, aggregatedResults.get(i), inputAttr.getType()) < 0) {
-                            aggregatedResults.set(i, field);
-                        }
-                        break;
-                    }
-                    case MAX: {
-                        if (compare(field, aggregatedResults.get(i), inputAttr.getType()) > 0) {
-                            aggregatedResults.set(i, field);
-                        }
-                        break;
-                    }
-                    case AVERAGE:
-                    case SUM: {
-                        //We calculate sum and then at last divide it by totalRowsCount
-                        switch (inputAttr.getType()) {
-                            case INTEGER:
-                                aggregatedResults.set(i, new IntegerField((int) aggregatedResults.get(i).getValue() + (int) field.getValue()));
-                                break;
-                            case DOUBLE:
-                                aggregatedResults.set(i, new DoubleField((double) aggregatedResults.get(i).getValue() + (double) field.getValue()));
-                                break;
-                        }
-                        break;
-                    }
-                    case COUNT:
-                        aggregatedResults.set(i, new IntegerField((int) aggregatedResults.get(i).getValue() + 1));
-                        break;
-                }
+    private HashAggregationTable processAllTuples(IOperator inputOperator) {
+        HashAggregationTable table = new HashAggregationTable(inputSchema, predicate.getGroupByAttributeNames(),
+                predicate.getAttributeAggregateResultList(), maxGroupsInMemory);
+
+        List<Tuple> inputBatch;
+        while (! (inputBatch = inputOperator.getNextBatch(IOperator.DEFAULT_BATCH_SIZE)).isEmpty()) {
+            for (Tuple inputTuple : inputBatch) {
+                table.add(inputTuple);
             }
         }
+        table.finish();
 
-        return aggregatedResults;
-    }
-
-    /**
-     * Takes the aggregates generated after processing all the tuples and puts it into a Tuple which is sent to next operator.
-     * @param aggregatedResults
-     * @return Tuple
-     */
-    private Tuple putResultsIntoTuple(List<IField> aggregatedResults) {
-        Tuple.Builder tupleBuilder = new Tuple.Builder();
-
-        List<AggregationAttributeAndResult> aggregationItems = predicate.getAttributeAggregateResultList();
-        for (int i = 0; i < aggregationItems.size(); i++) {
-            Attribute inputAttr = inputSchema.getAttribute(aggregationItems.get(i).getAttributeName());
-            switch (aggregationItems.get(i).getAggregatorType()) {
-                case MIN:
-                case MAX:
-                case SUM: {
-                    tupleBuilder.add(aggregationItems.get(i).getResultAttributeName(), inputAttr.getType(), aggregatedResults.get(i));
-                    break;
-                }
-
-                case AVERAGE: {
-                    switch (inputAttr.getType()) {
-                        case INTEGER:
-                            tupleBuilder.add(aggregationItems.get(i).getResultAttributeName(), AttributeType.DOUBLE, new DoubleField(((int) aggregatedResults.get(i).getValue()) * 1.0 / getRowsCount() * 1.0));
-                            break;
-                        case DOUBLE:
-                            tupleBuilder.add(aggregationItems.get(i).getResultAttributeName(), AttributeType.DOUBLE, new DoubleField((double) aggregatedResults.get(i).getValue() / getRowsCount() * 1.0));
-                            break;
-                    }
-                    break;
-                }
-                case COUNT: {
-                    tupleBuilder.add(aggregationItems.get(i).getResultAttributeName(), AttributeType.INTEGER, aggregatedResults.get(i));
-                    break;
-                }
-            }
-        }
-
-        return tupleBuilder.build();
-    }
-
-    private int compare(IField a, IField b, AttributeType attrType) {
-        int retVal = 0;
-        switch (attrType) {
-            case INTEGER:
-                retVal = ((IntegerField) a).getValue().compareTo(((IntegerField) b).getValue());
-                break;
-            case DOUBLE:
-                retVal = ((DoubleField) a).getValue().compareTo(((DoubleField) b).getValue());
-                break;
-            case TEXT:
-                retVal = ((TextField) a).getValue().compareTo(((TextField) b).getValue());
-                break;
-            case STRING:
-                retVal = ((StringField) a).getValue().compareTo(((StringField) b).getValue());
-                break;
-            case DATE:
-                retVal = ((DateField) a).getValue().compareTo(((DateField) b).getValue());
-                break;
-            case DATETIME:
-                retVal = ((DateTimeField) a).getValue().compareTo(((DateTimeField) b).getValue());
-                break;
-        }
-
-        return retVal;
-    }
-
-    private List<IField> initializeResultFieldsList(Tuple firstTuple) {
-        List<IField> aggregatedResults = new ArrayList<IField>();
-
-        List<AggregationAttributeAndResult> aggregationItems = predicate.getAttributeAggregateResultList();
-
-        for (AggregationAttributeAndResult aggregationItem : aggregationItems) {
-            if (aggregationItem.getAggregatorType() == AggregationType.COUNT) {
-                aggregatedResults.add(new IntegerField(1));
-            } else {
-                IField fieldEntry = firstTuple.getField(aggregationItem.getAttributeName());
-                aggregatedResults.add(fieldEntry);
-            }
-        }
-
-        return aggregatedResults;
+        return table;
     }
 
     @Override
@@ -274,6 +170,10 @@ public class Aggregator extends AbstractSingleInputOperator {
 
     @Override
     protected void cleanUp() throws TexeraException {
+        if (aggregationTable != null) {
+            aggregationTable.close();
+            aggregationTable = null;
+        }
     }
 
     public AggregatorPredicate getPredicate() {
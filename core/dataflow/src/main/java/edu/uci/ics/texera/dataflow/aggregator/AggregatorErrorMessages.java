@@ -5,4 +5,8 @@ public class AggregatorErrorMessages {
     public static final String ATTRIBUTE_TYPE_NOT_FIT_FOR_AGGREGATION(String attributeName, String aggregationType) {
         return String.format("Attribute %s is not fit for aggregation of type %s", attributeName, aggregationType);
     }
+
+    public static final String ATTRIBUTE_TYPE_NOT_FIT_FOR_GROUP_BY(String attributeName, String attributeType) {
+        return String.format("Attribute %s of type %s can't be grouped by", attributeName, attributeType);
+    }
 }
@@ -0,0 +1,603 @@
+package edu.uci.ics.texera.dataflow.aggregator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.DoubleField;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * HashAggregationTable computes the aggregations of the Aggregator for every group of input tuples
+ *   (the tuples with the same values of the group-by attributes, or all the tuples if there are no group-by attributes).
+ *
+ * The groups are in a hash table, and the aggregations of a group are accumulated in primitive arrays
+ *   (long for INTEGER and COUNT, double for DOUBLE, indexed by group id), the result fields are only created at the end.
+ *   The positions of the attributes are resolved once, instead of looking up the schema for every tuple.
+ *
+ * When the number of groups exceeds maxGroupsInMemory, the partial aggregations of the groups are sorted by the group values
+ *   and spilled to a temporary file (a run), and the table is cleared. At the end, the runs are merged by the group values
+ *   and the partial aggregations of the same group are combined. The results are in the order the groups first appear
+ *   if nothing is spilled, otherwise they are in the order of the group values (a group value without a value first).
+ */
+public class HashAggregationTable {
+
+    /*
+     * How an aggregation is accumulated, resolved from the aggregation type and the attribute type.
+     */
+    private enum Accumulator {
+        COUNT, LONG_SUM, DOUBLE_SUM, LONG_MIN, LONG_MAX, DOUBLE_MIN, DOUBLE_MAX, FIELD_MIN, FIELD_MAX
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<AggregationAttributeAndResult> aggregationItems;
+    private final int maxGroupsInMemory;
+
+    private final int[] groupByIndexes;
+    private final String[] groupByNames;
+    private final AttributeType[] groupByTypes;
+    private final int[] itemIndexes;
+    private final AttributeType[] itemTypes;
+    private final Accumulator[] accumulators;
+
+    // the group id of the values of the group-by attributes
+    private final HashMap<List<Object>, Integer> groupIds = new HashMap<>();
+    // the group-by fields of a group, indexed by group id
+    private final List<IField[]> groupFields = new ArrayList<>();
+    private int capacity = INITIAL_CAPACITY;
+    private long[] rowCounts = new long[INITIAL_CAPACITY];
+    // the accumulators of the aggregations, indexed by aggregation item, then by group id,
+    //   only the array of the kind of an item (long, double or field) is allocated
+    private final long[][] longValues;
+    private final double[][] doubleValues;
+    private final IField[][] fieldValues;
+
+    private final List<Path> runFiles = new ArrayList<>();
+    // the readers of the runs by their next group values, null if nothing is spilled
+    private PriorityQueue<RunReader> mergeReaders = null;
+    // the next group in memory to be returned if nothing is spilled
+    private int resultCursor = 0;
+
+    /**
+     * Creates the table for the aggregations, the attributes and the aggregation types must have been checked.
+     *
+     * @param inputSchema, the schema of the input tuples
+     * @param groupByAttributeNames, the group-by attributes, an empty list if all the tuples are one group
+     * @param aggregationItems, the aggregations
+     * @param maxGroupsInMemory, the number of groups in memory above which the groups are spilled
+     */
+    public HashAggregationTable(Schema inputSchema, List<String> groupByAttributeNames,
+            List<AggregationAttributeAndResult> aggregationItems, int maxGroupsInMemory) {
+        this.aggregationItems = aggregationItems;
+        this.maxGroupsInMemory = Math.max(1, maxGroupsInMemory);
+
+        groupByIndexes = new int[groupByAttributeNames.size()];
+        groupByNames = new String[groupByAttributeNames.size()];
+        groupByTypes = new AttributeType[groupByAttributeNames.size()];
+        for (int i = 0; i < groupByAttributeNames.size(); i++) {
+            groupByIndexes[i] = inputSchema.getIndex(groupByAttributeNames.get(i));
+            groupByNames[i] = inputSchema.getAttributes().get(groupByIndexes[i]).getName();
+            groupByTypes[i] = inputSchema.getAttributes().get(groupByIndexes[i]).getType();
+        }
+
+        itemIndexes = new int[aggregationItems.size()];
+        itemTypes = new AttributeType[aggregationItems.size()];
+        accumulators = new Accumulator[aggregationItems.size()];
+        longValues = new long[aggregationItems.size()][];
+        doubleValues = new double[aggregationItems.size()][];
+        fieldValues = new IField[aggregationItems.size()][];
+        for (int i = 0; i < aggregationItems.size(); i++) {
+            itemIndexes[i] = inputSchema.getIndex(aggregationItems.get(i).getAttributeName());
+            itemTypes[i] = inputSchema.getAttributes().get(itemIndexes[i]).getType();
+            accumulators[i] = getAccumulator(aggregationItems.get(i).getAggregatorType(), itemTypes[i]);
+            switch (accumulators[i]) {
+                case DOUBLE_SUM:
+                case DOUBLE_MIN:
+                case DOUBLE_MAX:
+                    doubleValues[i] = new double[capacity];
+                    break;
+                case FIELD_MIN:
+                case FIELD_MAX:
+                    fieldValues[i] = new IField[capacity];
+                    break;
+                default:
+                    longValues[i] = new long[capacity];
+            }
+        }
+    }
+
+    private static Accumulator getAccumulator(AggregationType aggregationType, AttributeType attributeType) {
+        switch (aggregationType) {
+            case COUNT:
+                return Accumulator.COUNT;
+            case SUM:
+            case AVERAGE:
+                return attributeType == AttributeType.INTEGER ? Accumulator.LONG_SUM : Accumulator.DOUBLE_SUM;
+            case MIN:
+                return attributeType == AttributeType.INTEGER ? Accumulator.LONG_MIN
+                        : attributeType == AttributeType.DOUBLE ? Accumulator.DOUBLE_MIN : Accumulator.FIELD_MIN;
+            default:
+                return attributeType == AttributeType.INTEGER ? Accumulator.LONG_MAX
+                        : attributeType == AttributeType.DOUBLE ? Accumulator.DOUBLE_MAX : Accumulator.FIELD_MAX;
+        }
+    }
+
+    /**
+     * Accumulates an input tuple into the aggregations of its group.
+     *
+     * @param tuple
+     */
+    public void add(Tuple tuple) {
+        List<IField> fields = tuple.getFields();
+        Object[] groupValues = new Object[groupByIndexes.length];
+        for (int i = 0; i < groupByIndexes.length; i++) {
+            groupValues[i] = fields.get(groupByIndexes[i]).getValue();
+        }
+        List<Object> groupKey = Arrays.asList(groupValues);
+
+        Integer groupId = groupIds.get(groupKey);
+        if (groupId == null) {
+            if (groupIds.size() >= maxGroupsInMemory) {
+                spill();
+            }
+            groupId = newGroup(groupKey, fields);
+        }
+        accumulate(groupId, fields);
+    }
+
+    private int newGroup(List<Object> groupKey, List<IField> fields) {
+        int groupId = groupFields.size();
+        if (groupId == capacity) {
+            grow();
+        }
+        IField[] keyFields = new IField[groupByIndexes.length];
+        for (int i = 0; i < groupByIndexes.length; i++) {
+            keyFields[i] = fields.get(groupByIndexes[i]);
+        }
+        groupIds.put(groupKey, groupId);
+        groupFields.add(keyFields);
+        rowCounts[groupId] = 0;
+        return groupId;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        rowCounts = Arrays.copyOf(rowCounts, capacity);
+        for (int i = 0; i < accumulators.length; i++) {
+            if (longValues[i] != null) {
+                longValues[i] = Arrays.copyOf(longValues[i], capacity);
+            } else if (doubleValues[i] != null) {
+                doubleValues[i] = Arrays.copyOf(doubleValues[i], capacity);
+            } else {
+                fieldValues[i] = Arrays.copyOf(fieldValues[i], capacity);
+            }
+        }
+    }
+
+    /*
+     * Accumulates the fields of a tuple, the first tuple of a group initializes the minimums and maximums.
+     */
+    private void accumulate(int groupId, List<IField> fields) {
+        boolean first = rowCounts[groupId] == 0;
+        rowCounts[groupId]++;
+        for (int i = 0; i < accumulators.length; i++) {
+            switch (accumulators[i]) {
+                case COUNT:
+                    longValues[i][groupId] = first ? 1 : longValues[i][groupId] + 1;
+                    break;
+                case LONG_SUM:
+                    long longValue = (int) fields.get(itemIndexes[i]).getValue();
+                    longValues[i][groupId] = first ? longValue : longValues[i][groupId] + longValue;
+                    break;
+                case DOUBLE_SUM:
+                    double doubleValue = (double) fields.get(itemIndexes[i]).getValue();
+                    doubleValues[i][groupId] = first ? doubleValue : doubleValues[i][groupId] + doubleValue;
+                    break;
+                default:
+                    accumulateMinMax(i, groupId, fields.get(itemIndexes[i]), first);
+            }
+        }
+    }
+
+    private void accumulateMinMax(int item, int groupId, IField field, boolean first) {
+        switch (accumulators[item]) {
+            case LONG_MIN:
+            case LONG_MAX: {
+                long value = (int) field.getValue();
+                long current = longValues[item][groupId];
+                if (first || (accumulators[item] == Accumulator.LONG_MIN ? value < current : value > current)) {
+                    longValues[item][groupId] = value;
+                }
+                break;
+            }
+            case DOUBLE_MIN:
+            case DOUBLE_MAX: {
+                double value = (double) field.getValue();
+                int compare = Double.compare(value, doubleValues[item][groupId]);
+                if (first || (accumulators[item] == Accumulator.DOUBLE_MIN ? compare < 0 : compare > 0)) {
+                    doubleValues[item][groupId] = value;
+                }
+                break;
+            }
+            default: {
+                int compare = first ? 0 : compareValues(field.getValue(), fieldValues[item][groupId].getValue());
+                if (first || (accumulators[item] == Accumulator.FIELD_MIN ? compare < 0 : compare > 0)) {
+                    fieldValues[item][groupId] = field;
+                }
+            }
+        }
+    }
+
+    /*
+     * Combines the partial aggregations of a group read from a run into the group.
+     */
+    private void combine(int groupId, long rowCount, long[] longState, double[] doubleState, IField[] fieldState) {
+        boolean first = rowCounts[groupId] == 0;
+        rowCounts[groupId] += rowCount;
+        for (int i = 0; i < accumulators.length; i++) {
+            switch (accumulators[i]) {
+                case COUNT:
+                case LONG_SUM:
+                    longValues[i][groupId] = first ? longState[i] : longValues[i][groupId] + longState[i];
+                    break;
+                case DOUBLE_SUM:
+                    doubleValues[i][groupId] = first ? doubleState[i] : doubleValues[i][groupId] + doubleState[i];
+                    break;
+                case LONG_MIN:
+                case LONG_MAX:
+                    accumulateMinMax(i, groupId, new IntegerField((int) longState[i]), first);
+                    break;
+                case DOUBLE_MIN:
+                case DOUBLE_MAX:
+                    accumulateMinMax(i, groupId, new DoubleField(doubleState[i]), first);
+                    break;
+                default:
+                    accumulateMinMax(i, groupId, fieldState[i], first);
+            }
+        }
+    }
+
+    /**
+     * Finishes the input, the results are then read by getNextResult().
+     * If groups have been spilled, the groups in memory are spilled too, and the runs are opened to be merged.
+     */
+    public void finish() {
+        if (runFiles.isEmpty()) {
+            return;
+        }
+        spill();
+        mergeReaders = new PriorityQueue<>(
+                Comparator.comparing((RunReader reader) -> reader.keyFields, this::compareGroups));
+        try {
+            for (Path runFile : runFiles) {
+                RunReader reader = new RunReader(runFile);
+                if (reader.next()) {
+                    mergeReaders.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the result tuple of the next group: the group-by fields, then the aggregation results.
+     *
+     * @return the next result tuple, null if there are no more groups
+     */
+    public Tuple getNextResult() {
+        if (mergeReaders == null) {
+            if (resultCursor >= groupFields.size()) {
+                return null;
+            }
+            return buildResultTuple(resultCursor++);
+        }
+        try {
+            return mergeNextGroup();
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Creates the result fields of a group, the types of the results are the same as the Aggregator computed them before:
+     *   AVERAGE is DOUBLE, COUNT is INTEGER, others are the type of the attribute.
+     */
+    private Tuple buildResultTuple(int groupId) {
+        Tuple.Builder tupleBuilder = new Tuple.Builder();
+        IField[] keyFields = groupFields.get(groupId);
+        for (int i = 0; i < keyFields.length; i++) {
+            tupleBuilder.add(groupByNames[i], groupByTypes[i], keyFields[i]);
+        }
+        for (int i = 0; i < accumulators.length; i++) {
+            String resultAttributeName = aggregationItems.get(i).getResultAttributeName();
+            AggregationType aggregationType = aggregationItems.get(i).getAggregatorType();
+            switch (accumulators[i]) {
+                case COUNT:
+                    tupleBuilder.add(resultAttributeName, AttributeType.INTEGER, new IntegerField((int) longValues[i][groupId]));
+                    break;
+                case LONG_SUM:
+                    if (aggregationType == AggregationType.AVERAGE) {
+                        tupleBuilder.add(resultAttributeName, AttributeType.DOUBLE,
+                                new DoubleField(longValues[i][groupId] * 1.0 / rowCounts[groupId]));
+                    } else {
+                        tupleBuilder.add(resultAttributeName, AttributeType.INTEGER, new IntegerField((int) longValues[i][groupId]));
+                    }
+                    break;
+                case DOUBLE_SUM:
+                    if (aggregationType == AggregationType.AVERAGE) {
+                        tupleBuilder.add(resultAttributeName, AttributeType.DOUBLE,
+                                new DoubleField(doubleValues[i][groupId] / rowCounts[groupId]));
+                    } else {
+                        tupleBuilder.add(resultAttributeName, AttributeType.DOUBLE, new DoubleField(doubleValues[i][groupId]));
+                    }
+                    break;
+                case LONG_MIN:
+                case LONG_MAX:
+                    tupleBuilder.add(resultAttributeName, AttributeType.INTEGER, new IntegerField((int) longValues[i][groupId]));
+                    break;
+                case DOUBLE_MIN:
+                case DOUBLE_MAX:
+                    tupleBuilder.add(resultAttributeName, AttributeType.DOUBLE, new DoubleField(doubleValues[i][groupId]));
+                    break;
+                default:
+                    tupleBuilder.add(resultAttributeName, itemTypes[i], fieldValues[i][groupId]);
+            }
+        }
+        return tupleBuilder.build();
+    }
+
+    /*
+     * Sorts the groups in memory by the group values, writes them to a new run, and clears the table.
+     */
+    private void spill() {
+        if (groupFields.isEmpty()) {
+            return;
+        }
+        Integer[] sortedGroups = new Integer[groupFields.size()];
+        for (int i = 0; i < sortedGroups.length; i++) {
+            sortedGroups[i] = i;
+        }
+        Arrays.sort(sortedGroups, (group1, group2) -> compareGroups(groupFields.get(group1), groupFields.get(group2)));
+
+        try {
+            Path runFile = Files.createTempFile("texera-aggregation-", ".run");
+            runFiles.add(runFile);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(runFile)))) {
+                output.writeInt(sortedGroups.length);
+                for (int groupId : sortedGroups) {
+                    writeGroup(output, groupId);
+                }
+            }
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+
+        groupIds.clear();
+        groupFields.clear();
+    }
+
+    private void writeGroup(DataOutputStream output, int groupId) throws IOException {
+        IField[] keyFields = groupFields.get(groupId);
+        for (int i = 0; i < keyFields.length; i++) {
+            writeField(output, keyFields[i], groupByTypes[i]);
+        }
+        output.writeLong(rowCounts[groupId]);
+        for (int i = 0; i < accumulators.length; i++) {
+            if (longValues[i] != null) {
+                output.writeLong(longValues[i][groupId]);
+            } else if (doubleValues[i] != null) {
+                output.writeDouble(doubleValues[i][groupId]);
+            } else {
+                writeField(output, fieldValues[i][groupId], itemTypes[i]);
+            }
+        }
+    }
+
+    /*
+     * Combines the partial aggregations of the smallest group of the runs in group 0 of the cleared table.
+     */
+    private Tuple mergeNextGroup() throws IOException {
+        if (mergeReaders.isEmpty()) {
+            close();
+            return null;
+        }
+        IField[] keyFields = mergeReaders.peek().keyFields;
+        groupFields.clear();
+        groupFields.add(keyFields);
+        rowCounts[0] = 0;
+        while (! mergeReaders.isEmpty() && compareGroups(mergeReaders.peek().keyFields, keyFields) == 0) {
+            RunReader reader = mergeReaders.poll();
+            combine(0, reader.rowCount, reader.longState, reader.doubleState, reader.fieldState);
+            if (reader.next()) {
+                mergeReaders.add(reader);
+            } else {
+                reader.close();
+            }
+        }
+        return buildResultTuple(0);
+    }
+
+    /**
+     * Releases the groups, and deletes the temporary files of the runs.
+     */
+    public void close() {
+        groupIds.clear();
+        groupFields.clear();
+        try {
+            if (mergeReaders != null) {
+                for (RunReader reader : mergeReaders) {
+                    reader.close();
+                }
+                mergeReaders.clear();
+            }
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+        runFiles.clear();
+    }
+
+    public int getSpilledRunCount() {
+        return runFiles.size();
+    }
+
+    /*
+     * Reads the groups of a run in order.
+     */
+    private class RunReader {
+        private final DataInputStream input;
+        private int remainingGroups;
+
+        private IField[] keyFields;
+        private long rowCount;
+        private final long[] longState = new long[accumulators.length];
+        private final double[] doubleState = new double[accumulators.length];
+        private final IField[] fieldState = new IField[accumulators.length];
+
+        private RunReader(Path runFile) throws IOException {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile)));
+            remainingGroups = input.readInt();
+        }
+
+        private boolean next() throws IOException {
+            if (remainingGroups == 0) {
+                return false;
+            }
+            remainingGroups--;
+            keyFields = new IField[groupByTypes.length];
+            for (int i = 0; i < groupByTypes.length; i++) {
+                keyFields[i] = readField(input, groupByTypes[i]);
+            }
+            rowCount = input.readLong();
+            for (int i = 0; i < accumulators.length; i++) {
+                if (longValues[i] != null) {
+                    longState[i] = input.readLong();
+                } else if (doubleValues[i] != null) {
+                    doubleState[i] = input.readDouble();
+                } else {
+                    fieldState[i] = readField(input, itemTypes[i]);
+                }
+            }
+            return true;
+        }
+
+        private void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private int compareGroups(IField[] keyFields1, IField[] keyFields2) {
+        for (int i = 0; i < keyFields1.length; i++) {
+            int compare = compareValues(keyFields1[i].getValue(), keyFields2[i].getValue());
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * Compares two values of a field, null is smaller than any value.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        }
+        return ((Comparable) value1).compareTo(value2);
+    }
+
+    /*
+     * Writes if the field has a value, then the value.
+     */
+    private static void writeField(DataOutputStream output, IField field, AttributeType type) throws IOException {
+        output.writeBoolean(field.getValue() != null);
+        if (field.getValue() == null) {
+            return;
+        }
+        switch (type) {
+            case INTEGER:
+                output.writeInt((int) field.getValue());
+                break;
+            case DOUBLE:
+                output.writeDouble((double) field.getValue());
+                break;
+            default:
+                byte[] bytes = field.getValue().toString().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+        }
+    }
+
+    private static IField readField(DataInputStream input, AttributeType type) throws IOException {
+        if (! input.readBoolean()) {
+            return createNullField(type);
+        }
+        switch (type) {
+            case INTEGER:
+                return new IntegerField(input.readInt());
+            case DOUBLE:
+                return new DoubleField(input.readDouble());
+            default:
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                switch (type) {
+                    case TEXT:
+                        return new TextField(value);
+                    case DATE:
+                        return new DateField(LocalDate.parse(value));
+                    case DATETIME:
+                        return new DateTimeField(LocalDateTime.parse(value));
+                    default:
+                        return new StringField(value);
+                }
+        }
+    }
+
+    private static IField createNullField(AttributeType type) {
+        switch (type) {
+            case INTEGER:
+                return new IntegerField(null);
+            case DOUBLE:
+                return new DoubleField(null);
+            case TEXT:
+                return new TextField(null);
+            case DATE:
+                return new DateField((LocalDate) null);
+            case DATETIME:
+                return new DateTimeField((LocalDateTime) null);
+            default:
+                return new StringField(null);
+        }
+    }
+
+}
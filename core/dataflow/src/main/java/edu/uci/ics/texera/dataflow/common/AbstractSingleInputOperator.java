@@ -1,6 +1,10 @@
 package edu.uci.ics.texera.dataflow.common;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.ILimitable;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
@@ -18,11 +22,20 @@ import edu.uci.ics.texera.api.tuple.Tuple;
  *          It returns the next available matching tuple, null if there's no more match.
  * cleanUp(). It is called in close(). 
  *          Its purpose is to deallocates resources.
+ * 
+ * An operator that returns exactly one output tuple for every input tuple can override
+ *   isLimitPushDownAllowed() to push its limit and offset down to the input operator (if it's ILimitable).
+ *   The limit of the input operator is lowered only while this operator is open, it's restored on close.
+ * 
+ * getNextBatch() applies the limit and offset to a batch of tuples computed by computeNextMatchingBatch().
+ *   By default the batch is collected by calling computeNextMatchingTuple(), 
+ *   an operator that processes its input tuples independently can override computeNextMatchingBatch()
+ *   to call processNextInputBatch(), which reads the input operator in batches.
 
  * @author Zuozhi Wang (zuozhiw)
  *
  */
-public abstract class AbstractSingleInputOperator implements IOperator {
+public abstract class AbstractSingleInputOperator implements ILimitable {
     
     protected IOperator inputOperator;
     protected Schema outputSchema;
@@ -32,6 +45,10 @@ public abstract class AbstractSingleInputOperator implements IOperator {
     protected int limit = Integer.MAX_VALUE;
     protected int offset = 0;
     
+    // the input operator that the limit is pushed down to, and its own limit, which is restored on close
+    private ILimitable limitPushDownInput = null;
+    private int limitBeforePushDown;
+    
     @Override
     public void open() throws TexeraException {
         if (cursor != CLOSED) {
@@ -41,10 +58,14 @@ public abstract class AbstractSingleInputOperator implements IOperator {
             if (this.inputOperator == null) {
                 throw new DataflowException(ErrorMessages.INPUT_OPERATOR_NOT_SPECIFIED);
             }
+            if (isLimitPushDownAllowed()) {
+                pushDownLimit();
+            }
             inputOperator.open();
             setUp();
             
         } catch (Exception e) {
+            restoreInputLimit();
             throw new DataflowException(e.getMessage(), e);
         }
         cursor = OPENED;
@@ -83,6 +104,34 @@ public abstract class AbstractSingleInputOperator implements IOperator {
         }
     }
 
+    @Override
+    public List<Tuple> getNextBatch(int maxSize) throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        List<Tuple> resultBatch = new ArrayList<>();
+        try {
+            while (resultBatch.isEmpty()) {
+                // never compute more tuples than the limit and offset allow
+                long remaining = (long) limit + offset - cursor;
+                if (remaining <= 0) {
+                    break;
+                }
+                List<Tuple> matchingBatch = computeNextMatchingBatch((int) Math.min(maxSize, remaining));
+                if (matchingBatch.isEmpty()) {
+                    break;
+                }
+                // skip the tuples before the offset
+                int skipped = (int) Math.max(0, Math.min(matchingBatch.size(), (long) offset - cursor));
+                cursor += matchingBatch.size();
+                resultBatch = skipped == 0 ? matchingBatch : matchingBatch.subList(skipped, matchingBatch.size());
+            }
+            return resultBatch;
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
     /**
      * Give the input tuples, compute the next matching tuple. Return null if there's no more matching tuple.
      * 
@@ -91,6 +140,54 @@ public abstract class AbstractSingleInputOperator implements IOperator {
      */
     protected abstract Tuple computeNextMatchingTuple() throws TexeraException;
 
+    /**
+     * Computes the next batch of at most maxSize matching tuples. 
+     * It returns an empty list if there's no more matching tuple.
+     * 
+     * By default it calls computeNextMatchingTuple() until the batch is full.
+     * 
+     * @param maxSize, the maximum number of tuples in the batch
+     * @return the next matching tuples, an empty list if there's no more matching tuple
+     * @throws TexeraException
+     */
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        List<Tuple> batch = new ArrayList<>(Math.min(maxSize, DEFAULT_BATCH_SIZE));
+        Tuple resultTuple;
+        while (batch.size() < maxSize && (resultTuple = computeNextMatchingTuple()) != null) {
+            batch.add(resultTuple);
+        }
+        return batch;
+    }
+    
+    /**
+     * Reads the input operator in batches and calls processOneInputTuple() on every input tuple,
+     *   until at least one matching tuple is found or the input is exhausted.
+     * Since every input tuple produces at most one matching tuple, at most maxSize tuples are returned.
+     * 
+     * It can be used by the operators whose computeNextMatchingTuple() returns 
+     *   the first non-null result of processOneInputTuple() on the next input tuples.
+     * 
+     * @param maxSize, the maximum number of tuples in the batch
+     * @return the next matching tuples, an empty list if there's no more matching tuple
+     * @throws TexeraException
+     */
+    protected List<Tuple> processNextInputBatch(int maxSize) throws TexeraException {
+        List<Tuple> batch = new ArrayList<>();
+        while (batch.isEmpty()) {
+            List<Tuple> inputBatch = inputOperator.getNextBatch(maxSize);
+            if (inputBatch.isEmpty()) {
+                break;
+            }
+            for (Tuple inputTuple : inputBatch) {
+                Tuple resultTuple = processOneInputTuple(inputTuple);
+                if (resultTuple != null) {
+                    batch.add(resultTuple);
+                }
+            }
+        }
+        return batch;
+    }
+
     public abstract Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException;
 
     @Override
@@ -102,6 +199,7 @@ public abstract class AbstractSingleInputOperator implements IOperator {
             if (inputOperator != null) {
                 inputOperator.close();
             }
+            restoreInputLimit();
             cleanUp();
         } catch (Exception e) {
             throw new DataflowException(e.getMessage(), e);
@@ -110,6 +208,44 @@ public abstract class AbstractSingleInputOperator implements IOperator {
     }
     
     protected abstract void cleanUp() throws TexeraException;
+    
+    /**
+     * Returns true if the operator returns exactly one output tuple for every input tuple.
+     * In this case the input operator doesn't need to produce more than (limit + offset) tuples,
+     *   and the limit is pushed down to the input operator when this operator is opened.
+     * 
+     * @return false by default
+     */
+    protected boolean isLimitPushDownAllowed() {
+        return false;
+    }
+    
+    /*
+     * Pushes (limit + offset) down to the input operator if the input operator supports a limit.
+     */
+    private void pushDownLimit() {
+        if (limit == Integer.MAX_VALUE || ! (inputOperator instanceof ILimitable)) {
+            return;
+        }
+        int inputLimit = limit > Integer.MAX_VALUE - offset ? Integer.MAX_VALUE : limit + offset;
+        ILimitable limitableInput = (ILimitable) inputOperator;
+        if (inputLimit < limitableInput.getLimit()) {
+            limitPushDownInput = limitableInput;
+            limitBeforePushDown = limitableInput.getLimit();
+            limitableInput.setLimit(inputLimit);
+        }
+    }
+    
+    /*
+     * Restores the limit of the input operator that the limit is pushed down to,
+     *   so that the input isn't truncated if it's opened again (by this operator or another one).
+     */
+    private void restoreInputLimit() {
+        if (limitPushDownInput != null) {
+            limitPushDownInput.setLimit(limitBeforePushDown);
+            limitPushDownInput = null;
+        }
+    }
 
     @Override
     public Schema getOutputSchema() {
@@ -124,6 +260,7 @@ public abstract class AbstractSingleInputOperator implements IOperator {
         return inputOperator;
     }
     
+    @Override
     public void setLimit(int limit) {
         this.limit = limit;
     }
@@ -132,6 +269,7 @@ public abstract class AbstractSingleInputOperator implements IOperator {
         this.offset = offset;
     }
     
+    @Override
     public int getLimit() {
         return limit;
     }
@@ -0,0 +1,200 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * ParallelSingleInputOperator runs processOneInputTuple() of another single input operator
+ *   on several threads, for the operators that do expensive work on every tuple (NLP, regex, fuzzy token matching).
+ *
+ * The input tuples are read from the input operator of the wrapped operator on the calling thread,
+ *   and processOneInputTuple() of the wrapped operator is called on a fork-join pool of (parallelism) threads.
+ * At most (maxInFlight) input tuples are being processed or waiting for their results at a time.
+ * The results are returned in the order of the input tuples, so the output is the same as the wrapped operator's.
+ *
+ * The limit and offset of the wrapped operator are moved to this operator when it's created.
+ * The wrapped operator must be safe to call processOneInputTuple() on concurrently,
+ *   which is true for the operators that don't modify their state after setUp().
+ *
+ * Parallel operators are created by LogicalPlan.buildQueryPlan() if the operator parallelism in the QueryContext is more than 1.
+ *
+ */
+public class ParallelSingleInputOperator extends AbstractSingleInputOperator {
+
+    private final AbstractSingleInputOperator operator;
+    private final int parallelism;
+    private final int maxInFlight;
+
+    private ForkJoinPool pool;
+    // the tasks of the input tuples being processed, in the order of the input tuples
+    private Deque<ForkJoinTask<Tuple>> pendingTasks;
+    // the input tuples read from the input operator but not submitted yet
+    private Deque<Tuple> inputBuffer;
+    private boolean inputExhausted;
+
+    /**
+     * Creates a parallel operator with a window of 4 tuples per thread.
+     *
+     * @param operator, the operator to run in parallel
+     * @param parallelism, the number of threads
+     */
+    public ParallelSingleInputOperator(AbstractSingleInputOperator operator, int parallelism) {
+        this(operator, parallelism, parallelism * 4);
+    }
+
+    /**
+     * @param operator, the operator to run in parallel
+     * @param parallelism, the number of threads
+     * @param maxInFlight, the maximum number of input tuples being processed at a time
+     */
+    public ParallelSingleInputOperator(AbstractSingleInputOperator operator, int parallelism, int maxInFlight) {
+        if (parallelism <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("parallelism and maxInFlight must be positive");
+        }
+        this.operator = operator;
+        this.parallelism = parallelism;
+        this.maxInFlight = maxInFlight;
+
+        // the wrapped operator is only used to process tuples, its limit and offset are applied here
+        this.limit = operator.getLimit();
+        this.offset = operator.getOffset();
+        operator.setLimit(Integer.MAX_VALUE);
+        operator.setOffset(0);
+
+        // opening and closing this operator opens and closes the wrapped operator and its input
+        this.inputOperator = operator;
+    }
+
+    @Override
+    protected void setUp() throws TexeraException {
+        outputSchema = operator.getOutputSchema();
+        pool = new ForkJoinPool(parallelism);
+        pendingTasks = new ArrayDeque<>(maxInFlight);
+        inputBuffer = new ArrayDeque<>(maxInFlight);
+        inputExhausted = false;
+    }
+
+    @Override
+    protected Tuple computeNextMatchingTuple() throws TexeraException {
+        while (true) {
+            submitInputTuples();
+            ForkJoinTask<Tuple> task = pendingTasks.poll();
+            if (task == null) {
+                return null;
+            }
+            Tuple resultTuple = waitForResult(task);
+            if (resultTuple != null) {
+                return resultTuple;
+            }
+        }
+    }
+
+    /*
+     * Reads the input tuples ahead and submits them to the pool until the window is full or the input is exhausted.
+     */
+    private void submitInputTuples() throws TexeraException {
+        while (pendingTasks.size() < maxInFlight) {
+            if (inputBuffer.isEmpty()) {
+                if (inputExhausted) {
+                    return;
+                }
+                List<Tuple> inputBatch = operator.getInputOperator().getNextBatch(maxInFlight);
+                if (inputBatch.isEmpty()) {
+                    inputExhausted = true;
+                    return;
+                }
+                inputBuffer.addAll(inputBatch);
+            }
+            Tuple inputTuple = inputBuffer.poll();
+            pendingTasks.add(pool.submit(() -> operator.processOneInputTuple(inputTuple)));
+        }
+    }
+
+    /*
+     * Waits for the result of a task, and throws the error of the task to the caller.
+     */
+    private static Tuple waitForResult(ForkJoinTask<Tuple> task) throws TexeraException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TexeraException) {
+                throw (TexeraException) e.getCause();
+            }
+            throw new DataflowException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
+        return operator.processOneInputTuple(inputTuple);
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        if (cursor == CLOSED) {
+            return;
+        }
+        // the running tasks must finish before the wrapped operator is closed
+        try {
+            pendingTasks.forEach(task -> task.cancel(false));
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        }
+        super.close();
+    }
+
+    @Override
+    protected void cleanUp() throws TexeraException {
+        pool = null;
+        pendingTasks = null;
+        inputBuffer = null;
+    }
+
+    /**
+     * Sets the input operator of the wrapped operator.
+     */
+    @Override
+    public void setInputOperator(IOperator inputOperator) {
+        operator.setInputOperator(inputOperator);
+    }
+
+    @Override
+    public IOperator getInputOperator() {
+        return operator.getInputOperator();
+    }
+
+    public AbstractSingleInputOperator getOperator() {
+        return operator;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
+        return operator.transformToOutputSchema(inputSchema);
+    }
+
+}
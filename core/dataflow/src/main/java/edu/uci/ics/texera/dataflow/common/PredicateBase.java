@@ -35,6 +35,7 @@ import edu.uci.ics.texera.dataflow.nlp.sentiment.EmojiSentimentPredicate;
 import edu.uci.ics.texera.dataflow.nlp.sentiment.NlpSentimentPredicate;
 import edu.uci.ics.texera.dataflow.nlp.splitter.NlpSplitPredicate;
 import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.MultiRegexPredicate;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexSourcePredicate;
 import edu.uci.ics.texera.dataflow.regexsplit.RegexSplitPredicate;
@@ -74,6 +75,7 @@ import edu.uci.ics.texera.dataflow.nlp.sentiment.arrow.NltkSentimentPredicate;
         @Type(value = KeywordSourcePredicate.class, name = "KeywordSource"), 
         @Type(value = RegexPredicate.class, name = "RegexMatcher"), 
         @Type(value = RegexSourcePredicate.class, name = "RegexSource"), 
+        @Type(value = MultiRegexPredicate.class, name = "MultiRegexMatcher"),
         
         @Type(value = JoinDistancePredicate.class, name = "JoinDistance"),
         @Type(value = SimilarityJoinPredicate.class, name = "SimilarityJoin"),
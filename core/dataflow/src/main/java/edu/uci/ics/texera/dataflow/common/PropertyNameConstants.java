@@ -45,6 +45,7 @@ public class PropertyNameConstants {
     // related to aggregator operator
     public static final String AGGREGATOR_TYPE = "aggregator";
     public static final String ATTRIBUTE_AGGREGATOR_RESULT_LIST = "listOfAggregations";
+    public static final String GROUP_BY_ATTRIBUTE_NAMES = "groupByAttributes";
     
     // related to keyword matcher
     public static final String KEYWORD_QUERY = "query";
@@ -57,6 +58,8 @@ public class PropertyNameConstants {
     // related to regex matcher
     public static final String REGEX = "regex";
     public static final String REGEX_IGNORE_CASE = "regexIgnoreCase";
+    public static final String REGEX_LINEAR_TIME = "regexLinearTime";
+    public static final String REGEX_LIST = "regexList";
     public static final String REGEX_USE_INDEX = "regexUseIndex";
     
     // related to fuzzy token matcher
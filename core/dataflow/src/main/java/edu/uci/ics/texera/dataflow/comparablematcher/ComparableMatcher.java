@@ -3,6 +3,13 @@ package edu.uci.ics.texera.dataflow.comparablematcher;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.NumericRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.exception.DataflowException;
@@ -12,10 +19,17 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.*;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.statistics.TableStatistics;
+import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
  * ComparableMatcher is matcher for comparison query on any field which deals
  * with Comparable.
+ * 
+ * The value to compare to is parsed once when the operator is opened.
+ * If the input of the matcher is a table, the comparison can also be pushed down to the table source 
+ *   as a Lucene range query (see createRangeQuery()), so that only the matching documents are read.
  *
  * @author Adrian Seungjin Lee
  * @author Zuozhi Wang
@@ -24,6 +38,11 @@ public class ComparableMatcher extends AbstractSingleInputOperator {
     
     private ComparablePredicate predicate;
     private AttributeType inputAttrType;
+    
+    // the parsed value to compare to, depending on the type of the attribute
+    private Double compareToNumber;
+    private LocalDate compareToDate;
+    private LocalDateTime compareToDateTime;
 
     public ComparableMatcher(ComparablePredicate predicate) {
         this.predicate = predicate;
@@ -37,6 +56,61 @@ public class ComparableMatcher extends AbstractSingleInputOperator {
                     predicate.getAttributeName(), outputSchema.getAttributeNames()));
         }
         inputAttrType = outputSchema.getAttribute(predicate.getAttributeName()).getType();
+        parseCompareToValue();
+    }
+    
+    /*
+     * Parses the value to compare to according to the type of the attribute.
+     * A DATETIME attribute compared to a date is compared on the date.
+     */
+    private void parseCompareToValue() throws DataflowException {
+        compareToNumber = null;
+        compareToDate = null;
+        compareToDateTime = null;
+        String compareToString = predicate.getCompareToValue();
+        switch (inputAttrType) {
+        case DATE:
+            compareToDate = parseDate(compareToString);
+            break;
+        case DATETIME:
+            try {
+                compareToDateTime = LocalDateTime.parse(compareToString);
+            } catch (DateTimeParseException e) {
+                compareToDate = parseDate(compareToString);
+            }
+            break;
+        case DOUBLE:
+        case INTEGER:
+            compareToNumber = parseNumber(compareToString);
+            break;
+        default:
+            break;
+        }
+    }
+    
+    /*
+     * Parses a date string, or a date time string as its date.
+     */
+    private static LocalDate parseDate(String compareToString) throws DataflowException {
+        // try to parse the input as date string first
+        try {
+            return LocalDate.parse(compareToString);
+        } catch (DateTimeParseException e) {
+            // if it fails, then try to parse as date time string 
+            try {
+                return LocalDateTime.parse(compareToString).toLocalDate();
+            } catch (DateTimeParseException e2) {
+                throw new DataflowException("Unable to parse date or time: " + compareToString);
+            }
+        }
+    }
+    
+    private static Double parseNumber(String compareToString) throws DataflowException {
+        try {
+            return Double.parseDouble(compareToString);
+        } catch (NumberFormatException e) {
+            throw new DataflowException("Unable to parse to number " + e.getMessage());
+        }
     }
 
     @Override
@@ -51,6 +125,11 @@ public class ComparableMatcher extends AbstractSingleInputOperator {
         return null;
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         boolean conditionSatisfied = false;
@@ -84,60 +163,26 @@ public class ComparableMatcher extends AbstractSingleInputOperator {
 
     private boolean compareDate(Tuple inputTuple) throws DataflowException {     
         LocalDate date = inputTuple.getField(predicate.getAttributeName(), DateField.class).getValue();
-        String compareToString = predicate.getCompareToValue();
-        
-        // try to parse the input as date string first
-        try {
-            LocalDate compareToDate = LocalDate.parse(compareToString);
-            return compareValues(date, compareToDate, predicate.getComparisonType());
-        } catch (DateTimeParseException e) {
-            // if it fails, then try to parse as date time string 
-            try {
-                LocalDateTime compareToDateTime = LocalDateTime.parse(compareToString);
-                return compareValues(date, compareToDateTime.toLocalDate(), predicate.getComparisonType());
-            } catch ( DateTimeParseException e2) {
-                throw new DataflowException("Unable to parse date or time: " + compareToString);
-            }
-        }
+        return compareValues(date, compareToDate, predicate.getComparisonType());
     }
     
     private boolean compareDateTime(Tuple inputTuple) throws DataflowException {
         LocalDateTime dateTime = inputTuple.getField(predicate.getAttributeName(), DateTimeField.class).getValue();
-        String compareToString = predicate.getCompareToValue();
-        
-        // try to parse the input as date time string first
-        try {
-            LocalDateTime compareToDateTime = LocalDateTime.parse(compareToString);
+        if (compareToDateTime != null) {
             return compareValues(dateTime, compareToDateTime, predicate.getComparisonType());
-        } catch (DateTimeParseException e) {
-            // if it fails, then try to parse as date time string and compare on date
-            try {
-                LocalDate compareToDate = LocalDate.parse(compareToString);
-                return compareValues(dateTime.toLocalDate(), compareToDate, predicate.getComparisonType());
-            } catch ( DateTimeParseException e2) {
-                throw new DataflowException("Unable to parse date or time: " + compareToString);
-            }
         }
+        // the value to compare to is a date, compare on date
+        return compareValues(dateTime.toLocalDate(), compareToDate, predicate.getComparisonType());
     }
 
     private boolean compareDouble(Tuple inputTuple) {
         Double value = inputTuple.getField(predicate.getAttributeName(), DoubleField.class).getValue();
-        try {
-            Double compareToValue = Double.parseDouble( predicate.getCompareToValue());
-            return compareValues(value, compareToValue, predicate.getComparisonType());
-        } catch (NumberFormatException e) {
-            throw new DataflowException("Unable to parse to number " + e.getMessage());
-        }
+        return compareValues(value, compareToNumber, predicate.getComparisonType());
     }
 
     private boolean compareInt(Tuple inputTuple) {
         Integer value = inputTuple.getField(predicate.getAttributeName(), IntegerField.class).getValue();
-        try {
-            Double compareToValue = Double.parseDouble(predicate.getCompareToValue());
-            return compareValues((double) value, compareToValue, predicate.getComparisonType());
-        } catch (NumberFormatException e) {
-            throw new DataflowException("Unable to parse to number " + e.getMessage());
-        }
+        return compareValues((double) value, compareToNumber, predicate.getComparisonType());
     }
 
     private boolean compareString(Tuple inputTuple) {
@@ -195,6 +240,230 @@ public class ComparableMatcher extends AbstractSingleInputOperator {
     @Override
     protected void cleanUp() throws DataflowException {
     }
+    
+    /**
+     * Creates a Lucene query on a table that matches all the documents satisfying the comparison.
+     * The query can match more documents than the comparison (for example, DATETIME values are indexed in milliseconds),
+     *   so the ComparableMatcher must still be applied to the results.
+     * 
+     * INTEGER and DOUBLE attributes are queried by numeric range queries on their trie fields,
+     *   DATE and DATETIME attributes are queried by numeric range queries on their range fields
+     *   (see StorageUtils.getLuceneFields()), STRING and _id attributes are queried by term queries for equality.
+     * 
+     * @param predicate, the comparison predicate
+     * @param tableName, the name of the table
+     * @return the query, or null if the comparison can't be done by a Lucene query
+     * @throws TexeraException
+     */
+    public static Query createRangeQuery(ComparablePredicate predicate, String tableName) throws TexeraException {
+        Schema tableSchema = RelationManager.getInstance().getTableSchema(tableName);
+        String attributeName = predicate.getAttributeName();
+        if (! tableSchema.containsAttribute(attributeName)) {
+            return null;
+        }
+        // use the attribute name in the table schema, the query is on the Lucene field name
+        attributeName = tableSchema.getAttribute(attributeName).getName();
+        ComparisonType comparisonType = predicate.getComparisonType();
+        if (comparisonType == ComparisonType.NOT_EQUAL_TO) {
+            return null;
+        }
+        String compareToString = predicate.getCompareToValue();
+        
+        try {
+            switch (tableSchema.getAttribute(attributeName).getType()) {
+            case INTEGER:
+                return createIntRangeQuery(attributeName, parseNumber(compareToString), comparisonType);
+            case DOUBLE:
+                double doubleValue = parseNumber(compareToString);
+                if (Double.isNaN(doubleValue)) {
+                    return null;
+                }
+                return NumericRangeQuery.newDoubleRange(attributeName, 
+                        isLowerBounded(comparisonType) ? doubleValue : null, 
+                        isUpperBounded(comparisonType) ? doubleValue : null, 
+                        comparisonType != ComparisonType.GREATER_THAN, comparisonType != ComparisonType.LESS_THAN);
+            case DATE:
+                if (! RelationManager.getInstance().isRangeFieldIndexed(tableName, attributeName)) {
+                    return null;
+                }
+                long dateValue = StorageUtils.getDateLongValue(parseDate(compareToString));
+                return NumericRangeQuery.newLongRange(StorageUtils.getRangeFieldName(attributeName), 
+                        isLowerBounded(comparisonType) ? dateValue : null, 
+                        isUpperBounded(comparisonType) ? dateValue : null, 
+                        comparisonType != ComparisonType.GREATER_THAN, comparisonType != ComparisonType.LESS_THAN);
+            case DATETIME:
+                if (! RelationManager.getInstance().isRangeFieldIndexed(tableName, attributeName)) {
+                    return null;
+                }
+                return createDateTimeRangeQuery(attributeName, compareToString, comparisonType);
+            case STRING:
+            case _ID_TYPE:
+                if (comparisonType != ComparisonType.EQUAL_TO) {
+                    return null;
+                }
+                return new TermQuery(new Term(attributeName, compareToString));
+            default:
+                return null;
+            }
+        } catch (DataflowException e) {
+            // the matcher reports the invalid value when it's opened
+            return null;
+        }
+    }
+    
+    /**
+     * Estimates the fraction of the tuples in a table satisfying the comparison,
+     *   using the histogram of the attribute (see TableStatistics).
+     * 
+     * @param predicate, the comparison predicate
+     * @param tableName, the name of the table
+     * @return the estimated selectivity between 0 and 1, or null if it can't be estimated
+     * @throws TexeraException
+     */
+    public static Double estimateSelectivity(ComparablePredicate predicate, String tableName) throws TexeraException {
+        Schema tableSchema = RelationManager.getInstance().getTableSchema(tableName);
+        if (! tableSchema.containsAttribute(predicate.getAttributeName())) {
+            return null;
+        }
+        String attributeName = tableSchema.getAttribute(predicate.getAttributeName()).getName();
+        AttributeType attributeType = tableSchema.getAttribute(attributeName).getType();
+        TableStatistics statistics = RelationManager.getInstance().getTableStatistics(tableName);
+        if (statistics.getHistogram(attributeName) == null) {
+            return null;
+        }
+        
+        // the value to compare to, and the range of the values equal to it, encoded as in the histogram
+        double lower;
+        double upper;
+        String compareToString = predicate.getCompareToValue();
+        try {
+            switch (attributeType) {
+            case INTEGER:
+            case DOUBLE:
+                lower = parseNumber(compareToString);
+                upper = lower;
+                break;
+            case DATE:
+                lower = StorageUtils.getDateLongValue(parseDate(compareToString));
+                upper = lower;
+                break;
+            case DATETIME:
+                try {
+                    lower = StorageUtils.getDateTimeLongValue(LocalDateTime.parse(compareToString));
+                    upper = lower;
+                } catch (DateTimeParseException e) {
+                    LocalDate date = parseDate(compareToString);
+                    lower = StorageUtils.getDateTimeLongValue(date.atStartOfDay());
+                    upper = StorageUtils.getDateTimeLongValue(date.plusDays(1).atStartOfDay()) - 1;
+                }
+                break;
+            default:
+                return null;
+            }
+        } catch (DataflowException e) {
+            return null;
+        }
+        
+        switch (predicate.getComparisonType()) {
+        case EQUAL_TO:
+            return statistics.estimateRangeSelectivity(attributeName, lower, upper);
+        case NOT_EQUAL_TO:
+            return 1 - statistics.estimateRangeSelectivity(attributeName, lower, upper);
+        case GREATER_THAN:
+            return statistics.estimateRangeSelectivity(attributeName, upper, null);
+        case GREATER_THAN_OR_EQUAL_TO:
+            return statistics.estimateRangeSelectivity(attributeName, lower, null);
+        case LESS_THAN:
+            return statistics.estimateRangeSelectivity(attributeName, null, lower);
+        case LESS_THAN_OR_EQUAL_TO:
+            return statistics.estimateRangeSelectivity(attributeName, null, upper);
+        default:
+            return null;
+        }
+    }
+    
+    private static boolean isLowerBounded(ComparisonType comparisonType) {
+        return comparisonType == ComparisonType.EQUAL_TO || comparisonType == ComparisonType.GREATER_THAN
+                || comparisonType == ComparisonType.GREATER_THAN_OR_EQUAL_TO;
+    }
+    
+    private static boolean isUpperBounded(ComparisonType comparisonType) {
+        return comparisonType == ComparisonType.EQUAL_TO || comparisonType == ComparisonType.LESS_THAN
+                || comparisonType == ComparisonType.LESS_THAN_OR_EQUAL_TO;
+    }
+    
+    /*
+     * INTEGER values are compared as doubles, the bounds are rounded to the inclusive integer bounds.
+     */
+    private static Query createIntRangeQuery(String attributeName, double value, ComparisonType comparisonType) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        long lower = Long.MIN_VALUE;
+        long upper = Long.MAX_VALUE;
+        switch (comparisonType) {
+        case EQUAL_TO:
+            if (value != Math.floor(value)) {
+                return new MatchNoDocsQuery();
+            }
+            lower = (long) value;
+            upper = (long) value;
+            break;
+        case GREATER_THAN:
+            lower = (long) Math.floor(value) + 1;
+            break;
+        case GREATER_THAN_OR_EQUAL_TO:
+            lower = (long) Math.ceil(value);
+            break;
+        case LESS_THAN:
+            upper = (long) Math.ceil(value) - 1;
+            break;
+        case LESS_THAN_OR_EQUAL_TO:
+            upper = (long) Math.floor(value);
+            break;
+        default:
+            return null;
+        }
+        if (lower > Integer.MAX_VALUE || upper < Integer.MIN_VALUE || lower > upper) {
+            return new MatchNoDocsQuery();
+        }
+        return NumericRangeQuery.newIntRange(attributeName, 
+                (int) Math.max(lower, Integer.MIN_VALUE), (int) Math.min(upper, Integer.MAX_VALUE), true, true);
+    }
+    
+    /*
+     * A DATETIME attribute compared to a date time is queried by the milliseconds of the date time, 
+     *   the bounds are always inclusive because the sub-millisecond part is truncated in the index.
+     * A DATETIME attribute compared to a date is queried by the range of the date.
+     */
+    private static Query createDateTimeRangeQuery(String attributeName, String compareToString, ComparisonType comparisonType) 
+            throws DataflowException {
+        String rangeFieldName = StorageUtils.getRangeFieldName(attributeName);
+        try {
+            long dateTimeValue = StorageUtils.getDateTimeLongValue(LocalDateTime.parse(compareToString));
+            return NumericRangeQuery.newLongRange(rangeFieldName, 
+                    isLowerBounded(comparisonType) ? dateTimeValue : null, 
+                    isUpperBounded(comparisonType) ? dateTimeValue : null, true, true);
+        } catch (DateTimeParseException e) {
+            LocalDate date = parseDate(compareToString);
+            long dayStart = StorageUtils.getDateTimeLongValue(date.atStartOfDay());
+            long nextDayStart = StorageUtils.getDateTimeLongValue(date.plusDays(1).atStartOfDay());
+            switch (comparisonType) {
+            case EQUAL_TO:
+                return NumericRangeQuery.newLongRange(rangeFieldName, dayStart, nextDayStart, true, false);
+            case GREATER_THAN:
+                return NumericRangeQuery.newLongRange(rangeFieldName, nextDayStart, null, true, true);
+            case GREATER_THAN_OR_EQUAL_TO:
+                return NumericRangeQuery.newLongRange(rangeFieldName, dayStart, null, true, true);
+            case LESS_THAN:
+                return NumericRangeQuery.newLongRange(rangeFieldName, null, dayStart, true, false);
+            case LESS_THAN_OR_EQUAL_TO:
+                return NumericRangeQuery.newLongRange(rangeFieldName, null, nextDayStart, true, false);
+            default:
+                return null;
+            }
+        }
+    }
 
     public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
         if (inputSchema.length != 1)
@@ -0,0 +1,239 @@
+package edu.uci.ics.texera.dataflow.connector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * ExchangeOperator runs its input operator on a separate thread.
+ *
+ * When the exchange is opened, a producer thread pulls batches of tuples from the input operator
+ *   and puts them into a bounded queue, the operators after the exchange take the batches from the queue.
+ * So the segment of the plan before the exchange (for example, a source reading the index)
+ *   runs concurrently with the segment after it (for example, an expensive NLP operator).
+ * The producer blocks when the queue is full, so at most (queueCapacity) batches are buffered.
+ *
+ * The tuples are returned in the same order as the input operator produces them.
+ * An error thrown by the input operator is thrown to the caller when it reaches the end of the queue.
+ *
+ * Exchange operators are inserted by LogicalPlan.buildQueryPlan() if it's enabled in the QueryContext.
+ *
+ */
+public class ExchangeOperator implements IOperator {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    // an empty batch put into the queue to signal the end of the input
+    private static final List<Tuple> END_OF_INPUT = new ArrayList<>();
+
+    private IOperator inputOperator;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    private int cursor = CLOSED;
+
+    private BlockingQueue<List<Tuple>> batchQueue;
+    private Thread producerThread;
+    private AtomicReference<Throwable> producerError;
+    private volatile boolean isStopped;
+
+    // the batch being returned by getNextTuple()
+    private List<Tuple> currentBatch;
+    private int currentBatchIndex;
+    private boolean inputExhausted;
+
+    public ExchangeOperator() {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param batchSize, the number of tuples pulled from the input operator at a time
+     * @param queueCapacity, the maximum number of batches waiting in the queue
+     */
+    public ExchangeOperator(int batchSize, int queueCapacity) {
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("batchSize and queueCapacity must be positive");
+        }
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void open() throws TexeraException {
+        if (cursor != CLOSED) {
+            return;
+        }
+        if (inputOperator == null) {
+            throw new DataflowException(ErrorMessages.INPUT_OPERATOR_NOT_SPECIFIED);
+        }
+        // the input is opened on the calling thread, so that the output schema is known after open()
+        inputOperator.open();
+
+        batchQueue = new ArrayBlockingQueue<>(queueCapacity);
+        producerError = new AtomicReference<>();
+        isStopped = false;
+        currentBatch = null;
+        currentBatchIndex = 0;
+        inputExhausted = false;
+
+        producerThread = new Thread(this::runProducer, "texera-exchange-" + inputOperator.getClass().getSimpleName());
+        producerThread.setDaemon(true);
+        producerThread.start();
+        cursor = OPENED;
+    }
+
+    /*
+     * The loop of the producer thread, which pulls the input operator until it's exhausted or the exchange is closed.
+     */
+    private void runProducer() {
+        try {
+            while (! isStopped) {
+                List<Tuple> batch = inputOperator.getNextBatch(batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                batchQueue.put(batch);
+            }
+        } catch (Throwable e) {
+            producerError.compareAndSet(null, e);
+        }
+        try {
+            // close() drains the queue, so the end marker can always be put
+            batchQueue.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            producerError.compareAndSet(null, e);
+        }
+    }
+
+    /*
+     * Takes the next batch from the queue, returns null if the input is exhausted.
+     */
+    private List<Tuple> takeBatch() throws TexeraException {
+        if (inputExhausted) {
+            return null;
+        }
+        List<Tuple> batch;
+        try {
+            batch = batchQueue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        }
+        if (batch == END_OF_INPUT) {
+            inputExhausted = true;
+            Throwable error = producerError.get();
+            if (error != null) {
+                throw new DataflowException(error.getMessage(), error);
+            }
+            return null;
+        }
+        return batch;
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (currentBatch == null || currentBatchIndex >= currentBatch.size()) {
+            currentBatch = takeBatch();
+            currentBatchIndex = 0;
+            if (currentBatch == null) {
+                return null;
+            }
+        }
+        cursor++;
+        return currentBatch.get(currentBatchIndex++);
+    }
+
+    @Override
+    public List<Tuple> getNextBatch(int maxSize) throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (currentBatch == null || currentBatchIndex >= currentBatch.size()) {
+            currentBatch = takeBatch();
+            currentBatchIndex = 0;
+            if (currentBatch == null) {
+                return new ArrayList<>();
+            }
+        }
+        // hand over the whole batch if it fits, otherwise return a part of it and keep the rest
+        List<Tuple> resultBatch;
+        if (currentBatchIndex == 0 && currentBatch.size() <= maxSize) {
+            resultBatch = currentBatch;
+        } else {
+            int endIndex = Math.min(currentBatch.size(), currentBatchIndex + maxSize);
+            resultBatch = new ArrayList<>(currentBatch.subList(currentBatchIndex, endIndex));
+        }
+        currentBatchIndex += resultBatch.size();
+        cursor += resultBatch.size();
+        return resultBatch;
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        if (cursor == CLOSED) {
+            return;
+        }
+        // stop the producer, it's not interrupted because interrupting the index I/O may break the index reader
+        isStopped = true;
+        try {
+            while (producerThread.isAlive()) {
+                batchQueue.clear();
+                producerThread.join(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        } finally {
+            batchQueue = null;
+            currentBatch = null;
+            producerThread = null;
+        }
+        inputOperator.close();
+        cursor = CLOSED;
+    }
+
+    @Override
+    public Schema getOutputSchema() {
+        return inputOperator.getOutputSchema();
+    }
+
+    public void setInputOperator(IOperator inputOperator) {
+        if (cursor != CLOSED) {
+            throw new TexeraException(ErrorMessages.INPUT_OPERATOR_CHANGED_AFTER_OPEN);
+        }
+        this.inputOperator = inputOperator;
+    }
+
+    public IOperator getInputOperator() {
+        return inputOperator;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
+        if (inputSchema.length != 1) {
+            throw new TexeraException(String.format(ErrorMessages.NUMBER_OF_ARGUMENTS_DOES_NOT_MATCH, 1, inputSchema.length));
+        }
+        return inputSchema[0];
+    }
+
+}
@@ -1,6 +1,9 @@
 package edu.uci.ics.texera.dataflow.connector;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.dataflow.IConnector;
@@ -15,6 +18,21 @@ import edu.uci.ics.texera.api.tuple.Tuple;
  * The tuples from the input operator will be broadcast to every output operator.
  * 
  * It is required that all output operators need to be opened prior to calling getNextTuple().
+ * The output operators can be read by different threads (for example, by sinks running concurrently in the engine),
+ *   the access to the input operator and the cached tuples is synchronized.
+ * 
+ * The tuples are cached in a ring buffer of a fixed capacity, and each output operator has a cursor on them.
+ *   A tuple is released once all the output operators that are not closed have read it,
+ *   so the cached tuples are the ones between the slowest and the fastest output operators.
+ * When the buffer is full, an output operator that needs a new tuple waits for the slowest output operators
+ *   if they are read by other threads and keep reading tuples. Otherwise the tuples in the buffer are spilled
+ *   to a temporary file (a run, see TupleSpillRun), which the slower output operators read later on.
+ *   The output operators read one after another (for example, by sinks run in sequence,
+ *   or by the inner and outer inputs of a join) never block, and the memory never exceeds the buffer capacity,
+ *   unless the tuples have fields that can't be spilled, which are kept in memory.
+ *   The runs are deleted once all the output operators have read their tuples.
+ * 
+ * Once all the output operators are closed, the connector is reset, and they can be opened again.
  * @author Zuozhi Wang (zuozhiw)
  *
  */
@@ -24,28 +42,57 @@ public class OneToNBroadcastConnector implements IConnector {
     private static final int OPENED = 0;
     private static final int CLOSED = -1;
     
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+    // how long an output operator waits for the slower output operators to read a tuple, before the buffer is spilled
+    private static final long SPILL_WAIT_MILLIS = 1000;
+    
     private int outputOperatorNumber;
     
     // A list of all output operators
     private ArrayList<IOperator> outputOperatorList;
-    // A list to maintain cursors of all operators
-    private ArrayList<Integer> outputCursorList;
+    // the position of the next tuple to be read by each operator
+    private long[] outputCursors;
+    // the thread that last read each operator, null if it hasn't been read
+    private Thread[] outputReaderThreads;
     // A list to maintain operators' status (pre-open, opened or closed)
     private ArrayList<Integer> outputStatusList;
     private boolean inputOperatorOpened;
     
     private IOperator inputOperator;
-    // an in-memory list to cache tuples from input tuple, see getNextTuple() for more details
-    private ArrayList<Tuple> inputTupleList;
+    // a ring buffer to cache tuples from input tuple, see getNextTuple() for more details,
+    //   the tuple at position p is at p % ringBuffer.length
+    private Tuple[] ringBuffer;
+    // the position of the oldest cached tuple
+    private long bufferStart = 0;
+    // the position of the oldest tuple in the ring buffer, the tuples before it are spilled
+    private long memoryStart = 0;
+    // the position of the next tuple from the input operator
+    private long bufferEnd = 0;
     // indicates if the input operator's tuples are all consumed
     boolean inputAllConsumed = false;
     
+    // the runs of the spilled tuples [bufferStart, memoryStart), in the order of their positions
+    private List<TupleSpillRun> spillRuns = new ArrayList<>();
+    // the reader of a run used by each operator, null if it isn't reading spilled tuples
+    private TupleSpillRun.Reader[] spillReaders;
+    // the number of tuples read by all the operators, which shows the progress of the operators being waited for
+    private long readTupleCount = 0;
+    
     /**
      * Constructs a OneToNBroadcastConnector with n output operators.
      * @param outputOperatorNumber, the number of output operators this connector has
      */
     public OneToNBroadcastConnector(int outputOperatorNumber) {        
-        this.inputTupleList = new ArrayList<>();
+        this(outputOperatorNumber, DEFAULT_BUFFER_CAPACITY);
+    }
+    
+    /**
+     * Constructs a OneToNBroadcastConnector with n output operators.
+     * @param outputOperatorNumber, the number of output operators this connector has
+     * @param bufferCapacity, the number of tuples the ring buffer caches before an output operator waits for the others
+     */
+    public OneToNBroadcastConnector(int outputOperatorNumber, int bufferCapacity) {
+        this.ringBuffer = new Tuple[Math.max(1, bufferCapacity)];
         inputOperatorOpened = false;
         this.outputOperatorNumber = outputOperatorNumber;
         initializeOutputOperators();
@@ -53,11 +100,12 @@ public class OneToNBroadcastConnector implements IConnector {
     
     private void initializeOutputOperators() {
         this.outputOperatorList = new ArrayList<>();
-        this.outputCursorList = new ArrayList<>();
+        this.outputCursors = new long[this.outputOperatorNumber];
+        this.outputReaderThreads = new Thread[this.outputOperatorNumber];
+        this.spillReaders = new TupleSpillRun.Reader[this.outputOperatorNumber];
         this.outputStatusList = new ArrayList<>();
         
         for (int i = 0; i < this.outputOperatorNumber; i++) {
-            outputCursorList.add(-1);
             outputStatusList.add(PRE_OPEN);
             outputOperatorList.add(new ConnectorOutputOperator(this, i));
         }
@@ -90,34 +138,213 @@ public class OneToNBroadcastConnector implements IConnector {
     /*
      * This returns the nextTuple of the operator corresponding to the index.
      * A cursor will be maintained for each operator. 
-     * Tuples from input operators are cached in an in-memory list.
-     * A new tuple will be fetched from input operator whenever a cursor exceeds the list size.
+     * Tuples from input operators are cached in a ring buffer, the older tuples might be spilled to runs.
+     * A new tuple will be fetched from input operator whenever a cursor reaches the end of the buffer.
      */
-    private Tuple getNextTuple(int outputOperatorIndex) throws TexeraException {
-        int currentPosition = outputCursorList.get(outputOperatorIndex);
-        
-        if (currentPosition + 1 < inputTupleList.size()) {
-            int nextPosition = currentPosition + 1;
-            outputCursorList.set(outputOperatorIndex, nextPosition);
-            return inputTupleList.get(nextPosition);
-        } else {
+    private synchronized Tuple getNextTuple(int outputOperatorIndex) throws TexeraException {
+        outputReaderThreads[outputOperatorIndex] = Thread.currentThread();
+        while (true) {
+            long position = outputCursors[outputOperatorIndex];
+            if (position < bufferStart) {
+                // only happens if the operator is read after it's closed
+                throw new DataflowException("the tuples of output operator " + outputOperatorIndex + " have been released");
+            }
+            if (position < bufferEnd) {
+                Tuple tuple = position < memoryStart ? readSpilledTuple(outputOperatorIndex, position)
+                        : ringBuffer[getBufferIndex(position)];
+                outputCursors[outputOperatorIndex] = position + 1;
+                readTupleCount++;
+                releaseReadTuples();
+                return tuple;
+            }
             if (inputAllConsumed) {
                 return null;
             }
-            Tuple nextInputTuple = inputOperator.getNextTuple();
-            if (nextInputTuple == null) {
-                inputAllConsumed = true;
-                return null;
-            } else {
-                inputTupleList.add(nextInputTuple);
-                int nextPosition = currentPosition + 1;
-                outputCursorList.set(outputOperatorIndex, nextPosition);
+            if (bufferEnd - memoryStart < ringBuffer.length) {
+                Tuple nextInputTuple = inputOperator.getNextTuple();
+                if (nextInputTuple == null) {
+                    inputAllConsumed = true;
+                    return null;
+                }
+                ringBuffer[getBufferIndex(bufferEnd)] = nextInputTuple;
+                bufferEnd++;
+                outputCursors[outputOperatorIndex] = position + 1;
+                readTupleCount++;
+                releaseReadTuples();
                 return nextInputTuple;
             }
+            // the buffer is full, other operators might have read new tuples while this one is waiting
+            if (! waitForSlowerOutputs()) {
+                spillBuffer();
+            }
+        }
+    }
+    
+    private int getBufferIndex(long position) {
+        return (int) (position % ringBuffer.length);
+    }
+    
+    /*
+     * Reads the spilled tuple at the position, continuing the run the operator is reading if it can.
+     */
+    private Tuple readSpilledTuple(int outputOperatorIndex, long position) {
+        TupleSpillRun.Reader reader = spillReaders[outputOperatorIndex];
+        if (reader == null || reader.getPosition() != position || position >= reader.getRun().getEnd()) {
+            closeSpillReader(outputOperatorIndex);
+            for (TupleSpillRun run : spillRuns) {
+                if (position >= run.getStart() && position < run.getEnd()) {
+                    reader = run.openReader(position);
+                    break;
+                }
+            }
+            spillReaders[outputOperatorIndex] = reader;
+        }
+        try {
+            return reader.next();
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+    
+    private void closeSpillReader(int outputOperatorIndex) {
+        if (spillReaders[outputOperatorIndex] != null) {
+            spillReaders[outputOperatorIndex].close();
+            spillReaders[outputOperatorIndex] = null;
+        }
+    }
+    
+    /*
+     * Releases the tuples that all the operators that are not closed have read, deletes the runs of them,
+     *   and wakes up the operators waiting for the buffer.
+     */
+    private void releaseReadTuples() {
+        long minCursor = bufferEnd;
+        for (int i = 0; i < outputOperatorNumber; i++) {
+            if (outputStatusList.get(i) != CLOSED) {
+                minCursor = Math.min(minCursor, outputCursors[i]);
+            }
+        }
+        if (minCursor <= bufferStart) {
+            return;
+        }
+        for (long position = memoryStart; position < minCursor; position++) {
+            ringBuffer[getBufferIndex(position)] = null;
+        }
+        memoryStart = Math.max(memoryStart, minCursor);
+        while (! spillRuns.isEmpty() && spillRuns.get(0).getEnd() <= minCursor) {
+            deleteSpillRun(spillRuns.remove(0));
+        }
+        bufferStart = minCursor;
+        notifyAll();
+    }
+    
+    private void deleteSpillRun(TupleSpillRun run) {
+        for (int i = 0; i < outputOperatorNumber; i++) {
+            if (spillReaders[i] != null && spillReaders[i].getRun() == run) {
+                closeSpillReader(i);
+            }
+        }
+        run.delete();
+    }
+    
+    /*
+     * Waits for the slower operators to read the tuples in the buffer, if they are read by other threads.
+     * Returns false if they haven't read any tuple for SPILL_WAIT_MILLIS (for example, if the thread reading them
+     *   waits for the thread reading this operator), then the buffer needs to be spilled.
+     */
+    private boolean waitForSlowerOutputs() {
+        for (int i = 0; i < outputOperatorNumber; i++) {
+            if (outputStatusList.get(i) == CLOSED || outputCursors[i] > memoryStart) {
+                continue;
+            }
+            // an operator that isn't opened or read yet, or is read by this thread, would never catch up while waiting
+            if (outputStatusList.get(i) != OPENED || outputReaderThreads[i] == null
+                    || outputReaderThreads[i] == Thread.currentThread()) {
+                return false;
+            }
+        }
+        long oldReadTupleCount = readTupleCount;
+        long oldBufferEnd = bufferEnd;
+        try {
+            wait(SPILL_WAIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return readTupleCount != oldReadTupleCount || bufferEnd != oldBufferEnd;
+    }
+    
+    /*
+     * Writes the tuples in the ring buffer to a new run, and releases them from the ring buffer.
+     * Only the tuples before the first tuple that can't be written are spilled (see TupleSpillRun.canWrite()),
+     *   if the oldest tuple can't be written, the ring buffer grows to keep the tuples in memory.
+     */
+    private void spillBuffer() {
+        List<Tuple> tuples = new ArrayList<>((int) (bufferEnd - memoryStart));
+        for (long position = memoryStart; position < bufferEnd; position++) {
+            Tuple tuple = ringBuffer[getBufferIndex(position)];
+            if (! TupleSpillRun.canWrite(tuple)) {
+                break;
+            }
+            tuples.add(tuple);
+        }
+        if (tuples.isEmpty()) {
+            growBuffer();
+            return;
         }
+        spillRuns.add(new TupleSpillRun(memoryStart, tuples));
+        for (long position = memoryStart; position < memoryStart + tuples.size(); position++) {
+            ringBuffer[getBufferIndex(position)] = null;
+        }
+        memoryStart += tuples.size();
+    }
+    
+    private void growBuffer() {
+        Tuple[] newRingBuffer = new Tuple[ringBuffer.length * 2];
+        for (long position = memoryStart; position < bufferEnd; position++) {
+            newRingBuffer[(int) (position % newRingBuffer.length)] = ringBuffer[getBufferIndex(position)];
+        }
+        ringBuffer = newRingBuffer;
+    }
+    
+    /*
+     * Releases all the tuples and the runs, and moves the cursors back to the start,
+     *   so that the output operators can be opened again.
+     */
+    private void resetBuffer() {
+        for (int i = 0; i < outputOperatorNumber; i++) {
+            closeSpillReader(i);
+            outputStatusList.set(i, PRE_OPEN);
+        }
+        for (TupleSpillRun run : spillRuns) {
+            run.delete();
+        }
+        spillRuns.clear();
+        Arrays.fill(ringBuffer, null);
+        Arrays.fill(outputCursors, 0);
+        Arrays.fill(outputReaderThreads, null);
+        bufferStart = 0;
+        memoryStart = 0;
+        bufferEnd = 0;
+        inputAllConsumed = false;
+    }
+    
+    /**
+     * Gets the number of tuples cached in the ring buffer, 
+     *   which is at most the buffer capacity if all the tuples can be spilled.
+     */
+    public synchronized int getBufferedTupleCount() {
+        return (int) (bufferEnd - memoryStart);
+    }
+    
+    /**
+     * Gets the number of tuples spilled to runs, which haven't been read by all the output operators.
+     */
+    public synchronized int getSpilledTupleCount() {
+        return (int) (memoryStart - bufferStart);
     }
     
-    private void openInputOperator(int outputOperatorIndex) throws TexeraException {
+    private synchronized void openInputOperator(int outputOperatorIndex) throws TexeraException {
         outputStatusList.set(outputOperatorIndex, OPENED);
         if (! inputOperatorOpened) {
             inputOperator.open();
@@ -125,12 +352,16 @@ public class OneToNBroadcastConnector implements IConnector {
         }
     }
     
-    private void closeInputOperator(int outputOperatorIndex) throws TexeraException {
+    private synchronized void closeInputOperator(int outputOperatorIndex) throws TexeraException {
         outputStatusList.set(outputOperatorIndex, CLOSED);
+        closeSpillReader(outputOperatorIndex);
+        // the tuples that only this operator hadn't read are released
+        releaseReadTuples();
         boolean isAllClosed = isAllOutputOperatorClosed();
-        if (isAllClosed) {
+        if (isAllClosed && inputOperatorOpened) {
             inputOperator.close();
             inputOperatorOpened = false;
+            resetBuffer();
         }
     }
     
@@ -0,0 +1,367 @@
+package edu.uci.ics.texera.dataflow.connector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.DoubleField;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * TupleSpillRun is a temporary file (a run) of the tuples at the positions [start, end) of a OneToNBroadcastConnector,
+ *   which are spilled when the tuples between the slowest and the fastest output operators don't fit in memory.
+ *
+ * The fields are written in a binary form by their classes, including the fields without a value,
+ *   and the schemas of the tuples are kept in memory.
+ * A tuple can be written if canWrite() returns true for it, which is false for a field of an unknown class,
+ *   or a list field with an element other than a span, a string, a number, a boolean or null.
+ */
+class TupleSpillRun {
+
+    private static final byte ID_FIELD = 0;
+    private static final byte STRING_FIELD = 1;
+    private static final byte TEXT_FIELD = 2;
+    private static final byte INTEGER_FIELD = 3;
+    private static final byte DOUBLE_FIELD = 4;
+    private static final byte DATE_FIELD = 5;
+    private static final byte DATETIME_FIELD = 6;
+    private static final byte LIST_FIELD = 7;
+
+    private static final byte NULL_ELEMENT = 0;
+    private static final byte SPAN_ELEMENT = 1;
+    private static final byte STRING_ELEMENT = 2;
+    private static final byte INTEGER_ELEMENT = 3;
+    private static final byte LONG_ELEMENT = 4;
+    private static final byte DOUBLE_ELEMENT = 5;
+    private static final byte BOOLEAN_ELEMENT = 6;
+
+    private final Path runFile;
+    private final long start;
+    private final long end;
+    // the distinct schemas of the tuples, a tuple is written with the index of its schema
+    private final List<Schema> schemas = new ArrayList<>();
+
+    /**
+     * Writes the tuples at the positions [start, start + tuples.size()) to a new temporary file,
+     *   canWrite() must be true for all the tuples.
+     *
+     * @param start, the position of the first tuple
+     * @param tuples, the tuples in the order of their positions
+     */
+    TupleSpillRun(long start, List<Tuple> tuples) {
+        this.start = start;
+        this.end = start + tuples.size();
+        try {
+            runFile = Files.createTempFile("texera-broadcast-", ".run");
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(runFile)))) {
+            for (Tuple tuple : tuples) {
+                writeTuple(output, tuple);
+            }
+        } catch (IOException e) {
+            delete();
+            throw new DataflowException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            delete();
+            throw e;
+        }
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Opens a reader of the tuples from the position, which must be in [start, end).
+     */
+    Reader openReader(long position) {
+        try {
+            Reader reader = new Reader();
+            while (reader.position < position) {
+                reader.next();
+            }
+            return reader;
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes the temporary file, the readers of the run must be closed first.
+     */
+    void delete() {
+        try {
+            Files.deleteIfExists(runFile);
+        } catch (IOException e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Reads the tuples of the run in order.
+     */
+    class Reader {
+        private final DataInputStream input;
+        private long position = start;
+
+        private Reader() throws IOException {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile)));
+        }
+
+        TupleSpillRun getRun() {
+            return TupleSpillRun.this;
+        }
+
+        /**
+         * Gets the position of the tuple that next() returns.
+         */
+        long getPosition() {
+            return position;
+        }
+
+        Tuple next() throws IOException {
+            Tuple tuple = readTuple(input);
+            position++;
+            return tuple;
+        }
+
+        void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new DataflowException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Checks if all the fields of the tuple can be written to a run.
+     */
+    static boolean canWrite(Tuple tuple) {
+        for (IField field : tuple.getFields()) {
+            if (field instanceof ListField) {
+                for (Object element : ((ListField<?>) field).getValue()) {
+                    if (! canWriteListElement(element)) {
+                        return false;
+                    }
+                }
+            } else if (! (field instanceof IDField || field instanceof StringField || field instanceof TextField
+                    || field instanceof IntegerField || field instanceof DoubleField || field instanceof DateField
+                    || field instanceof DateTimeField)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canWriteListElement(Object element) {
+        return element == null || element instanceof Span || element instanceof String || element instanceof Integer
+                || element instanceof Long || element instanceof Double || element instanceof Boolean;
+    }
+
+    private void writeTuple(DataOutputStream output, Tuple tuple) throws IOException {
+        int schemaIndex = schemas.indexOf(tuple.getSchema());
+        if (schemaIndex < 0) {
+            schemaIndex = schemas.size();
+            schemas.add(tuple.getSchema());
+        }
+        output.writeInt(schemaIndex);
+        for (IField field : tuple.getFields()) {
+            writeField(output, field);
+        }
+    }
+
+    private Tuple readTuple(DataInputStream input) throws IOException {
+        Schema schema = schemas.get(input.readInt());
+        List<IField> fields = new ArrayList<>(schema.getAttributes().size());
+        for (int i = 0; i < schema.getAttributes().size(); i++) {
+            fields.add(readField(input));
+        }
+        return new Tuple(schema, fields);
+    }
+
+    /*
+     * Writes the class of the field and its value, which can be null except for a list field.
+     */
+    private static void writeField(DataOutputStream output, IField field) throws IOException {
+        Object value = field.getValue();
+        if (field instanceof IDField) {
+            output.writeByte(ID_FIELD);
+            writeString(output, (String) value);
+        } else if (field instanceof StringField) {
+            output.writeByte(STRING_FIELD);
+            writeString(output, (String) value);
+        } else if (field instanceof TextField) {
+            output.writeByte(TEXT_FIELD);
+            writeString(output, (String) value);
+        } else if (field instanceof IntegerField) {
+            output.writeByte(INTEGER_FIELD);
+            output.writeBoolean(value != null);
+            if (value != null) {
+                output.writeInt((Integer) value);
+            }
+        } else if (field instanceof DoubleField) {
+            output.writeByte(DOUBLE_FIELD);
+            output.writeBoolean(value != null);
+            if (value != null) {
+                output.writeDouble((Double) value);
+            }
+        } else if (field instanceof DateField) {
+            output.writeByte(DATE_FIELD);
+            writeString(output, value == null ? null : value.toString());
+        } else if (field instanceof DateTimeField) {
+            output.writeByte(DATETIME_FIELD);
+            writeString(output, value == null ? null : value.toString());
+        } else if (field instanceof ListField) {
+            output.writeByte(LIST_FIELD);
+            List<?> list = ((ListField<?>) field).getValue();
+            output.writeInt(list.size());
+            for (Object element : list) {
+                writeListElement(output, element);
+            }
+        } else {
+            throw new DataflowException("a " + field.getClass().getSimpleName() + " can't be spilled");
+        }
+    }
+
+    private static IField readField(DataInputStream input) throws IOException {
+        byte fieldType = input.readByte();
+        switch (fieldType) {
+            case ID_FIELD:
+                return new IDField(readString(input));
+            case STRING_FIELD:
+                return new StringField(readString(input));
+            case TEXT_FIELD:
+                return new TextField(readString(input));
+            case INTEGER_FIELD:
+                return new IntegerField(input.readBoolean() ? input.readInt() : null);
+            case DOUBLE_FIELD:
+                return new DoubleField(input.readBoolean() ? input.readDouble() : null);
+            case DATE_FIELD:
+                return new DateField(readString(input));
+            case DATETIME_FIELD:
+                return new DateTimeField(readString(input));
+            case LIST_FIELD:
+                int size = input.readInt();
+                List<Object> list = new ArrayList<>(size);
+                boolean hasNull = false;
+                for (int i = 0; i < size; i++) {
+                    Object element = readListElement(input);
+                    hasNull |= element == null;
+                    list.add(element);
+                }
+                // an immutable list can't contain null
+                return hasNull ? ListField.wrap(Collections.unmodifiableList(list)) : new ListField<>(list);
+            default:
+                throw new DataflowException("unknown field type " + fieldType + " in a spilled run");
+        }
+    }
+
+    private static void writeListElement(DataOutputStream output, Object element) throws IOException {
+        if (element == null) {
+            output.writeByte(NULL_ELEMENT);
+        } else if (element instanceof Span) {
+            Span span = (Span) element;
+            output.writeByte(SPAN_ELEMENT);
+            writeString(output, span.getAttributeName());
+            output.writeInt(span.getStart());
+            output.writeInt(span.getEnd());
+            writeString(output, span.getKey());
+            writeString(output, span.getValue());
+            output.writeInt(span.getTokenOffset());
+        } else if (element instanceof String) {
+            output.writeByte(STRING_ELEMENT);
+            writeString(output, (String) element);
+        } else if (element instanceof Integer) {
+            output.writeByte(INTEGER_ELEMENT);
+            output.writeInt((Integer) element);
+        } else if (element instanceof Long) {
+            output.writeByte(LONG_ELEMENT);
+            output.writeLong((Long) element);
+        } else if (element instanceof Double) {
+            output.writeByte(DOUBLE_ELEMENT);
+            output.writeDouble((Double) element);
+        } else if (element instanceof Boolean) {
+            output.writeByte(BOOLEAN_ELEMENT);
+            output.writeBoolean((Boolean) element);
+        } else {
+            throw new DataflowException("a list field of " + element.getClass().getSimpleName() + " can't be spilled");
+        }
+    }
+
+    private static Object readListElement(DataInputStream input) throws IOException {
+        byte elementType = input.readByte();
+        switch (elementType) {
+            case NULL_ELEMENT:
+                return null;
+            case SPAN_ELEMENT:
+                String attributeName = readString(input);
+                int start = input.readInt();
+                int end = input.readInt();
+                String key = readString(input);
+                String value = readString(input);
+                return new Span(attributeName, start, end, key, value, input.readInt());
+            case STRING_ELEMENT:
+                return readString(input);
+            case INTEGER_ELEMENT:
+                return input.readInt();
+            case LONG_ELEMENT:
+                return input.readLong();
+            case DOUBLE_ELEMENT:
+                return input.readDouble();
+            case BOOLEAN_ELEMENT:
+                return input.readBoolean();
+            default:
+                throw new DataflowException("unknown list element type " + elementType + " in a spilled run");
+        }
+    }
+
+    /*
+     * Writes a string that can be null, as its UTF-8 bytes after their length (-1 for null).
+     */
+    private static void writeString(DataOutputStream output, String str) throws IOException {
+        if (str == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -11,26 +11,57 @@ import java.util.*;
  * for all dictionary entries with a prefix trie and failure transactions.
  * Wiki page link: https://github.com/Texera/texera/wiki/Aho-Corasick-String-Matching-Algorithm
  * Created by Chang on 8/29/17.
+ *
+ * The automaton is stored in primitive arrays, so that matching a text doesn't allocate any objects:
+ *   the children of every node are kept in a sorted range of (edgeChars, edgeTargets) and found by a binary search,
+ *   the transitions of the root are kept in a table indexed by the character,
+ *   every node has a failure link and an output link to the closest node on its failure path that has emits.
+ * The matches are reported to a MatchCallback with the index of the matching keyword (see getKeyword()).
+ *
+ * The keywords are added before constructFailureTransactions() is called, the automaton can't be changed after that.
+ * After it's constructed, parseText() can be called by several threads concurrently.
  */
 public class ACTrie {
-    private final TrieNode rootNode;
+
+    private static final int ROOT = 0;
+
+    // the distinct keywords in the order they are added
+    private final LinkedHashSet<String> keywordSet = new LinkedHashSet<>();
     private boolean caseInsensitive = false;
 
+    // the automaton, null until it's constructed
+    private String[] keywords;
+    private int[] keywordLengths;
+    private int[] rootTransitions;
+    private int[] childStart;
+    private char[] edgeChars;
+    private int[] edgeTargets;
+    private int[] failure;
+    private int[] outputLink;
+    private int[] emitStart;
+    private int[] emitKeywords;
+
+    /**
+     * Receives the matches of the keywords found by parseText().
+     */
+    public interface MatchCallback {
+        /**
+         * @param start, the start position of the match in the text
+         * @param end, the end position (exclusive) of the match in the text
+         * @param keywordIndex, the index of the matching keyword, see getKeyword()
+         */
+        void onMatch(int start, int end, int keywordIndex);
+    }
+
     public ACTrie() {
-        this.rootNode = TrieNode.newRootNode();
     }
 
     private void addKeyword(String keyword) {
         if (keyword == null || keyword.length() == 0) return;
-        String originalWord = keyword;
-        if (caseInsensitive) {
-            keyword = keyword.toLowerCase();
-        }
-        TrieNode currentNode = this.rootNode;
-        for (Character character : keyword.toCharArray()) {
-            currentNode = currentNode.addTrieNode(character);
+        if (keywords != null) {
+            throw new IllegalStateException("keywords can't be added after the failure transactions are constructed");
         }
-        currentNode.addEmit(originalWord);
+        keywordSet.add(keyword);
     }
 
     public void addKeywords(List<String> keywordList) {
@@ -43,31 +74,117 @@ public class ACTrie {
     }
 
     /**
-     * Run a BFS on the constructed prefix trie to setup links between
+     * Builds the prefix trie of the keywords, and runs a BFS on it to setup links between
      * failed matching node to its longest common suffix on other branches.
      */
     public void constructFailureTransactions() {
-        Deque<TrieNode> queue = new ArrayDeque<>();
-        for (TrieNode node : this.rootNode.getChildrenNodes()) {
-            node.setFailure(this.rootNode);
-            queue.add(node);
-        }
-        while (!queue.isEmpty()) {
-            TrieNode currentNode = queue.poll();
-            for (Character character : currentNode.getTransactions()) {
-                TrieNode nextNode = currentNode.getNextTrieNode(character);
-                if (nextNode != null) {
-                    queue.add(nextNode);
-                    TrieNode failureNode = currentNode.getFailure();
-                    while (failureNode.getNextTrieNode(character) == null) {
-                        failureNode = failureNode.getFailure();
+        if (keywords != null) {
+            return;
+        }
+        String[] originalKeywords = keywordSet.toArray(new String[keywordSet.size()]);
+        String[] keys = new String[originalKeywords.length];
+        int totalLength = 0;
+        for (int i = 0; i < originalKeywords.length; i++) {
+            keys[i] = caseInsensitive ? toLowerCase(originalKeywords[i]) : originalKeywords[i];
+            totalLength += keys[i].length();
+        }
+
+        // insert the keys in sorted order, so that the path of the shared prefix always ends with the last added child,
+        // and the children of every node are added in the order of their characters
+        Integer[] sortedKeys = new Integer[keys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            sortedKeys[i] = i;
+        }
+        Arrays.sort(sortedKeys, (k1, k2) -> keys[k1].compareTo(keys[k2]));
+
+        int maxNodes = totalLength + 1;
+        char[] nodeChars = new char[maxNodes];
+        int[] firstChild = new int[maxNodes];
+        int[] lastChild = new int[maxNodes];
+        int[] nextSibling = new int[maxNodes];
+        int[] keywordNodes = new int[keys.length];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(lastChild, -1);
+        Arrays.fill(nextSibling, -1);
+        int nodeCount = 1;
+        for (int keyword : sortedKeys) {
+            int currentNode = ROOT;
+            for (int i = 0; i < keys[keyword].length(); i++) {
+                char character = keys[keyword].charAt(i);
+                int child = lastChild[currentNode];
+                if (child == -1 || nodeChars[child] != character) {
+                    child = nodeCount++;
+                    nodeChars[child] = character;
+                    if (lastChild[currentNode] == -1) {
+                        firstChild[currentNode] = child;
+                    } else {
+                        nextSibling[lastChild[currentNode]] = child;
                     }
-                    TrieNode newFailureNode = failureNode.getNextTrieNode(character);
-                    nextNode.setFailure(newFailureNode);
-                    nextNode.addEmits(newFailureNode.getEmits());
+                    lastChild[currentNode] = child;
                 }
+                currentNode = child;
+            }
+            keywordNodes[keyword] = currentNode;
+        }
+
+        // the sorted children of every node
+        childStart = new int[nodeCount + 1];
+        edgeChars = new char[nodeCount - 1];
+        edgeTargets = new int[nodeCount - 1];
+        int edgeCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            childStart[node] = edgeCount;
+            for (int child = firstChild[node]; child != -1; child = nextSibling[child]) {
+                edgeChars[edgeCount] = nodeChars[child];
+                edgeTargets[edgeCount] = child;
+                edgeCount++;
+            }
+        }
+        childStart[nodeCount] = edgeCount;
+
+        rootTransitions = new int[Character.MAX_VALUE + 1];
+        for (int edge = childStart[ROOT]; edge < childStart[ROOT + 1]; edge++) {
+            rootTransitions[edgeChars[edge]] = edgeTargets[edge];
+        }
+
+        // the keywords emitted by every node
+        emitStart = new int[nodeCount + 1];
+        for (int keyword = 0; keyword < keys.length; keyword++) {
+            emitStart[keywordNodes[keyword] + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            emitStart[node + 1] += emitStart[node];
+        }
+        emitKeywords = new int[keys.length];
+        int[] emitCount = new int[nodeCount];
+        for (int keyword = 0; keyword < keys.length; keyword++) {
+            int node = keywordNodes[keyword];
+            emitKeywords[emitStart[node] + emitCount[node]++] = keyword;
+        }
+
+        // BFS, the failure node of a node is less deep, so its failure and output links are already set
+        failure = new int[nodeCount];
+        outputLink = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            int currentNode = queue[head++];
+            for (int edge = childStart[currentNode]; edge < childStart[currentNode + 1]; edge++) {
+                int nextNode = edgeTargets[edge];
+                queue[tail++] = nextNode;
+                int failureNode = currentNode == ROOT ? ROOT : getNextTransition(failure[currentNode], edgeChars[edge]);
+                failure[nextNode] = failureNode;
+                outputLink[nextNode] = hasEmits(failureNode) ? failureNode : outputLink[failureNode];
             }
         }
+
+        keywordLengths = new int[keys.length];
+        for (int keyword = 0; keyword < keys.length; keyword++) {
+            keywordLengths[keyword] = keys[keyword].length();
+        }
+        keywords = originalKeywords;
     }
 
     /**
@@ -80,41 +197,113 @@ public class ACTrie {
      */
     public List<Emit> parseText(String text) {
         List<Emit> resultList = new ArrayList<>();
-        if (text == null || text.isEmpty()) return resultList;
-
-        if (caseInsensitive) {
-            text = text.toLowerCase();
-        }
-        TrieNode currentNode = this.rootNode;
-        char[] textArray = text.toCharArray();
-        for (int i = 0; i < textArray.length; i++) {
-            Character character = textArray[i];
-            currentNode = getNextTransition(character, currentNode);
-            if (!currentNode.getEmits().isEmpty()) {
-                resultList.addAll(storeEmits(currentNode, i));
+        parseText(text, (start, end, keywordIndex) -> resultList.add(new Emit(start, end, keywords[keywordIndex])));
+        return resultList;
+    }
+
+    /**
+     * Traverses the input text and reports every match of the keywords to the callback,
+     *   in the order of the end positions of the matches.
+     * It doesn't allocate any objects.
+     *
+     * @param text
+     * @param callback
+     */
+    public void parseText(String text, MatchCallback callback) {
+        if (text == null || text.isEmpty()) return;
+        if (keywords == null) {
+            constructFailureTransactions();
+        }
+
+        int currentNode = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (caseInsensitive) {
+                character = Character.toLowerCase(character);
+            }
+            currentNode = getNextTransition(currentNode, character);
+            int emitNode = hasEmits(currentNode) ? currentNode : outputLink[currentNode];
+            // the root doesn't have emits, so it ends the output links
+            while (emitNode != ROOT) {
+                for (int emit = emitStart[emitNode]; emit < emitStart[emitNode + 1]; emit++) {
+                    int keyword = emitKeywords[emit];
+                    callback.onMatch(i - keywordLengths[keyword] + 1, i + 1, keyword);
+                }
+                emitNode = outputLink[emitNode];
             }
         }
-        return resultList;
     }
 
-    private TrieNode getNextTransition(Character c, TrieNode node) {
-        TrieNode nextNode = node.getNextTrieNode(c);
-        while (nextNode == null) {
-            node = node.getFailure();
-            nextNode = node.getNextTrieNode(c);
+    /*
+     * Follows the success transaction of the character from a node, or the failure transactions if it doesn't exist.
+     */
+    private int getNextTransition(int node, char c) {
+        while (node != ROOT) {
+            int child = getChild(node, c);
+            if (child != -1) {
+                return child;
+            }
+            node = failure[node];
         }
-        return nextNode;
+        return rootTransitions[c];
     }
 
-    private List<Emit> storeEmits(TrieNode node, int position) {
-        List<Emit> resultList = new ArrayList<>();
-        for (String matchedKeyword : node.getEmits()) {
-            resultList.add(new Emit(position - matchedKeyword.length() + 1, position + 1, matchedKeyword));
+    /*
+     * Binary searches the children of a node, returns -1 if the node doesn't have a child of the character.
+     */
+    private int getChild(int node, char c) {
+        int low = childStart[node];
+        int high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleChar = edgeChars[middle];
+            if (middleChar < c) {
+                low = middle + 1;
+            } else if (middleChar > c) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
         }
-        return resultList;
+        return -1;
+    }
+
+    private boolean hasEmits(int node) {
+        return emitStart[node] != emitStart[node + 1];
+    }
+
+    /*
+     * Converts the string to lower case character by character, so that the positions in the text don't change.
+     */
+    private static String toLowerCase(String str) {
+        char[] chars = str.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Gets the keyword of a match reported to a MatchCallback.
+     *
+     * @param keywordIndex
+     * @return the keyword as it was added
+     */
+    public String getKeyword(int keywordIndex) {
+        return keywords[keywordIndex];
+    }
+
+    /**
+     * @return the number of nodes of the automaton, 0 if it's not constructed
+     */
+    public int getNodeCount() {
+        return failure == null ? 0 : failure.length;
     }
 
     public void setCaseInsensitive(boolean caseInsensitive) {
+        if (keywords != null) {
+            throw new IllegalStateException("the case sensitivity can't be changed after the failure transactions are constructed");
+        }
         this.caseInsensitive = caseInsensitive;
     }
 
@@ -143,4 +332,3 @@ public class ACTrie {
         }
     }
 }
-
@@ -1,5 +1,7 @@
 package edu.uci.ics.texera.dataflow.dictionarymatcher;
 
+import java.util.List;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.dataflow.IOperator;
@@ -8,11 +10,13 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
+import edu.uci.ics.texera.dataflow.utils.TokenizationCache;
 
 import java.util.*;
 import java.util.regex.Matcher;
@@ -29,6 +33,8 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
     
     private boolean addPayload = false;
     private boolean addResultAttribute = false;
+    
+    private TokenizationCache tokenizationCache = null;
 
     public DictionaryMatcher(DictionaryPredicate predicate) {
         this.predicate = predicate;
@@ -91,6 +97,11 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
 
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         if (inputTuple == null) {
@@ -100,12 +111,12 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         // add payload if needed before passing it to the matching functions
         if (addPayload) {
             Tuple.Builder tupleBuilderPayload = new Tuple.Builder(inputTuple);
-            tupleBuilderPayload.add(SchemaConstants.PAYLOAD_ATTRIBUTE, new ListField<Span>(
-                    DataflowUtils.generatePayloadFromTuple(inputTuple, predicate.getAnalyzerString())));
+            tupleBuilderPayload.add(SchemaConstants.PAYLOAD_ATTRIBUTE, ListField.wrap(
+                    DataflowUtils.generatePayloadFromTuple(inputTuple, predicate.getAnalyzerString(), tokenizationCache)));
             inputTuple = tupleBuilderPayload.build();
         }
 
-        List<Span> matchingResults = null;
+        ColumnarSpanList matchingResults = null;
         if (predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
 
             ArrayList<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
@@ -123,7 +134,7 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
             matchingResults = appendPhraseMatchingSpans4Dictionary(inputTuple, predicate.getAttributeNames(), tokenListsNoStopwords, tokenSetsNoStopwords, tokenListsWithStopwords, dictionaryEntries);
 
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED) {
-            matchingResults = new ArrayList<Span>();
+            ColumnarSpanList.Builder matchingResultsBuilder = new ColumnarSpanList.Builder();
             for (String attributeName : predicate.getAttributeNames()) {
                 AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
                 String fieldValue = inputTuple.getField(attributeName).getValue().toString();
@@ -132,20 +143,18 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                 if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                     throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
                 }
-                List<ACTrie.Emit> matchingEmits = dictionaryTrie.parseText(fieldValue);
-
-                if (!matchingEmits.isEmpty()) {
-                    for(ACTrie.Emit emit : matchingEmits){
-                        matchingResults.add(new Span(attributeName, emit.getStart(), emit.getEnd(), emit.getKeyword(), fieldValue.substring(emit.getStart(), emit.getEnd())));
-                    }
-                }
+                // the values of the matching spans are the substrings of the field value
+                matchingResultsBuilder.setFieldValue(attributeName, fieldValue);
+                dictionaryTrie.parseText(fieldValue, (start, end, keywordIndex) -> matchingResultsBuilder.add(
+                        attributeName, start, end, dictionaryTrie.getKeyword(keywordIndex), Span.INVALID_TOKEN_OFFSET));
             }
+            matchingResults = matchingResultsBuilder.build();
 
         } else if (predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
 
             ArrayList<Pattern> patternList = predicate.getDictionary().getPatternList();
             ArrayList<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
-            matchingResults = new ArrayList<>();
+            ColumnarSpanList.Builder matchingResultsBuilder = new ColumnarSpanList.Builder();
 
             for (int i = 0; i < dictionaryEntries.size(); i++) {
                 for (String attributeName : predicate.getAttributeNames()) {
@@ -157,15 +166,15 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                         throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
                     }
 
+                    matchingResultsBuilder.setFieldValue(attributeName, fieldValue);
                     Matcher javaMatcher = patternList.get(i).matcher(fieldValue);
                     while (javaMatcher.find()) {
-                        int start = javaMatcher.start();
-                        int end = javaMatcher.end();
-                        matchingResults.add(
-                                new Span(attributeName, start, end, dictionaryEntries.get(i), fieldValue.substring(start, end)));
+                        matchingResultsBuilder.add(attributeName, javaMatcher.start(), javaMatcher.end(),
+                                dictionaryEntries.get(i), Span.INVALID_TOKEN_OFFSET);
                     }
                 }
             }
+            matchingResults = matchingResultsBuilder.build();
 
         }
 
@@ -175,16 +184,16 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         
         Tuple.Builder tupleBuilder = new Tuple.Builder(inputTuple);
         if (addResultAttribute) {
-            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, new ListField<Span>(matchingResults));
+            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, ListField.wrap(matchingResults));
         }
         
         return tupleBuilder.build();
     }
 
-    private List<Span> appendConjunctionMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<Set<String>> queryTokenSetList, List<String> queryList) throws DataflowException {
-        List<Span> matchingResults = new ArrayList<>();
+    private ColumnarSpanList appendConjunctionMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<Set<String>> queryTokenSetList, List<String> queryList) throws DataflowException {
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> payload = payloadField.getValue();
+        ColumnarSpanList payload = DataflowUtils.getPayloadSpans(payloadField.getValue(), attributeNames);
         Map<Integer, List<Span>> relevantSpansMap = filterRelevantSpans(payload, queryTokenSetList);
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
@@ -194,12 +203,12 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                 throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
             }
+            matchingResults.setFieldValue(attributeName, fieldValue);
 
             // for STRING type, check if the dictionary entries contains the complete fieldValue
             if (attributeType == AttributeType.STRING) {
                 if (queryList.contains(fieldValue)) {
-                    Span span = new Span(attributeName, 0, fieldValue.length(), fieldValue, fieldValue);
-                    matchingResults.add(span);
+                    matchingResults.add(attributeName, 0, fieldValue.length(), fieldValue, Span.INVALID_TOKEN_OFFSET);
                 }
             }
 
@@ -214,13 +223,13 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                 }
             }
         }
-        return matchingResults;
+        return matchingResults.build();
     }
 
-    public List<Span> appendPhraseMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<List<String>> queryTokenList, List<Set<String>> queryTokenSetList, List<List<String>> queryTokenListWithStopwords, List<String> queryList) throws DataflowException {
-        List<Span> matchingResults = new ArrayList<>();
+    public ColumnarSpanList appendPhraseMatchingSpans4Dictionary(Tuple inputTuple, List<String> attributeNames, List<List<String>> queryTokenList, List<Set<String>> queryTokenSetList, List<List<String>> queryTokenListWithStopwords, List<String> queryList) throws DataflowException {
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> payload = payloadField.getValue();
+        ColumnarSpanList payload = DataflowUtils.getPayloadSpans(payloadField.getValue(), attributeNames);
         Map<Integer, List<Span>> relevantSpansMap = filterRelevantSpans(payload, queryTokenSetList);
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
@@ -230,12 +239,12 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                 throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
             }
+            matchingResults.setFieldValue(attributeName, fieldValue);
 
             // for STRING type, the query should match the fieldValue completely
             if (attributeType == AttributeType.STRING) {
                 if (queryList.contains(fieldValue)) {
-                    Span span = new Span(attributeName, 0, fieldValue.length(), fieldValue, fieldValue);
-                    matchingResults.add(span);
+                    matchingResults.add(attributeName, 0, fieldValue.length(), fieldValue, Span.INVALID_TOKEN_OFFSET);
                 }
             }
 
@@ -251,10 +260,14 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                 }
             }
         }
-        return matchingResults;
+        return matchingResults.build();
     }
 
-    private Map<Integer, List<Span>> filterRelevantSpans(List<Span> spanList, List<Set<String>> queryTokenSet) {
+    /*
+     * Groups the payload spans whose keys are tokens of the entries by the index of the entry.
+     * Only the Span objects of these spans are created, the other spans are checked in the columns of the payload.
+     */
+    private Map<Integer, List<Span>> filterRelevantSpans(ColumnarSpanList payload, List<Set<String>> queryTokenSet) {
         Map<Integer, List<Span>> resultMap = new HashMap<>();
         Map<String, List<Integer>> tokenMap = new HashMap<>();
         for (int i = 0; i < queryTokenSet.size(); i++) {
@@ -265,11 +278,10 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
                 tokenMap.get(s).add(i);
             }
         }
-        Iterator<Span> iterator = spanList.iterator();
-        while (iterator.hasNext()) {
-            Span span = iterator.next();
-            if (tokenMap.keySet().contains(span.getKey())) {
-                List<Integer> tokensetIndex = tokenMap.get(span.getKey());
+        for (int i = 0; i < payload.size(); i++) {
+            List<Integer> tokensetIndex = tokenMap.get(payload.getKey(i));
+            if (tokensetIndex != null) {
+                Span span = payload.get(i);
                 for (Integer index : tokensetIndex) {
                     if (!resultMap.containsKey(index)) {
                         resultMap.put(index, new ArrayList<>());
@@ -314,6 +326,16 @@ public class DictionaryMatcher extends AbstractSingleInputOperator {
         return inputOperator;
     }
 
+    /**
+     * Sets the cache of the payload shared by the operators of a plan,
+     *   which is used when the input tuples don't have a payload.
+     * 
+     * @param tokenizationCache, the cache, or null to tokenize every tuple
+     */
+    public void setTokenizationCache(TokenizationCache tokenizationCache) {
+        this.tokenizationCache = tokenizationCache;
+    }
+
     public DictionaryPredicate getPredicate() {
         return this.predicate;
     }
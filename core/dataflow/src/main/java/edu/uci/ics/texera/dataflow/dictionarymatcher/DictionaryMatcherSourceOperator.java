@@ -1,28 +1,32 @@
-
 package edu.uci.ics.texera.dataflow.dictionarymatcher;
 
 
-import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermsQuery;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
-import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.dataflow.ILimitable;
+import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
-import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
-import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
-import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordSourcePredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
-import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.storage.DataReader;
+import edu.uci.ics.texera.storage.RelationManager;
 
 
 /**
@@ -31,29 +35,20 @@ import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
  * @author Chang Liu
  * 
  */
-public class DictionaryMatcherSourceOperator implements ISourceOperator {
+public class DictionaryMatcherSourceOperator implements ISourceOperator, ILimitable {
 
-    private ISourceOperator indexSource;
+    private IOperator indexSource;
     
-    private KeywordMatcherSourceOperator keywordSource;
     private DictionaryMatcher dictionaryMatcher;
 
     private Schema outputSchema;
 
-    private String currentDictionaryEntry;
-
     private final DictionarySourcePredicate predicate;
 
     private int limit;
     private int offset;
 
-    private HashMap<String, Tuple> tupleIDMap; // map of tuple's ID to the tuple itself
-    private Map<String, List<Span>> tupleResultMap; // map of tuple's ID to the tuples's results (for Conjunction and Phrase)
-    private boolean resultMapPopulated = false;
-    
-    private Iterator<String> resultIterator;
-
-    private int cursor = CLOSED;  //Flag for computing matching results for CONJUNCTION and PHRASE.
+    private int cursor = CLOSED;
 
     /**
      * Constructs a DictionaryMatcher with a dictionary predicate.
@@ -67,10 +62,11 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
      * DictionaryMatcher. <br>
      *
      * DictionaryOperatorType.PHRASE_INDEX, CONJUNCTION_INDEX: <br>
-     * Loop through the dictionary entries.
-     * For each entry, use an index-based KeywordMatcher to get the matching results.
-     * Maintain a HashMap </Tuple_ID, Tuple> to add all the matching results
-     * into the spanlist of each input tuple.
+     * Read the candidate tuples of all the dictionary entries from the index with one query,
+     * followed by a DictionaryMatcher, which computes the matching results of all the entries on each tuple.
+     * A tuple can only match an entry if it contains every token of the entry,
+     * so the query looks up the least frequent token of each entry (see createCandidateQuery()),
+     * and every candidate tuple is read once no matter how many entries it matches.
      *
      * CONJUNCTION_INDEX corresponds to KeywordOperatorType.BASIC, which
      * performs keyword search on the document. The input query is
@@ -88,9 +84,6 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
         this.limit = Integer.MAX_VALUE;
         this.offset = 0;
         this.predicate = predicate;
-        
-        this.tupleIDMap = new HashMap<>();
-        this.tupleResultMap = new HashMap<>();
     }
 
     @Override
@@ -99,95 +92,125 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
             return;
         }
 
-        currentDictionaryEntry = predicate.getDictionary().getNextEntry();
-
         if (predicate.getKeywordMatchingType() == KeywordMatchingType.SUBSTRING_SCANBASED
                 || predicate.getKeywordMatchingType() == KeywordMatchingType.REGEX) {
 
             // For Substring matching and Regex matching, create a scan source operator followed by a dictionary matcher.
             indexSource = new ScanBasedSourceOperator(new ScanSourcePredicate(predicate.getTableName()));
 
-            dictionaryMatcher = new DictionaryMatcher(new DictionaryPredicate(predicate.getDictionary(), predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(), predicate.getKeywordMatchingType(), predicate.getSpanListName()));
-
-            dictionaryMatcher.setInputOperator(indexSource);
-            dictionaryMatcher.open();
-            outputSchema = dictionaryMatcher.getOutputSchema();
-
         } else {
             // For other keyword matching types (CONJUNCTION and PHRASE),
-            // create an index-based keyword source operator.
-            keywordSource = new KeywordMatcherSourceOperator(new KeywordSourcePredicate(
-                    currentDictionaryEntry,
-                    predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(),
-                    predicate.getKeywordMatchingType(),
-                    predicate.getTableName(),
-                    predicate.getSpanListName()));
-
-            keywordSource.open();
-
-            // Other keyword matching types uses a KeywordMatcher, so the
-            // output schema is the same as keywordMatcher's schema.
-            outputSchema = keywordSource.getOutputSchema();
+            // read the candidate tuples of all the entries with their payload, followed by a dictionary matcher.
+            DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                    predicate.getTableName(), createCandidateQuery());
+            dataReader.setPayloadAdded(true);
+            indexSource = dataReader;
         }
+
+        dictionaryMatcher = new DictionaryMatcher(new DictionaryPredicate(predicate.getDictionary(), predicate.getAttributeNames(),
+                predicate.getAnalyzerString(), predicate.getKeywordMatchingType(), predicate.getSpanListName()));
+
+        dictionaryMatcher.setInputOperator(indexSource);
+        dictionaryMatcher.open();
+        outputSchema = dictionaryMatcher.getOutputSchema();
+
         cursor = OPENED;
     }
 
-    @Override
-    public Tuple getNextTuple() throws TexeraException {
-        if (cursor >= limit + offset) {
-            return null;
-        }
+    /*
+     * Creates the query of the tuples that can match any of the dictionary entries.
+     * 
+     * For a STRING attribute, the tuple must be equal to an entry.
+     * For a TEXT attribute, the tuple must contain the least frequent token of an entry,
+     *   both conjunction and phrase matching need all the tokens of the entry.
+     * The terms are looked up by a TermsQuery, which doesn't have a limit on the number of terms.
+     */
+    private Query createCandidateQuery() throws TexeraException {
+        RelationManager relationManager = RelationManager.getInstance();
+        String tableName = predicate.getTableName();
+        Schema inputSchema = relationManager.getTableSchema(tableName);
+        List<String> dictionaryEntries = predicate.getDictionary().getDictionaryEntries();
         
-        if (predicate.getKeywordMatchingType() == KeywordMatchingType.PHRASE_INDEXBASED
-                || predicate.getKeywordMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
-            // For each dictionary entry, get all results from KeywordMatcher.
-            if(! resultMapPopulated){
-                computeMatchingResults();
-                resultIterator = tupleIDMap.keySet().iterator();
-                
-                resultMapPopulated = true;
+        predicate.getDictionary().setDictionaryTokenSetList(predicate.getAnalyzerString());
+        List<Set<String>> tokenSets = predicate.getDictionary().getTokenSetsNoStopwords();
+
+        Set<Term> candidateTerms = new LinkedHashSet<>();
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputSchema.getAttribute(attributeName).getType();
+
+            // types other than TEXT and STRING: throw Exception for now
+            if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
+                throw new DataflowException(
+                        "DictionaryPredicate: Fields other than STRING and TEXT are not supported yet");
             }
-            while (true) {
-                if (resultIterator.hasNext()) {
-                    cursor++;
-                    String tupleID = resultIterator.next();
-                    Tuple resultTuple = new Tuple.Builder(tupleIDMap.get(tupleID))
-                        .add(predicate.getSpanListName(), AttributeType.LIST, 
-                                new ListField<Span>(tupleResultMap.get(tupleID))).build();
-                    if (cursor > offset) {
-                        return resultTuple;
+
+            if (attributeType == AttributeType.STRING) {
+                for (String entry : dictionaryEntries) {
+                    candidateTerms.add(new Term(attributeName, entry));
+                }
+            } else {
+                // the document frequency of each distinct token is only looked up once
+                Map<String, Integer> documentFrequencies = new HashMap<>();
+                for (Set<String> tokenSet : tokenSets) {
+                    String rarestToken = null;
+                    int rarestFrequency = Integer.MAX_VALUE;
+                    for (String token : tokenSet) {
+                        String term = token.toLowerCase();
+                        Integer frequency = documentFrequencies.get(term);
+                        if (frequency == null) {
+                            frequency = relationManager.getTermDocumentFrequency(tableName, attributeName, term);
+                            documentFrequencies.put(term, frequency);
+                        }
+                        if (frequency < rarestFrequency) {
+                            rarestToken = term;
+                            rarestFrequency = frequency;
+                        }
+                    }
+                    // an entry without any token (or with a token not in the index) can't match any tuple
+                    if (rarestToken != null && rarestFrequency > 0) {
+                        candidateTerms.add(new Term(attributeName, rarestToken));
                     }
-                    continue;
-                } else {
-                    return null;
                 }
             }
         }
 
-        // Substring matching or regex matching (scan based)
-        else {
-            while(true) {
-                Tuple inputTuple;
-                if ((inputTuple = dictionaryMatcher.getNextTuple()) != null) {
-                    cursor++;
-                    if(cursor > offset) {
-                        return inputTuple;
-                    }
-                    continue;
-                } else {
-                    return null;
+        if (candidateTerms.isEmpty()) {
+            // an empty boolean query doesn't match any tuple
+            return new BooleanQuery.Builder().build();
+        }
+        return new TermsQuery(new ArrayList<>(candidateTerms));
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (cursor >= limit + offset) {
+            return null;
+        }
+        
+        while(true) {
+            Tuple inputTuple;
+            if ((inputTuple = dictionaryMatcher.getNextTuple()) != null) {
+                cursor++;
+                if(cursor > offset) {
+                    return inputTuple;
                 }
+                continue;
+            } else {
+                return null;
             }
         }
     }
 
 
+    @Override
     public void setLimit(int limit) {
         this.limit = limit;
     }
 
+    @Override
     public int getLimit() {
         return this.limit;
     }
@@ -200,60 +223,16 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
         return this.offset;
     }
 
-    /***
-     *  Maintain a HashMap </Tuple_ID, Tuple> to compute all the keyword
-     *  matching results for each tuple.
-     *
-     */
-
-    @SuppressWarnings("unchecked")
-	private void computeMatchingResults(){
-        Tuple inputTuple;
-        
-        while(true) {
-            while((inputTuple = keywordSource.getNextTuple()) != null){
-                String tupleID = inputTuple.getField(SchemaConstants._ID).getValue().toString();
-                ListField<Span> keywordResultsField = inputTuple.getField(predicate.getSpanListName(), ListField.class);
-                List<Span> keywordResults = keywordResultsField.getValue();
-                
-                if (tupleResultMap.containsKey(tupleID)) {
-                    tupleResultMap.get(tupleID).addAll(keywordResults);
-                } else {
-                    tupleIDMap.put(tupleID, new Tuple.Builder(inputTuple).remove(predicate.getSpanListName()).build());
-                    tupleResultMap.put(tupleID, new ArrayList<>(keywordResults));
-                }
-            }
-
-            if ((currentDictionaryEntry = predicate.getDictionary().getNextEntry()) == null) {
-                 return;
-            }
-
-            keywordSource.close();
-
-            KeywordSourcePredicate keywordSourcePredicate = new KeywordSourcePredicate(currentDictionaryEntry,
-                    predicate.getAttributeNames(),
-                    predicate.getAnalyzerString(), predicate.getKeywordMatchingType(),
-                    predicate.getTableName(),
-                    predicate.getSpanListName());
-
-            keywordSource = new KeywordMatcherSourceOperator(keywordSourcePredicate);
-            keywordSource.open();
-        }
-    }
-
     /**
      * @about Closes the operator
      */
     @Override
     public void close() throws DataflowException {
+        if (cursor == CLOSED) {
+            return;
+        }
         try {
-            if (keywordSource != null) {
-                keywordSource.close();
-            }
-            if (indexSource != null) {
-                indexSource.close();
-            }
-
+            // closing the dictionary matcher closes the index source
             if (dictionaryMatcher != null){
                 dictionaryMatcher.close();
             }
@@ -261,6 +240,7 @@ public class DictionaryMatcherSourceOperator implements ISourceOperator {
             e.printStackTrace();
             throw new DataflowException(e.getMessage(), e);
         }
+        cursor = CLOSED;
     }
 
     public Schema transformToOutputSchema(Schema... inputSchema) {
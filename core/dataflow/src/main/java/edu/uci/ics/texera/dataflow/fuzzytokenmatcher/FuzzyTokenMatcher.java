@@ -16,6 +16,7 @@ import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
+import edu.uci.ics.texera.dataflow.utils.TokenizationCache;
 
 /**
  *  @author Zuozhi Wang (zuozhiw)
@@ -33,6 +34,8 @@ public class FuzzyTokenMatcher extends AbstractSingleInputOperator {
     private boolean addPayload = false;
     private boolean addResultAttribute = false;
     
+    private TokenizationCache tokenizationCache = null;
+    
     public FuzzyTokenMatcher(FuzzyTokenPredicate predicate) {
         this.predicate = predicate;
     }
@@ -66,18 +69,24 @@ public class FuzzyTokenMatcher extends AbstractSingleInputOperator {
         return resultTuple;
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         // add payload if needed before passing it to the matching functions
         if (addPayload) {
             Tuple.Builder tupleBuilderPayload = new Tuple.Builder(inputTuple);
-            tupleBuilderPayload.add(SchemaConstants.PAYLOAD_ATTRIBUTE, new ListField<Span>(
-                    DataflowUtils.generatePayloadFromTuple(inputTuple, predicate.getLuceneAnalyzerStr())));
+            tupleBuilderPayload.add(SchemaConstants.PAYLOAD_ATTRIBUTE, ListField.wrap(
+                    DataflowUtils.generatePayloadFromTuple(inputTuple, predicate.getLuceneAnalyzerStr(), tokenizationCache)));
             inputTuple = tupleBuilderPayload.build();
         }
         
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> relevantSpans = filterRelevantSpans(payloadField.getValue());
+        List<Span> relevantSpans = filterRelevantSpans(
+                DataflowUtils.getPayloadSpans(payloadField.getValue(), predicate.getAttributeNames()));
         List<Span> matchingResults = new ArrayList<>();
 
         /*
@@ -147,6 +156,16 @@ public class FuzzyTokenMatcher extends AbstractSingleInputOperator {
     protected void cleanUp() throws DataflowException {        
     }
 
+    /**
+     * Sets the cache of the payload shared by the operators of a plan,
+     *   which is used when the input tuples don't have a payload.
+     * 
+     * @param tokenizationCache, the cache, or null to tokenize every tuple
+     */
+    public void setTokenizationCache(TokenizationCache tokenizationCache) {
+        this.tokenizationCache = tokenizationCache;
+    }
+
     public FuzzyTokenPredicate getPredicate() {
         return this.predicate;
     }
@@ -1,5 +1,10 @@
 package edu.uci.ics.texera.dataflow.fuzzytokenmatcher;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.schema.Schema;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
@@ -52,6 +57,11 @@ public class FuzzyTokenMatcherSourceOperator extends AbstractSingleInputOperator
         return this.fuzzyTokenMatcher.getNextTuple();
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return this.fuzzyTokenMatcher.getNextBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         return this.fuzzyTokenMatcher.processOneInputTuple(inputTuple);
@@ -61,6 +71,23 @@ public class FuzzyTokenMatcherSourceOperator extends AbstractSingleInputOperator
     protected void cleanUp() throws TexeraException {        
     }
 
+    /**
+     * Sets the attributes needed by the downstream operators, 
+     *   only these attributes, the attributes to match on, and _id are read.
+     * It must be set before the operator is opened.
+     * 
+     * @param requiredAttributes, the names of the required attributes, or null if all attributes are required
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        if (requiredAttributes == null) {
+            dataReader.setRequiredAttributes(null);
+            return;
+        }
+        Set<String> readerAttributes = new HashSet<>(requiredAttributes);
+        readerAttributes.addAll(predicate.getAttributeNames());
+        dataReader.setRequiredAttributes(readerAttributes);
+    }
+
     public Schema transformToOutputSchema(Schema... inputSchema) {
         if (inputSchema == null || inputSchema.length == 0) {
             if (outputSchema == null) {
@@ -0,0 +1,19 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.util.List;
+
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * IJoinIndex is an index of the inner tuples of a Join, built by the join predicate
+ *   (see IJoinPredicate.createInnerTupleIndex()), which finds the inner tuples
+ *   that might be joined with an outer tuple.
+ *
+ * The candidates must include every inner tuple that joinTuples() joins with the outer tuple,
+ *   and they must be in the order of the inner tuples.
+ */
+public interface IJoinIndex {
+
+    List<Tuple> getCandidateInnerTuples(Tuple outerTuple);
+
+}
@@ -1,5 +1,10 @@
 package edu.uci.ics.texera.dataflow.join;
 
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import edu.uci.ics.texera.api.dataflow.IPredicate;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.schema.Schema;
@@ -21,4 +26,30 @@ public interface IJoinPredicate extends IPredicate {
 	String getInnerAttributeName();
 	
 	String getOuterAttributeName();
+	
+	/**
+	 * Gets the attributes whose values must be equal in the inner tuple and the outer tuple
+	 *   for joinTuples() to join them (it returns null otherwise).
+	 * Join builds a hash index of the inner tuples on these attributes, and only joins
+	 *   an outer tuple with the inner tuples of the same values.
+	 * 
+	 * @return the names of the attributes, or an empty list if any two tuples might be joined,
+	 *   which are joined by a nested loop
+	 */
+	@JsonIgnore
+	default List<String> getEquiJoinAttributeNames() {
+	    return Collections.emptyList();
+	}
+	
+	/**
+	 * Creates an index of the inner tuples, which Join uses to find the inner tuples
+	 *   that might be joined with an outer tuple (see IJoinIndex).
+	 * 
+	 * @param innerTuples, all the inner tuples
+	 * @return the index, or null if the predicate doesn't have one,
+	 *   then Join uses the hash index on getEquiJoinAttributeNames() or the nested loop
+	 */
+	default IJoinIndex createInnerTupleIndex(List<Tuple> innerTuples) {
+	    return null;
+	}
 }
\ No newline at end of file
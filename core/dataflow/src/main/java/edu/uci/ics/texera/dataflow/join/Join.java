@@ -1,12 +1,16 @@
 package edu.uci.ics.texera.dataflow.join;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.ILimitable;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IField;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
@@ -37,19 +41,35 @@ import edu.uci.ics.texera.api.tuple.Tuple;
  * join attribute, the tuple is discarded. If the attribute is not join attribute,
  * then one of the values will be chosen to become the output value.
  * 
+ * The inner tuples are loaded into memory, and the outer tuples are streamed.
+ * If the predicate creates an index of the inner tuples (see IJoinPredicate.createInnerTupleIndex(),
+ * for example, the q-gram index of SimilarityJoinPredicate), an outer tuple is only joined
+ * with the candidate inner tuples of the index. If the predicate only joins the tuples with equal values of some attributes
+ * (see IJoinPredicate.getEquiJoinAttributeNames(), for example, _ID and the join attribute),
+ * the inner tuples are put in a hash index on these values, and an outer tuple is only
+ * joined with the inner tuples of its values. Otherwise, an outer tuple is joined with
+ * every inner tuple (a nested loop).
+ * 
  * @author Sripad Kowshik Subramanyam (sripadks)
  * @author Zuozhi Wang
  *
  */
-public class Join implements IOperator {
+public class Join implements ILimitable {
 
     private IOperator innerOperator;
     private IOperator outerOperator;
     private IJoinPredicate joinPredicate;
     
     private List<Tuple> innerTupleList = null;
-    // Cursor to maintain the position of tuple to be obtained from innerTupleList.
-    private Integer innerTupleListCursor = 0;
+    // the index of the inner tuples created by the predicate, null if the predicate doesn't have one
+    private IJoinIndex innerJoinIndex = null;
+    // the inner tuples by the values of the equi-join attributes, null if the predicate isn't an equi-join
+    private HashMap<List<Object>, List<Tuple>> innerTupleIndex = null;
+    private List<String> equiJoinAttributeNames;
+    // the inner tuples to be joined with the current outer tuple
+    private List<Tuple> currentInnerTuples = null;
+    // Cursor to maintain the position of tuple to be obtained from currentInnerTuples.
+    private int innerTupleListCursor = 0;
     private Tuple currentOuterTuple;
     private Schema outputSchema;
 
@@ -108,23 +128,14 @@ public class Join implements IOperator {
         }
     	
         // load all tuples from inner operator into memory in the first time
-    	if (innerTupleList == null) {
-    	    innerTupleList = new ArrayList<>();
-    	    Tuple tuple;
-            while ((tuple = innerOperator.getNextTuple()) != null) {
-                innerTupleList.add(tuple);
-            }
-    	}
-    	
-    	// load the first outer tuple
-    	currentOuterTuple = outerOperator.getNextTuple();
-    	
-    	// return null if either
-    	//   inner tuple list is empty, or
-    	//   all outer tuples have been consumed
-    	if (innerTupleList.isEmpty() || currentOuterTuple == null) {
-    	    return null;
-    	}
+        if (innerTupleList == null) {
+            loadInnerTuples();
+        }
+        
+        // return null if inner tuple list is empty
+        if (innerTupleList.isEmpty()) {
+            return null;
+        }
 
         if (resultCursor >= limit + offset - 1 || limit == 0){
             return null;
@@ -148,6 +159,72 @@ public class Join implements IOperator {
         }
     }
 
+    /*
+     * Loads the inner tuples, and builds the index of the predicate,
+     *   or the hash index on the equi-join attributes if the predicate has them.
+     */
+    private void loadInnerTuples() throws TexeraException {
+        innerTupleList = new ArrayList<>();
+        Tuple tuple;
+        while ((tuple = innerOperator.getNextTuple()) != null) {
+            innerTupleList.add(tuple);
+        }
+        
+        innerJoinIndex = joinPredicate.createInnerTupleIndex(innerTupleList);
+        if (innerJoinIndex != null) {
+            innerTupleIndex = null;
+            return;
+        }
+        equiJoinAttributeNames = joinPredicate.getEquiJoinAttributeNames();
+        if (equiJoinAttributeNames.isEmpty()) {
+            innerTupleIndex = null;
+            return;
+        }
+        innerTupleIndex = new HashMap<>();
+        for (Tuple innerTuple : innerTupleList) {
+            List<Object> key = getEquiJoinKey(innerTuple);
+            if (key != null) {
+                innerTupleIndex.computeIfAbsent(key, k -> new ArrayList<>()).add(innerTuple);
+            }
+        }
+    }
+    
+    /*
+     * Gets the values of the equi-join attributes of a tuple, or null if a value is missing,
+     *   then the tuple can't be joined.
+     */
+    private List<Object> getEquiJoinKey(Tuple tuple) {
+        List<Object> key = new ArrayList<>(equiJoinAttributeNames.size());
+        for (String attributeName : equiJoinAttributeNames) {
+            if (! tuple.getSchema().containsAttribute(attributeName)) {
+                return null;
+            }
+            IField field = tuple.getField(attributeName);
+            if (field == null || field.getValue() == null) {
+                return null;
+            }
+            key.add(field.getValue());
+        }
+        return key;
+    }
+    
+    /*
+     * Gets the inner tuples that might be joined with an outer tuple.
+     */
+    private List<Tuple> getInnerTuples(Tuple outerTuple) {
+        if (innerJoinIndex != null) {
+            return innerJoinIndex.getCandidateInnerTuples(outerTuple);
+        }
+        if (innerTupleIndex == null) {
+            return innerTupleList;
+        }
+        List<Object> key = getEquiJoinKey(outerTuple);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        return innerTupleIndex.getOrDefault(key, Collections.emptyList());
+    }
+
     /*
      * Called from getNextTuple() method in order to obtain the next tuple 
      * that satisfies the predicate. 
@@ -155,30 +232,29 @@ public class Join implements IOperator {
      * It returns null if there's no more tuples.
      */
     private Tuple computeNextMatchingTuple() throws Exception {
-        if (innerTupleList.isEmpty()) {
-            return null;
-        }
-        
-        Tuple nextTuple = null;
-        while (nextTuple == null) {
-            // if reach the end of inner tuple list
-            if (innerTupleListCursor >= innerTupleList.size()) {
+        while (true) {
+            // if reach the end of the inner tuples of the current outer tuple
+            if (currentInnerTuples == null || innerTupleListCursor >= currentInnerTuples.size()) {
                 // get next outer tuple
                 currentOuterTuple = outerOperator.getNextTuple();
                 if (currentOuterTuple == null) {
+                    currentInnerTuples = null;
                     return null;
                 }
                 // reset cursor if outerTuple is not null
+                currentInnerTuples = getInnerTuples(currentOuterTuple);
                 innerTupleListCursor = 0;
+                continue;
             }
             // compute next tuple
-            nextTuple = joinPredicate.joinTuples(
-                    innerTupleList.get(innerTupleListCursor), currentOuterTuple, outputSchema);
+            Tuple nextTuple = joinPredicate.joinTuples(
+                    currentInnerTuples.get(innerTupleListCursor), currentOuterTuple, outputSchema);
             // increment cursor
             innerTupleListCursor++;
+            if (nextTuple != null) {
+                return nextTuple;
+            }
         }
-        
-    	return nextTuple;
     }
 
     @Override
@@ -196,6 +272,10 @@ public class Join implements IOperator {
         
         // Set the inner tuple list back to null on close.
         innerTupleList = null;
+        innerJoinIndex = null;
+        innerTupleIndex = null;
+        currentInnerTuples = null;
+        currentOuterTuple = null;
         innerTupleListCursor = 0;
         cursor = CLOSED;
     }
@@ -223,10 +303,12 @@ public class Join implements IOperator {
         return outputSchema;
     }
 
+    @Override
     public void setLimit(int limit) {
         this.limit = limit;
     }
     
+    @Override
     public int getLimit() {
         return limit;
     }
@@ -1,12 +1,12 @@
 package edu.uci.ics.texera.dataflow.join;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -20,6 +20,7 @@ import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.*;
 import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
@@ -139,6 +140,15 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
         return this.threshold;
     }
     
+    /**
+     * Only the tuples with the same _ID and the same value of the join attribute are joined.
+     */
+    @JsonIgnore
+    @Override
+    public List<String> getEquiJoinAttributeNames() {
+        return Arrays.asList(SchemaConstants._ID, this.joinAttributeName);
+    }
+    
     @Override
     public Schema generateOutputSchema(Schema innerOperatorSchema, Schema outerOperatorSchema) throws DataflowException {
         return generateIntersectionSchema(innerOperatorSchema, outerOperatorSchema);
@@ -195,8 +205,6 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
      */
     @Override
 	public Tuple joinTuples(Tuple innerTuple, Tuple outerTuple, Schema outputSchema) throws Exception {
-	    List<Span> newJoinSpanList = new ArrayList<>();
-
 	    /*
 	     * We expect the values of all fields to be the same for innerTuple and outerTuple.
 	     * We only checks _ID field, and field to be joined, since they are crucial to join operator.
@@ -220,50 +228,55 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
 	    ListField<Span> spanFieldOfInnerTuple = innerTuple.getField(SchemaConstants.SPAN_LIST);
 	    ListField<Span> spanFieldOfOuterTuple = outerTuple.getField(SchemaConstants.SPAN_LIST);
 	
-	    List<Span> innerSpanList = null;
-	    List<Span> outerSpanList = null;
+	    ColumnarSpanList innerSpanList = null;
+	    ColumnarSpanList outerSpanList = null;
 	    // Check if both the fields obtained from the indexes are indeed of type
 	    // ListField
 	    if (spanFieldOfInnerTuple.getClass().equals(ListField.class)) {
-	        innerSpanList = spanFieldOfInnerTuple.getValue();
+	        innerSpanList = ColumnarSpanList.of(spanFieldOfInnerTuple.getValue());
 	    }
 	    if (spanFieldOfOuterTuple.getClass().equals(ListField.class)) {
-	        outerSpanList = spanFieldOfOuterTuple.getValue();
+	        outerSpanList = ColumnarSpanList.of(spanFieldOfOuterTuple.getValue());
 	    }
+
+	    // the spans are compared in the columns of the span lists, without creating Span objects,
+	    // and the values of the joined spans are the substrings of the field value
+	    String fieldValue = (String) innerTuple.getField(this.joinAttributeName).getValue();
+	    ColumnarSpanList.Builder newJoinSpanList = new ColumnarSpanList.Builder();
+	    newJoinSpanList.setFieldValue(this.joinAttributeName, fieldValue);
+	    int outerAttributeId = outerSpanList.getAttributeIdOf(this.joinAttributeName);
+	    int innerAttributeId = innerSpanList.getAttributeIdOf(this.joinAttributeName);
+	    int threshold = this.getThreshold();
 	
-	    Iterator<Span> outerSpanIter = outerSpanList.iterator();
-	
-	    // TODO Currently we are using two loops to go over two span lists.
-	    // We can optimize it by sorting the spans based on the start position
-	    // and then doing a "sort merge" of the two lists.
-	    // (Also probably weed out the spans with fields that don't agree with
-	    // the ones specified in the JoinPredicate during "sort merge"?)
-	    while (outerSpanIter.hasNext()) {
-	        Span outerSpan = outerSpanIter.next();
-	        // Check if the field matches the filed over which we want to join.
-	        // If not return null.
-	        if (!outerSpan.getAttributeName().equals(this.joinAttributeName)) {
+	    // the inner spans are sorted by their start, so the inner spans within the threshold of an outer span
+	    // are found by a binary search and a scan of the spans whose start is within the threshold,
+	    // the joined spans are in the order of the outer spans, then in the order of the inner spans
+	    long[] sortedInnerSpans = sortSpansByStart(innerSpanList, innerAttributeId);
+	    int[] matchingInnerSpans = new int[sortedInnerSpans.length];
+	    for (int outer = 0; outer < outerSpanList.size(); outer++) {
+	        if (outerSpanList.getAttributeId(outer) != outerAttributeId) {
 	            continue;
 	        }
-	        Iterator<Span> innerSpanIter = innerSpanList.iterator();
-	        while (innerSpanIter.hasNext()) {
-	            Span innerSpan = innerSpanIter.next();
-	            if (!innerSpan.getAttributeName().equals(this.joinAttributeName)) {
-	                continue;
-	            }
-	            Integer threshold = this.getThreshold();
-	            if (Math.abs(outerSpan.getStart() - innerSpan.getStart()) <= threshold
-	                    && Math.abs(outerSpan.getEnd() - innerSpan.getEnd()) <= threshold) {
-	                Integer newSpanStartIndex = Math.min(innerSpan.getStart(), outerSpan.getStart());
-	                Integer newSpanEndIndex = Math.max(innerSpan.getEnd(), outerSpan.getEnd());
-	                String attributeName = this.joinAttributeName;
-	                String fieldValue = (String) innerTuple.getField(attributeName).getValue();
-	                String newFieldValue = fieldValue.substring(newSpanStartIndex, newSpanEndIndex);
-	                String spanKey = outerSpan.getKey() + "_" + innerSpan.getKey();
-	                Span newSpan = new Span(attributeName, newSpanStartIndex, newSpanEndIndex, spanKey, newFieldValue);
-	                newJoinSpanList.add(newSpan);
+	        int outerStart = outerSpanList.getStart(outer);
+	        int outerEnd = outerSpanList.getEnd(outer);
+	        int matchCount = 0;
+	        long maxInnerStart = (long) outerStart + threshold;
+	        for (int i = lowerBound(sortedInnerSpans, (long) outerStart - threshold);
+	                i < sortedInnerSpans.length && (sortedInnerSpans[i] >> 32) <= maxInnerStart; i++) {
+	            int inner = (int) sortedInnerSpans[i];
+	            if (Math.abs(outerEnd - innerSpanList.getEnd(inner)) <= threshold) {
+	                matchingInnerSpans[matchCount++] = inner;
 	            }
 	        }
+	        Arrays.sort(matchingInnerSpans, 0, matchCount);
+	        for (int i = 0; i < matchCount; i++) {
+	            int inner = matchingInnerSpans[i];
+	            int newSpanStartIndex = Math.min(innerSpanList.getStart(inner), outerStart);
+	            int newSpanEndIndex = Math.max(innerSpanList.getEnd(inner), outerEnd);
+	            String spanKey = outerSpanList.getKey(outer) + "_" + innerSpanList.getKey(inner);
+	            newJoinSpanList.add(this.joinAttributeName, newSpanStartIndex, newSpanEndIndex, spanKey,
+	                    Span.INVALID_TOKEN_OFFSET);
+	        }
 	    }
 	
 	    if (newJoinSpanList.isEmpty()) {
@@ -279,11 +292,45 @@ public class JoinDistancePredicate extends PredicateBase implements IJoinPredica
 	            .map(attributeName -> innerTuple.getField(attributeName, IField.class))
 	            .collect(Collectors.toList());
 	    
-	    outputFields.add(new ListField<>(newJoinSpanList));
+	    outputFields.add(ListField.wrap(newJoinSpanList.build()));
 	    
 	    return new Tuple(outputSchema, outputFields.stream().toArray(IField[]::new));
 	}
 
+	/*
+	 * Sorts the spans of the attribute by their start, each span is encoded as (start << 32 | index),
+	 *   so the spans with the same start are in the order of the span list.
+	 */
+	private static long[] sortSpansByStart(ColumnarSpanList spanList, int attributeId) {
+	    long[] sortedSpans = new long[spanList.size()];
+	    int count = 0;
+	    for (int i = 0; i < spanList.size(); i++) {
+	        if (spanList.getAttributeId(i) == attributeId) {
+	            sortedSpans[count++] = ((long) spanList.getStart(i) << 32) | i;
+	        }
+	    }
+	    sortedSpans = Arrays.copyOf(sortedSpans, count);
+	    Arrays.sort(sortedSpans);
+	    return sortedSpans;
+	}
+	
+	/*
+	 * Returns the position of the first span whose start is not less than minStart.
+	 */
+	private static int lowerBound(long[] sortedSpans, long minStart) {
+	    int low = 0;
+	    int high = sortedSpans.length;
+	    while (low < high) {
+	        int mid = (low + high) >>> 1;
+	        if ((sortedSpans[mid] >> 32) < minStart) {
+	            low = mid + 1;
+	        } else {
+	            high = mid;
+	        }
+	    }
+	    return low;
+	}
+	
 	/**
 	 * Used to compare the value's of a field from the inner and outer tuples'.
 	 * 
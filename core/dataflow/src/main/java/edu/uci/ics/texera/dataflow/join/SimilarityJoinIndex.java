@@ -0,0 +1,304 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+
+/**
+ * SimilarityJoinIndex is a q-gram index of the span values of the inner tuples of a similarity join,
+ *   which finds the inner tuples that have a span value similar to a span value of an outer tuple
+ *   (normalized Levenshtein similarity: 1 - edit distance / length of the longest string, see SimilarityJoinPredicate).
+ *
+ * Two strings a and b with similarity >= threshold t have:
+ *   - similar lengths: min(|a|, |b|) >= t * max(|a|, |b|) (the length filter),
+ *   - an edit distance of at most D(a) = (1 - t) * |a| / t, since the other string isn't longer than |a| / t.
+ * One edit changes at most q of the q-grams of a string, so if the q-grams of a string are sorted in a global order
+ *   (the rarest first), the first q * D + 1 q-grams (the prefix) of a and b share a q-gram (the prefix filter).
+ * The values are indexed by the q-grams of their prefixes, a value is only compared with the values
+ *   that share a q-gram with its prefix and pass the length filter,
+ *   and the candidates are verified by the edit distance (stopped once it exceeds the allowed distance).
+ *
+ * The prefix filter doesn't hold for a pair of strings that both have no more than q * D q-grams (short strings),
+ *   a short value is compared with all the short values that pass the length filter.
+ */
+public class SimilarityJoinIndex implements IJoinIndex {
+
+    public static final int DEFAULT_Q = 2;
+
+    // the tolerance of the floating-point bounds, which only makes the filters looser
+    private static final double EPSILON = 1e-9;
+
+    private final int q;
+    private final double threshold;
+    private final String outerAttributeName;
+    private final List<Tuple> innerTuples;
+
+    // the distinct span values of the inner tuples, the id of a value is its index
+    private final List<String> values = new ArrayList<>();
+    // the inner tuples (indexes in innerTuples) that have a value, indexed by value id
+    private final List<BitSet> valueTuples = new ArrayList<>();
+    // the rank of a q-gram in the global order, a q-gram is numbered by its occurrences in a value ("ab" 0, "ab" 1, ...)
+    private final Map<String, Integer> gramRanks = new HashMap<>();
+    // the values that have the q-gram in their prefixes, indexed by the rank of the q-gram
+    private int[][] postingLists;
+    // the short values, which are compared with every short value
+    private int[] shortValues;
+
+    /**
+     * Builds the index on the span values of the inner tuples.
+     *
+     * @param innerTuples, the inner tuples, with spans in the spanList attribute
+     * @param innerAttributeName, the attribute of the spans of the inner tuples
+     * @param outerAttributeName, the attribute of the spans of the outer tuples
+     * @param threshold, the similarity threshold, must be greater than 0
+     * @param q, the length of a q-gram
+     */
+    public SimilarityJoinIndex(List<Tuple> innerTuples, String innerAttributeName, String outerAttributeName,
+            double threshold, int q) {
+        this.innerTuples = innerTuples;
+        this.outerAttributeName = outerAttributeName;
+        this.threshold = threshold;
+        this.q = q;
+
+        Map<String, Integer> valueIds = new HashMap<>();
+        for (int tupleIndex = 0; tupleIndex < innerTuples.size(); tupleIndex++) {
+            for (String value : getSpanValues(innerTuples.get(tupleIndex), innerAttributeName)) {
+                Integer valueId = valueIds.get(value);
+                if (valueId == null) {
+                    valueId = values.size();
+                    valueIds.put(value, valueId);
+                    values.add(value);
+                    valueTuples.add(new BitSet());
+                }
+                valueTuples.get(valueId).set(tupleIndex);
+            }
+        }
+        buildIndex();
+    }
+
+    /*
+     * Ranks the q-grams by their frequencies (the rarest first), and indexes the values by their prefixes.
+     */
+    private void buildIndex() {
+        List<List<String>> valueGrams = new ArrayList<>();
+        Map<String, Integer> gramFrequencies = new HashMap<>();
+        for (String value : values) {
+            List<String> grams = getGrams(value);
+            valueGrams.add(grams);
+            for (String gram : grams) {
+                gramFrequencies.merge(gram, 1, Integer::sum);
+            }
+        }
+
+        List<String> sortedGrams = new ArrayList<>(gramFrequencies.keySet());
+        sortedGrams.sort((gram1, gram2) -> {
+            int compare = Integer.compare(gramFrequencies.get(gram1), gramFrequencies.get(gram2));
+            return compare != 0 ? compare : gram1.compareTo(gram2);
+        });
+        for (int rank = 0; rank < sortedGrams.size(); rank++) {
+            gramRanks.put(sortedGrams.get(rank), rank);
+        }
+
+        List<List<Integer>> postings = new ArrayList<>();
+        for (int rank = 0; rank < sortedGrams.size(); rank++) {
+            postings.add(new ArrayList<>());
+        }
+        List<Integer> shortValueList = new ArrayList<>();
+        for (int valueId = 0; valueId < values.size(); valueId++) {
+            int[] ranks = getSortedRanks(valueGrams.get(valueId));
+            int prefixLength = getPrefixLength(values.get(valueId).length(), ranks.length);
+            for (int i = 0; i < prefixLength; i++) {
+                postings.get(ranks[i]).add(valueId);
+            }
+            if (isShort(values.get(valueId).length(), ranks.length)) {
+                shortValueList.add(valueId);
+            }
+        }
+
+        postingLists = new int[postings.size()][];
+        for (int rank = 0; rank < postings.size(); rank++) {
+            postingLists[rank] = postings.get(rank).stream().mapToInt(Integer::intValue).toArray();
+        }
+        shortValues = shortValueList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the inner tuples that have a span value similar to a span value of the outer tuple,
+     *   in the order of the inner tuples.
+     */
+    @Override
+    public List<Tuple> getCandidateInnerTuples(Tuple outerTuple) {
+        BitSet candidateTuples = new BitSet();
+        for (String value : getSpanValues(outerTuple, outerAttributeName)) {
+            for (int valueId : getSimilarValueIds(value)) {
+                candidateTuples.or(valueTuples.get(valueId));
+            }
+        }
+        List<Tuple> candidates = new ArrayList<>(candidateTuples.cardinality());
+        for (int i = candidateTuples.nextSetBit(0); i >= 0; i = candidateTuples.nextSetBit(i + 1)) {
+            candidates.add(innerTuples.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the indexed values that are similar to a string.
+     *
+     * @param query
+     * @return the similar values, in the order they are indexed
+     */
+    public List<String> getSimilarValues(String query) {
+        int[] similarValues = getSimilarValueIds(query);
+        List<String> result = new ArrayList<>(similarValues.length);
+        for (int valueId : similarValues) {
+            result.add(values.get(valueId));
+        }
+        return result;
+    }
+
+    private int[] getSimilarValueIds(String query) {
+        // the q-grams that aren't indexed are ranked before all the indexed q-grams, and don't have postings
+        List<String> grams = getGrams(query);
+        int[] ranks = new int[grams.size()];
+        for (int i = 0; i < grams.size(); i++) {
+            ranks[i] = gramRanks.getOrDefault(grams.get(i), -1);
+        }
+        Arrays.sort(ranks);
+
+        BitSet candidates = new BitSet(values.size());
+        int prefixLength = getPrefixLength(query.length(), ranks.length);
+        for (int i = 0; i < prefixLength; i++) {
+            if (ranks[i] >= 0) {
+                for (int valueId : postingLists[ranks[i]]) {
+                    candidates.set(valueId);
+                }
+            }
+        }
+        if (isShort(query.length(), ranks.length)) {
+            for (int valueId : shortValues) {
+                candidates.set(valueId);
+            }
+        }
+
+        int[] similarValues = new int[candidates.cardinality()];
+        int count = 0;
+        for (int valueId = candidates.nextSetBit(0); valueId >= 0; valueId = candidates.nextSetBit(valueId + 1)) {
+            if (isSimilar(query, values.get(valueId))) {
+                similarValues[count++] = valueId;
+            }
+        }
+        return Arrays.copyOf(similarValues, count);
+    }
+
+    /*
+     * Checks the normalized Levenshtein similarity of two strings, with the length filter first.
+     */
+    private boolean isSimilar(String str1, String str2) {
+        int maxLength = Math.max(str1.length(), str2.length());
+        int minLength = Math.min(str1.length(), str2.length());
+        if (maxLength == 0) {
+            return true;
+        }
+        if (minLength < threshold * maxLength - EPSILON) {
+            return false;
+        }
+        int maxDistance = (int) Math.floor((1 - threshold) * maxLength + EPSILON);
+        int distance = getEditDistance(str1, str2, maxDistance);
+        return distance <= maxDistance && 1.0 - ((double) distance / maxLength) >= threshold;
+    }
+
+    /*
+     * Computes the Levenshtein distance of two strings,
+     *   returns maxDistance + 1 once every entry of a row of the table exceeds maxDistance.
+     */
+    static int getEditDistance(String str1, String str2, int maxDistance) {
+        int[] previousRow = new int[str2.length() + 1];
+        int[] currentRow = new int[str2.length() + 1];
+        for (int j = 0; j <= str2.length(); j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= str1.length(); i++) {
+            currentRow[0] = i;
+            int rowMin = currentRow[0];
+            char c = str1.charAt(i - 1);
+            for (int j = 1; j <= str2.length(); j++) {
+                int substitution = previousRow[j - 1] + (c == str2.charAt(j - 1) ? 0 : 1);
+                currentRow[j] = Math.min(substitution, Math.min(previousRow[j], currentRow[j - 1]) + 1);
+                rowMin = Math.min(rowMin, currentRow[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] row = previousRow;
+            previousRow = currentRow;
+            currentRow = row;
+        }
+        return previousRow[str2.length()];
+    }
+
+    /*
+     * The maximum edit distance between a string and a similar string, which is at most length / threshold long.
+     */
+    private int getMaxDistance(int length) {
+        return (int) Math.floor((1 - threshold) * length / threshold + EPSILON);
+    }
+
+    private int getPrefixLength(int length, int gramCount) {
+        return (int) Math.min(gramCount, (long) q * getMaxDistance(length) + 1);
+    }
+
+    private boolean isShort(int length, int gramCount) {
+        return gramCount <= (long) q * getMaxDistance(length);
+    }
+
+    /*
+     * Gets the q-grams of a string, the occurrences of a q-gram are numbered (for example, "ab0", "ab1").
+     */
+    private List<String> getGrams(String str) {
+        List<String> grams = new ArrayList<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int i = 0; i + q <= str.length(); i++) {
+            String gram = str.substring(i, i + q);
+            int occurrence = occurrences.merge(gram, 1, Integer::sum) - 1;
+            grams.add(gram + occurrence);
+        }
+        return grams;
+    }
+
+    private int[] getSortedRanks(List<String> grams) {
+        int[] ranks = new int[grams.size()];
+        for (int i = 0; i < grams.size(); i++) {
+            ranks[i] = gramRanks.get(grams.get(i));
+        }
+        Arrays.sort(ranks);
+        return ranks;
+    }
+
+    /*
+     * Gets the distinct values of the spans of the attribute, an empty set if the tuple doesn't have spans.
+     */
+    private static Set<String> getSpanValues(Tuple tuple, String attributeName) {
+        Set<String> spanValues = new LinkedHashSet<>();
+        if (! tuple.getSchema().containsAttribute(SchemaConstants.SPAN_LIST)) {
+            return spanValues;
+        }
+        ListField<Span> spanListField = tuple.getField(SchemaConstants.SPAN_LIST);
+        for (Span span : spanListField.getValue()) {
+            if (span.getAttributeName().equals(attributeName) && span.getValue() != null) {
+                spanValues.add(span.getValue());
+            }
+        }
+        return spanValues;
+    }
+
+}
@@ -36,6 +36,10 @@ import info.debatty.java.stringsimilarity.NormalizedLevenshtein;
  * Currently the similarity is measured by normalized Levenshtein distance,
  *   which is the Levenshtein distance divided by the length of the longest string
  *
+ * Join finds the inner tuples to be joined with an outer tuple by a q-gram index of the inner span values
+ *   (see SimilarityJoinIndex), instead of joining every pair of tuples.
+ *   The index isn't used if the similarity function is changed by setSimilarityFunction().
+ *
  * Example of a same-table, different-tuple join, similarity threshold > 0.8
  *
  * table_schema,   inner_tuple,             outer_tuple
@@ -67,6 +71,8 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
     String outerJoinAttrName;
     
     private SimilarityFunc similarityFunc;
+    // true if the similarity function is the default (normalized Levenshtein), which SimilarityJoinIndex computes
+    private boolean defaultSimilarityFunc;
     
     @FunctionalInterface
     public static interface SimilarityFunc {
@@ -98,6 +104,7 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
         // initialize default similarity function to NormalizedLevenshtein
         // which is Levenshtein distance / length of longest string
         this.similarityFunc = ((str1, str2) -> (1.0 - new NormalizedLevenshtein().distance(str1, str2)));
+        this.defaultSimilarityFunc = true;
     }
     
     @JsonProperty(value = PropertyNameConstants.INNER_ATTRIBUTE_NAME)
@@ -254,6 +261,20 @@ public class SimilarityJoinPredicate extends PredicateBase implements IJoinPredi
     @JsonIgnore
     public void setSimilarityFunction(SimilarityFunc similarityFunc) {
         this.similarityFunc = similarityFunc;
+        this.defaultSimilarityFunc = false;
+    }
+    
+    /**
+     * Creates the q-gram index of the span values of the inner tuples (see SimilarityJoinIndex),
+     *   or returns null if the similarity function isn't the default one.
+     */
+    @Override
+    public IJoinIndex createInnerTupleIndex(List<Tuple> innerTuples) {
+        if (! defaultSimilarityFunc || similarityThreshold == 0) {
+            return null;
+        }
+        return new SimilarityJoinIndex(innerTuples, innerJoinAttrName, outerJoinAttrName,
+                similarityThreshold, SimilarityJoinIndex.DEFAULT_Q);
     }
     
     @Override
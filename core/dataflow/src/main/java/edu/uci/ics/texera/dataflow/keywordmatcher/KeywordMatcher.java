@@ -1,7 +1,6 @@
 package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
@@ -10,10 +9,12 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
+import edu.uci.ics.texera.dataflow.utils.TokenizationCache;
 
 public class KeywordMatcher extends AbstractSingleInputOperator {
 
@@ -26,6 +27,8 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
     
     private boolean addPayload = false;
     private boolean addResultAttribute = false;
+    
+    private TokenizationCache tokenizationCache = null;
 
     public KeywordMatcher(KeywordPredicate predicate) {
         this.predicate = predicate;
@@ -81,18 +84,23 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
         return resultTuple;
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         // add payload if needed before passing it to the matching functions
         if (addPayload) {
             Tuple.Builder tupleBuilderPayload = new Tuple.Builder(inputTuple);
-            tupleBuilderPayload.add(SchemaConstants.PAYLOAD_ATTRIBUTE, new ListField<Span>(
-                    DataflowUtils.generatePayloadFromTuple(inputTuple, predicate.getLuceneAnalyzerString())));
+            tupleBuilderPayload.add(SchemaConstants.PAYLOAD_ATTRIBUTE, ListField.wrap(
+                    DataflowUtils.generatePayloadFromTuple(inputTuple, predicate.getLuceneAnalyzerString(), tokenizationCache)));
             inputTuple = tupleBuilderPayload.build();
         }
         
         // compute the keyword matching results
-        List<Span> matchingResults = null;
+        ColumnarSpanList matchingResults = null;
         if (this.predicate.getMatchingType() == KeywordMatchingType.CONJUNCTION_INDEXBASED) {
            matchingResults =  appendConjunctionMatchingSpans(inputTuple, predicate.getAttributeNames(), queryTokenSet, predicate.getQuery());
         }
@@ -109,7 +117,7 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
         
         Tuple.Builder tupleBuilder = new Tuple.Builder(inputTuple);
         if (addResultAttribute) {
-            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, new ListField<Span>(matchingResults));
+            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, ListField.wrap(matchingResults));
         }
         return tupleBuilder.build();
     }
@@ -118,10 +126,10 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
     protected void cleanUp() {
     }
 
-    private List<Span> appendPhraseMatchingSpans(Tuple inputTuple, List<String> attributeNames, List<String> queryTokenList, List<String> queryTokenListWithStopwords, String queryKeyword) throws DataflowException {
+    private ColumnarSpanList appendPhraseMatchingSpans(Tuple inputTuple, List<String> attributeNames, List<String> queryTokenList, List<String> queryTokenListWithStopwords, String queryKeyword) throws DataflowException {
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> payload = payloadField.getValue();
-        List<Span> matchingResults = new ArrayList<>();
+        ColumnarSpanList payload = DataflowUtils.getPayloadSpans(payloadField.getValue(), attributeNames);
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
             String fieldValue = inputTuple.getField(attributeName).getValue().toString();
@@ -130,12 +138,13 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                 throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
             }
+            // the values of the matching spans are the substrings of the field value
+            matchingResults.setFieldValue(attributeName, fieldValue);
 
             // for STRING type, the query should match the fieldValue completely
             if (attributeType == AttributeType.STRING) {
                 if (queryKeyword.equals(fieldValue)) {
-                    Span span = new Span(attributeName, 0, fieldValue.length(), fieldValue, fieldValue);
-                    matchingResults.add(span);
+                    matchingResults.add(attributeName, 0, fieldValue.length(), fieldValue, Span.INVALID_TOKEN_OFFSET);
                 }
             }
 
@@ -143,9 +152,7 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             // phrase query
             if (attributeType == AttributeType.TEXT) {
                 Set<String> queryTokenSet = new HashSet<>(queryTokenList);
-                List<Span> relevantSpans = filterRelevantSpans(payload, queryTokenSet);
-                List<Span> fieldSpanList = relevantSpans.stream().filter(span -> span.getAttributeName().equals(attributeName))
-                        .collect(Collectors.toList());
+                List<Span> fieldSpanList = filterRelevantSpans(payload, attributeName, queryTokenSet);
 
                 if (!DataflowUtils.isAllQueryTokensPresent(fieldSpanList, queryTokenSet)) {
                     // move on to next field if not all query tokens are present
@@ -155,13 +162,13 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
                 matchingResults.addAll(DataflowUtils.constructPhraseMatchingSpans(attributeName, fieldValue, queryKeyword, fieldSpanList, queryTokenListWithStopwords, queryTokenList));
             }
         }
-        return matchingResults;
+        return matchingResults.build();
     }
 
-    private List<Span> appendConjunctionMatchingSpans(Tuple inputTuple, List<String> attributeNames, Set<String> queryTokenSet, String queryKeyword) throws DataflowException {
+    private ColumnarSpanList appendConjunctionMatchingSpans(Tuple inputTuple, List<String> attributeNames, Set<String> queryTokenSet, String queryKeyword) throws DataflowException {
         ListField<Span> payloadField = inputTuple.getField(SchemaConstants.PAYLOAD);
-        List<Span> payload = payloadField.getValue();
-        List<Span> matchingResults = new ArrayList<>();
+        ColumnarSpanList payload = DataflowUtils.getPayloadSpans(payloadField.getValue(), attributeNames);
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
         for (String attributeName : attributeNames) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
             String fieldValue = inputTuple.getField(attributeName).getValue().toString();
@@ -170,32 +177,31 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                 throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
             }
+            // the values of the matching spans are the substrings of the field value
+            matchingResults.setFieldValue(attributeName, fieldValue);
 
             // for STRING type, the query should match the fieldValue completely
             if (attributeType == AttributeType.STRING) {
                 if (queryKeyword.equals(fieldValue)) {
-                    Span span = new Span(attributeName, 0, fieldValue.length(), fieldValue, fieldValue);
-                    matchingResults.add(span);
+                    matchingResults.add(attributeName, 0, fieldValue.length(), fieldValue, Span.INVALID_TOKEN_OFFSET);
                 }
             }
 
             // for TEXT type, every token in the query should be present in span
             // list for this field
             if (attributeType == AttributeType.TEXT) {
-                List<Span> relevantSpans = filterRelevantSpans(payload, queryTokenSet);
-                List<Span> fieldSpanList = relevantSpans.stream().filter(span -> span.getAttributeName().equals(attributeName))
-                        .collect(Collectors.toList());
+                List<Span> fieldSpanList = filterRelevantSpans(payload, attributeName, queryTokenSet);
                 if (DataflowUtils.isAllQueryTokensPresent(fieldSpanList, queryTokenSet)) {
                     matchingResults.addAll(fieldSpanList);
                 }
 
             }
         }
-        return matchingResults;
+        return matchingResults.build();
     }
 
-    private List<Span> appendSubstringMatchingSpans(Tuple inputTuple, List<String> attributeNames, String queryKeyword) throws DataflowException {
-        List<Span> matchingResults = new ArrayList<>();
+    private ColumnarSpanList appendSubstringMatchingSpans(Tuple inputTuple, List<String> attributeNames, String queryKeyword) throws DataflowException {
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
         for (String attributeName : attributeNames) {
             //  AttributeType attributeType = this.inputSchema.getAttribute(attributeName).getAttributeType();
             String fieldValue = inputTuple.getField(attributeName).getValue().toString();
@@ -204,11 +210,13 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
                 throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
             }
+            // the values of the matching spans are the substrings of the field value
+            matchingResults.setFieldValue(attributeName, fieldValue);
 
             // for STRING type, the query should match the fieldValue completely
             if (attributeType == AttributeType.STRING) {
                 if (fieldValue.equals(queryKeyword)) {
-                    matchingResults.add(new Span(attributeName, 0, queryKeyword.length(), queryKeyword, fieldValue));
+                    matchingResults.add(attributeName, 0, queryKeyword.length(), queryKeyword, Span.INVALID_TOKEN_OFFSET);
                 }
             }
 
@@ -219,8 +227,8 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
                 for (int i = 0; i < fieldValueLowerCase.length(); i++) {
                     int index = -1;
                     if ((index = fieldValueLowerCase.indexOf(queryKeywordLowerCase, i)) != -1) {
-                        matchingResults.add(new Span(attributeName, index, index + queryKeyword.length(), queryKeyword,
-                                fieldValue.substring(index, index + queryKeyword.length())));
+                        matchingResults.add(attributeName, index, index + queryKeyword.length(), queryKeyword,
+                                Span.INVALID_TOKEN_OFFSET);
                         i = index + 1;
                     } else {
                         break;
@@ -229,21 +237,37 @@ public class KeywordMatcher extends AbstractSingleInputOperator {
 
             }
         }
-        return matchingResults;
+        return matchingResults.build();
     }
     
-    private List<Span> filterRelevantSpans(List<Span> spanList, Set<String> queryTokenSet) {
+    /*
+     * Gets the payload spans of an attribute whose keys are query tokens.
+     * Only the Span objects of these spans are created, the other spans are checked in the columns of the payload.
+     */
+    private List<Span> filterRelevantSpans(ColumnarSpanList payload, String attributeName, Set<String> queryTokenSet) {
         List<Span> relevantSpans = new ArrayList<>();
-        Iterator<Span> iterator = spanList.iterator();
-        while (iterator.hasNext()) {
-            Span span = iterator.next();
-            if (queryTokenSet.contains(span.getKey())) {
-                relevantSpans.add(span);
+        int attributeId = payload.getAttributeIdOf(attributeName);
+        if (attributeId == -1) {
+            return relevantSpans;
+        }
+        for (int i = 0; i < payload.size(); i++) {
+            if (payload.getAttributeId(i) == attributeId && queryTokenSet.contains(payload.getKey(i))) {
+                relevantSpans.add(payload.get(i));
             }
         }
         return relevantSpans;
     }
 
+    /**
+     * Sets the cache of the payload shared by the operators of a plan,
+     *   which is used when the input tuples don't have a payload.
+     * 
+     * @param tokenizationCache, the cache, or null to tokenize every tuple
+     */
+    public void setTokenizationCache(TokenizationCache tokenizationCache) {
+        this.tokenizationCache = tokenizationCache;
+    }
+
     public KeywordPredicate getPredicate() {
         return this.predicate;
     }
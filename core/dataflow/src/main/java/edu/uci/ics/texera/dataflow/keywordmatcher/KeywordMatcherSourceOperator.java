@@ -1,7 +1,10 @@
 package edu.uci.ics.texera.dataflow.keywordmatcher;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -23,9 +26,11 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.source.scan.SegmentParallelScanOperator;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.statistics.TableStatistics;
 
 /**
  * KeywordMatcherSourceOperator is a source operator with a keyword query.
@@ -82,12 +87,17 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
 
     @Override
     protected void setUp() throws DataflowException {
-        this.outputSchema = keywordMatcher.getOutputSchema();
+        this.outputSchema = this.inputOperator.getOutputSchema();
     }
 
     @Override
     protected Tuple computeNextMatchingTuple() throws TexeraException {
-        return this.keywordMatcher.getNextTuple();
+        return this.inputOperator.getNextTuple();
+    }
+
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return this.inputOperator.getNextBatch(maxSize);
     }
 
     @Override
@@ -111,6 +121,44 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
         return this.predicate;
     }
 
+    /**
+     * Sets the number of threads reading the table in parallel by index segments.
+     * Each thread runs its own KeywordMatcher on a slice of the segments (see SegmentParallelScanOperator).
+     * The documents are read in index order instead of the order of their scores.
+     * It must be set before the operator is opened.
+     * 
+     * @param parallelism, the maximum number of threads, 1 to read by one thread
+     * @param ordered, if the results are returned in the order of the table
+     */
+    public void setParallelism(int parallelism, boolean ordered) {
+        if (parallelism > 1) {
+            this.inputOperator = new SegmentParallelScanOperator(dataReader, parallelism, ordered, slice -> {
+                KeywordMatcher sliceMatcher = new KeywordMatcher(predicate);
+                sliceMatcher.setInputOperator(slice);
+                return sliceMatcher;
+            });
+        } else {
+            this.inputOperator = this.keywordMatcher;
+        }
+    }
+
+    /**
+     * Sets the attributes needed by the downstream operators, 
+     *   only these attributes, the attributes to match on, and _id are read.
+     * It must be set before the operator is opened.
+     * 
+     * @param requiredAttributes, the names of the required attributes, or null if all attributes are required
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        if (requiredAttributes == null) {
+            dataReader.setRequiredAttributes(null);
+            return;
+        }
+        Set<String> readerAttributes = new HashSet<>(requiredAttributes);
+        readerAttributes.addAll(predicate.getAttributeNames());
+        dataReader.setRequiredAttributes(readerAttributes);
+    }
+
     /**
      * Creates a Query object as a boolean Query on all attributes Example: For
      * creating a query like (TestConstants.DESCRIPTION + ":lin" + " AND " +
@@ -137,10 +185,25 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
     }
 
     private Query buildConjunctionQuery() throws DataflowException {
+        return createConjunctionQuery(this.predicate, this.inputSchema, this.queryTokenSet);
+    }
+    
+    /**
+     * Creates the Lucene query of a conjunction keyword predicate on a table,
+     *   a tuple matches the query if any of the attributes contains all the query tokens.
+     * 
+     * @param predicate, the conjunction keyword predicate
+     * @param inputSchema, the schema of the table
+     * @param queryTokenSet, the tokens of the query
+     * @return the query
+     * @throws DataflowException
+     */
+    public static Query createConjunctionQuery(KeywordPredicate predicate, Schema inputSchema, Set<String> queryTokenSet)
+            throws DataflowException {
         BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
 
-        for (String attributeName : this.predicate.getAttributeNames()) {
-            AttributeType attributeType = this.inputSchema.getAttribute(attributeName).getType();
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputSchema.getAttribute(attributeName).getType();
 
             // types other than TEXT and STRING: throw Exception for now
             if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
@@ -165,6 +228,42 @@ public class KeywordMatcherSourceOperator extends AbstractSingleInputOperator im
 
         return booleanQueryBuilder.build();
     }
+    
+    /**
+     * Estimates the fraction of the tuples in a table matching a conjunction keyword predicate
+     *   from the document frequencies of the query tokens in the index.
+     * The estimate is an upper bound, the least frequent token of each attribute is counted.
+     * 
+     * @param predicate, the conjunction keyword predicate
+     * @param tableName, the name of the table
+     * @param queryTokenSet, the tokens of the query
+     * @return the estimated selectivity between 0 and 1
+     * @throws TexeraException
+     */
+    public static double estimateConjunctionSelectivity(KeywordPredicate predicate, String tableName, 
+            Set<String> queryTokenSet) throws TexeraException {
+        RelationManager relationManager = RelationManager.getInstance();
+        TableStatistics statistics = relationManager.getTableStatistics(tableName);
+        if (statistics.getRowCount() == 0) {
+            return 0;
+        }
+        Schema inputSchema = relationManager.getTableSchema(tableName);
+        long matchingCount = 0;
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputSchema.getAttribute(attributeName).getType();
+            if (attributeType == AttributeType.STRING) {
+                matchingCount += relationManager.getTermDocumentFrequency(tableName, attributeName, predicate.getQuery());
+            } else if (attributeType == AttributeType.TEXT) {
+                long attributeCount = statistics.getRowCount();
+                for (String token : queryTokenSet) {
+                    attributeCount = Math.min(attributeCount, 
+                            relationManager.getTermDocumentFrequency(tableName, attributeName, token.toLowerCase()));
+                }
+                matchingCount += attributeCount;
+            }
+        }
+        return Math.min(1, (double) matchingCount / statistics.getRowCount());
+    }
 
     private Query buildPhraseQuery() throws DataflowException {
         BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
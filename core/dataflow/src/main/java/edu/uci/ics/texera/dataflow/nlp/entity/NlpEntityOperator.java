@@ -80,6 +80,11 @@ public class NlpEntityOperator extends AbstractSingleInputOperator {
         return resultTuple;
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         List<Span> matchingResults = new ArrayList<>();
@@ -153,19 +158,22 @@ public class NlpEntityOperator extends AbstractSingleInputOperator {
         Properties props = new Properties();
 
         // Setup Stanford NLP pipeline based on nlpTypeIndicator
+        // the pipelines are shared, processOneInputTuple() may be called concurrently (see ParallelSingleInputOperator)
         StanfordCoreNLP pipeline = null;
-        if (getNlpTypeIndicator(predicate.getNlpEntityType()).equals("POS")) {
-            props.setProperty("annotators", "tokenize, ssplit, pos");
-            if (posPipeline == null) {
-                posPipeline = new StanfordCoreNLP(props);
-            }
-            pipeline = posPipeline;
-        } else {
-            props.setProperty("annotators", "tokenize, ssplit, pos, lemma, " + "ner");
-            if (nerPipeline == null) {
-                nerPipeline = new StanfordCoreNLP(props);
+        synchronized (NlpEntityOperator.class) {
+            if (getNlpTypeIndicator(predicate.getNlpEntityType()).equals("POS")) {
+                props.setProperty("annotators", "tokenize, ssplit, pos");
+                if (posPipeline == null) {
+                    posPipeline = new StanfordCoreNLP(props);
+                }
+                pipeline = posPipeline;
+            } else {
+                props.setProperty("annotators", "tokenize, ssplit, pos, lemma, " + "ner");
+                if (nerPipeline == null) {
+                    nerPipeline = new StanfordCoreNLP(props);
+                }
+                pipeline = nerPipeline;
             }
-            pipeline = nerPipeline;
         }
         Annotation documentAnnotation = new Annotation(text);
         pipeline.annotate(documentAnnotation);
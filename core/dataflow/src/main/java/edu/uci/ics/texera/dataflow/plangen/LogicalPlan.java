@@ -8,6 +8,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import org.apache.lucene.search.Query;
+
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISink;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
@@ -15,10 +17,38 @@ import edu.uci.ics.texera.api.engine.Plan;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.PlanGenException;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.common.ParallelSingleInputOperator;
 import edu.uci.ics.texera.dataflow.common.PredicateBase;
 import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+import edu.uci.ics.texera.dataflow.comparablematcher.ComparableMatcher;
+import edu.uci.ics.texera.dataflow.comparablematcher.ComparablePredicate;
+import edu.uci.ics.texera.dataflow.connector.ExchangeOperator;
 import edu.uci.ics.texera.dataflow.connector.OneToNBroadcastConnector;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryMatcher;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryPredicate;
+import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenMatcher;
+import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenMatcherSourceOperator;
+import edu.uci.ics.texera.dataflow.fuzzytokenmatcher.FuzzyTokenPredicate;
 import edu.uci.ics.texera.dataflow.join.Join;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcher;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcherSourceOperator;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordPredicate;
+import edu.uci.ics.texera.dataflow.nlp.entity.NlpEntityOperator;
+import edu.uci.ics.texera.dataflow.nlp.entity.NlpEntityPredicate;
+import edu.uci.ics.texera.dataflow.nlp.sentiment.NlpSentimentPredicate;
+import edu.uci.ics.texera.dataflow.nlp.splitter.NlpSplitPredicate;
+import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcherSourceOperator;
+import edu.uci.ics.texera.dataflow.regexmatcher.MultiRegexPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+import edu.uci.ics.texera.dataflow.sampler.SamplerPredicate;
+import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
+import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
+import edu.uci.ics.texera.dataflow.utils.TokenizationCache;
+import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.api.schema.Schema;
 
 
@@ -28,6 +58,10 @@ import edu.uci.ics.texera.api.schema.Schema;
  * @author Zuozhi Wang
  */
 public class LogicalPlan {
+    
+    // a filter is pushed down to a table scan as an index query 
+    //   only if it's estimated to match at most this fraction of the table
+    public static final double INDEX_FILTER_SELECTIVITY_THRESHOLD = 0.5;
 
     private QueryContext context;
 
@@ -259,7 +293,12 @@ public class LogicalPlan {
 
         buildOperators();
         validateOperatorGraph();
+        setTokenizationCache();
+        setOperatorParallelism();
         connectOperators(operatorObjectMap);
+        pushDownRequiredAttributes();
+        pushDownFilters();
+        setScanParallelism();
         HashMap<String, ISink> sinkMap = findSinkOperators(operatorObjectMap);
 
         return new Plan(sinkMap);
@@ -481,18 +520,276 @@ public class LogicalPlan {
                 int counter = 0;
                 for (String adjacentVertex : adjacencyList.get(vertex)) {
                     IOperator adjacentOperator = operatorObjectMap.get(adjacentVertex);
-                    handleSetInputOperator(oneToNConnector.getOutputOperator(counter), adjacentOperator);
+                    handleSetInputOperator(
+                            addExchangeIfNeeded(oneToNConnector.getOutputOperator(counter), adjacentVertex), adjacentOperator);
                     counter++;
                 }
             } else {
                 for (String adjacentVertex : adjacencyList.get(vertex)) {
                     IOperator adjacentOperator = operatorObjectMap.get(adjacentVertex);
-                    handleSetInputOperator(currentOperator, adjacentOperator);
+                    handleSetInputOperator(addExchangeIfNeeded(currentOperator, adjacentVertex), adjacentOperator);
                 }
             }         
         }
     }
 
+    /*
+     * Shares a tokenization cache among the text matchers of the plan (keyword, dictionary and fuzzy token matchers),
+     *   so that a field value is tokenized once if several matchers need its payload.
+     * The cache is only created if there're at least two matchers, and its size is set in the query context.
+     */
+    private void setTokenizationCache() {
+        long cacheSize = context == null ? TokenizationCache.DEFAULT_MAX_CHARACTERS : context.getTokenizationCacheSize();
+        if (cacheSize <= 0) {
+            return;
+        }
+        List<IOperator> textMatchers = new ArrayList<>();
+        for (IOperator operator : operatorObjectMap.values()) {
+            if (operator instanceof KeywordMatcher || operator instanceof DictionaryMatcher 
+                    || operator instanceof FuzzyTokenMatcher) {
+                textMatchers.add(operator);
+            }
+        }
+        if (textMatchers.size() < 2) {
+            return;
+        }
+        TokenizationCache tokenizationCache = new TokenizationCache(cacheSize);
+        for (IOperator operator : textMatchers) {
+            if (operator instanceof KeywordMatcher) {
+                ((KeywordMatcher) operator).setTokenizationCache(tokenizationCache);
+            } else if (operator instanceof DictionaryMatcher) {
+                ((DictionaryMatcher) operator).setTokenizationCache(tokenizationCache);
+            } else {
+                ((FuzzyTokenMatcher) operator).setTokenizationCache(tokenizationCache);
+            }
+        }
+    }
+
+    /*
+     * Wraps the expensive per-tuple operators (NLP entity, regex and fuzzy token matchers) in ParallelSingleInputOperators
+     *   if the operator parallelism in the query context is more than 1.
+     * It must be called before the operators are connected, so that the other operators read from the parallel operators.
+     */
+    private void setOperatorParallelism() {
+        if (context == null || context.getOperatorParallelism() <= 1) {
+            return;
+        }
+        for (Map.Entry<String, IOperator> entry : operatorObjectMap.entrySet()) {
+            IOperator operator = entry.getValue();
+            if (operator instanceof NlpEntityOperator || operator instanceof RegexMatcher 
+                    || operator instanceof FuzzyTokenMatcher) {
+                entry.setValue(new ParallelSingleInputOperator(
+                        (AbstractSingleInputOperator) operator, context.getOperatorParallelism()));
+            }
+        }
+    }
+
+    /*
+     * Wraps the input of an operator in an ExchangeOperator if exchanges are enabled in the query context
+     *   and the operator is expensive (the NLP operators), so that the input segment of the plan runs on its own thread
+     *   and overlaps with the operator.
+     */
+    private IOperator addExchangeIfNeeded(IOperator inputOperator, String operatorID) {
+        if (context == null || ! context.isExchangeEnabled()) {
+            return inputOperator;
+        }
+        PredicateBase predicate = operatorPredicateMap.get(operatorID);
+        if (! (predicate instanceof NlpEntityPredicate || predicate instanceof NlpSentimentPredicate 
+                || predicate instanceof NlpSplitPredicate)) {
+            return inputOperator;
+        }
+        ExchangeOperator exchangeOperator = new ExchangeOperator();
+        exchangeOperator.setInputOperator(inputOperator);
+        return exchangeOperator;
+    }
+    
+    /*
+     * Pushes the attributes needed by the downstream operators down to the source operators,
+     *   so that the sources only read these attributes from the index.
+     * 
+     * The required attributes of a source can only be narrowed if every path from it to a sink
+     *   goes through a projection, and the operators before the projection only append attributes
+     *   to their input tuples (the matchers, comparison and sampler).
+     */
+    private void pushDownRequiredAttributes() {
+        HashMap<String, Set<String>> requiredAttributesMap = new HashMap<>();
+        for (String operatorID : operatorObjectMap.keySet()) {
+            IOperator operator = operatorObjectMap.get(operatorID);
+            if (! (operator instanceof ISourceOperator)) {
+                continue;
+            }
+            Set<String> requiredAttributes = getRequiredOutputAttributes(operatorID, requiredAttributesMap);
+            if (requiredAttributes == null) {
+                continue;
+            }
+            if (operator instanceof ScanBasedSourceOperator) {
+                ((ScanBasedSourceOperator) operator).setRequiredAttributes(requiredAttributes);
+            } else if (operator instanceof KeywordMatcherSourceOperator) {
+                ((KeywordMatcherSourceOperator) operator).setRequiredAttributes(requiredAttributes);
+            } else if (operator instanceof RegexMatcherSourceOperator) {
+                ((RegexMatcherSourceOperator) operator).setRequiredAttributes(requiredAttributes);
+            } else if (operator instanceof FuzzyTokenMatcherSourceOperator) {
+                ((FuzzyTokenMatcherSourceOperator) operator).setRequiredAttributes(requiredAttributes);
+            }
+        }
+    }
+    
+    /*
+     * Pushes the comparisons and the conjunction keyword matchers directly over a table scan 
+     *   down to the scan as Lucene queries, so that the scan only reads the documents satisfying them.
+     * 
+     * A chain of filters is pushed down as long as each operator in the chain has only one output,
+     *   the filter operators are kept in the plan to check the exact conditions.
+     * A filter is only pushed down if the table statistics estimate it to be selective enough,
+     *   otherwise scanning the table is cheaper than looking up the index.
+     */
+    private void pushDownFilters() throws PlanGenException {
+        for (String operatorID : operatorObjectMap.keySet()) {
+            IOperator operator = operatorObjectMap.get(operatorID);
+            if (! (operator instanceof ScanBasedSourceOperator)) {
+                continue;
+            }
+            ScanBasedSourceOperator scanOperator = (ScanBasedSourceOperator) operator;
+            String currentVertex = operatorID;
+            while (adjacencyList.get(currentVertex).size() == 1) {
+                String nextVertex = adjacencyList.get(currentVertex).iterator().next();
+                PredicateBase nextPredicate = operatorPredicateMap.get(nextVertex);
+                Query filterQuery;
+                try {
+                    if (nextPredicate instanceof ComparablePredicate) {
+                        filterQuery = createComparisonFilter((ComparablePredicate) nextPredicate, scanOperator.getTableName());
+                    } else if (nextPredicate instanceof KeywordPredicate) {
+                        filterQuery = createKeywordFilter((KeywordPredicate) nextPredicate, scanOperator.getTableName());
+                    } else {
+                        break;
+                    }
+                } catch (TexeraException e) {
+                    throw new PlanGenException(e.getMessage(), e);
+                }
+                if (filterQuery != null) {
+                    scanOperator.addFilterQuery(filterQuery);
+                }
+                currentVertex = nextVertex;
+            }
+        }
+    }
+    
+    /*
+     * Creates the range query of a comparison on a table, or returns null if it shouldn't be pushed down.
+     */
+    private static Query createComparisonFilter(ComparablePredicate predicate, String tableName) throws TexeraException {
+        Double selectivity = ComparableMatcher.estimateSelectivity(predicate, tableName);
+        if (selectivity != null && selectivity > INDEX_FILTER_SELECTIVITY_THRESHOLD) {
+            return null;
+        }
+        return ComparableMatcher.createRangeQuery(predicate, tableName);
+    }
+    
+    /*
+     * Creates the index query of a conjunction keyword matcher on a table, or returns null if it shouldn't be pushed down.
+     * The query only finds the same tuples as the matcher if the query is tokenized in the same way as the table.
+     */
+    private static Query createKeywordFilter(KeywordPredicate predicate, String tableName) throws TexeraException {
+        if (predicate.getMatchingType() != KeywordMatchingType.CONJUNCTION_INDEXBASED
+                || ! predicate.getLuceneAnalyzerString().equals(RelationManager.getInstance().getTableAnalyzerString(tableName))) {
+            return null;
+        }
+        Set<String> queryTokenSet = new HashSet<>(
+                DataflowUtils.tokenizeQuery(predicate.getLuceneAnalyzerString(), predicate.getQuery()));
+        if (queryTokenSet.isEmpty()) {
+            return null;
+        }
+        if (KeywordMatcherSourceOperator.estimateConjunctionSelectivity(predicate, tableName, queryTokenSet)
+                > INDEX_FILTER_SELECTIVITY_THRESHOLD) {
+            return null;
+        }
+        return KeywordMatcherSourceOperator.createConjunctionQuery(
+                predicate, RelationManager.getInstance().getTableSchema(tableName), queryTokenSet);
+    }
+    
+    /*
+     * Sets the parallelism in the query context to the source operators that can read their tables
+     *   in parallel by index segments.
+     */
+    private void setScanParallelism() {
+        if (context == null || context.getScanParallelism() <= 1) {
+            return;
+        }
+        for (IOperator operator : operatorObjectMap.values()) {
+            if (operator instanceof ScanBasedSourceOperator) {
+                ((ScanBasedSourceOperator) operator).setParallelism(context.getScanParallelism(), context.isOrderedScan());
+            } else if (operator instanceof KeywordMatcherSourceOperator) {
+                ((KeywordMatcherSourceOperator) operator).setParallelism(context.getScanParallelism(), context.isOrderedScan());
+            } else if (operator instanceof RegexMatcherSourceOperator) {
+                ((RegexMatcherSourceOperator) operator).setParallelism(context.getScanParallelism(), context.isOrderedScan());
+            }
+        }
+    }
+    
+    /*
+     * Returns the names of the attributes that the downstream operators need from the output of an operator,
+     *   or null if all the attributes are needed.
+     */
+    private Set<String> getRequiredOutputAttributes(String operatorID, HashMap<String, Set<String>> requiredAttributesMap) {
+        if (requiredAttributesMap.containsKey(operatorID)) {
+            return requiredAttributesMap.get(operatorID);
+        }
+        Set<String> requiredAttributes = null;
+        // a sink needs all the attributes
+        if (! adjacencyList.get(operatorID).isEmpty()) {
+            requiredAttributes = new HashSet<>();
+            for (String adjacentVertex : adjacencyList.get(operatorID)) {
+                Set<String> adjacentRequiredAttributes = getRequiredInputAttributes(adjacentVertex, requiredAttributesMap);
+                if (adjacentRequiredAttributes == null) {
+                    requiredAttributes = null;
+                    break;
+                }
+                requiredAttributes.addAll(adjacentRequiredAttributes);
+            }
+        }
+        requiredAttributesMap.put(operatorID, requiredAttributes);
+        return requiredAttributes;
+    }
+    
+    /*
+     * Returns the names of the attributes that an operator needs from its input,
+     *   or null if all the attributes are needed.
+     */
+    private Set<String> getRequiredInputAttributes(String operatorID, HashMap<String, Set<String>> requiredAttributesMap) {
+        PredicateBase predicate = operatorPredicateMap.get(operatorID);
+        if (predicate instanceof ProjectionPredicate) {
+            return new HashSet<>(((ProjectionPredicate) predicate).getProjectionFields());
+        }
+        
+        List<String> matchingAttributes;
+        if (predicate instanceof KeywordPredicate) {
+            matchingAttributes = ((KeywordPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof RegexPredicate) {
+            matchingAttributes = ((RegexPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof MultiRegexPredicate) {
+            matchingAttributes = ((MultiRegexPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof DictionaryPredicate) {
+            matchingAttributes = ((DictionaryPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof FuzzyTokenPredicate) {
+            matchingAttributes = ((FuzzyTokenPredicate) predicate).getAttributeNames();
+        } else if (predicate instanceof ComparablePredicate) {
+            matchingAttributes = Arrays.asList(((ComparablePredicate) predicate).getAttributeName());
+        } else if (predicate instanceof SamplerPredicate) {
+            matchingAttributes = new ArrayList<>();
+        } else {
+            // the other operators might need any of the attributes
+            return null;
+        }
+        
+        Set<String> requiredOutputAttributes = getRequiredOutputAttributes(operatorID, requiredAttributesMap);
+        if (requiredOutputAttributes == null) {
+            return null;
+        }
+        Set<String> requiredAttributes = new HashSet<>(requiredOutputAttributes);
+        requiredAttributes.addAll(matchingAttributes);
+        return requiredAttributes;
+    }
+
     /*
      * Invoke the corresponding "setInputOperator" method of the dest operator.
      */
@@ -26,6 +26,7 @@ import edu.uci.ics.texera.dataflow.nlp.sentiment.EmojiSentimentPredicate;
 import edu.uci.ics.texera.dataflow.nlp.sentiment.NlpSentimentPredicate;
 import edu.uci.ics.texera.dataflow.nlp.splitter.NlpSplitPredicate;
 import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.MultiRegexPredicate;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexSourcePredicate;
 import edu.uci.ics.texera.dataflow.regexsplit.RegexSplitPredicate;
@@ -62,6 +63,7 @@ public class OperatorArityConstants {
         fixedInputArityMap.put(KeywordSourcePredicate.class, 0); 
         fixedInputArityMap.put(RegexPredicate.class, 1); 
         fixedInputArityMap.put(RegexSourcePredicate.class, 0); 
+        fixedInputArityMap.put(MultiRegexPredicate.class, 1);
 
         fixedInputArityMap.put(JoinDistancePredicate.class, 2);
         fixedInputArityMap.put(SimilarityJoinPredicate.class, 2);
@@ -112,6 +114,7 @@ public class OperatorArityConstants {
         fixedOutputArityMap.put(KeywordSourcePredicate.class, 1); 
         fixedOutputArityMap.put(RegexPredicate.class, 1); 
         fixedOutputArityMap.put(RegexSourcePredicate.class, 1);
+        fixedOutputArityMap.put(MultiRegexPredicate.class, 1);
         fixedOutputArityMap.put(JoinDistancePredicate.class, 1);
         fixedOutputArityMap.put(SimilarityJoinPredicate.class, 1);
 
@@ -1,8 +1,21 @@
 package edu.uci.ics.texera.dataflow.plangen;
 
+import edu.uci.ics.texera.dataflow.utils.TokenizationCache;
+
 public class QueryContext {
 
     private String projectOwnerID;
+    
+    // the number of threads each index-based source reads its table with, by index segments
+    private int scanParallelism = 1;
+    // if the results of a parallel source are returned in the order of the table
+    private boolean orderedScan = true;
+    // if exchange operators are inserted before the expensive operators, so that their input runs on another thread
+    private boolean exchangeEnabled = false;
+    // the number of threads each expensive per-tuple operator (NLP entity, regex, fuzzy token) processes its input with
+    private int operatorParallelism = 1;
+    // the maximum number of characters of the tokenization cache shared by the text matchers, 0 to disable the cache
+    private long tokenizationCacheSize = TokenizationCache.DEFAULT_MAX_CHARACTERS;
 
     public void setProjectOwnerID(String projectOwnerID) {
         this.projectOwnerID = projectOwnerID;
@@ -11,5 +24,45 @@ public class QueryContext {
     public String getProjectOwnerID() {
         return projectOwnerID;
     }
+    
+    public void setScanParallelism(int scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+    
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+    
+    public void setOrderedScan(boolean orderedScan) {
+        this.orderedScan = orderedScan;
+    }
+    
+    public boolean isOrderedScan() {
+        return orderedScan;
+    }
+    
+    public void setExchangeEnabled(boolean exchangeEnabled) {
+        this.exchangeEnabled = exchangeEnabled;
+    }
+    
+    public boolean isExchangeEnabled() {
+        return exchangeEnabled;
+    }
+    
+    public void setOperatorParallelism(int operatorParallelism) {
+        this.operatorParallelism = operatorParallelism;
+    }
+    
+    public int getOperatorParallelism() {
+        return operatorParallelism;
+    }
+    
+    public void setTokenizationCacheSize(long tokenizationCacheSize) {
+        this.tokenizationCacheSize = tokenizationCacheSize;
+    }
+    
+    public long getTokenizationCacheSize() {
+        return tokenizationCacheSize;
+    }
 
 }
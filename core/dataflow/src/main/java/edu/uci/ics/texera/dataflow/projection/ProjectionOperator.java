@@ -38,6 +38,11 @@ public class ProjectionOperator extends AbstractSingleInputOperator {
         return processOneInputTuple(inputTuple);
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     @Override
     public Tuple processOneInputTuple(Tuple inputTuple) throws TexeraException {
         IField[] outputFields =
@@ -52,6 +57,11 @@ public class ProjectionOperator extends AbstractSingleInputOperator {
     @Override
     protected void cleanUp() throws DataflowException {        
     }
+    
+    @Override
+    protected boolean isLimitPushDownAllowed() {
+        return true;
+    }
 
     public ProjectionPredicate getPredicate() {
         return predicate;
@@ -0,0 +1,257 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CompiledRegex is a regex compiled by one of the two regex engines of the regex matcher:
+ *   java.util.regex, which is a backtracking engine and supports all the features of Java regex,
+ *   or RE2J (com.google.re2j), which is an automaton-based engine and matches a text in linear time,
+ *   so a regex like "(a+)+b" can't stall the matching of a long document.
+ *
+ * The linear-time engine is only used if it finds the same spans as java.util.regex.
+ *   The regex is translated to the RE2J syntax (see toRe2jRegex()), and it's compiled by java.util.regex
+ *   if it uses a construct that RE2J can't express (for example, back references, look-arounds
+ *   or possessive quantifiers), or a construct that RE2J matches differently and that can't be translated
+ *   (for example, "$", "\b" or inline flags). A case insensitive regex is always compiled by java.util.regex,
+ *   since Java only folds the case of ASCII characters, but RE2J folds the case of all Unicode characters.
+ *
+ * A CompiledRegex can be used by several threads concurrently.
+ *
+ * The regex operators of amber have their own copy of CompiledRegex, since amber doesn't depend on this module,
+ *   a change of the engine selection should be made to both.
+ */
+public abstract class CompiledRegex {
+
+    // the characters that "." matches in Java (without the DOTALL and UNIX_LINES flags), all but the line terminators
+    private static final String JAVA_DOT = "[^\\n\\r\\x{85}\\x{2028}\\x{2029}]";
+    // the characters that "\s" matches in Java (without the UNICODE_CHARACTER_CLASS flag)
+    private static final String JAVA_WHITESPACE = "\\t\\n\\x0B\\f\\r ";
+
+    /**
+     * Receives the matches found by findAll().
+     */
+    public interface MatchCallback {
+        /**
+         * @param start, the start position of the match in the text
+         * @param end, the end position (exclusive) of the match in the text
+         */
+        void onMatch(int start, int end);
+    }
+
+    private final String regex;
+
+    private CompiledRegex(String regex) {
+        this.regex = regex;
+    }
+
+    /**
+     * Compiles a regex.
+     *
+     * @param regex, the regex in the syntax of java.util.regex
+     * @param ignoreCase, whether the matching is case insensitive
+     * @param linearTime, whether the linear-time engine is used if it supports the regex
+     * @return the compiled regex
+     * @throws java.util.regex.PatternSyntaxException if the regex is invalid
+     */
+    public static CompiledRegex compile(String regex, boolean ignoreCase, boolean linearTime) {
+        // the regex is always compiled by java.util.regex first, so that an invalid regex fails in the same way
+        Pattern javaPattern = ignoreCase ? Pattern.compile(regex, Pattern.CASE_INSENSITIVE) : Pattern.compile(regex);
+        if (linearTime && ! ignoreCase) {
+            String re2jRegex = toRe2jRegex(regex);
+            if (re2jRegex != null) {
+                try {
+                    return new Re2jRegex(regex, com.google.re2j.Pattern.compile(re2jRegex));
+                } catch (com.google.re2j.PatternSyntaxException e) {
+                    // the regex uses a feature that the automaton can't express, fall back to java.util.regex
+                }
+            }
+        }
+        return new JavaRegex(regex, javaPattern);
+    }
+
+    /*
+     * Translates a regex in the syntax of java.util.regex to a RE2J regex that finds the same spans,
+     *   or returns null if the regex uses a construct that RE2J matches differently and that can't be translated.
+     *
+     * The constructs that are translated:
+     *   - "." doesn't match the line terminators \n, \r, U+0085, U+2028 and U+2029 in Java, but only \n in RE2J,
+     *   - "\s" matches \x0B in Java, but not in RE2J.
+     * The constructs that can't be translated:
+     *   - "$" also matches before a line terminator at the end of the text in Java, but only at the end in RE2J,
+     *   - "\b" and "\B" are Unicode word boundaries in Java, but ASCII word boundaries in RE2J,
+     *   - "\v" is a vertical whitespace in Java, but the vertical tab in RE2J, "\0" is an octal escape in Java,
+     *   - a class nested in a character class is a union in Java, and "&&" is an intersection,
+     *     but "[" and "&&" are literal characters in RE2J, and "[[:alpha:]]" is a POSIX class in RE2J,
+     *   - the inline flags (for example, "(?i)", "(?m)" and "(?U)") and the special groups
+     *     (for example, look-arounds and named groups) other than "(?:".
+     * The constructs that RE2J doesn't support at all are rejected by RE2J when the translated regex is compiled.
+     */
+    private static String toRe2jRegex(String regex) {
+        StringBuilder re2jRegex = new StringBuilder(regex.length() + 16);
+        boolean inClass = false;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return null;
+                }
+                char escaped = regex.charAt(i + 1);
+                switch (escaped) {
+                    case 'Q':
+                        if (inClass) {
+                            return null;
+                        }
+                        // the quoted characters are copied as they are, "\Q" without "\E" quotes the rest of the regex
+                        int quoteEnd = regex.indexOf("\\E", i + 2);
+                        int end = quoteEnd < 0 ? regex.length() : quoteEnd + 2;
+                        re2jRegex.append(regex, i, end);
+                        i = end;
+                        continue;
+                    case 's':
+                        re2jRegex.append(inClass ? JAVA_WHITESPACE : "[" + JAVA_WHITESPACE + "]");
+                        break;
+                    case 'S':
+                        if (inClass) {
+                            return null;
+                        }
+                        re2jRegex.append("[^" + JAVA_WHITESPACE + "]");
+                        break;
+                    case 'b':
+                    case 'B':
+                    case 'v':
+                    case '0':
+                        return null;
+                    default:
+                        re2jRegex.append(c).append(escaped);
+                }
+                i += 2;
+                continue;
+            }
+
+            if (inClass) {
+                if (c == '[' || (c == '&' && i + 1 < regex.length() && regex.charAt(i + 1) == '&')) {
+                    return null;
+                }
+                if (c == ']') {
+                    inClass = false;
+                }
+                re2jRegex.append(c);
+                i++;
+                continue;
+            }
+
+            switch (c) {
+                case '[':
+                    inClass = true;
+                    re2jRegex.append(c);
+                    i++;
+                    // "^" at the start of a class negates it, and "]" right after it is a literal character
+                    if (i < regex.length() && regex.charAt(i) == '^') {
+                        re2jRegex.append('^');
+                        i++;
+                    }
+                    if (i < regex.length() && regex.charAt(i) == ']') {
+                        re2jRegex.append(']');
+                        i++;
+                    }
+                    continue;
+                case '.':
+                    re2jRegex.append(JAVA_DOT);
+                    break;
+                case '$':
+                    return null;
+                case '(':
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == '?'
+                            && ! (i + 2 < regex.length() && regex.charAt(i + 2) == ':')) {
+                        return null;
+                    }
+                    re2jRegex.append(c);
+                    break;
+                default:
+                    re2jRegex.append(c);
+            }
+            i++;
+        }
+        return inClass ? null : re2jRegex.toString();
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    /**
+     * @return true if the regex is compiled by the linear-time engine
+     */
+    public abstract boolean isLinearTime();
+
+    /**
+     * @param text
+     * @return true if the regex matches a part of the text
+     */
+    public abstract boolean find(CharSequence text);
+
+    /**
+     * Finds all the non-overlapping matches of the regex in the text, from left to right.
+     *
+     * @param text
+     * @param callback
+     */
+    public abstract void findAll(CharSequence text, MatchCallback callback);
+
+    private static class JavaRegex extends CompiledRegex {
+        private final Pattern pattern;
+
+        JavaRegex(String regex, Pattern pattern) {
+            super(regex);
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean isLinearTime() {
+            return false;
+        }
+
+        @Override
+        public boolean find(CharSequence text) {
+            return pattern.matcher(text).find();
+        }
+
+        @Override
+        public void findAll(CharSequence text, MatchCallback callback) {
+            Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                callback.onMatch(matcher.start(), matcher.end());
+            }
+        }
+    }
+
+    private static class Re2jRegex extends CompiledRegex {
+        private final com.google.re2j.Pattern pattern;
+
+        Re2jRegex(String regex, com.google.re2j.Pattern pattern) {
+            super(regex);
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean isLinearTime() {
+            return true;
+        }
+
+        @Override
+        public boolean find(CharSequence text) {
+            return pattern.matcher(text).find();
+        }
+
+        @Override
+        public void findAll(CharSequence text, MatchCallback callback) {
+            com.google.re2j.Matcher matcher = pattern.matcher(text);
+            while (matcher.find()) {
+                callback.onMatch(matcher.start(), matcher.end());
+            }
+        }
+    }
+
+}
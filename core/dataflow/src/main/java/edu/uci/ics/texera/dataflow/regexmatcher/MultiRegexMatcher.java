@@ -0,0 +1,194 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.ACTrie;
+
+/**
+ * MultiRegexMatcher matches a list of regexes on the same attributes, and prefilters the regexes in one pass.
+ *   A tuple is returned if any of the regexes matches it, and its result spans are the union of the spans
+ *   of all the regexes. It's not the same as a chain of RegexMatchers (one for each regex),
+ *   which only returns the tuples that every regex matches.
+ *
+ * The required literals of every regex (see RegexLiteralExtractor) are put in one Aho-Corasick automaton,
+ *   which finds the literals that occur in a field value in one pass over the value,
+ *   then only the regexes whose literals occur (and the regexes without required literals) are run on the value.
+ *
+ * The key of a result span is the regex that matches it, the spans of an attribute are in the order of the regexes.
+ *
+ */
+public class MultiRegexMatcher extends AbstractSingleInputOperator {
+
+    private final MultiRegexPredicate predicate;
+    private final List<String> regexList;
+
+    private CompiledRegex[] compiledRegexes;
+    // the automaton of the required literals, null if no regex has required literals
+    private ACTrie literalTrie;
+    // the ids of the regexes that require the literal, indexed by the keyword index of the literal in the automaton
+    private int[][] regexesOfLiteral;
+    // the regexes without required literals, which are run on every field value
+    private BitSet unfilteredRegexes;
+
+    private boolean addResultAttribute = false;
+
+    public MultiRegexMatcher(MultiRegexPredicate predicate) {
+        this.predicate = predicate;
+        this.regexList = predicate.getRegexList();
+    }
+
+    @Override
+    protected void setUp() throws DataflowException {
+        if (inputOperator == null) {
+            throw new DataflowException(ErrorMessages.INPUT_OPERATOR_NOT_SPECIFIED);
+        }
+        Schema inputSchema = inputOperator.getOutputSchema();
+
+        this.addResultAttribute = predicate.getSpanListName() != null;
+
+        Schema.checkAttributeExists(inputSchema, predicate.getAttributeNames());
+        if (addResultAttribute) {
+            Schema.checkAttributeNotExists(inputSchema, predicate.getSpanListName());
+        }
+
+        outputSchema = transformToOutputSchema(inputOperator.getOutputSchema());
+
+        compiledRegexes = new CompiledRegex[regexList.size()];
+        unfilteredRegexes = new BitSet(regexList.size());
+        Map<String, List<Integer>> literalRegexes = new LinkedHashMap<>();
+        for (int regexId = 0; regexId < regexList.size(); regexId++) {
+            compiledRegexes[regexId] = CompiledRegex.compile(regexList.get(regexId), predicate.isIgnoreCase(),
+                    predicate.isLinearTime());
+            List<String> literals = RegexLiteralExtractor.getRequiredLiterals(regexList.get(regexId));
+            if (literals.isEmpty()) {
+                unfilteredRegexes.set(regexId);
+                continue;
+            }
+            for (String literal : literals) {
+                literalRegexes.computeIfAbsent(literal, key -> new ArrayList<>()).add(regexId);
+            }
+        }
+
+        if (literalRegexes.isEmpty()) {
+            literalTrie = null;
+            return;
+        }
+        // the keyword indexes of the automaton are in the order the distinct literals are added
+        literalTrie = new ACTrie();
+        literalTrie.setCaseInsensitive(predicate.isIgnoreCase());
+        literalTrie.addKeywords(new ArrayList<>(literalRegexes.keySet()));
+        literalTrie.constructFailureTransactions();
+        regexesOfLiteral = new int[literalRegexes.size()][];
+        int literalIndex = 0;
+        for (List<Integer> regexIds : literalRegexes.values()) {
+            regexesOfLiteral[literalIndex++] = regexIds.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    @Override
+    protected Tuple computeNextMatchingTuple() throws TexeraException {
+        Tuple inputTuple = null;
+        Tuple resultTuple = null;
+
+        while ((inputTuple = inputOperator.getNextTuple()) != null) {
+            resultTuple = processOneInputTuple(inputTuple);
+            if (resultTuple != null) {
+                break;
+            }
+        }
+
+        return resultTuple;
+    }
+
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
+    @Override
+    public Tuple processOneInputTuple(Tuple inputTuple) throws DataflowException {
+        if (inputTuple == null) {
+            return null;
+        }
+
+        ColumnarSpanList matchingResults = computeMatchingResults(inputTuple);
+        if (matchingResults.isEmpty()) {
+            return null;
+        }
+
+        Tuple.Builder tupleBuilder = new Tuple.Builder(inputTuple);
+        if (addResultAttribute) {
+            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, ListField.wrap(matchingResults));
+        }
+        return tupleBuilder.build();
+    }
+
+    /*
+     * Runs the regexes whose required literals occur in a field value (found by the automaton) on the value.
+     */
+    private ColumnarSpanList computeMatchingResults(Tuple inputTuple) {
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
+
+        for (String attributeName : predicate.getAttributeNames()) {
+            AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
+            String fieldValue = inputTuple.getField(attributeName).getValue().toString();
+
+            // types other than TEXT and STRING: throw Exception for now
+            if (attributeType != AttributeType.STRING && attributeType != AttributeType.TEXT) {
+                throw new DataflowException("MultiRegexMatcher: Fields other than STRING and TEXT are not supported yet");
+            }
+
+            BitSet candidateRegexes = (BitSet) unfilteredRegexes.clone();
+            if (literalTrie != null) {
+                literalTrie.parseText(fieldValue, (start, end, literalIndex) -> {
+                    for (int regexId : regexesOfLiteral[literalIndex]) {
+                        candidateRegexes.set(regexId);
+                    }
+                });
+            }
+
+            // the values of the matching spans are the substrings of the field value
+            matchingResults.setFieldValue(attributeName, fieldValue);
+            for (int regexId = candidateRegexes.nextSetBit(0); regexId >= 0; regexId = candidateRegexes.nextSetBit(regexId + 1)) {
+                String regex = regexList.get(regexId);
+                compiledRegexes[regexId].findAll(fieldValue, (start, end) -> matchingResults.add(
+                        attributeName, start, end, regex, Span.INVALID_TOKEN_OFFSET));
+            }
+        }
+
+        return matchingResults.build();
+    }
+
+    @Override
+    protected void cleanUp() throws DataflowException {
+    }
+
+    public MultiRegexPredicate getPredicate() {
+        return this.predicate;
+    }
+
+    public Schema transformToOutputSchema(Schema... inputSchema) {
+        if (inputSchema.length != 1)
+            throw new TexeraException(String.format(ErrorMessages.NUMBER_OF_ARGUMENTS_DOES_NOT_MATCH, 1, inputSchema.length));
+
+        Schema.Builder outputSchemaBuilder = new Schema.Builder(inputSchema[0]);
+        if (addResultAttribute) {
+            outputSchemaBuilder.add(predicate.getSpanListName(), AttributeType.LIST);
+        }
+        return outputSchemaBuilder.build();
+    }
+}
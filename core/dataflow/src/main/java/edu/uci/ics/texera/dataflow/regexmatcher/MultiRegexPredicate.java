@@ -0,0 +1,136 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.dataflow.annotation.AdvancedOption;
+import edu.uci.ics.texera.dataflow.common.OperatorGroupConstants;
+import edu.uci.ics.texera.dataflow.common.PredicateBase;
+import edu.uci.ics.texera.dataflow.common.PropertyNameConstants;
+
+/**
+ * This class is the predicate for MultiRegexMatcher, which matches a list of regexes in one operator.
+ *
+ * The regexes are plain regexes, labels ("<label>") are not supported.
+ *
+ */
+public class MultiRegexPredicate extends PredicateBase {
+
+    private final List<String> regexList;
+    private final List<String> attributeNames;
+    private final String spanListName;
+    private final Boolean ignoreCase;
+    private final Boolean linearTime;
+
+    /*
+     * This constructor is only for internal use.
+     */
+    public MultiRegexPredicate(List<String> regexList, List<String> attributeNames, String spanListName) {
+        this(regexList, attributeNames, null, null, spanListName);
+    }
+
+    /**
+     * MultiRegexPredicate is used to create a MultiRegexMatcher.
+     *
+     * @param regexList, the regexes to be used, the id of a regex is its index in the list
+     * @param attributeNames, a list of attribute names to match the regexes on
+     * @param ignoreCase, optional, ignores regex case, default false
+     * @param linearTime, optional, matches the regexes with the linear-time engine (RE2J) if it supports them,
+     *   default false (see CompiledRegex)
+     * @param spanListName, the name of the attribute where the results will be put in
+     */
+    @JsonCreator
+    public MultiRegexPredicate(
+            @JsonProperty(value = PropertyNameConstants.REGEX_LIST, required = true)
+            List<String> regexList,
+
+            @JsonProperty(value = PropertyNameConstants.ATTRIBUTE_NAMES, required = true)
+            List<String> attributeNames,
+
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_IGNORE_CASE, required = false,
+                    defaultValue = "false")
+            Boolean ignoreCase,
+
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_LINEAR_TIME, required = false,
+                    defaultValue = "false")
+            Boolean linearTime,
+
+            @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = false)
+            String spanListName) {
+
+        if (regexList == null || regexList.isEmpty()) {
+            throw new TexeraException(PropertyNameConstants.EMPTY_REGEX_EXCEPTION);
+        }
+        for (String regex : regexList) {
+            if (regex == null || regex.trim().isEmpty()) {
+                throw new TexeraException(PropertyNameConstants.EMPTY_REGEX_EXCEPTION);
+            }
+        }
+
+        this.regexList = new ArrayList<>(regexList);
+        this.attributeNames = attributeNames;
+        if (ignoreCase == null) {
+            this.ignoreCase = false;
+        } else {
+            this.ignoreCase = ignoreCase;
+        }
+        if (linearTime == null) {
+            this.linearTime = false;
+        } else {
+            this.linearTime = linearTime;
+        }
+        if (spanListName == null || spanListName.trim().isEmpty()) {
+            this.spanListName = null;
+        } else {
+            this.spanListName = spanListName.trim();
+        }
+    }
+
+    @JsonProperty(PropertyNameConstants.REGEX_LIST)
+    public List<String> getRegexList() {
+        return new ArrayList<>(this.regexList);
+    }
+
+    @JsonProperty(PropertyNameConstants.ATTRIBUTE_NAMES)
+    public List<String> getAttributeNames() {
+        return new ArrayList<>(this.attributeNames);
+    }
+
+    @JsonProperty(PropertyNameConstants.SPAN_LIST_NAME)
+    public String getSpanListName() {
+        return this.spanListName;
+    }
+
+    @JsonProperty(PropertyNameConstants.REGEX_IGNORE_CASE)
+    public Boolean isIgnoreCase() {
+        return this.ignoreCase;
+    }
+
+    @JsonProperty(PropertyNameConstants.REGEX_LINEAR_TIME)
+    public Boolean isLinearTime() {
+        return this.linearTime;
+    }
+
+    @Override
+    public IOperator newOperator() {
+        return new MultiRegexMatcher(this);
+    }
+
+    public static Map<String, Object> getOperatorMetadata() {
+        return ImmutableMap.<String, Object>builder()
+            .put(PropertyNameConstants.USER_FRIENDLY_NAME, "Multiple Regex Match")
+            .put(PropertyNameConstants.OPERATOR_DESCRIPTION, "Search the documents using a list of regular expressions in one pass")
+            .put(PropertyNameConstants.OPERATOR_GROUP_NAME, OperatorGroupConstants.SEARCH_GROUP)
+            .build();
+    }
+
+}
@@ -0,0 +1,262 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RegexLiteralExtractor finds the literals that a regex requires,
+ *   which are used to skip the regexes that can't match a text without running them (see MultiRegexMatcher).
+ *
+ * The required literals of a regex are a list of strings such that every match of the regex contains at least one of them:
+ *   for example, "medic(ine|al)?" requires "medic", "cancer|tumou?r" requires "cancer" or "tumo",
+ *   and "[A-Z]\w+" doesn't require any literal.
+ *
+ * The extraction is conservative: the literals are taken from the top-level sequence of each alternative,
+ *   the contents of groups and character classes are skipped,
+ *   and a regex with constructs that change the meaning of the literals (inline flags, quotes, ...)
+ *   doesn't have required literals.
+ */
+public class RegexLiteralExtractor {
+
+    /**
+     * Gets the required literals of a regex (in the syntax of java.util.regex).
+     *
+     * @param regex
+     * @return the literals that every match contains one of, or an empty list if they are unknown
+     */
+    public static List<String> getRequiredLiterals(String regex) {
+        List<String> branches = splitTopLevelAlternatives(regex);
+        if (branches == null) {
+            return Collections.emptyList();
+        }
+        List<String> literals = new ArrayList<>();
+        for (String branch : branches) {
+            String literal = getLongestRequiredLiteral(branch);
+            if (literal == null || literal.isEmpty()) {
+                // a match of this alternative doesn't need any literal
+                return Collections.emptyList();
+            }
+            if (! literals.contains(literal)) {
+                literals.add(literal);
+            }
+        }
+        return literals;
+    }
+
+    /*
+     * Splits the regex at the "|" outside of groups and character classes,
+     *   returns null if the regex uses a construct that isn't supported.
+     */
+    private static List<String> splitTopLevelAlternatives(String regex) {
+        List<String> branches = new ArrayList<>();
+        int branchStart = 0;
+        int depth = 0;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    return null;
+                }
+                i += 2;
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                // inline flags (such as "(?i)" and "(?x)") change the meaning of the literals after them
+                if (i + 2 < regex.length() && regex.charAt(i + 1) == '?'
+                        && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+                    return null;
+                }
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                if (depth < 0) {
+                    return null;
+                }
+                i++;
+            } else if (c == '|' && depth == 0) {
+                branches.add(regex.substring(branchStart, i));
+                branchStart = i + 1;
+                i++;
+            } else {
+                i++;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        branches.add(regex.substring(branchStart));
+        return branches;
+    }
+
+    /*
+     * Gets the longest run of literal characters that every match of the branch (without top-level "|") contains,
+     *   returns null if the branch uses a construct that isn't supported.
+     */
+    private static String getLongestRequiredLiteral(String branch) {
+        String longestLiteral = "";
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < branch.length()) {
+            char c = branch.charAt(i);
+            // the literal character of the atom, or -1 if the atom isn't a literal character
+            int literalChar = -1;
+            int atomEnd;
+            if (c == '\\') {
+                if (i + 1 >= branch.length()) {
+                    return null;
+                }
+                char escaped = branch.charAt(i + 1);
+                atomEnd = i + 2;
+                if (Character.isDigit(escaped)) {
+                    // a back reference or an octal escape
+                    while (atomEnd < branch.length() && Character.isDigit(branch.charAt(atomEnd))) {
+                        atomEnd++;
+                    }
+                } else if (Character.isLetter(escaped)) {
+                    // the escapes that are longer than two characters
+                    if ("QEpPxuNkc".indexOf(escaped) >= 0) {
+                        return null;
+                    }
+                } else {
+                    literalChar = escaped;
+                }
+            } else if (c == '[') {
+                atomEnd = skipCharacterClass(branch, i);
+                if (atomEnd < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                atomEnd = skipGroup(branch, i);
+                if (atomEnd < 0) {
+                    return null;
+                }
+            } else if (c == '.' || c == '^' || c == '$') {
+                atomEnd = i + 1;
+            } else if (c == '?' || c == '*' || c == '+' || c == '{' || c == ')') {
+                // a quantifier without an atom
+                return null;
+            } else {
+                literalChar = c;
+                atomEnd = i + 1;
+            }
+
+            // the quantifier of the atom
+            int minRepeat = 1;
+            boolean repeated = false;
+            int quantifierEnd = atomEnd;
+            if (atomEnd < branch.length()) {
+                char quantifier = branch.charAt(atomEnd);
+                if (quantifier == '?' || quantifier == '*') {
+                    minRepeat = 0;
+                    quantifierEnd = atomEnd + 1;
+                } else if (quantifier == '+') {
+                    repeated = true;
+                    quantifierEnd = atomEnd + 1;
+                } else if (quantifier == '{') {
+                    int close = branch.indexOf('}', atomEnd);
+                    if (close < 0) {
+                        return null;
+                    }
+                    String[] bounds = branch.substring(atomEnd + 1, close).split(",", -1);
+                    try {
+                        minRepeat = Integer.parseInt(bounds[0].trim());
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    repeated = bounds.length > 1 || minRepeat != 1;
+                    quantifierEnd = close + 1;
+                }
+                // a lazy or possessive quantifier
+                if (quantifierEnd > atomEnd && quantifierEnd < branch.length()
+                        && (branch.charAt(quantifierEnd) == '?' || branch.charAt(quantifierEnd) == '+')) {
+                    quantifierEnd++;
+                }
+            }
+
+            if (literalChar >= 0 && minRepeat > 0) {
+                literal.append((char) literalChar);
+                if (repeated) {
+                    // the character after the repetition isn't adjacent to the literal
+                    longestLiteral = longer(longestLiteral, literal);
+                    literal.setLength(0);
+                }
+            } else {
+                longestLiteral = longer(longestLiteral, literal);
+                literal.setLength(0);
+            }
+            i = quantifierEnd;
+        }
+        return longer(longestLiteral, literal);
+    }
+
+    private static String longer(String longestLiteral, StringBuilder literal) {
+        return literal.length() > longestLiteral.length() ? literal.toString() : longestLiteral;
+    }
+
+    /*
+     * Returns the position after the character class starting at start, or -1 if it isn't closed.
+     */
+    private static int skipCharacterClass(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        // a "]" at the beginning of a class is a literal character
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == ']') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Returns the position after the group starting at start, or -1 if it isn't closed.
+     */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+                i++;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -11,6 +11,7 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
@@ -61,7 +62,7 @@ public class RegexMatcher extends AbstractSingleInputOperator {
     private final RegexPredicate predicate;
     private RegexType regexType;
         
-    private Pattern regexPattern;
+    private CompiledRegex regexPattern;
     LabeledRegexProcessor labeledRegexProcessor;
     LabledRegexNoQualifierProcessor labledRegexNoQualifierProcessor;
     
@@ -90,9 +91,7 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         findRegexType();
         // Check if labeled or unlabeled
         if (this.regexType == RegexType.NO_LABELS) {
-            regexPattern = predicate.isIgnoreCase() ? 
-                    Pattern.compile(predicate.getRegex(), Pattern.CASE_INSENSITIVE)
-                    : Pattern.compile(predicate.getRegex());
+            regexPattern = CompiledRegex.compile(predicate.getRegex(), predicate.isIgnoreCase(), predicate.isLinearTime());
         } else if (this.regexType == RegexType.LABELED_WITH_QUALIFIERS) {
             labeledRegexProcessor = new LabeledRegexProcessor(predicate);
         } else {
@@ -132,6 +131,11 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         return resultTuple;
     }
 
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return processNextInputBatch(maxSize);
+    }
+
     /**
      * This function returns a list of spans in the given tuple that match the
      * regex For example, given tuple ("george watson", "graduate student", 23,
@@ -167,14 +171,14 @@ public class RegexMatcher extends AbstractSingleInputOperator {
         Tuple.Builder tupleBuilder = new Tuple.Builder(inputTuple);
 
         if (addResultAttribute) {
-            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, new ListField<Span>(matchingResults));
+            tupleBuilder.add(predicate.getSpanListName(), AttributeType.LIST, ListField.wrap(ColumnarSpanList.of(matchingResults)));
         }
 
         return tupleBuilder.build();
     }
 
-    public static List<Span> computeMatchingResultsWithPattern(Tuple inputTuple, RegexPredicate predicate, Pattern pattern) {
-        List<Span> matchingResults = new ArrayList<>();
+    public static ColumnarSpanList computeMatchingResultsWithPattern(Tuple inputTuple, RegexPredicate predicate, CompiledRegex pattern) {
+        ColumnarSpanList.Builder matchingResults = new ColumnarSpanList.Builder();
 
         for (String attributeName : predicate.getAttributeNames()) {
             AttributeType attributeType = inputTuple.getSchema().getAttribute(attributeName).getType();
@@ -185,16 +189,13 @@ public class RegexMatcher extends AbstractSingleInputOperator {
                 throw new DataflowException("KeywordMatcher: Fields other than STRING and TEXT are not supported yet");
             }
             
-            Matcher javaMatcher = pattern.matcher(fieldValue);
-            while (javaMatcher.find()) {
-                int start = javaMatcher.start();
-                int end = javaMatcher.end();
-                matchingResults.add(
-                        new Span(attributeName, start, end, predicate.getRegex(), fieldValue.substring(start, end)));
-            }
+            // the values of the matching spans are the substrings of the field value
+            matchingResults.setFieldValue(attributeName, fieldValue);
+            pattern.findAll(fieldValue, (start, end) -> matchingResults.add(
+                    attributeName, start, end, predicate.getRegex(), Span.INVALID_TOKEN_OFFSET));
         }
         
-        return matchingResults;
+        return matchingResults.build();
     }
     
     @Override
@@ -1,5 +1,10 @@
 package edu.uci.ics.texera.dataflow.regexmatcher;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.schema.Schema;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
@@ -13,6 +18,7 @@ import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.common.AbstractSingleInputOperator;
+import edu.uci.ics.texera.dataflow.source.scan.SegmentParallelScanOperator;
 import edu.uci.ics.texera.dataflow.utils.DataflowUtils;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
@@ -43,12 +49,17 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
 
     @Override
     protected void setUp() throws TexeraException {
-        this.outputSchema = regexMatcher.getOutputSchema();        
+        this.outputSchema = this.inputOperator.getOutputSchema();
     }
 
     @Override
     protected Tuple computeNextMatchingTuple() throws TexeraException {
-        return this.regexMatcher.getNextTuple();
+        return this.inputOperator.getNextTuple();
+    }
+
+    @Override
+    protected List<Tuple> computeNextMatchingBatch(int maxSize) throws TexeraException {
+        return this.inputOperator.getNextBatch(maxSize);
     }
 
     @Override
@@ -59,6 +70,44 @@ public class RegexMatcherSourceOperator extends AbstractSingleInputOperator impl
     @Override
     protected void cleanUp() throws TexeraException {
     }
+
+    /**
+     * Sets the number of threads reading the table in parallel by index segments.
+     * Each thread runs its own RegexMatcher on a slice of the segments (see SegmentParallelScanOperator).
+     * The documents are read in index order instead of the order of their scores if the index is used.
+     * It must be set before the operator is opened.
+     * 
+     * @param parallelism, the maximum number of threads, 1 to read by one thread
+     * @param ordered, if the results are returned in the order of the table
+     */
+    public void setParallelism(int parallelism, boolean ordered) {
+        if (parallelism > 1) {
+            this.inputOperator = new SegmentParallelScanOperator(dataReader, parallelism, ordered, slice -> {
+                RegexMatcher sliceMatcher = new RegexMatcher(predicate);
+                sliceMatcher.setInputOperator(slice);
+                return sliceMatcher;
+            });
+        } else {
+            this.inputOperator = this.regexMatcher;
+        }
+    }
+
+    /**
+     * Sets the attributes needed by the downstream operators, 
+     *   only these attributes, the attributes to match on, and _id are read.
+     * It must be set before the operator is opened.
+     * 
+     * @param requiredAttributes, the names of the required attributes, or null if all attributes are required
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        if (requiredAttributes == null) {
+            dataReader.setRequiredAttributes(null);
+            return;
+        }
+        Set<String> readerAttributes = new HashSet<>(requiredAttributes);
+        readerAttributes.addAll(predicate.getAttributeNames());
+        dataReader.setRequiredAttributes(readerAttributes);
+    }
     
     public static Query createLuceneQuery(RegexSourcePredicate predicate) throws StorageException {
         Query luceneQuery;
@@ -29,6 +29,7 @@ public class RegexPredicate extends PredicateBase {
     private final List<String> attributeNames;
     private final String spanListName;
     private final Boolean ignoreCase;
+    private final Boolean linearTime;
     
     /*
      * This constructor is only for internal use.
@@ -37,12 +38,21 @@ public class RegexPredicate extends PredicateBase {
         this(regex, attributeNames, null, spanListName);
     }
 
+    /*
+     * This constructor is only for internal use.
+     */
+    public RegexPredicate(String regex, List<String> attributeNames, Boolean ignoreCase, String spanListName) {
+        this(regex, attributeNames, ignoreCase, null, spanListName);
+    }
+
     /**
      * RegexPredicate is used to create a RegexMatcher.
      * 
      * @param regex, the regex to be used
      * @param attributeNames, a list of attribute names to match regex on
      * @param ignoreCase, optional, ignores regex case, default false
+     * @param linearTime, optional, matches the regex with the linear-time engine (RE2J) if it supports the regex,
+     *   instead of the backtracking engine of java.util.regex, default false (see CompiledRegex)
      * @param spanListName, the name of the attribute where the results will be put in
      */
     @JsonCreator
@@ -58,6 +68,11 @@ public class RegexPredicate extends PredicateBase {
                     defaultValue = "false")
             Boolean ignoreCase,
             
+            @AdvancedOption
+            @JsonProperty(value = PropertyNameConstants.REGEX_LINEAR_TIME, required = false,
+                    defaultValue = "false")
+            Boolean linearTime,
+            
             @JsonProperty(value = PropertyNameConstants.SPAN_LIST_NAME, required = false)
             String spanListName) {
         
@@ -72,6 +87,11 @@ public class RegexPredicate extends PredicateBase {
         } else {
             this.ignoreCase = ignoreCase;
         }
+        if (linearTime == null) {
+            this.linearTime = false;
+        } else {
+            this.linearTime = linearTime;
+        }
         if (spanListName == null || spanListName.trim().isEmpty()) {
             this.spanListName = null;
         } else {
@@ -99,6 +119,11 @@ public class RegexPredicate extends PredicateBase {
         return this.ignoreCase;
     }
     
+    @JsonProperty(PropertyNameConstants.REGEX_LINEAR_TIME)
+    public Boolean isLinearTime() {
+        return this.linearTime;
+    }
+    
     @Override
     public IOperator newOperator() {
         return new RegexMatcher(this);
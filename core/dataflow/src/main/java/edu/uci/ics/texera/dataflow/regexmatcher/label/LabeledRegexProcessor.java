@@ -1,7 +1,8 @@
 package edu.uci.ics.texera.dataflow.regexmatcher.label;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -11,14 +12,21 @@ import java.util.stream.Collectors;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.regexmatcher.CompiledRegex;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 
 /**
  * Helper class for processing labeled regex.
  * 
+ * The labels of the regex are replaced by the alternation of the values of their spans in a tuple,
+ *   the regex is compiled once for each distinct combination of the label values.
+ * The compiled regexes are kept in a bounded LRU cache, since consecutive tuples
+ *   (for example, the tuples matched by the same dictionary) often have the same label values.
+ * 
  * @author Bhushan Pagariya (bhushanpagariya)
  * @author Harshini Shah
  * @author Yashaswini Amaresh
@@ -27,12 +35,44 @@ import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
  */
 public class LabeledRegexProcessor {
     
+    public static final int DEFAULT_CACHE_SIZE = 256;
+    
     private RegexPredicate predicate;
     private String cleanedRegex;
+    // the distinct labels, in the order of their first occurrence
     private ArrayList<String> labelList = new ArrayList<>();
+    // the parts of the cleaned regex between the labels, regexParts[i] is followed by the label labelIndexes[i]
+    private String[] regexParts;
+    private int[] labelIndexes;
+    
+    private final int cacheSize;
+    // the compiled regexes by the label values (in the order of labelList), in access order
+    private final LinkedHashMap<List<Set<String>>, CompiledRegex> patternCache;
+    private long hitCount = 0;
+    private long missCount = 0;
     
     public LabeledRegexProcessor(RegexPredicate predicate) {
+        this(predicate, DEFAULT_CACHE_SIZE);
+    }
+    
+    /**
+     * @param predicate
+     * @param cacheSize, the maximum number of compiled regexes in the cache
+     */
+    public LabeledRegexProcessor(RegexPredicate predicate, int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cacheSize must be positive");
+        }
         this.predicate = predicate;
+        this.cacheSize = cacheSize;
+        this.patternCache = new LinkedHashMap<List<Set<String>>, CompiledRegex>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Set<String>>, CompiledRegex> eldest) {
+                return size() > LabeledRegexProcessor.this.cacheSize;
+            }
+        };
         preprocessRegex();
     }
     
@@ -43,9 +83,25 @@ public class LabeledRegexProcessor {
             String labelStr = predicate.getRegex().substring(
                     labelMatcher.start() + 1, labelMatcher.end() - 1);
             String substrTrimmed = labelStr.trim();
-            labelList.add(substrTrimmed);
+            if (! labelList.contains(substrTrimmed)) {
+                labelList.add(substrTrimmed);
+            }
             cleanedRegex = cleanedRegex.replace("<" + labelStr + ">", "<" + substrTrimmed + ">");
         }
+        
+        // split the cleaned regex at the labels, so that the label values are put in without searching the regex
+        List<String> parts = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        labelMatcher = Pattern.compile(RegexMatcher.CHECK_REGEX_LABEL).matcher(cleanedRegex);
+        int partStart = 0;
+        while (labelMatcher.find()) {
+            parts.add(cleanedRegex.substring(partStart, labelMatcher.start()));
+            indexes.add(labelList.indexOf(cleanedRegex.substring(labelMatcher.start() + 1, labelMatcher.end() - 1)));
+            partStart = labelMatcher.end();
+        }
+        parts.add(cleanedRegex.substring(partStart));
+        regexParts = parts.toArray(new String[parts.size()]);
+        labelIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
     }
     
     /**
@@ -54,32 +110,60 @@ public class LabeledRegexProcessor {
      * @return tuple with matching entries
      */
     public List<Span> computeMatchingResults(Tuple inputTuple) {
-        Map<String, Set<String>> labelValues = fetchLabelValues(inputTuple);
-        String regexWithVal = rewriteRegexWithLabelValues(labelValues);
-        Pattern regexPattern = predicate.isIgnoreCase() ? 
-                Pattern.compile(regexWithVal, Pattern.CASE_INSENSITIVE)
-                : Pattern.compile(regexWithVal);
-                
+        List<Set<String>> labelValues = fetchLabelValues(inputTuple);
+        CompiledRegex regexPattern = getCompiledRegex(labelValues);
+
         return RegexMatcher.computeMatchingResultsWithPattern(inputTuple, predicate, regexPattern);
     }
     
+    /*
+     * Gets the regex compiled with the label values from the cache, or compiles it.
+     * The processor can be used by several threads (see ParallelSingleInputOperator),
+     *   the regex is compiled without holding the lock.
+     */
+    private CompiledRegex getCompiledRegex(List<Set<String>> labelValues) {
+        synchronized (patternCache) {
+            CompiledRegex regexPattern = patternCache.get(labelValues);
+            if (regexPattern != null) {
+                hitCount++;
+                return regexPattern;
+            }
+            missCount++;
+        }
+        String regexWithVal = rewriteRegexWithLabelValues(labelValues);
+        CompiledRegex regexPattern = CompiledRegex.compile(regexWithVal, predicate.isIgnoreCase(), predicate.isLinearTime());
+        synchronized (patternCache) {
+            patternCache.put(labelValues, regexPattern);
+        }
+        return regexPattern;
+    }
+    
     /**
-     * Create Map of label id and corresponding attribute values
+     * Create list of the values of each label (in the order of labelList)
      * @param inputTuple
-     * @return map of label id and corresponding attribute values
+     * @return list of the sets of the attribute values of the labels
      */
-    private Map<String, Set<String>> fetchLabelValues(Tuple inputTuple) throws DataflowException {
-        Map<String, Set<String>> labelSpanList = new HashMap<>();
+    private List<Set<String>> fetchLabelValues(Tuple inputTuple) throws DataflowException {
+        List<Set<String>> labelSpanList = new ArrayList<>(labelList.size());
         for (String label : this.labelList) {
             if (! inputTuple.getSchema().containsAttribute(label)) {
                 throw new DataflowException("label " + label + " does not exist");
             }
             ListField<Span> spanListField = inputTuple.getField(label);
-            Set<String> labelValues = spanListField.getValue().stream()
-                    .map(span -> span.getValue())
-                    .map(value -> escapeString(value))
-                    .collect(Collectors.toSet());
-            labelSpanList.put(label, labelValues);
+            List<Span> spanList = spanListField.getValue();
+            Set<String> labelValues = new HashSet<>();
+            if (spanList instanceof ColumnarSpanList) {
+                // read the values from the columns without creating the spans
+                ColumnarSpanList columnarSpanList = (ColumnarSpanList) spanList;
+                for (int i = 0; i < columnarSpanList.size(); i++) {
+                    labelValues.add(columnarSpanList.getValue(i));
+                }
+            } else {
+                for (Span span : spanList) {
+                    labelValues.add(span.getValue());
+                }
+            }
+            labelSpanList.add(labelValues);
         }
         return labelSpanList;
     }
@@ -92,24 +176,50 @@ public class LabeledRegexProcessor {
      *   then escaping it will still be itself.
      */
     private static String escapeString(String str) {
-        return str.chars()
-            .mapToObj(ch -> (Character.isLetterOrDigit(ch) ? "" : "\\") + String.valueOf((char) ch))
-            .collect(Collectors.joining());
+        StringBuilder escaped = new StringBuilder(str.length() + 8);
+        for (int i = 0; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            if (! Character.isLetterOrDigit(ch)) {
+                escaped.append('\\');
+            }
+            escaped.append(ch);
+        }
+        return escaped.toString();
     }
     
     /**
      * Replace labels with actual values in labeled regex
-     * @param cleanedRegex
-     * @param labelValueList
+     * @param labelValues
      * @return regex with actual span values
      */
-    private String rewriteRegexWithLabelValues(Map<String, Set<String>> labelValues) {
-        String regexWithValue = cleanedRegex;
-        for(Map.Entry<String, Set<String>> entry : labelValues.entrySet()){
-            String repVal = "(" + entry.getValue().stream().collect(Collectors.joining("|")) + ")";
-            regexWithValue = regexWithValue.replaceAll("<"+entry.getKey()+">", repVal);
+    private String rewriteRegexWithLabelValues(List<Set<String>> labelValues) {
+        List<String> alternations = new ArrayList<>(labelValues.size());
+        for (Set<String> values : labelValues) {
+            Set<String> escapedValues = values.stream().map(value -> escapeString(value)).collect(Collectors.toSet());
+            alternations.add("(" + String.join("|", escapedValues) + ")");
+        }
+        StringBuilder regexWithValue = new StringBuilder(regexParts[0]);
+        for (int i = 0; i < labelIndexes.length; i++) {
+            regexWithValue.append(alternations.get(labelIndexes[i]));
+            regexWithValue.append(regexParts[i + 1]);
         }
-        return regexWithValue;
+        return regexWithValue.toString();
+    }
+    
+    public long getCacheHitCount() {
+        synchronized (patternCache) {
+            return hitCount;
+        }
+    }
+    
+    public long getCacheMissCount() {
+        synchronized (patternCache) {
+            return missCount;
+        }
+    }
+    
+    public int getCacheSize() {
+        return cacheSize;
     }
 
 }
@@ -1,5 +1,7 @@
 package edu.uci.ics.texera.dataflow.sink;
 
+import java.util.List;
+
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.dataflow.ISink;
@@ -46,11 +48,13 @@ public abstract class AbstractSink implements ISink {
         if (cursor == CLOSED) {
             throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
-        Tuple nextTuple;
-
-        while ((nextTuple = inputOperator.getNextTuple()) != null) {
-            processOneTuple(nextTuple);
-            cursor++;
+        // pull the tuples in batches to amortize the calls through the operator tree
+        List<Tuple> nextBatch;
+        while (! (nextBatch = inputOperator.getNextBatch(DEFAULT_BATCH_SIZE)).isEmpty()) {
+            for (Tuple nextTuple : nextBatch) {
+                processOneTuple(nextTuple);
+            }
+            cursor += nextBatch.size();
         }
     }
 
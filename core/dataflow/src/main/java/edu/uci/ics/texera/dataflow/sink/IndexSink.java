@@ -6,7 +6,9 @@ import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.BulkLoadConfig;
 import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.NearRealTimeConfig;
 import edu.uci.ics.texera.storage.RelationManager;
 
 /**
@@ -32,8 +34,13 @@ public class IndexSink extends AbstractSink {
 
     public void open() throws TexeraException {
         super.open();
-        this.dataWriter.open();
-        if (! this.isAppend) {
+        if (this.isAppend) {
+            // appending feeds keep a long-lived writer, 
+            // the tuples are visible to the readers within a refresh interval without a commit per batch
+            this.dataWriter.openNearRealTime(new NearRealTimeConfig());
+        } else {
+            // index sink writes many tuples at once, open the writer in bulk-load mode
+            this.dataWriter.openBulkLoad(new BulkLoadConfig());
             this.dataWriter.clearData();
         }
     }
@@ -29,6 +29,7 @@ import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.Utils;
@@ -165,18 +166,18 @@ public class JSONSink implements ISink {
     	} else if(field instanceof DateField){
     		jsonGenerator.writeStringField(fieldName, field.getValue().toString());
     	} else if (field instanceof ListField) {
-    		List<Span> allFields = (List<Span>) field.getValue();
+    		// the spans are written from the columns of the span list, without creating Span objects
+    		ColumnarSpanList allFields = ColumnarSpanList.of((List<Span>) field.getValue());
     		jsonGenerator.writeFieldName(fieldName);
     		jsonGenerator.writeStartArray();
     		for (int i = 0; i < allFields.size(); ++i) {
-    			Span currentSpan = allFields.get(i);
     			jsonGenerator.writeStartObject();
-    			jsonGenerator.writeStringField("attributeName", currentSpan.getAttributeName());
-    			jsonGenerator.writeNumberField("start", currentSpan.getStart());
-    			jsonGenerator.writeNumberField("end", currentSpan.getEnd());
-    			jsonGenerator.writeStringField("key", currentSpan.getKey());
-    			jsonGenerator.writeStringField("value", currentSpan.getValue());
-    			jsonGenerator.writeNumberField("tokenOffset", currentSpan.getTokenOffset());
+    			jsonGenerator.writeStringField("attributeName", allFields.getAttributeName(i));
+    			jsonGenerator.writeNumberField("start", allFields.getStart(i));
+    			jsonGenerator.writeNumberField("end", allFields.getEnd(i));
+    			jsonGenerator.writeStringField("key", allFields.getKey(i));
+    			jsonGenerator.writeStringField("value", allFields.getValue(i));
+    			jsonGenerator.writeNumberField("tokenOffset", allFields.getTokenOffset(i));
     			jsonGenerator.writeEndObject();
     		}
     		jsonGenerator.writeEndArray();
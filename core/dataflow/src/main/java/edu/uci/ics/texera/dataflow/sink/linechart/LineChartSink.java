@@ -69,10 +69,10 @@ public class LineChartSink extends VisualizationOperator {
     public void processTuples() throws TexeraException {
         List<Tuple> list = new ArrayList<>();
 
-        Tuple tuple;
+        List<Tuple> batch;
 
-        while ( (tuple = inputOperator.getNextTuple()) != null) {
-            list.add(tuple);
+        while (! (batch = inputOperator.getNextBatch(DEFAULT_BATCH_SIZE)).isEmpty()) {
+            list.addAll(batch);
         }
 
         result = list.stream()
@@ -84,10 +84,10 @@ public class PieChartSink extends VisualizationOperator {
     public void processTuples() throws TexeraException {
         List<Tuple> list = new ArrayList<>();
 
-        Tuple tuple;
+        List<Tuple> batch;
 
-        while ( (tuple = inputOperator.getNextTuple()) != null) {
-            list.add(tuple);
+        while (! (batch = inputOperator.getNextBatch(DEFAULT_BATCH_SIZE)).isEmpty()) {
+            list.addAll(batch);
         }
         list = list.stream()
             .map(e -> new Tuple(outputSchema, e.getField(predicate.getNameColumn()), e.getField(predicate.getDataColumn())))
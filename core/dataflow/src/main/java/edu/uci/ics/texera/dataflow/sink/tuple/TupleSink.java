@@ -112,6 +112,31 @@ public class TupleSink implements ITupleSink {
 
     }
 
+    @Override
+    public List<Tuple> getNextBatch(int maxSize) throws TexeraException {
+        List<Tuple> resultBatch = new ArrayList<>();
+        if (cursor == CLOSED) {
+            return resultBatch;
+        }
+        while (resultBatch.isEmpty()) {
+            long remaining = (long) predicate.getLimit() + predicate.getOffset() - cursor;
+            if (remaining <= 0) {
+                break;
+            }
+            List<Tuple> inputBatch = inputOperator.getNextBatch((int) Math.min(maxSize, remaining));
+            if (inputBatch.isEmpty()) {
+                break;
+            }
+            for (Tuple inputTuple : inputBatch) {
+                cursor++;
+                if (cursor > predicate.getOffset()) {
+                    resultBatch.add(new Tuple.Builder(inputTuple).removeIfExists(SchemaConstants.PAYLOAD).build());
+                }
+            }
+        }
+        return resultBatch;
+    }
+
     /**
      * Collects ALL the tuples to an in-memory list.
      *
@@ -121,9 +146,9 @@ public class TupleSink implements ITupleSink {
     public List<Tuple> collectAllTuples() throws TexeraException {
         this.open();
         ArrayList<Tuple> results = new ArrayList<>();
-        Tuple tuple;
-        while ((tuple = this.getNextTuple()) != null) {
-            results.add(tuple);
+        List<Tuple> batch;
+        while (! (batch = this.getNextBatch(DEFAULT_BATCH_SIZE)).isEmpty()) {
+            results.addAll(batch);
         }
         this.close();
         return results;
@@ -15,6 +15,7 @@ import edu.uci.ics.texera.api.field.StringField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.dataflow.sink.VisualizationConstants;
@@ -72,16 +73,17 @@ public class WordCloudSink extends VisualizationOperator {
         HashMap<String, Integer> wordCountMap = new HashMap<>();
         while ( (tuple = inputOperator.getNextTuple()) != null) {
             if (addPayload) {
-                tuple = new Tuple.Builder(tuple).add(SchemaConstants.PAYLOAD_ATTRIBUTE,new ListField<Span>(
+                tuple = new Tuple.Builder(tuple).add(SchemaConstants.PAYLOAD_ATTRIBUTE,ListField.wrap(
                         DataflowUtils.generatePayloadFromTuple(tuple, predicate.getLuceneAnalyzerString()))).build();
             }
 
             ListField<Span> payloadField = tuple.getField("payload");
-            List<Span> payloadSpanList = payloadField.getValue();
+            ColumnarSpanList payloadSpanList = ColumnarSpanList.of(payloadField.getValue());
+            int attributeId = payloadSpanList.getAttributeIdOf(predicate.getAttribute());
 
-            for (Span span : payloadSpanList) {
-                if (span.getAttributeName().equals(predicate.getAttribute())) {
-                    String key = span.getValue().toLowerCase();
+            for (int i = 0; i < payloadSpanList.size(); i++) {
+                if (payloadSpanList.getAttributeId(i) == attributeId) {
+                    String key = payloadSpanList.getValue(i).toLowerCase();
                     if (!StopAnalyzer.ENGLISH_STOP_WORDS_SET.contains(key))
                         wordCountMap.put(key, wordCountMap.get(key)==null ? 1 : wordCountMap.get(key) + 1);
                 }
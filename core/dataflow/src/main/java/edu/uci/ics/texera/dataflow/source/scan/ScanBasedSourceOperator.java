@@ -1,5 +1,9 @@
 package edu.uci.ics.texera.dataflow.source.scan;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
@@ -7,8 +11,10 @@ import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.ILimitable;
 import edu.uci.ics.texera.api.dataflow.ISourceOperator;
 import edu.uci.ics.texera.storage.DataReader;
 import edu.uci.ics.texera.storage.RelationManager;
@@ -16,18 +22,28 @@ import edu.uci.ics.texera.storage.RelationManager;
 /**
  * Created by chenli on 3/28/16.
  */
-public class ScanBasedSourceOperator implements ISourceOperator {
+public class ScanBasedSourceOperator implements ISourceOperator, ILimitable {
 
+    private final String tableName;
     private DataReader dataReader;
     
     private boolean isOpen = false;
+    
+    // the segment-parallel scan, null if the table is scanned by one thread
+    private SegmentParallelScanOperator parallelScan = null;
+    private int parallelism = 1;
+    private boolean ordered = true;
+    private int numReturnedTuples;
 
     public ScanBasedSourceOperator(ScanSourcePredicate predicate) throws DataflowException {
+        this.tableName = predicate.getTableName();
         try {
             this.dataReader = RelationManager.getInstance().getTableDataReader(
                     predicate.getTableName(), new MatchAllDocsQuery());
             // TODO add an option to set if payload is added in the future.
             this.dataReader.setPayloadAdded(true);
+            // a scan doesn't need scoring, tuples are streamed in index order
+            this.dataReader.setStreaming(true);
         } catch (StorageException e) {
             throw new DataflowException(e);
         }
@@ -39,7 +55,13 @@ public class ScanBasedSourceOperator implements ISourceOperator {
             return;
         }
         try {
-            dataReader.open();
+            if (parallelism > 1) {
+                parallelScan = new SegmentParallelScanOperator(dataReader, parallelism, ordered, Function.identity());
+                parallelScan.open();
+                numReturnedTuples = 0;
+            } else {
+                dataReader.open();
+            }
             isOpen = true;
         } catch (Exception e) {
             throw new DataflowException(e.getMessage(), e);
@@ -52,6 +74,17 @@ public class ScanBasedSourceOperator implements ISourceOperator {
             throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
         try {
+            if (parallelScan != null) {
+                // each slice applies the limit by itself
+                if (numReturnedTuples >= dataReader.getLimit()) {
+                    return null;
+                }
+                Tuple tuple = parallelScan.getNextTuple();
+                if (tuple != null) {
+                    numReturnedTuples++;
+                }
+                return tuple;
+            }
             return dataReader.getNextTuple();
         } catch (Exception e) {
             e.printStackTrace();
@@ -59,13 +92,33 @@ public class ScanBasedSourceOperator implements ISourceOperator {
         }
     }
 
+    @Override
+    public List<Tuple> getNextBatch(int maxSize) throws TexeraException {
+        if (! isOpen) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (parallelScan != null) {
+            return ISourceOperator.super.getNextBatch(maxSize);
+        }
+        try {
+            return dataReader.getNextBatch(maxSize);
+        } catch (Exception e) {
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void close() throws TexeraException {
         if (! isOpen) {
             return;
         }
         try {
-            dataReader.close();
+            if (parallelScan != null) {
+                parallelScan.close();
+                parallelScan = null;
+            } else {
+                dataReader.close();
+            }
             isOpen = false;
         } catch (Exception e) {
             throw new DataflowException(e.getMessage(), e);
@@ -74,8 +127,68 @@ public class ScanBasedSourceOperator implements ISourceOperator {
 
     @Override
     public Schema getOutputSchema() {
+        if (parallelScan != null) {
+            return parallelScan.getOutputSchema();
+        }
         return dataReader.getOutputSchema();
     }
+    
+    /**
+     * Sets the maximum number of tuples to scan, the limit is pushed down to the DataReader.
+     * It must be set before the operator is opened.
+     * 
+     * @param limit
+     */
+    @Override
+    public void setLimit(int limit) {
+        dataReader.setLimit(limit);
+    }
+    
+    @Override
+    public int getLimit() {
+        return dataReader.getLimit();
+    }
+    
+    /**
+     * Sets the number of threads scanning the table in parallel by index segments (see SegmentParallelScanOperator).
+     * It must be set before the operator is opened.
+     * 
+     * @param parallelism, the maximum number of threads, 1 to scan by one thread
+     * @param ordered, if the tuples are returned in the order of the table
+     */
+    public void setParallelism(int parallelism, boolean ordered) {
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    /**
+     * Adds a filter query, only the tuples matching the filter are scanned.
+     * It's used to push the comparisons on the table down to the index (see ComparableMatcher.createRangeQuery()).
+     * It must be added before the operator is opened.
+     * 
+     * @param filterQuery
+     */
+    public void addFilterQuery(Query filterQuery) {
+        dataReader.addFilterQuery(filterQuery);
+    }
+    
+    public String getTableName() {
+        return tableName;
+    }
+    
+    /**
+     * Sets the attributes needed by the downstream operators, only these attributes (and _id) are read.
+     * It must be set before the operator is opened.
+     * 
+     * @param requiredAttributes, the names of the required attributes, or null if all attributes are required
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        dataReader.setRequiredAttributes(requiredAttributes);
+    }
 
     public Schema transformToOutputSchema(Schema... inputSchema) throws DataflowException {
         if (inputSchema == null || inputSchema.length == 0) {
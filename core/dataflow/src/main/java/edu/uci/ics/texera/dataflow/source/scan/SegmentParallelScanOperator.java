@@ -0,0 +1,252 @@
+package edu.uci.ics.texera.dataflow.source.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import edu.uci.ics.texera.api.constants.ErrorMessages;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.DataReader;
+
+/**
+ * SegmentParallelScanOperator reads a table in parallel by index segments.
+ *
+ * When it's opened, the DataReader is split into slices of index segments (see DataReader.getSliceReaders()),
+ *   an operator chain is created on top of every slice by the chain factory
+ *   (for example, a RegexMatcher whose input operator is the slice),
+ *   and every chain is run by its own thread.
+ *
+ * The results of the chains are merged:
+ *   ordered: the results are returned in the same order as reading the table sequentially,
+ *     the results of a slice are returned after all the results of the previous slices.
+ *   unordered: the results are returned as soon as any chain produces them.
+ *
+ * Every chain must only depend on its own input, the chains are run concurrently.
+ *
+ */
+public class SegmentParallelScanOperator implements IOperator {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    // put into a slice queue when the chain of the slice has no more results
+    private static final Tuple END_OF_SLICE = new Tuple(new Schema());
+
+    private final DataReader dataReader;
+    private final int parallelism;
+    private final boolean ordered;
+    private final Function<IOperator, IOperator> chainFactory;
+
+    private List<DataReader> sliceReaders;
+    private List<IOperator> sliceChains;
+    private List<Thread> sliceThreads;
+    // one queue per slice in ordered mode, one shared queue in unordered mode
+    private List<BlockingQueue<Tuple>> resultQueues;
+    private AtomicReference<Throwable> sliceError;
+    // set when the operator is closed, the slice threads are not interrupted
+    //   because interrupting a thread reading the index could close the shared index files
+    private volatile boolean cancelled;
+
+    private int currentQueue;
+    private int finishedSlices;
+
+    private Schema outputSchema;
+    private int cursor = CLOSED;
+
+    /**
+     * @param dataReader, an unopened DataReader of the table, it's read in streaming mode
+     * @param parallelism, the maximum number of slices read in parallel
+     * @param ordered, if the results are returned in the order of the table
+     * @param chainFactory, creates the operator chain on top of a slice, the identity function if only scanning
+     */
+    public SegmentParallelScanOperator(DataReader dataReader, int parallelism, boolean ordered,
+            Function<IOperator, IOperator> chainFactory) {
+        if (parallelism <= 0) {
+            throw new DataflowException("parallelism must be positive");
+        }
+        this.dataReader = dataReader;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.chainFactory = chainFactory;
+    }
+
+    @Override
+    public void open() throws TexeraException {
+        if (cursor != CLOSED) {
+            return;
+        }
+        try {
+            dataReader.setStreaming(true);
+            dataReader.open();
+            sliceReaders = dataReader.getSliceReaders(parallelism);
+            sliceChains = new ArrayList<>();
+            for (DataReader sliceReader : sliceReaders) {
+                IOperator sliceChain = chainFactory.apply(sliceReader);
+                sliceChain.open();
+                sliceChains.add(sliceChain);
+            }
+            outputSchema = sliceChains.get(0).getOutputSchema();
+
+            resultQueues = new ArrayList<>();
+            int numQueues = ordered ? sliceChains.size() : 1;
+            for (int i = 0; i < numQueues; i++) {
+                resultQueues.add(new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY));
+            }
+            sliceError = new AtomicReference<>();
+            cancelled = false;
+            currentQueue = 0;
+            finishedSlices = 0;
+
+            sliceThreads = new ArrayList<>();
+            for (int i = 0; i < sliceChains.size(); i++) {
+                IOperator sliceChain = sliceChains.get(i);
+                BlockingQueue<Tuple> resultQueue = resultQueues.get(ordered ? i : 0);
+                Thread sliceThread = new Thread(() -> runSlice(sliceChain, resultQueue), "texera-segment-scan-" + i);
+                sliceThread.setDaemon(true);
+                sliceThread.start();
+                sliceThreads.add(sliceThread);
+            }
+        } catch (Exception e) {
+            closeSlices();
+            throw new DataflowException(e.getMessage(), e);
+        }
+        cursor = OPENED;
+    }
+
+    /*
+     * The loop of a slice thread, it puts the results of the chain into the result queue.
+     */
+    private void runSlice(IOperator sliceChain, BlockingQueue<Tuple> resultQueue) {
+        try {
+            Tuple tuple;
+            while (! cancelled && sliceError.get() == null && (tuple = sliceChain.getNextTuple()) != null) {
+                resultQueue.put(tuple);
+            }
+        } catch (Throwable e) {
+            sliceError.compareAndSet(null, e);
+        }
+        try {
+            resultQueue.put(END_OF_SLICE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Tuple getNextTuple() throws TexeraException {
+        if (cursor == CLOSED) {
+            throw new DataflowException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        try {
+            while (finishedSlices < sliceChains.size()) {
+                Tuple tuple = resultQueues.get(currentQueue).take();
+                checkSliceError();
+                if (tuple != END_OF_SLICE) {
+                    cursor++;
+                    return tuple;
+                }
+                finishedSlices++;
+                if (ordered) {
+                    currentQueue++;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataflowException(e.getMessage(), e);
+        }
+    }
+
+    private void checkSliceError() throws DataflowException {
+        Throwable error = sliceError.get();
+        if (error != null) {
+            throw new DataflowException(error.getMessage(), error);
+        }
+    }
+
+    @Override
+    public void close() throws TexeraException {
+        if (cursor == CLOSED) {
+            return;
+        }
+        closeSlices();
+        cursor = CLOSED;
+    }
+
+    /*
+     * Stops the slice threads, closes the chains, the slices and the DataReader.
+     */
+    private void closeSlices() {
+        Throwable error = null;
+        if (sliceThreads != null) {
+            cancelled = true;
+            for (Thread sliceThread : sliceThreads) {
+                // keep discarding the results so that the slice thread is never blocked by a full queue
+                while (sliceThread.isAlive()) {
+                    resultQueues.forEach(BlockingQueue::clear);
+                    try {
+                        sliceThread.join(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            sliceThreads = null;
+        }
+        if (sliceChains != null) {
+            for (IOperator sliceChain : sliceChains) {
+                try {
+                    sliceChain.close();
+                } catch (Exception e) {
+                    error = e;
+                }
+            }
+            sliceChains = null;
+        }
+        if (sliceReaders != null) {
+            for (DataReader sliceReader : sliceReaders) {
+                try {
+                    sliceReader.close();
+                } catch (Exception e) {
+                    error = e;
+                }
+            }
+            sliceReaders = null;
+        }
+        try {
+            dataReader.close();
+        } catch (Exception e) {
+            error = e;
+        }
+        resultQueues = null;
+        if (error != null) {
+            throw new DataflowException(error.getMessage(), error);
+        }
+    }
+
+    @Override
+    public Schema getOutputSchema() {
+        return outputSchema;
+    }
+
+    @Override
+    public Schema transformToOutputSchema(Schema... inputSchema) {
+        throw new TexeraException(ErrorMessages.INVALID_FUNCTION_CALL);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+}
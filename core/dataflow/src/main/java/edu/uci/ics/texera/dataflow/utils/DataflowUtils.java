@@ -16,13 +16,18 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.*;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.utils.PayloadSpanList;
 
 public class DataflowUtils {
     
     public static final String LUCENE_SCAN_QUERY = "*:*";
+    
+    // the standard analyzer with an empty stop word list, it's shared like the analyzers of LuceneAnalyzerConstants
+    private static final Analyzer standardAnalyzerWithStopwords = new StandardAnalyzer(new CharArraySet(1, true));
 
     public static ArrayList<String> tokenizeQuery(String luceneAnalyzerStr, String query) {
         return tokenizeQuery(LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerStr), query);
@@ -56,8 +61,7 @@ public class DataflowUtils {
         
         if (luceneAnalyzerStr.equals(LuceneAnalyzerConstants.standardAnalyzerString())) {
             // use an empty stop word list for standard analyzer
-            CharArraySet emptyStopwords = new CharArraySet(1, true);
-            luceneAnalyzer = new StandardAnalyzer(emptyStopwords);
+            luceneAnalyzer = standardAnalyzerWithStopwords;
         } else if (luceneAnalyzerStr.equals(LuceneAnalyzerConstants.chineseAnalyzerString())) {
             // use the default smart chinese analyzer
             // because the smart chinese analyzer's default stopword list is simply a list of punctuations
@@ -84,32 +88,89 @@ public class DataflowUtils {
             tokenStream.close();
         } catch (IOException e) {
             throw new DataflowException(e);
-        } finally {
-            luceneAnalyzer.close();
         }
         
         return result;
     }
 
-    public static List<Span> generatePayloadFromTuple(Tuple tuple, String luceneAnalyzer) throws DataflowException {
+    public static ColumnarSpanList generatePayloadFromTuple(Tuple tuple, String luceneAnalyzer) throws DataflowException {
         return generatePayloadFromTuple(tuple, LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzer));
     }
 
-    public static List<Span> generatePayloadFromTuple(Tuple tuple, Analyzer luceneAnalyzer) {
-        List<Span> tuplePayload = tuple.getSchema().getAttributes().stream()
+    /**
+     * Generates the payload of the TEXT attributes of a tuple,
+     *   the payload of each field value is looked up in the cache first if the cache is not null.
+     * 
+     * @param tuple
+     * @param luceneAnalyzerString
+     * @param tokenizationCache, the cache shared by the operators of a plan, or null
+     * @return the payload
+     * @throws DataflowException
+     */
+    public static ColumnarSpanList generatePayloadFromTuple(Tuple tuple, String luceneAnalyzerString, 
+            TokenizationCache tokenizationCache) throws DataflowException {
+        if (tokenizationCache == null) {
+            return generatePayloadFromTuple(tuple, luceneAnalyzerString);
+        }
+        return tokenizationCache.generatePayloadFromTuple(tuple, luceneAnalyzerString);
+    }
+
+    /**
+     * Generates the payload of the TEXT attributes of a tuple.
+     * The payload is a ColumnarSpanList, so a ListField of it should be created by ListField.wrap().
+     * 
+     * @param tuple
+     * @param luceneAnalyzer
+     * @return the payload
+     */
+    public static ColumnarSpanList generatePayloadFromTuple(Tuple tuple, Analyzer luceneAnalyzer) {
+        ColumnarSpanList.Builder payloadBuilder = new ColumnarSpanList.Builder();
+        tuple.getSchema().getAttributes().stream()
                 .filter(attr -> (attr.getType() == AttributeType.TEXT)) // generate payload only for TEXT field
                 .map(attr -> attr.getName())
-                .map(attributeName -> generatePayload(attributeName, tuple.getField(attributeName).getValue().toString(),
-                        luceneAnalyzer))
-                .flatMap(payload -> payload.stream()) // flatten a list of lists to a list
-                .collect(Collectors.toList());
+                .forEach(attributeName -> addPayload(payloadBuilder, attributeName,
+                        tuple.getField(attributeName).getValue().toString(), luceneAnalyzer));
 
-        return tuplePayload;
+        return payloadBuilder.build();
     }
 
-    public static List<Span> generatePayload(String attributeName, String fieldValue, Analyzer luceneAnalyzer) {
-        List<Span> payload = new ArrayList<>();
+    /**
+     * Gets the payload spans of the given attributes.
+     * If the payload is decoded lazily from the binary payload of the table (see PayloadSpanList),
+     *   only the spans of these attributes are decoded, otherwise the whole payload is returned.
+     * 
+     * @param payload, the payload of a tuple
+     * @param attributeNames, the attributes to be inspected
+     * @return a list of spans containing (at least) all the spans of the attributes
+     */
+    public static ColumnarSpanList getPayloadSpans(List<Span> payload, List<String> attributeNames) {
+        if (! (payload instanceof PayloadSpanList)) {
+            return ColumnarSpanList.of(payload);
+        }
+        PayloadSpanList payloadSpanList = (PayloadSpanList) payload;
+        if (attributeNames.size() == 1) {
+            return payloadSpanList.getSpans(attributeNames.get(0));
+        }
+        ColumnarSpanList.Builder attributeSpansBuilder = new ColumnarSpanList.Builder();
+        for (String attributeName : attributeNames) {
+            attributeSpansBuilder.addAll(payloadSpanList.getSpans(attributeName));
+        }
+        return attributeSpansBuilder.build();
+    }
 
+    public static ColumnarSpanList generatePayload(String attributeName, String fieldValue, Analyzer luceneAnalyzer) {
+        ColumnarSpanList.Builder payloadBuilder = new ColumnarSpanList.Builder();
+        addPayload(payloadBuilder, attributeName, fieldValue, luceneAnalyzer);
+        return payloadBuilder.build();
+    }
+
+    /*
+     * Tokenizes a field value and adds its spans to the payload builder,
+     *   the original text of a token is not copied, it's the substring of the field value.
+     */
+    private static void addPayload(ColumnarSpanList.Builder payloadBuilder, String attributeName, String fieldValue,
+            Analyzer luceneAnalyzer) {
+        payloadBuilder.setFieldValue(attributeName, fieldValue);
         try {
             TokenStream tokenStream = luceneAnalyzer.tokenStream(null, new StringReader(fieldValue));
             OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
@@ -126,16 +187,13 @@ public class DataflowUtils {
                 int charStart = offsetAttribute.startOffset();
                 int charEnd = offsetAttribute.endOffset();
                 String analyzedTermStr = charTermAttribute.toString();
-                String originalTermStr = fieldValue.substring(charStart, charEnd);
 
-                payload.add(new Span(attributeName, charStart, charEnd, analyzedTermStr, originalTermStr, tokenPosition));
+                payloadBuilder.add(attributeName, charStart, charEnd, analyzedTermStr, tokenPosition);
             }
             tokenStream.close();
         } catch (IOException e) {
             throw new DataflowException(e);
         }
-
-        return payload;
     }
 
 
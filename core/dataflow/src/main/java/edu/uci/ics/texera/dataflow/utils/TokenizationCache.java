@@ -0,0 +1,198 @@
+package edu.uci.ics.texera.dataflow.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.uci.ics.texera.api.exception.DataflowException;
+import edu.uci.ics.texera.api.schema.Attribute;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+/**
+ * TokenizationCache keeps the payload (the analyzed tokens) of the recently tokenized field values,
+ *   so that the operators of a plan matching the same tuples (for example, a keyword matcher and
+ *   a dictionary matcher on two branches of a broadcast connector) tokenize each field value once.
+ *
+ * The payload is cached by the analyzer, the attribute name and the field value.
+ * The cached payload is an immutable ColumnarSpanList, which is returned to the callers without copying.
+ * The size of the cache is bounded by the approximate number of characters it holds,
+ *   the least recently used entries are evicted first.
+ *
+ * One cache is shared by the text matchers of a plan (see LogicalPlan.buildQueryPlan()),
+ *   it can be used by several threads.
+ *
+ */
+public class TokenizationCache {
+
+    public static final long DEFAULT_MAX_CHARACTERS = 8 * 1024 * 1024;
+
+    // the approximate size of a span in a ColumnarSpanList (five ints and its share of the keys), in characters
+    private static final int SPAN_OVERHEAD = 12;
+
+    private final long maxCharacters;
+    private long cachedCharacters = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    // in access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<CacheKey, CacheEntry> cacheMap = new LinkedHashMap<>(16, 0.75f, true);
+
+    public TokenizationCache() {
+        this(DEFAULT_MAX_CHARACTERS);
+    }
+
+    /**
+     * @param maxCharacters, the maximum number of characters held by the cache
+     */
+    public TokenizationCache(long maxCharacters) {
+        if (maxCharacters <= 0) {
+            throw new IllegalArgumentException("maxCharacters must be positive");
+        }
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Generates the payload of the TEXT attributes of a tuple, as DataflowUtils.generatePayloadFromTuple() does.
+     *
+     * @param tuple
+     * @param luceneAnalyzerString
+     * @return the payload
+     * @throws DataflowException
+     */
+    public ColumnarSpanList generatePayloadFromTuple(Tuple tuple, String luceneAnalyzerString) throws DataflowException {
+        ColumnarSpanList.Builder payloadBuilder = new ColumnarSpanList.Builder();
+        for (Attribute attribute : tuple.getSchema().getAttributes()) {
+            // generate payload only for TEXT field
+            if (attribute.getType() == AttributeType.TEXT) {
+                String attributeName = attribute.getName();
+                payloadBuilder.addAll(getPayload(attributeName, tuple.getField(attributeName).getValue().toString(),
+                        luceneAnalyzerString));
+            }
+        }
+        return payloadBuilder.build();
+    }
+
+    /**
+     * Gets the payload of a field value, from the cache or by tokenizing the value.
+     * The returned list is immutable, the same list is returned to all the callers.
+     *
+     * @param attributeName
+     * @param fieldValue
+     * @param luceneAnalyzerString
+     * @return the payload of the field value
+     * @throws DataflowException
+     */
+    public ColumnarSpanList getPayload(String attributeName, String fieldValue, String luceneAnalyzerString)
+            throws DataflowException {
+        CacheKey key = new CacheKey(luceneAnalyzerString, attributeName, fieldValue);
+        synchronized (this) {
+            CacheEntry entry = cacheMap.get(key);
+            if (entry != null) {
+                hitCount++;
+                return entry.payload;
+            }
+            missCount++;
+        }
+
+        // the value is tokenized without holding the lock
+        ColumnarSpanList payload = DataflowUtils.generatePayload(attributeName, fieldValue,
+                LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerString));
+        long characters = 2L * fieldValue.length() + (long) payload.size() * SPAN_OVERHEAD;
+        if (characters <= maxCharacters) {
+            synchronized (this) {
+                CacheEntry previousEntry = cacheMap.put(key, new CacheEntry(payload, characters));
+                cachedCharacters += characters;
+                if (previousEntry != null) {
+                    cachedCharacters -= previousEntry.characters;
+                }
+                evict();
+            }
+        }
+        return payload;
+    }
+
+    /*
+     * Removes the least recently used entries until the cache is within its size.
+     */
+    private void evict() {
+        Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = cacheMap.entrySet().iterator();
+        while (cachedCharacters > maxCharacters && iterator.hasNext()) {
+            cachedCharacters -= iterator.next().getValue().characters;
+            iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        cacheMap.clear();
+        cachedCharacters = 0;
+    }
+
+    public synchronized int size() {
+        return cacheMap.size();
+    }
+
+    public synchronized long getCachedCharacters() {
+        return cachedCharacters;
+    }
+
+    public long getMaxCharacters() {
+        return maxCharacters;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static class CacheKey {
+        private final String luceneAnalyzerString;
+        private final String attributeName;
+        private final String fieldValue;
+        private final int hashCode;
+
+        CacheKey(String luceneAnalyzerString, String attributeName, String fieldValue) {
+            this.luceneAnalyzerString = luceneAnalyzerString;
+            this.attributeName = attributeName;
+            this.fieldValue = fieldValue;
+            this.hashCode = 31 * (31 * luceneAnalyzerString.hashCode() + attributeName.hashCode()) + fieldValue.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            if (this == that) {
+                return true;
+            }
+            if (! (that instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey thatKey = (CacheKey) that;
+            return hashCode == thatKey.hashCode
+                    && luceneAnalyzerString.equals(thatKey.luceneAnalyzerString)
+                    && attributeName.equals(thatKey.attributeName)
+                    && fieldValue.equals(thatKey.fieldValue);
+        }
+    }
+
+    private static class CacheEntry {
+        private final ColumnarSpanList payload;
+        private final long characters;
+
+        CacheEntry(ColumnarSpanList payload, long characters) {
+            this.payload = payload;
+            this.characters = characters;
+        }
+    }
+
+}
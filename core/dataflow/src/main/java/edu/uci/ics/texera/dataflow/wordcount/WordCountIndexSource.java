@@ -106,7 +106,7 @@ public class WordCountIndexSource implements ISourceOperator {
                 }
             }
             
-            luceneIndexReader.close();
+            // the index reader is shared by the table's DataReaders, it's released by DataReader.close()
             dataReader.close();
             
             sortedWordCountMap = wordCountMap.entrySet().stream()
@@ -79,7 +79,7 @@ public class WordCountOperator extends AbstractSingleInputOperator implements IS
         HashMap<String, Integer> wordCountMap = new HashMap<>();
         while ((tuple = this.inputOperator.getNextTuple()) != null) {
             if (addPayload) {
-                tuple = new Tuple.Builder(tuple).add(SchemaConstants.PAYLOAD_ATTRIBUTE,new ListField<Span>(
+                tuple = new Tuple.Builder(tuple).add(SchemaConstants.PAYLOAD_ATTRIBUTE,ListField.wrap(
                                 DataflowUtils.generatePayloadFromTuple(tuple, predicate.getLuceneAnalyzerString()))).build();
             }
             
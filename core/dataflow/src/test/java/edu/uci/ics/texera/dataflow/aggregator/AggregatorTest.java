@@ -5,6 +5,7 @@ package edu.uci.ics.texera.dataflow.aggregator;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.AfterClass;
@@ -26,6 +27,7 @@ import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
 import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
@@ -395,6 +397,98 @@ public class AggregatorTest {
         Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
     }
 
+    //TEST: Count heights, find max age and min first name for each date of birth
+    @Test
+    public void testGroupByDateOfBirth() throws Exception {
+        List<AggregationAttributeAndResult> aggEntitiesList = new ArrayList<>();
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.HEIGHT, AggregationType.COUNT,
+                AggregatorTestConstants.COUNT_HEIGHT_RESULT_ATTR_NAME));
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.AGE, AggregationType.MAX,
+                AggregatorTestConstants.MAX_AGE_RESULT_ATTR_NAME));
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.FIRST_NAME, AggregationType.MIN,
+                AggregatorTestConstants.MIN_FIRST_NAME_RESULT_ATTR_NAME));
+
+        Schema schema = new Schema(TestConstants.DATE_OF_BIRTH_ATTR,
+                new Attribute(AggregatorTestConstants.COUNT_HEIGHT_RESULT_ATTR_NAME, AttributeType.INTEGER),
+                new Attribute(AggregatorTestConstants.MAX_AGE_RESULT_ATTR_NAME, AttributeType.INTEGER),
+                new Attribute(AggregatorTestConstants.MIN_FIRST_NAME_RESULT_ATTR_NAME, AttributeType.STRING));
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd-yyyy");
+        List<Tuple> expectedResults = Arrays.asList(
+                new Tuple(schema, new DateField(dateFormat.parse("01-14-1970")), new IntegerField(1),
+                        new IntegerField(46), new StringField("bruce")),
+                new Tuple(schema, new DateField(dateFormat.parse("01-13-1971")), new IntegerField(1),
+                        new IntegerField(45), new StringField("tom hanks")),
+                new Tuple(schema, new DateField(dateFormat.parse("01-12-1972")), new IntegerField(1),
+                        new IntegerField(44), new StringField("brad lie angelina")),
+                new Tuple(schema, new DateField(dateFormat.parse("01-13-1973")), new IntegerField(1),
+                        new IntegerField(43), new StringField("george lin lin")),
+                new Tuple(schema, new DateField(dateFormat.parse("01-13-1974")), new IntegerField(2),
+                        new IntegerField(42), new StringField("Mary brown")));
+
+        List<Tuple> returnedResults = getQueryResults(aggEntitiesList, Arrays.asList(TestConstants.DATE_OF_BIRTH),
+                Aggregator.DEFAULT_MAX_GROUPS_IN_MEMORY);
+        Assert.assertEquals(5, returnedResults.size());
+        Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
+    }
+
+    //TEST: The groups spilled to temporary files have the same results as the groups in memory
+    @Test
+    public void testGroupBySpill() throws Exception {
+        List<AggregationAttributeAndResult> aggEntitiesList = new ArrayList<>();
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.HEIGHT, AggregationType.SUM,
+                AggregatorTestConstants.SUM_HEIGHT_RESULT_ATTR_NAME));
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.HEIGHT, AggregationType.AVERAGE,
+                AggregatorTestConstants.AVG_HEIGHT_RESULT_ATTR_NAME));
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.DESCRIPTION, AggregationType.MIN,
+                AggregatorTestConstants.MIN_DESCRIPTION_RESULT_ATTR_NAME));
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.DATE_OF_BIRTH, AggregationType.MAX,
+                AggregatorTestConstants.MAX_DATE_RESULT_ATTR_NAME));
+        List<String> groupByAttributes = Arrays.asList(TestConstants.AGE);
+
+        List<Tuple> inMemoryResults = getQueryResults(aggEntitiesList, groupByAttributes,
+                Aggregator.DEFAULT_MAX_GROUPS_IN_MEMORY);
+        List<Tuple> spilledResults = getQueryResults(aggEntitiesList, groupByAttributes, 2);
+
+        Assert.assertEquals(5, inMemoryResults.size());
+        Assert.assertTrue(TestUtils.equals(inMemoryResults, spilledResults));
+        // the spilled groups are in the order of the group values
+        Assert.assertEquals(new IntegerField(42), spilledResults.get(0).getField(TestConstants.AGE));
+        Assert.assertEquals(new DoubleField(11.98), spilledResults.get(0).getField(AggregatorTestConstants.SUM_HEIGHT_RESULT_ATTR_NAME));
+        Assert.assertEquals(new TextField("Short angry"), spilledResults.get(0).getField(AggregatorTestConstants.MIN_DESCRIPTION_RESULT_ATTR_NAME));
+    }
+
+    //TEST: A group value without a value is spilled and merged like the other group values, and ordered first
+    @Test
+    public void testGroupBySpillNullValue() throws Exception {
+        List<AggregationAttributeAndResult> aggEntitiesList = new ArrayList<>();
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.HEIGHT, AggregationType.COUNT,
+                AggregatorTestConstants.COUNT_HEIGHT_RESULT_ATTR_NAME));
+        aggEntitiesList.add(new AggregationAttributeAndResult(TestConstants.DESCRIPTION, AggregationType.MIN,
+                AggregatorTestConstants.MIN_DESCRIPTION_RESULT_ATTR_NAME));
+        List<String> groupByAttributes = Arrays.asList(TestConstants.LAST_NAME);
+
+        // the last names of "tom hanks" and "george lin lin" don't have a value
+        int lastNameIndex = TestConstants.SCHEMA_PEOPLE.getIndex(TestConstants.LAST_NAME);
+        List<Tuple> inputTuples = new ArrayList<>();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            List<IField> fields = new ArrayList<>(tuple.getFields());
+            if (inputTuples.size() == 1 || inputTuples.size() == 3) {
+                fields.set(lastNameIndex, new StringField(null));
+            }
+            inputTuples.add(new Tuple(TestConstants.SCHEMA_PEOPLE, fields));
+        }
+
+        List<Tuple> inMemoryResults = getQueryResults(aggEntitiesList, groupByAttributes,
+                Aggregator.DEFAULT_MAX_GROUPS_IN_MEMORY, inputTuples);
+        List<Tuple> spilledResults = getQueryResults(aggEntitiesList, groupByAttributes, 2, inputTuples);
+
+        Assert.assertEquals(5, inMemoryResults.size());
+        Assert.assertTrue(TestUtils.equals(inMemoryResults, spilledResults));
+        Assert.assertEquals(new StringField(null), spilledResults.get(0).getField(TestConstants.LAST_NAME));
+        Assert.assertEquals(new IntegerField(2), 
+                spilledResults.get(0).getField(AggregatorTestConstants.COUNT_HEIGHT_RESULT_ATTR_NAME));
+    }
+
     @AfterClass
     public static void cleanUp() throws TexeraException {
         RelationManager relationManager = RelationManager.getInstance();
@@ -402,8 +496,13 @@ public class AggregatorTest {
     }
 
     private List<Tuple> getQueryResults(List<AggregationAttributeAndResult> aggregationItems) {
-        AggregatorPredicate aggPredicate = new AggregatorPredicate(aggregationItems);
-        Aggregator aggOperator = new Aggregator(aggPredicate);
+        return getQueryResults(aggregationItems, new ArrayList<>(), Aggregator.DEFAULT_MAX_GROUPS_IN_MEMORY);
+    }
+
+    private List<Tuple> getQueryResults(List<AggregationAttributeAndResult> aggregationItems,
+            List<String> groupByAttributeNames, int maxGroupsInMemory) {
+        AggregatorPredicate aggPredicate = new AggregatorPredicate(aggregationItems, groupByAttributeNames);
+        Aggregator aggOperator = new Aggregator(aggPredicate, maxGroupsInMemory);
 
         setPreExecConfigs(aggOperator);
 
@@ -416,4 +515,20 @@ public class AggregatorTest {
         return returnedResults;
     }
 
+    private List<Tuple> getQueryResults(List<AggregationAttributeAndResult> aggregationItems,
+            List<String> groupByAttributeNames, int maxGroupsInMemory, List<Tuple> inputTuples) {
+        AggregatorPredicate aggPredicate = new AggregatorPredicate(aggregationItems, groupByAttributeNames);
+        Aggregator aggOperator = new Aggregator(aggPredicate, maxGroupsInMemory);
+        aggOperator.setInputOperator(new TupleSourceOperator(inputTuples, TestConstants.SCHEMA_PEOPLE));
+        aggOperator.open();
+
+        List<Tuple> returnedResults = new ArrayList<>();
+        Tuple nextTuple = null;
+        while ((nextTuple = aggOperator.getNextTuple()) != null) {
+            returnedResults.add(nextTuple);
+        }
+        aggOperator.close();
+        return returnedResults;
+    }
+
 }
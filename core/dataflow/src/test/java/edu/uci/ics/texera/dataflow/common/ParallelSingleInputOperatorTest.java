@@ -0,0 +1,134 @@
+package edu.uci.ics.texera.dataflow.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcher;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
+import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
+import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class ParallelSingleInputOperatorTest {
+
+    public static final String PEOPLE_TABLE = "parallel_operator_test_people";
+    public static final String RESULTS = "regex results";
+    // the people table is written several times, so that the input is larger than the window
+    public static final int COPIES = 20;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+
+        // create the people table and write tuples
+        relationManager.createTable(PEOPLE_TABLE, TestUtils.getDefaultTestIndex().resolve(PEOPLE_TABLE),
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter peopleDataWriter = relationManager.getTableDataWriter(PEOPLE_TABLE);
+        peopleDataWriter.open();
+        for (int i = 0; i < COPIES; i++) {
+            for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+                peopleDataWriter.insertTuple(tuple);
+            }
+        }
+        peopleDataWriter.close();
+    }
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        RelationManager.getInstance().deleteTable(PEOPLE_TABLE);
+    }
+
+    private static RegexMatcher newRegexMatcher() {
+        RegexMatcher regexMatcher = new RegexMatcher(new RegexPredicate("g[^\\s]*",
+                Arrays.asList(TestConstants.FIRST_NAME, TestConstants.LAST_NAME, TestConstants.DESCRIPTION), RESULTS));
+        regexMatcher.setInputOperator(new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE)));
+        return regexMatcher;
+    }
+
+    private static List<Tuple> getAllResults(IOperator operator) throws TexeraException {
+        List<Tuple> results = new ArrayList<>();
+        operator.open();
+        Tuple tuple;
+        while ((tuple = operator.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        operator.close();
+        return results;
+    }
+
+    private static void assertSameOrder(List<Tuple> expectedResults, List<Tuple> results) {
+        Assert.assertEquals(expectedResults.size(), results.size());
+        for (int i = 0; i < expectedResults.size(); i++) {
+            Assert.assertEquals(expectedResults.get(i).getField(SchemaConstants._ID), results.get(i).getField(SchemaConstants._ID));
+            Assert.assertEquals(expectedResults.get(i).getField(RESULTS), results.get(i).getField(RESULTS));
+        }
+    }
+
+    /*
+     * Test that the parallel operator returns the same results as the wrapped operator, in the same order.
+     */
+    @Test
+    public void testSameResultsInOrder() throws TexeraException {
+        List<Tuple> expectedResults = getAllResults(newRegexMatcher());
+        Assert.assertTrue(expectedResults.size() > 0);
+
+        ParallelSingleInputOperator parallelOperator = new ParallelSingleInputOperator(newRegexMatcher(), 4, 3);
+        List<Tuple> results = getAllResults(parallelOperator);
+        Assert.assertEquals(expectedResults.get(0).getSchema(), parallelOperator.getOutputSchema());
+        assertSameOrder(expectedResults, results);
+    }
+
+    /*
+     * Test that the limit and offset of the wrapped operator are kept, and a batch can be read.
+     */
+    @Test
+    public void testLimitAndOffset() throws TexeraException {
+        RegexMatcher regexMatcher = newRegexMatcher();
+        regexMatcher.setLimit(5);
+        regexMatcher.setOffset(3);
+        List<Tuple> expectedResults = getAllResults(regexMatcher);
+        Assert.assertEquals(5, expectedResults.size());
+
+        RegexMatcher wrappedMatcher = newRegexMatcher();
+        wrappedMatcher.setLimit(5);
+        wrappedMatcher.setOffset(3);
+        ParallelSingleInputOperator parallelOperator = new ParallelSingleInputOperator(wrappedMatcher, 4);
+        parallelOperator.open();
+        List<Tuple> results = new ArrayList<>(parallelOperator.getNextBatch(2));
+        List<Tuple> batch;
+        while (! (batch = parallelOperator.getNextBatch(100)).isEmpty()) {
+            results.addAll(batch);
+        }
+        parallelOperator.close();
+        assertSameOrder(expectedResults, results);
+    }
+
+    /*
+     * Test that the parallel operator can be closed before its input is exhausted and opened again.
+     */
+    @Test(timeout = 10000)
+    public void testCloseBeforeEnd() throws TexeraException {
+        ParallelSingleInputOperator parallelOperator = new ParallelSingleInputOperator(newRegexMatcher(), 2, 2);
+        parallelOperator.open();
+        Assert.assertNotNull(parallelOperator.getNextTuple());
+        parallelOperator.close();
+
+        assertSameOrder(getAllResults(newRegexMatcher()), getAllResults(parallelOperator));
+    }
+
+}
@@ -38,6 +38,7 @@ import edu.uci.ics.texera.dataflow.nlp.sentiment.NlpSentimentPredicate;
 import edu.uci.ics.texera.dataflow.nlp.splitter.NLPOutputType;
 import edu.uci.ics.texera.dataflow.nlp.splitter.NlpSplitPredicate;
 import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.regexmatcher.MultiRegexPredicate;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexSourcePredicate;
 import edu.uci.ics.texera.dataflow.regexsplit.RegexOutputType;
@@ -222,6 +223,15 @@ public class  PredicateBaseTest {
         testPredicate(regexSourcePredicate);
     }
     
+    @Test
+    public void testMultiRegexMatcher() throws Exception {
+        MultiRegexPredicate multiRegexPredicate = new MultiRegexPredicate(
+                Arrays.asList("regex1", "regex2"),
+                attributeNames,
+                "spanListName");
+        testPredicate(multiRegexPredicate);
+    }
+    
     @Test
     public void testRegexSplit() throws Exception {
         RegexSplitPredicate regexSplitPredicate = new RegexSplitPredicate(
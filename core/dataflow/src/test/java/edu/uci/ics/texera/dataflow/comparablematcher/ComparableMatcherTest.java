@@ -12,12 +12,14 @@ import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 
+import org.apache.lucene.search.Query;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -598,4 +600,122 @@ public class ComparableMatcherTest {
         Assert.assertEquals(expectedResults.size(), returnedResults.size());
         Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
     }
-}
\ No newline at end of file
+    
+    /*
+     * Scans the table with the comparison pushed down as a range query, without the ComparableMatcher.
+     */
+    private List<Tuple> getRangeQueryResults(String tableName, String attributeName, ComparisonType matchingType, 
+            String compareToValue) throws TexeraException {
+        ComparablePredicate comparablePredicate = new ComparablePredicate(attributeName, matchingType, compareToValue);
+        Query rangeQuery = ComparableMatcher.createRangeQuery(comparablePredicate, tableName);
+        Assert.assertNotNull(rangeQuery);
+        
+        ScanBasedSourceOperator sourceOperator = new ScanBasedSourceOperator(new ScanSourcePredicate(tableName));
+        sourceOperator.addFilterQuery(rangeQuery);
+        sourceOperator.open();
+        List<Tuple> results = new ArrayList<>();
+        Tuple tuple;
+        while ((tuple = sourceOperator.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        sourceOperator.close();
+        return results;
+    }
+    
+    /**
+     * Verifies that the range queries pushed down to the table scan 
+     *   return the same tuples as the ComparableMatcher.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testRangeQueryPushDown() throws Exception {
+        String ageAttr = TestConstants.AGE_ATTR.getName();
+        String heightAttr = TestConstants.HEIGHT_ATTR.getName();
+        String dateAttr = TestConstants.DATE_OF_BIRTH_ATTR.getName();
+        
+        Object[][] comparisons = {
+                {ageAttr, ComparisonType.GREATER_THAN, "44.5"},
+                {ageAttr, ComparisonType.LESS_THAN_OR_EQUAL_TO, "44"},
+                {ageAttr, ComparisonType.EQUAL_TO, "43"},
+                {ageAttr, ComparisonType.EQUAL_TO, "43.5"},
+                {heightAttr, ComparisonType.GREATER_THAN_OR_EQUAL_TO, "5.95"},
+                {heightAttr, ComparisonType.LESS_THAN, "6.10"},
+                {dateAttr, ComparisonType.GREATER_THAN_OR_EQUAL_TO, "1973-01-13"},
+                {dateAttr, ComparisonType.LESS_THAN, "1971-01-13T12:00:00"},
+                {dateAttr, ComparisonType.EQUAL_TO, "1970-01-14"},
+        };
+        for (Object[] comparison : comparisons) {
+            List<Tuple> expectedResults = getQueryResults((String) comparison[0], (ComparisonType) comparison[1], comparison[2]);
+            List<Tuple> returnedResults = getRangeQueryResults(PEOPLE_TABLE, 
+                    (String) comparison[0], (ComparisonType) comparison[1], (String) comparison[2]);
+            Assert.assertEquals(expectedResults.size(), returnedResults.size());
+            Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
+        }
+        
+        // a DATETIME attribute compared to a date time or a date
+        List<Tuple> returnedResults = getRangeQueryResults(PEOPLE_TABLE_2, dateAttr, ComparisonType.EQUAL_TO, "1970-01-01T11:11:11");
+        Assert.assertEquals(1, returnedResults.size());
+        Assert.assertTrue(TestUtils.equals(
+                Arrays.asList(TestConstantsRegexSplit.constructSamplePeopleTuples().get(0)), returnedResults));
+        returnedResults = getRangeQueryResults(PEOPLE_TABLE_2, dateAttr, ComparisonType.LESS_THAN_OR_EQUAL_TO, "1970-01-01");
+        Assert.assertEquals(1, returnedResults.size());
+    }
+    
+    /**
+     * Verifies the selectivity of comparisons estimated from the table statistics.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testSelectivityEstimate() throws Exception {
+        String ageAttr = TestConstants.AGE_ATTR.getName();
+        String dateAttr = TestConstants.DATE_OF_BIRTH_ATTR.getName();
+        
+        // ages are 46, 45, 44, 43, 42, 42
+        Assert.assertEquals(1.0 / 3, ComparableMatcher.estimateSelectivity(
+                new ComparablePredicate(ageAttr, ComparisonType.GREATER_THAN, "44.5"), PEOPLE_TABLE), 0.1);
+        Assert.assertEquals(0.0, ComparableMatcher.estimateSelectivity(
+                new ComparablePredicate(ageAttr, ComparisonType.LESS_THAN, "40"), PEOPLE_TABLE), 0);
+        Assert.assertEquals(1.0, ComparableMatcher.estimateSelectivity(
+                new ComparablePredicate(dateAttr, ComparisonType.GREATER_THAN_OR_EQUAL_TO, "1960-01-01"), PEOPLE_TABLE), 0);
+        // the selectivity of a comparison on a TEXT attribute can't be estimated
+        Assert.assertNull(ComparableMatcher.estimateSelectivity(
+                new ComparablePredicate(TestConstants.DESCRIPTION, ComparisonType.EQUAL_TO, "tall"), PEOPLE_TABLE));
+    }
+    
+    /**
+     * Verifies that getNextBatch() returns the same tuples as getNextTuple() with a limit and an offset.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testGetNextBatch() throws Exception {
+        String ageAttr = TestConstants.AGE_ATTR.getName();
+        ComparablePredicate comparablePredicate = new ComparablePredicate(ageAttr, ComparisonType.GREATER_THAN, "42");
+        
+        ComparableMatcher tupleMatcher = new ComparableMatcher(comparablePredicate);
+        setDefaultMatcherConfig(tupleMatcher);
+        tupleMatcher.setOffset(1);
+        tupleMatcher.setLimit(3);
+        tupleMatcher.open();
+        List<Tuple> expectedResults = getQueryResults(tupleMatcher);
+        tupleMatcher.close();
+        
+        ComparableMatcher batchMatcher = new ComparableMatcher(comparablePredicate);
+        setDefaultMatcherConfig(batchMatcher);
+        batchMatcher.setOffset(1);
+        batchMatcher.setLimit(3);
+        batchMatcher.open();
+        List<Tuple> returnedResults = new ArrayList<>();
+        List<Tuple> batch;
+        while (! (batch = batchMatcher.getNextBatch(2)).isEmpty()) {
+            Assert.assertTrue(batch.size() <= 2);
+            returnedResults.addAll(batch);
+        }
+        batchMatcher.close();
+        
+        Assert.assertEquals(3, returnedResults.size());
+        Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
+    }
+}
@@ -0,0 +1,146 @@
+package edu.uci.ics.texera.dataflow.connector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.dataflow.IOperator;
+import edu.uci.ics.texera.api.dataflow.ISink;
+import edu.uci.ics.texera.api.engine.Engine;
+import edu.uci.ics.texera.api.engine.Plan;
+import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.api.utils.TestUtils;
+import edu.uci.ics.texera.dataflow.sink.AbstractSink;
+import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
+import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
+import edu.uci.ics.texera.storage.DataWriter;
+import edu.uci.ics.texera.storage.RelationManager;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class ExchangeOperatorTest {
+
+    public static final String PEOPLE_TABLE = "exchange_test_people";
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+
+        // create the people table and write tuples
+        relationManager.createTable(PEOPLE_TABLE, TestUtils.getDefaultTestIndex().resolve(PEOPLE_TABLE),
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+
+        DataWriter peopleDataWriter = relationManager.getTableDataWriter(PEOPLE_TABLE);
+        peopleDataWriter.open();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            peopleDataWriter.insertTuple(tuple);
+        }
+        peopleDataWriter.close();
+    }
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        RelationManager.getInstance().deleteTable(PEOPLE_TABLE);
+    }
+
+    /*
+     * Test that the exchange returns the tuples of its input in the same order,
+     *   with a queue much smaller than the input.
+     */
+    @Test
+    public void testExchangeKeepsOrder() throws TexeraException {
+        ScanBasedSourceOperator sourceOperator = new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE));
+        List<Tuple> expectedResults = new ArrayList<>();
+        sourceOperator.open();
+        Tuple tuple;
+        while ((tuple = sourceOperator.getNextTuple()) != null) {
+            expectedResults.add(tuple);
+        }
+        sourceOperator.close();
+
+        ExchangeOperator exchangeOperator = new ExchangeOperator(2, 1);
+        exchangeOperator.setInputOperator(new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE)));
+        List<Tuple> exchangeResults = new ArrayList<>();
+        exchangeOperator.open();
+        Assert.assertEquals(sourceOperator.getOutputSchema(), exchangeOperator.getOutputSchema());
+        exchangeResults.add(exchangeOperator.getNextTuple());
+        List<Tuple> batch;
+        while (! (batch = exchangeOperator.getNextBatch(3)).isEmpty()) {
+            Assert.assertTrue(batch.size() <= 3);
+            exchangeResults.addAll(batch);
+        }
+        Assert.assertNull(exchangeOperator.getNextTuple());
+        exchangeOperator.close();
+
+        Assert.assertEquals(expectedResults.size(), exchangeResults.size());
+        for (int i = 0; i < expectedResults.size(); i++) {
+            Assert.assertEquals(expectedResults.get(i).getField(SchemaConstants._ID), 
+                    exchangeResults.get(i).getField(SchemaConstants._ID));
+        }
+    }
+
+    /*
+     * Test that an exchange can be closed before its input is exhausted, while the producer is blocked on the queue.
+     */
+    @Test(timeout = 10000)
+    public void testCloseBeforeEnd() throws TexeraException {
+        ExchangeOperator exchangeOperator = new ExchangeOperator(1, 1);
+        exchangeOperator.setInputOperator(new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE)));
+        exchangeOperator.open();
+        Assert.assertNotNull(exchangeOperator.getNextTuple());
+        exchangeOperator.close();
+
+        // it can be opened again
+        exchangeOperator.open();
+        int count = 0;
+        while (exchangeOperator.getNextTuple() != null) {
+            count++;
+        }
+        exchangeOperator.close();
+        Assert.assertEquals(TestConstants.getSamplePeopleTuples().size(), count);
+    }
+
+    /*
+     * Test that the engine runs the sinks sharing a broadcast connector concurrently.
+     */
+    @Test(timeout = 10000)
+    public void testParallelEngine() throws TexeraException {
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2);
+        connector.setInputOperator(new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE)));
+
+        List<Tuple> results1 = Collections.synchronizedList(new ArrayList<>());
+        List<Tuple> results2 = Collections.synchronizedList(new ArrayList<>());
+        HashMap<String, ISink> sinkMap = new HashMap<>();
+        sinkMap.put("sink1", newCollectingSink(connector.getOutputOperator(0), results1));
+
+        // the second sink reads through an exchange
+        ExchangeOperator exchangeOperator = new ExchangeOperator(2, 1);
+        exchangeOperator.setInputOperator(connector.getOutputOperator(1));
+        sinkMap.put("sink2", newCollectingSink(exchangeOperator, results2));
+
+        Engine.getEngine().evaluate(new Plan(sinkMap), true);
+
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), results1));
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), results2));
+    }
+
+    private static AbstractSink newCollectingSink(IOperator inputOperator, List<Tuple> results) {
+        AbstractSink sink = new AbstractSink() {
+            @Override
+            protected void processOneTuple(Tuple nextTuple) throws TexeraException {
+                results.add(nextTuple);
+            }
+        };
+        sink.setInputOperator(inputOperator);
+        return sink;
+    }
+
+}
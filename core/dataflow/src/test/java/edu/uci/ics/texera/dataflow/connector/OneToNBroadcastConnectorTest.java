@@ -1,13 +1,26 @@
 package edu.uci.ics.texera.dataflow.connector;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
+import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.DoubleField;
 import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
 import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
 
@@ -21,6 +34,7 @@ import edu.uci.ics.texera.dataflow.projection.ProjectionOperator;
 import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
 import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
 import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
 import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
@@ -165,4 +179,234 @@ public class OneToNBroadcastConnectorTest {
     }
 
 
+    /*
+     * This test tests that the tuples read by all the outputs are released.
+     */
+    @Test
+    public void testReadTuplesReleased() throws Exception {
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2, 2);
+        connector.setInputOperator(new TupleSourceOperator(getManyPeopleTuples(), TestConstants.SCHEMA_PEOPLE));
+        IOperator output1 = connector.getOutputOperator(0);
+        IOperator output2 = connector.getOutputOperator(1);
+        output1.open();
+        output2.open();
+
+        int resultCount = 0;
+        while (output1.getNextTuple() != null) {
+            Assert.assertEquals(1, connector.getBufferedTupleCount());
+            Assert.assertNotNull(output2.getNextTuple());
+            Assert.assertEquals(0, connector.getBufferedTupleCount());
+            resultCount++;
+        }
+        Assert.assertNull(output2.getNextTuple());
+        output1.close();
+        output2.close();
+
+        Assert.assertEquals(getManyPeopleTuples().size(), resultCount);
+    }
+
+    /*
+     * This test tests that the tuples are spilled when the outputs are read one after another by the same thread,
+     *   and that the spilled tuples, including their spans, are read back the same.
+     */
+    @Test
+    public void testSequentialOutputsSpilled() throws Exception {
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2, 2);
+        List<Tuple> inputTuples = getManyPeopleTuplesWithSpans();
+        connector.setInputOperator(new TupleSourceOperator(inputTuples, inputTuples.get(0).getSchema()));
+        IOperator output1 = connector.getOutputOperator(0);
+        IOperator output2 = connector.getOutputOperator(1);
+
+        output1.open();
+        List<Tuple> output1Results = new ArrayList<>();
+        Tuple nextTuple;
+        while ((nextTuple = output1.getNextTuple()) != null) {
+            output1Results.add(nextTuple);
+            Assert.assertTrue(connector.getBufferedTupleCount() <= 2);
+        }
+        output1.close();
+        Assert.assertEquals(inputTuples.size(), connector.getBufferedTupleCount() + connector.getSpilledTupleCount());
+        Assert.assertTrue(connector.getSpilledTupleCount() > 0);
+
+        output2.open();
+        List<Tuple> output2Results = getAllResults(output2);
+        output2.close();
+        Assert.assertEquals(0, connector.getBufferedTupleCount());
+        Assert.assertEquals(0, connector.getSpilledTupleCount());
+
+        Assert.assertEquals(inputTuples.size(), output1Results.size());
+        Assert.assertEquals(output1Results, output2Results);
+    }
+
+    /*
+     * This test tests that more tuples than the default buffer capacity, with fields without a value
+     *   and list fields of other elements than spans, are broadcast to the outputs read one after another.
+     * The tuples with a list of dates can't be spilled, they are kept in memory.
+     */
+    @Test
+    public void testSequentialOutputsSpillAllFieldTypes() throws Exception {
+        Schema schema = new Schema.Builder().add("string", AttributeType.STRING).add("text", AttributeType.TEXT)
+                .add("integer", AttributeType.INTEGER).add("double", AttributeType.DOUBLE)
+                .add("date", AttributeType.DATE).add("datetime", AttributeType.DATETIME)
+                .add("list", AttributeType.LIST).build();
+        List<Tuple> inputTuples = new ArrayList<>();
+        for (int i = 0; i < 3 * OneToNBroadcastConnector.DEFAULT_BUFFER_CAPACITY; i++) {
+            List<Object> list;
+            if (i % 500 == 499) {
+                list = Arrays.asList(LocalDate.of(2020, 1, 1 + i % 28));
+            } else if (i % 2 == 0) {
+                list = Arrays.asList("tag" + i, null, i, (long) i, i * 0.5, i % 3 == 0);
+            } else {
+                list = Arrays.asList();
+            }
+            if (i % 3 == 0) {
+                inputTuples.add(new Tuple(schema, new StringField(null), new TextField(null), new IntegerField(null),
+                        new DoubleField(null), new DateField((LocalDate) null), new DateTimeField((LocalDateTime) null),
+                        ListField.wrap(Collections.unmodifiableList(list))));
+            } else {
+                inputTuples.add(new Tuple(schema, new StringField("string" + i), new TextField("text " + i),
+                        new IntegerField(i), new DoubleField(i * 1.5), new DateField(LocalDate.of(2020, 1, 1 + i % 28)),
+                        new DateTimeField(LocalDateTime.of(2020, 1, 1, i % 24, i % 60)),
+                        ListField.wrap(Collections.unmodifiableList(list))));
+            }
+        }
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2);
+        connector.setInputOperator(new TupleSourceOperator(inputTuples, schema));
+        IOperator output1 = connector.getOutputOperator(0);
+        IOperator output2 = connector.getOutputOperator(1);
+
+        output1.open();
+        List<Tuple> output1Results = getAllResults(output1);
+        output1.close();
+        Assert.assertTrue(connector.getSpilledTupleCount() > 0);
+
+        output2.open();
+        List<Tuple> output2Results = getAllResults(output2);
+        output2.close();
+
+        Assert.assertEquals(inputTuples.size(), output1Results.size());
+        Assert.assertEquals(output1Results, output2Results);
+    }
+
+    /*
+     * This test tests that the faster output waits for the slower output read by another thread,
+     *   so the tuples are not spilled.
+     */
+    @Test
+    public void testConcurrentOutputsBounded() throws Exception {
+        int bufferCapacity = 4;
+        // the slower output is read after the input operator produces the tuple that fills the buffer
+        CountDownLatch bufferFull = new CountDownLatch(1);
+        List<Tuple> inputTuples = getManyPeopleTuples();
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2, bufferCapacity);
+        connector.setInputOperator(new TupleSourceOperator(inputTuples, TestConstants.SCHEMA_PEOPLE) {
+            private int producedTupleCount = 0;
+
+            @Override
+            public Tuple getNextTuple() {
+                // the slower output has read 1 tuple, the buffer is full with the next bufferCapacity tuples
+                if (++producedTupleCount == bufferCapacity + 1) {
+                    bufferFull.countDown();
+                }
+                return super.getNextTuple();
+            }
+        });
+        IOperator output1 = connector.getOutputOperator(0);
+        IOperator output2 = connector.getOutputOperator(1);
+        output1.open();
+        output2.open();
+
+        List<Tuple> output2Results = new ArrayList<>();
+        CountDownLatch slowOutputStarted = new CountDownLatch(1);
+        Thread slowThread = new Thread(() -> {
+            output2Results.add(output2.getNextTuple());
+            slowOutputStarted.countDown();
+            try {
+                bufferFull.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            output2Results.addAll(getAllResults(output2));
+        });
+        slowThread.start();
+        slowOutputStarted.await();
+
+        List<Tuple> output1Results = new ArrayList<>();
+        Tuple tuple;
+        while ((tuple = output1.getNextTuple()) != null) {
+            output1Results.add(tuple);
+            Assert.assertTrue(connector.getBufferedTupleCount() <= bufferCapacity);
+            Assert.assertEquals(0, connector.getSpilledTupleCount());
+        }
+        slowThread.join();
+        output1.close();
+        output2.close();
+
+        Assert.assertEquals(0L, bufferFull.getCount());
+        Assert.assertEquals(inputTuples.size(), output1Results.size());
+        Assert.assertEquals(output1Results, output2Results);
+    }
+
+    /*
+     * This test tests that the outputs can be opened and read again after they are all closed.
+     */
+    @Test
+    public void testReopenAfterClose() throws Exception {
+        OneToNBroadcastConnector connector = new OneToNBroadcastConnector(2, 2);
+        connector.setInputOperator(new TupleSourceOperator(getManyPeopleTuples(), TestConstants.SCHEMA_PEOPLE));
+        IOperator output1 = connector.getOutputOperator(0);
+        IOperator output2 = connector.getOutputOperator(1);
+
+        output1.open();
+        output2.open();
+        List<Tuple> output1Results = getAllResults(output1);
+        Assert.assertNotNull(output2.getNextTuple());
+        output1.close();
+        output2.close();
+
+        output1.open();
+        List<Tuple> output1ReopenResults = getAllResults(output1);
+        output1.close();
+        output2.open();
+        List<Tuple> output2ReopenResults = getAllResults(output2);
+        output2.close();
+
+        Assert.assertEquals(getManyPeopleTuples().size(), output1Results.size());
+        Assert.assertEquals(output1Results, output1ReopenResults);
+        Assert.assertEquals(output1Results, output2ReopenResults);
+        Assert.assertEquals(0, connector.getSpilledTupleCount());
+    }
+
+    private static List<Tuple> getManyPeopleTuples() {
+        List<Tuple> tuples = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tuples.addAll(TestConstants.getSamplePeopleTuples());
+        }
+        return tuples;
+    }
+
+    /*
+     * Adds a span list with a span of the first name of each person.
+     */
+    private static List<Tuple> getManyPeopleTuplesWithSpans() {
+        List<Tuple> tuples = new ArrayList<>();
+        for (Tuple tuple : getManyPeopleTuples()) {
+            String firstName = tuple.getField(TestConstants.FIRST_NAME).getValue().toString();
+            List<Span> spans = Arrays.asList(
+                    new Span(TestConstants.FIRST_NAME, 0, firstName.length(), firstName, firstName, 0),
+                    new Span(TestConstants.DESCRIPTION, 0, 0, null, null));
+            tuples.add(new Tuple.Builder(tuple).add(SchemaConstants.SPAN_LIST_ATTRIBUTE, new ListField<>(spans)).build());
+        }
+        return tuples;
+    }
+
+    private static List<Tuple> getAllResults(IOperator operator) {
+        List<Tuple> results = new ArrayList<>();
+        Tuple nextTuple;
+        while ((nextTuple = operator.getNextTuple()) != null) {
+            results.add(nextTuple);
+        }
+        return results;
+    }
+
 }
@@ -5,6 +5,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -100,5 +101,34 @@ public class ACTrieTest {
         Assert.assertTrue(exactResults.size() == 7);
     }
 
+    /**
+     * Test that the callback reports the same matches as a naive search, including the overlapping ones.
+     * @throws Exception
+     */
+    @Test
+    public void testACTrieCallback() throws Exception {
+        List<String> keywords = Arrays.asList("a", "ab", "bab", "bc", "bca", "c", "caa");
+        ACTrie trie = new ACTrie();
+        trie.addKeywords(keywords);
+        trie.constructFailureTransactions();
+        String text = "abccab bcaab babca";
+
+        List<String> expectedResults = new ArrayList<>();
+        for (int end = 1; end <= text.length(); end++) {
+            for (String keyword : keywords) {
+                if (text.startsWith(keyword, end - keyword.length())) {
+                    expectedResults.add((end - keyword.length()) + "," + end + "," + keyword);
+                }
+            }
+        }
+        List<String> results = new ArrayList<>();
+        trie.parseText(text, (start, end, keywordIndex) -> 
+                results.add(start + "," + end + "," + trie.getKeyword(keywordIndex)));
+
+        Collections.sort(expectedResults);
+        Collections.sort(results);
+        Assert.assertEquals(expectedResults, results);
+    }
+
 
 }
@@ -1236,5 +1236,39 @@ public class DictionaryMatcherTest {
         Assert.assertTrue(contains);
     }
 
-}
+    /**
+     * Scenario: verifies that the index-based matching of a dictionary larger than the clause limit of a Lucene
+     * boolean query returns the same results as the scan-based matching, for conjunction and phrase.
+     * The dictionary has an entry that only matches a STRING attribute (exactly), and entries whose rarest token
+     * isn't their first token.
+     */
+    @Test
+    public void testLargeDictionary() throws Exception {
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            entries.add("unknown" + i + " angry");
+        }
+        entries.add("white angry");
+        entries.add("brown");
+        entries.add("rock bale");
+        entries.add("angry lin clooney");
+        entries.add("short angry");
+        Dictionary dictionary = new Dictionary(entries);
+        List<String> attributeNames = Arrays.asList(TestConstants.FIRST_NAME, TestConstants.LAST_NAME,
+                TestConstants.DESCRIPTION);
 
+        for (KeywordMatchingType matchingType : Arrays.asList(KeywordMatchingType.CONJUNCTION_INDEXBASED,
+                KeywordMatchingType.PHRASE_INDEXBASED)) {
+            List<Tuple> scanSourceResults = DictionaryMatcherTestHelper.getScanSourceResults(PEOPLE_TABLE,
+                    dictionary, attributeNames, matchingType, Integer.MAX_VALUE, 0);
+            dictionary.resetCursor();
+            List<Tuple> dictionarySourceResults = DictionaryMatcherTestHelper.getDictionarySourceResults(PEOPLE_TABLE,
+                    dictionary, attributeNames, matchingType, Integer.MAX_VALUE, 0);
+            dictionary.resetCursor();
+
+            Assert.assertFalse(scanSourceResults.isEmpty());
+            Assert.assertTrue(TestUtils.equals(scanSourceResults, dictionarySourceResults));
+        }
+    }
+
+}
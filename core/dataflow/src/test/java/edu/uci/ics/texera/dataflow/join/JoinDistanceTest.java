@@ -1,6 +1,7 @@
 package edu.uci.ics.texera.dataflow.join;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,6 +32,7 @@ import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
 import edu.uci.ics.texera.dataflow.projection.ProjectionOperator;
 import edu.uci.ics.texera.dataflow.projection.ProjectionPredicate;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 import junit.framework.Assert;
 
@@ -140,6 +142,43 @@ public class JoinDistanceTest {
         Assert.assertTrue(TestUtils.equals(expectedResult, resultList));
     }
     
+    /*
+     * This case tests that the result doesn't depend on the order of the outer tuples,
+     *   the outer tuples are given in the reverse order of the inner tuples.
+     * 
+     * Test result: The same joined tuples as the join of the tuples in the same order.
+     */
+    @Test
+    public void testOuterTuplesInDifferentOrder() throws Exception {
+        JoinTestHelper.insertToTable(BOOK_TABLE, JoinTestConstants.bookGroup1.subList(1, 5));
+
+        KeywordMatcherSourceOperator keywordSourceOuter = 
+                JoinTestHelper.getKeywordSource(BOOK_TABLE, "typical", conjunction);
+        List<Tuple> outerTuples = new ArrayList<>();
+        Tuple tuple;
+        keywordSourceOuter.open();
+        while ((tuple = keywordSourceOuter.getNextTuple()) != null) {
+            outerTuples.add(tuple);
+        }
+        keywordSourceOuter.close();
+        Schema outerSchema = keywordSourceOuter.getOutputSchema();
+
+        List<Tuple> expectedResult = JoinTestHelper.getJoinDistanceResults(
+                JoinTestHelper.getKeywordSource(BOOK_TABLE, "actually", conjunction),
+                new TupleSourceOperator(outerTuples, outerSchema, false),
+                new JoinDistancePredicate(JoinTestConstants.REVIEW, 90), Integer.MAX_VALUE, 0);
+
+        Collections.reverse(outerTuples);
+        List<Tuple> resultList = JoinTestHelper.getJoinDistanceResults(
+                JoinTestHelper.getKeywordSource(BOOK_TABLE, "actually", conjunction),
+                new TupleSourceOperator(outerTuples, outerSchema, false),
+                new JoinDistancePredicate(JoinTestConstants.REVIEW, 90), Integer.MAX_VALUE, 0);
+
+        Assert.assertEquals(4, expectedResult.size());
+        Assert.assertEquals(4, resultList.size());
+        Assert.assertTrue(TestUtils.equals(expectedResult, resultList));
+    }
+
     /*
      * This case tests for the scenario when the difference of keyword spans
      * to be joined is greater than the threshold.
@@ -0,0 +1,122 @@
+package edu.uci.ics.texera.dataflow.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.SchemaConstants;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import info.debatty.java.stringsimilarity.NormalizedLevenshtein;
+
+public class SimilarityJoinIndexTest {
+
+    private static final String CONTENT = "content";
+
+    private static final Schema SCHEMA = new Schema.Builder().add(SchemaConstants._ID_ATTRIBUTE)
+            .add(CONTENT, AttributeType.TEXT).add(SchemaConstants.SPAN_LIST_ATTRIBUTE).build();
+
+    /*
+     * Creates a tuple with a span of each value.
+     */
+    private static Tuple createTuple(String... spanValues) {
+        String content = String.join(" ", spanValues);
+        List<Span> spans = new ArrayList<>();
+        int start = 0;
+        for (String value : spanValues) {
+            spans.add(new Span(CONTENT, start, start + value.length(), value, value));
+            start += value.length() + 1;
+        }
+        return new Tuple(SCHEMA, new IDField(UUID.randomUUID().toString()), new TextField(content),
+                new ListField<>(spans));
+    }
+
+    /*
+     * Test that the index finds the same similar values as comparing the query with every value.
+     */
+    @Test
+    public void testSameResultsAsAllPairs() {
+        Random random = new Random(0);
+        NormalizedLevenshtein levenshtein = new NormalizedLevenshtein();
+
+        List<String> values = new ArrayList<>();
+        List<Tuple> innerTuples = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String value = randomString(random);
+            values.add(value);
+            innerTuples.add(createTuple(value));
+        }
+
+        for (double threshold : Arrays.asList(0.5, 0.7, 0.8, 0.9, 1.0)) {
+            SimilarityJoinIndex index = new SimilarityJoinIndex(innerTuples, CONTENT, CONTENT, threshold,
+                    SimilarityJoinIndex.DEFAULT_Q);
+            for (int i = 0; i < 100; i++) {
+                String query = i < 50 ? randomString(random) : mutate(values.get(i), random);
+                List<String> expected = new ArrayList<>();
+                for (String value : values) {
+                    if (1.0 - levenshtein.distance(query, value) >= threshold && ! expected.contains(value)) {
+                        expected.add(value);
+                    }
+                }
+                Assert.assertEquals(expected, index.getSimilarValues(query));
+            }
+        }
+    }
+
+    /*
+     * Test that the candidates of an outer tuple are the inner tuples with a similar span value, in their order.
+     */
+    @Test
+    public void testCandidateInnerTuples() {
+        Tuple inner1 = createTuple("Donald Trump", "Hillary Clinton");
+        Tuple inner2 = createTuple("Barack Obama");
+        Tuple inner3 = createTuple("Donald J. Trump");
+        SimilarityJoinIndex index = new SimilarityJoinIndex(Arrays.asList(inner1, inner2, inner3), CONTENT, CONTENT,
+                0.8, SimilarityJoinIndex.DEFAULT_Q);
+
+        Assert.assertEquals(Arrays.asList(inner1, inner3), index.getCandidateInnerTuples(createTuple("Donald  Trump")));
+        Assert.assertEquals(Arrays.asList(inner1, inner2),
+                index.getCandidateInnerTuples(createTuple("Barak Obama", "Hilary Clinton")));
+        Assert.assertEquals(Arrays.asList(), index.getCandidateInnerTuples(createTuple("Joe Biden")));
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(4)));
+        }
+        return builder.toString();
+    }
+
+    /*
+     * Inserts, deletes or substitutes a few characters of a string.
+     */
+    private static String mutate(String str, Random random) {
+        StringBuilder builder = new StringBuilder(str);
+        int edits = random.nextInt(3);
+        for (int i = 0; i < edits; i++) {
+            int position = builder.length() == 0 ? 0 : random.nextInt(builder.length());
+            int operation = builder.length() == 0 ? 0 : random.nextInt(3);
+            if (operation == 0) {
+                builder.insert(position, (char) ('a' + random.nextInt(4)));
+            } else if (operation == 1) {
+                builder.deleteCharAt(position);
+            } else {
+                builder.setCharAt(position, (char) ('a' + random.nextInt(4)));
+            }
+        }
+        return builder.toString();
+    }
+
+}
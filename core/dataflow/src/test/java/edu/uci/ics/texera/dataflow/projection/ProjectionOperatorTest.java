@@ -120,5 +120,37 @@ public class ProjectionOperatorTest {
         
         Assert.assertTrue(TestUtils.equals(expectedResults, returnedResults));
     }
+    
+    /*
+     * Test that the limit pushed down to the scan only applies while the projection is open,
+     *   the scan returns all the tuples when it's opened again.
+     */
+    @Test
+    public void testLimitPushDownRestoredOnClose() throws Exception {
+        ScanBasedSourceOperator scanSource = new ScanBasedSourceOperator(new ScanSourcePredicate(PEOPLE_TABLE));
+        ProjectionOperator projection = new ProjectionOperator(
+                new ProjectionPredicate(Arrays.asList(TestConstants.DESCRIPTION)));
+        projection.setInputOperator(scanSource);
+        projection.setLimit(2);
+        
+        for (int i = 0; i < 2; i++) {
+            projection.open();
+            int count = 0;
+            while (projection.getNextTuple() != null) {
+                count++;
+            }
+            projection.close();
+            Assert.assertEquals(2, count);
+            Assert.assertEquals(Integer.MAX_VALUE, scanSource.getLimit());
+        }
+        
+        scanSource.open();
+        int scanCount = 0;
+        while (scanSource.getNextTuple() != null) {
+            scanCount++;
+        }
+        scanSource.close();
+        Assert.assertEquals(TestConstants.getSamplePeopleTuples().size(), scanCount);
+    }
 
 }
@@ -0,0 +1,95 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompiledRegexTest {
+
+    private static List<String> findAll(CompiledRegex compiledRegex, String text) {
+        List<String> matches = new ArrayList<>();
+        compiledRegex.findAll(text, (start, end) -> matches.add(text.substring(start, end)));
+        return matches;
+    }
+
+    /*
+     * Test that both engines find the same matches,
+     *   a case insensitive regex is matched by java.util.regex, which only folds the case of ASCII characters.
+     */
+    @Test
+    public void testSameMatches() {
+        String text = "Tom is testing the tests, TESTER tested it";
+        for (boolean ignoreCase : Arrays.asList(false, true)) {
+            CompiledRegex javaRegex = CompiledRegex.compile("test(er|ing|ed|s)?", ignoreCase, false);
+            CompiledRegex linearTimeRegex = CompiledRegex.compile("test(er|ing|ed|s)?", ignoreCase, true);
+            Assert.assertFalse(javaRegex.isLinearTime());
+            Assert.assertEquals(! ignoreCase, linearTimeRegex.isLinearTime());
+            Assert.assertEquals(findAll(javaRegex, text), findAll(linearTimeRegex, text));
+            Assert.assertEquals(javaRegex.find(text), linearTimeRegex.find(text));
+        }
+        Assert.assertEquals(Arrays.asList("testing", "tests", "TESTER", "tested"),
+                findAll(CompiledRegex.compile("test(er|ing|ed|s)?", true, true), text));
+    }
+
+    /*
+     * Test that "." and "\s" are translated for the linear-time engine, so that they match the same characters
+     *   as in java.util.regex ("." doesn't match the line terminators, "\s" matches \x0B).
+     */
+    @Test
+    public void testTranslatedConstructs() {
+        String text = "a-b a\rb a\u0085b a\u2028b a\nb a b a\u000Bb a\tb";
+        for (String regex : Arrays.asList("a.b", "a\\sb", "a[\\s-]b", "a\\Sb", "[.]", "\\Q.\\E", "[]a]+")) {
+            CompiledRegex javaRegex = CompiledRegex.compile(regex, false, false);
+            CompiledRegex linearTimeRegex = CompiledRegex.compile(regex, false, true);
+            Assert.assertTrue(linearTimeRegex.isLinearTime());
+            Assert.assertEquals(findAll(javaRegex, text), findAll(linearTimeRegex, text));
+        }
+        Assert.assertEquals(Arrays.asList("a-b", "a b", "a\u000Bb", "a\tb"), findAll(CompiledRegex.compile("a.b", false, true), text));
+    }
+
+    /*
+     * Test that the regexes the linear-time engine can't express are matched by java.util.regex.
+     */
+    @Test
+    public void testFallback() {
+        // back reference
+        CompiledRegex compiledRegex = CompiledRegex.compile("(\\w)\\1", false, true);
+        Assert.assertFalse(compiledRegex.isLinearTime());
+        Assert.assertEquals(Arrays.asList("ll", "oo"), findAll(compiledRegex, "hello moon"));
+
+        // character class intersection
+        compiledRegex = CompiledRegex.compile("[a-z&&[^aeiou]]+", false, true);
+        Assert.assertFalse(compiledRegex.isLinearTime());
+        Assert.assertEquals(Arrays.asList("h", "ll", "m", "n"), findAll(compiledRegex, "hello moon"));
+
+        // the "U" flag
+        compiledRegex = CompiledRegex.compile("(?U)\\w+", false, true);
+        Assert.assertFalse(compiledRegex.isLinearTime());
+
+        // the constructs that RE2J matches differently
+        for (String regex : Arrays.asList("end$", "\\bword\\b", "(?i)word", "(?m)^word", "\\v", "[[:alpha:]]",
+                "[a[b]]", "\\x{41}\\0101")) {
+            Assert.assertFalse(regex, CompiledRegex.compile(regex, false, true).isLinearTime());
+        }
+        // "$" also matches before a line terminator at the end of the text in Java
+        Assert.assertEquals(Arrays.asList("end"), findAll(CompiledRegex.compile("end$", false, true), "the end\n"));
+    }
+
+    /*
+     * Test that a regex with catastrophic backtracking is matched in linear time.
+     */
+    @Test(timeout = 10000)
+    public void testLinearTime() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append('a');
+        }
+        CompiledRegex compiledRegex = CompiledRegex.compile("(a+)+b", false, true);
+        Assert.assertTrue(compiledRegex.isLinearTime());
+        Assert.assertFalse(compiledRegex.find(text));
+    }
+
+}
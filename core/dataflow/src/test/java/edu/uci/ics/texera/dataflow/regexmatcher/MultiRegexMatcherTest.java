@@ -0,0 +1,83 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.source.tuple.TupleSourceOperator;
+
+public class MultiRegexMatcherTest {
+
+    public static final String RESULTS = "results";
+
+    private static final List<String> REGEX_LIST = Arrays.asList("test(er|ing|ed|s)?", "[A-Z][a-z]+",
+            "translat(or|ed)", "really|amount", "(\\w)\\1", "regex");
+
+    private static List<Tuple> getMultiRegexResults(List<String> regexList, boolean ignoreCase, boolean linearTime) {
+        TupleSourceOperator tupleSource = new TupleSourceOperator(RegexTestConstantsText.getSampleTextTuples(),
+                RegexTestConstantsText.SCHEMA_TEXT);
+        MultiRegexMatcher multiRegexMatcher = new MultiRegexMatcher(new MultiRegexPredicate(regexList,
+                Arrays.asList(RegexTestConstantsText.CONTENT), ignoreCase, linearTime, RESULTS));
+        multiRegexMatcher.setInputOperator(tupleSource);
+
+        List<Tuple> results = new ArrayList<>();
+        multiRegexMatcher.open();
+        Tuple tuple;
+        while ((tuple = multiRegexMatcher.getNextTuple()) != null) {
+            results.add(tuple);
+        }
+        multiRegexMatcher.close();
+        return results;
+    }
+
+    /*
+     * Gets the spans of the regexes on a tuple, one regex after another.
+     */
+    private static List<Span> getExpectedSpans(Tuple tuple, List<String> regexList, boolean ignoreCase) {
+        List<Span> expectedSpans = new ArrayList<>();
+        for (String regex : regexList) {
+            RegexPredicate predicate = new RegexPredicate(regex, Arrays.asList(RegexTestConstantsText.CONTENT),
+                    ignoreCase, RESULTS);
+            expectedSpans.addAll(RegexMatcher.computeMatchingResultsWithPattern(tuple, predicate,
+                    CompiledRegex.compile(regex, ignoreCase, false)));
+        }
+        return expectedSpans;
+    }
+
+    /*
+     * Test that the spans are the same as the spans of the regexes matched one after another.
+     */
+    @Test
+    public void testSameSpans() {
+        for (boolean ignoreCase : Arrays.asList(false, true)) {
+            for (boolean linearTime : Arrays.asList(false, true)) {
+                List<Tuple> results = getMultiRegexResults(REGEX_LIST, ignoreCase, linearTime);
+                Assert.assertEquals(RegexTestConstantsText.getSampleTextTuples().size(), results.size());
+                for (Tuple result : results) {
+                    ListField<Span> spanListField = result.getField(RESULTS);
+                    Assert.assertEquals(getExpectedSpans(result, REGEX_LIST, ignoreCase), spanListField.getValue());
+                }
+            }
+        }
+    }
+
+    /*
+     * Test that the tuples without any match are filtered out.
+     */
+    @Test
+    public void testNoMatches() {
+        List<String> regexList = Arrays.asList("mosquitos?", "medic(ine|al)");
+        Assert.assertTrue(getMultiRegexResults(regexList, false, false).isEmpty());
+
+        regexList = Arrays.asList("mosquitos?", "TESTING");
+        Assert.assertEquals(0, getMultiRegexResults(regexList, false, false).size());
+        Assert.assertEquals(2, getMultiRegexResults(regexList, true, false).size());
+    }
+
+}
@@ -0,0 +1,34 @@
+package edu.uci.ics.texera.dataflow.regexmatcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegexLiteralExtractorTest {
+
+    @Test
+    public void testRequiredLiterals() {
+        Assert.assertEquals(Arrays.asList("medic"), RegexLiteralExtractor.getRequiredLiterals("medic(ine|al)?"));
+        Assert.assertEquals(Arrays.asList("cancer", "tumo"), RegexLiteralExtractor.getRequiredLiterals("cancer|tumou?r"));
+        Assert.assertEquals(Arrays.asList(" corp."), RegexLiteralExtractor.getRequiredLiterals("[A-Z]\\w+ corp\\."));
+        Assert.assertEquals(Arrays.asList("est"), RegexLiteralExtractor.getRequiredLiterals("(t|T)est+ing"));
+        Assert.assertEquals(Arrays.asList("v"), RegexLiteralExtractor.getRequiredLiterals("v[ir]{2}[us]{2}"));
+        Assert.assertEquals(Arrays.asList("mosquito"), RegexLiteralExtractor.getRequiredLiterals("mosquitos?"));
+        Assert.assertEquals(Arrays.asList("[a|b]"), RegexLiteralExtractor.getRequiredLiterals("\\[a\\|b\\][^|]{2,}"));
+        Assert.assertEquals(Arrays.asList("ab"), RegexLiteralExtractor.getRequiredLiterals("x{0,3}ab{3}c"));
+    }
+
+    /*
+     * Test that the regexes whose matches don't need a literal don't have required literals.
+     */
+    @Test
+    public void testNoRequiredLiterals() {
+        for (String regex : Arrays.asList("[A-Z][a-z]+", "abc|\\d+", "(?i)abc", "\\Qabc\\E",
+                "a?b*", "(abc)", "\\p{Lu}", "\\x41", "abc)")) {
+            Assert.assertEquals(regex, Collections.emptyList(), RegexLiteralExtractor.getRequiredLiterals(regex));
+        }
+    }
+
+}
@@ -391,6 +391,23 @@ public class RegexMatcherTest {
         Assert.assertEquals(exactResultsWithLimitOffset.size(), 2);
     }
 
+    /*
+     * Test that the linear-time engine finds the same results as java.util.regex,
+     *   including a regex it can't express, which is matched by java.util.regex.
+     */
+    @Test
+    public void testLinearTimeEngine() throws Exception {
+        List<String> attributeNames = Arrays.asList(RegexTestConstantsText.CONTENT);
+        for (String query : Arrays.asList("test(er|ing|ed|s)?", "follow(-| )?up", "[A-Z][a-z]+ (is|will)\\b", "(\\w)\\1")) {
+            List<Tuple> expectedResults = RegexMatcherTestHelper.getScanSourceResults(
+                    TEXT_TABLE, query, attributeNames, false);
+            List<Tuple> exactResults = RegexMatcherTestHelper.getScanSourceResults(
+                    TEXT_TABLE, query, attributeNames, true);
+            Assert.assertFalse(expectedResults.isEmpty());
+            Assert.assertTrue(TestUtils.equals(expectedResults, exactResults));
+        }
+    }
+
     // @Test
     // public void testRegexWithLimitProblem() throws Exception {
     // List<ITuple> data = RegexTestConstantsText.getSampleTextTuples();
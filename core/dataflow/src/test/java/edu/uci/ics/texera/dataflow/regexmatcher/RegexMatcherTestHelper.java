@@ -134,9 +134,19 @@ public class RegexMatcherTestHelper {
     
     public static List<Tuple> getScanSourceResults(String tableName, String regex, List<String> attributeNames,
             int limit, int offset) throws TexeraException {
+        return getScanSourceResults(tableName, regex, attributeNames, false, limit, offset);
+    }
+    
+    public static List<Tuple> getScanSourceResults(String tableName, String regex, List<String> attributeNames,
+            boolean linearTime) throws TexeraException {
+        return getScanSourceResults(tableName, regex, attributeNames, linearTime, Integer.MAX_VALUE, 0);
+    }
+    
+    public static List<Tuple> getScanSourceResults(String tableName, String regex, List<String> attributeNames,
+            boolean linearTime, int limit, int offset) throws TexeraException {
         ScanBasedSourceOperator scanSource = new ScanBasedSourceOperator(new ScanSourcePredicate(tableName));
         
-        RegexPredicate regexPredicate = new RegexPredicate(regex, attributeNames, RESULTS);
+        RegexPredicate regexPredicate = new RegexPredicate(regex, attributeNames, false, linearTime, RESULTS);
         RegexMatcher regexMatcher = new RegexMatcher(regexPredicate);
         
         regexMatcher.setLimit(limit);
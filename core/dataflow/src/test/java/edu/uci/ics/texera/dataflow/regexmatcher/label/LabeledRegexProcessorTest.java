@@ -0,0 +1,93 @@
+package edu.uci.ics.texera.dataflow.regexmatcher.label;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.TextField;
+import edu.uci.ics.texera.api.schema.AttributeType;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.regexmatcher.RegexPredicate;
+
+public class LabeledRegexProcessorTest {
+
+    private static final String CONTENT = "content";
+    private static final String NAME = "name";
+    private static final String RESULTS = "results";
+
+    private static final Schema SCHEMA = new Schema.Builder()
+            .add(CONTENT, AttributeType.TEXT).add(NAME, AttributeType.LIST).build();
+
+    /*
+     * Creates a tuple whose "name" label has the spans of the names in the content.
+     */
+    private static Tuple createTuple(String content, String... names) {
+        List<Span> spans = new ArrayList<>();
+        for (String name : names) {
+            int start = content.indexOf(name);
+            spans.add(new Span(CONTENT, start, start + name.length(), name, name));
+        }
+        return new Tuple.Builder().add(CONTENT, AttributeType.TEXT, new TextField(content))
+                .add(NAME, AttributeType.LIST, new ListField<>(spans)).build();
+    }
+
+    private static List<String> getMatchValues(List<Span> spans) {
+        List<String> values = new ArrayList<>();
+        for (Span span : spans) {
+            values.add(span.getValue());
+        }
+        return values;
+    }
+
+    /*
+     * Test that the regex is compiled once for the same label values.
+     */
+    @Test
+    public void testCompiledRegexCache() {
+        RegexPredicate predicate = new RegexPredicate("<name> (is|was) here", Arrays.asList(CONTENT), RESULTS);
+        LabeledRegexProcessor processor = new LabeledRegexProcessor(predicate);
+
+        Tuple tuple1 = createTuple("bob is here, alice was here", "bob", "alice");
+        Tuple tuple2 = createTuple("alice is here, bob was not", "alice", "bob");
+        Tuple tuple3 = createTuple("tom is here", "tom");
+        Assert.assertEquals(SCHEMA, tuple1.getSchema());
+
+        Assert.assertEquals(Arrays.asList("bob is here", "alice was here"),
+                getMatchValues(processor.computeMatchingResults(tuple1)));
+        Assert.assertEquals(Arrays.asList("alice is here"), getMatchValues(processor.computeMatchingResults(tuple2)));
+        Assert.assertEquals(Arrays.asList("tom is here"), getMatchValues(processor.computeMatchingResults(tuple3)));
+        Assert.assertEquals(2, processor.getCacheMissCount());
+        Assert.assertEquals(1, processor.getCacheHitCount());
+    }
+
+    /*
+     * Test that the least recently used regex is evicted when the cache is full,
+     *   and the special characters of the label values are escaped.
+     */
+    @Test
+    public void testCacheEviction() {
+        RegexPredicate predicate = new RegexPredicate("<name>!", Arrays.asList(CONTENT), RESULTS);
+        LabeledRegexProcessor processor = new LabeledRegexProcessor(predicate, 2);
+
+        Tuple tuple1 = createTuple("a.b! axb!", "a.b");
+        Tuple tuple2 = createTuple("$100! $1000!", "$100");
+        Tuple tuple3 = createTuple("(c)! c!", "(c)");
+
+        Assert.assertEquals(Arrays.asList("a.b!"), getMatchValues(processor.computeMatchingResults(tuple1)));
+        Assert.assertEquals(Arrays.asList("$100!"), getMatchValues(processor.computeMatchingResults(tuple2)));
+        Assert.assertEquals(Arrays.asList("(c)!"), getMatchValues(processor.computeMatchingResults(tuple3)));
+        Assert.assertEquals(3, processor.getCacheMissCount());
+
+        processor.computeMatchingResults(tuple3);
+        Assert.assertEquals(1, processor.getCacheHitCount());
+        processor.computeMatchingResults(tuple1);
+        Assert.assertEquals(4, processor.getCacheMissCount());
+    }
+
+}
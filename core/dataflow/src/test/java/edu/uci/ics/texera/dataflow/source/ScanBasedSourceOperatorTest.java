@@ -72,4 +72,54 @@ public class ScanBasedSourceOperatorTest {
         scanBasedSourceOperator.close();
     }
 
+    /*
+     * Test that scanning a table with multiple segments in parallel returns the same tuples as scanning sequentially,
+     *   and in the same order if the scan is ordered.
+     */
+    @Test
+    public void testParallelScan() throws TexeraException {
+        RelationManager relationManager = RelationManager.getInstance();
+        String multiSegmentTable = "scan_source_test_multi_segment";
+        relationManager.createTable(multiSegmentTable, TestUtils.getDefaultTestIndex().resolve(multiSegmentTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        // every DataWriter session writes a new segment
+        for (int i = 0; i < 5; i++) {
+            DataWriter dataWriter = relationManager.getTableDataWriter(multiSegmentTable);
+            dataWriter.open();
+            for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+                dataWriter.insertTuple(tuple);
+            }
+            dataWriter.close();
+        }
+        
+        List<Tuple> sequentialTuples = scanAll(new ScanBasedSourceOperator(new ScanSourcePredicate(multiSegmentTable)));
+        
+        ScanBasedSourceOperator orderedScan = new ScanBasedSourceOperator(new ScanSourcePredicate(multiSegmentTable));
+        orderedScan.setParallelism(4, true);
+        List<Tuple> orderedTuples = scanAll(orderedScan);
+        
+        ScanBasedSourceOperator unorderedScan = new ScanBasedSourceOperator(new ScanSourcePredicate(multiSegmentTable));
+        unorderedScan.setParallelism(4, false);
+        List<Tuple> unorderedTuples = scanAll(unorderedScan);
+        
+        relationManager.deleteTable(multiSegmentTable);
+        
+        Assert.assertEquals(TestConstants.getSamplePeopleTuples().size() * 5, sequentialTuples.size());
+        Assert.assertEquals(sequentialTuples, orderedTuples);
+        Assert.assertEquals(sequentialTuples.size(), unorderedTuples.size());
+        Assert.assertTrue(sequentialTuples.containsAll(unorderedTuples));
+    }
+    
+    private static List<Tuple> scanAll(ScanBasedSourceOperator scanSource) throws TexeraException {
+        List<Tuple> results = new ArrayList<>();
+        scanSource.open();
+        Tuple nextTuple;
+        while ((nextTuple = scanSource.getNextTuple()) != null) {
+            results.add(nextTuple);
+        }
+        scanSource.close();
+        return results;
+    }
+
 }
@@ -0,0 +1,81 @@
+package edu.uci.ics.texera.dataflow.utils;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.span.Span;
+import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+
+public class TokenizationCacheTest {
+
+    /*
+     * Test that the cached payload is the same as the generated payload, and a field value is only tokenized once.
+     */
+    @Test
+    public void testCachedPayload() {
+        TokenizationCache tokenizationCache = new TokenizationCache();
+        String analyzerString = LuceneAnalyzerConstants.standardAnalyzerString();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            List<Span> expectedPayload = DataflowUtils.generatePayloadFromTuple(tuple, analyzerString);
+            Assert.assertEquals(expectedPayload, tokenizationCache.generatePayloadFromTuple(tuple, analyzerString));
+            Assert.assertEquals(expectedPayload, tokenizationCache.generatePayloadFromTuple(tuple, analyzerString));
+        }
+        Assert.assertEquals(tokenizationCache.getMissCount(), tokenizationCache.getHitCount());
+
+        // the same value of another attribute or with another analyzer is a different entry
+        String fieldValue = "Tall Angry";
+        List<Span> payload = tokenizationCache.getPayload("attribute1", fieldValue, analyzerString);
+        Assert.assertEquals("attribute1", payload.get(0).getAttributeName());
+        payload = tokenizationCache.getPayload("attribute2", fieldValue, analyzerString);
+        Assert.assertEquals("attribute2", payload.get(0).getAttributeName());
+        payload = tokenizationCache.getPayload("attribute2", fieldValue, LuceneAnalyzerConstants.nGramAnalyzerString(3));
+        Assert.assertEquals(8, payload.size());
+    }
+
+    /*
+     * Test that the least recently used entries are evicted when the cache is full.
+     */
+    @Test
+    public void testEviction() {
+        TokenizationCache tokenizationCache = new TokenizationCache(200);
+        String analyzerString = LuceneAnalyzerConstants.standardAnalyzerString();
+        tokenizationCache.getPayload("attribute", "first value", analyzerString);
+        for (int i = 0; i < 20; i++) {
+            // keep the first value recently used
+            tokenizationCache.getPayload("attribute", "first value", analyzerString);
+            tokenizationCache.getPayload("attribute", "value number " + i, analyzerString);
+            Assert.assertTrue(tokenizationCache.getCachedCharacters() <= 200);
+        }
+        Assert.assertTrue(tokenizationCache.size() < 21);
+        long hitCount = tokenizationCache.getHitCount();
+        tokenizationCache.getPayload("attribute", "first value", analyzerString);
+        Assert.assertEquals(hitCount + 1, tokenizationCache.getHitCount());
+        tokenizationCache.getPayload("attribute", "value number 0", analyzerString);
+        Assert.assertEquals(hitCount + 1, tokenizationCache.getHitCount());
+
+        // a value larger than the cache isn't cached
+        StringBuilder largeValue = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            largeValue.append("word ");
+        }
+        tokenizationCache.getPayload("attribute", largeValue.toString(), analyzerString);
+        Assert.assertTrue(tokenizationCache.getCachedCharacters() <= 200);
+    }
+
+    /*
+     * Test that the analyzer of a string is shared.
+     */
+    @Test
+    public void testSharedAnalyzer() {
+        Assert.assertSame(LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.standardAnalyzerString()),
+                LuceneAnalyzerConstants.getLuceneAnalyzer(LuceneAnalyzerConstants.standardAnalyzerString()));
+        // the analyzers can still be used after tokenizing a query with stopwords
+        DataflowUtils.tokenizeQueryWithStopwords(LuceneAnalyzerConstants.chineseAnalyzerString(), "北京");
+        Assert.assertFalse(DataflowUtils.tokenizeQuery(LuceneAnalyzerConstants.chineseAnalyzerString(), "北京").isEmpty());
+    }
+
+}
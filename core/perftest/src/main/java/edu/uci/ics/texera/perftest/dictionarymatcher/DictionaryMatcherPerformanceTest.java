@@ -12,10 +12,13 @@ import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.dictionarymatcher.ACTrie;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.Dictionary;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionaryMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.dictionarymatcher.DictionarySourcePredicate;
 import edu.uci.ics.texera.dataflow.keywordmatcher.KeywordMatchingType;
+import edu.uci.ics.texera.dataflow.source.scan.ScanBasedSourceOperator;
+import edu.uci.ics.texera.dataflow.source.scan.ScanSourcePredicate;
 import edu.uci.ics.texera.perftest.medline.MedlineIndexWriter;
 import edu.uci.ics.texera.perftest.utils.PerfTestUtils;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
@@ -29,6 +32,8 @@ import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
 public class DictionaryMatcherPerformanceTest {
 
     private static String HEADER = "Date, Record #, Dictionary, Words/Phrase Count, Time(sec), Total Results, Commit Number";
+    private static String TRIE_HEADER = "Date, Record #, Dictionary, Words/Phrase Count, Trie Nodes, Build Time(sec), Heap(MB), "
+            + "Match Time(sec), Throughput(MB/sec), Total Results";
 
     private static String commaDelimiter = ",";
     private static String newLine = "\n";
@@ -41,6 +46,7 @@ public class DictionaryMatcherPerformanceTest {
     private static String conjunctionCsv = "dictionary-conjunction.csv";
     private static String scanCsv = "dictionary-scan.csv";
     private static String phraseCsv = "dictionary-phrase.csv";
+    private static String trieCsv = "dictionary-trie.csv";
 
     /*
      * queryFileName contains line(s) of phrases/words which are used to form a
@@ -54,6 +60,8 @@ public class DictionaryMatcherPerformanceTest {
      *   ./perftest-files/results/dictionary-conjunction.csv
      *   ./perftest-files/results/dictionary-phrase.csv
      *   ./perftest-files/results/dictionary-scan.csv.
+     * The Aho-Corasick automaton used by the scan-based matcher is also benchmarked alone, without the operators,
+     *   and its results are recorded in ./perftest-files/results/dictionary-trie.csv.
      * 
      */
     public static void runTest(String queryFileName) throws Exception {
@@ -77,9 +85,77 @@ public class DictionaryMatcherPerformanceTest {
                     KeywordMatchingType.PHRASE_INDEXBASED, tableName);
             csvWriter(scanCsv, file.getName(), queryFileName, dictionary,
                     KeywordMatchingType.SUBSTRING_SCANBASED, tableName);
+            trieCsvWriter(trieCsv, file.getName(), queryFileName, dictionary, tableName);
         }
     }
 
+    /*
+     * This function writes the results of the automaton benchmark to the given result file.
+     */
+    public static void trieCsvWriter(String resultFile, String recordNum, String queryFileName,
+            ArrayList<String> dictionary, String tableName) throws Exception {
+
+        PerfTestUtils.createFile(PerfTestUtils.getResultPath(resultFile), TRIE_HEADER);
+        BufferedWriter fileWriter = Files.newBufferedWriter
+                (PerfTestUtils.getResultPath(resultFile), StandardOpenOption.APPEND);
+        fileWriter.append(newLine);
+        fileWriter.append(currentTime + commaDelimiter);
+        fileWriter.append(recordNum + commaDelimiter);
+        fileWriter.append(queryFileName + commaDelimiter);
+        fileWriter.append(Integer.toString(dictionary.size()) + commaDelimiter);
+        fileWriter.append(matchTrie(dictionary, tableName));
+        fileWriter.flush();
+        fileWriter.close();
+    }
+
+    /**
+     * This function builds the Aho-Corasick automaton of a dictionary, and matches it against the abstracts of a table,
+     *   it returns the number of nodes, the build time, the heap used by the automaton, the match time,
+     *   the match throughput and the number of matches, separated by commas.
+     */
+    public static String matchTrie(ArrayList<String> queryList, String tableName) throws Exception {
+        // reads the texts before matching, so that only the automaton is measured
+        List<String> texts = new ArrayList<>();
+        long totalChars = 0;
+        ScanBasedSourceOperator scanSource = new ScanBasedSourceOperator(new ScanSourcePredicate(tableName));
+        scanSource.open();
+        Tuple nextTuple = null;
+        while ((nextTuple = scanSource.getNextTuple()) != null) {
+            String text = nextTuple.getField(MedlineIndexWriter.ABSTRACT).getValue().toString();
+            texts.add(text);
+            totalChars += text.length();
+        }
+        scanSource.close();
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long startBuildTime = System.currentTimeMillis();
+        ACTrie trie = new ACTrie();
+        trie.setCaseInsensitive(true);
+        trie.addKeywords(queryList);
+        trie.constructFailureTransactions();
+        long endBuildTime = System.currentTimeMillis();
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        int[] counter = new int[1];
+        long startMatchTime = System.nanoTime();
+        for (String text : texts) {
+            trie.parseText(text, (start, end, keywordIndex) -> counter[0]++);
+        }
+        long endMatchTime = System.nanoTime();
+
+        double trieMatchTime = (endMatchTime - startMatchTime) / 1e9;
+        double throughput = trieMatchTime == 0 ? 0 : totalChars * 2 / (1024.0 * 1024.0) / trieMatchTime;
+        return trie.getNodeCount() + commaDelimiter
+                + String.format("%.4f", (endBuildTime - startBuildTime) / 1000.0) + commaDelimiter
+                + String.format("%.2f", Math.max(0, heapAfter - heapBefore) / (1024.0 * 1024.0)) + commaDelimiter
+                + String.format("%.4f", trieMatchTime) + commaDelimiter
+                + String.format("%.2f", throughput) + commaDelimiter
+                + counter[0];
+    }
+
     /*
      * 
      * This function writes test results to the given result file.
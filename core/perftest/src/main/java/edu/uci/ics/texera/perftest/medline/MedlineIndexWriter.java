@@ -16,6 +16,7 @@ import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.BulkLoadConfig;
 import edu.uci.ics.texera.storage.DataWriter;
 import edu.uci.ics.texera.storage.RelationManager;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
@@ -58,9 +59,11 @@ public class MedlineIndexWriter {
             ZIPF_SCORE_ATTR };
 
     public static final Schema SCHEMA_MEDLINE = new Schema(ATTRIBUTES_MEDLINE);
+    
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     public static Tuple recordToTuple(String record) throws IOException, ParseException {
-        JsonNode jsonNode = new ObjectMapper().readValue(record, JsonNode.class);
+        JsonNode jsonNode = objectMapper.readValue(record, JsonNode.class);
         ArrayList<IField> fieldList = new ArrayList<IField>();
         for (Attribute attr : ATTRIBUTES_MEDLINE) {
             fieldList.add(StorageUtils.getField(attr.getType(), jsonNode.get(attr.getName()).toString()));
@@ -73,7 +76,7 @@ public class MedlineIndexWriter {
     public static void writeMedlineIndex(Path medlineFilepath, String tableName) throws IOException, StorageException, ParseException {
         RelationManager relationManager = RelationManager.getInstance();
         DataWriter dataWriter = relationManager.getTableDataWriter(tableName);
-        dataWriter.open();
+        dataWriter.openBulkLoad(new BulkLoadConfig());
         
         BufferedReader reader = Files.newBufferedReader(medlineFilepath);
         String line;
@@ -13,6 +13,7 @@ import edu.uci.ics.texera.api.exception.TexeraException;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.dataflow.regexmatcher.CompiledRegex;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexMatcherSourceOperator;
 import edu.uci.ics.texera.dataflow.regexmatcher.RegexSourcePredicate;
 
@@ -33,6 +34,10 @@ public class RegexMatcherPerformanceTest {
     private static double totalMatchingTime = 0.0;
     private static int totalRegexResultCount = 0;
     private static String csvFile  = "regex.csv";
+    private static String ENGINE_HEADER = "Date, regex, Text Length, Java Time, Linear Time";
+    private static String engineCsvFile = "regex-engine.csv";
+    // regexes with catastrophic backtracking on texts of repeated "a"
+    private static List<String> pathologicalRegexes = Arrays.asList("(a+)+b", "(a|aa)+c", "(a*)*b", "(.*a){12}$");
 
     /*
      * regexQueries is a list of regex queries.
@@ -83,6 +88,55 @@ public class RegexMatcherPerformanceTest {
    
     }
 
+    /*
+     * Compares the time of the two regex engines (java.util.regex and the linear-time engine)
+     *   on regexes with catastrophic backtracking, over texts of an increasing length.
+     * 
+     * The results are written to ./perftest-files/results/regex-engine.csv.
+     * 
+     * CSV file example: 
+     * Date,                regex,  Text Length, Java Time, Linear Time
+     * 09-09-2016 00:54:29, (a+)+b, 24,          0.4120,    0.0004
+     * 
+     */
+    public static void runEngineTest() throws IOException {
+        String currentTime = PerfTestUtils.formatTime(System.currentTimeMillis());
+
+        PerfTestUtils.createFile(PerfTestUtils.getResultPath(engineCsvFile), ENGINE_HEADER);
+        BufferedWriter fileWriter = Files.newBufferedWriter
+                (PerfTestUtils.getResultPath(engineCsvFile), StandardOpenOption.APPEND);
+        for (String regex : pathologicalRegexes) {
+            CompiledRegex javaRegex = CompiledRegex.compile(regex, false, false);
+            CompiledRegex linearTimeRegex = CompiledRegex.compile(regex, false, true);
+            // the backtracking time grows exponentially, so the texts are short
+            for (int textLength = 16; textLength <= 28; textLength += 4) {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < textLength; i++) {
+                    text.append('a');
+                }
+                text.append('!');
+                fileWriter.append("\n");
+                fileWriter.append(currentTime + delimiter);
+                fileWriter.append(regex + delimiter);
+                fileWriter.append(textLength + delimiter);
+                fileWriter.append(String.format("%.4f", timeFind(javaRegex, text)));
+                fileWriter.append(delimiter);
+                fileWriter.append(String.format("%.4f", timeFind(linearTimeRegex, text)));
+            }
+        }
+        fileWriter.flush();
+        fileWriter.close();
+    }
+
+    /*
+     * Returns the time (in seconds) to find a regex in a text.
+     */
+    private static double timeFind(CompiledRegex compiledRegex, CharSequence text) {
+        long startMatchTime = System.nanoTime();
+        compiledRegex.find(text);
+        return (System.nanoTime() - startMatchTime) / 1e9;
+    }
+
     /*
      *         This function does match for a list of regex queries
      */
@@ -0,0 +1,83 @@
+package edu.uci.ics.texera.storage;
+
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.TieredMergePolicy;
+
+/**
+ * BulkLoadConfig contains the settings of a DataWriter in bulk-load mode (see DataWriter.openBulkLoad()).
+ *
+ *   indexingThreadNum: the number of threads that convert tuples to Lucene documents and add them to the index.
+ *   batchSize: the number of tuples handed to an indexing thread at a time.
+ *   queueCapacity: the maximum number of batches waiting to be indexed,
+ *     inserting a tuple blocks if the indexing threads fall behind.
+ *   ramBufferSizeMB: the amount of RAM Lucene uses to buffer documents before flushing a segment.
+ *   mergePolicy: the Lucene merge policy used during the bulk load.
+ *
+ */
+public class BulkLoadConfig {
+
+    public static final int DEFAULT_INDEXING_THREAD_NUM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    public static final double DEFAULT_RAM_BUFFER_SIZE_MB = 256;
+
+    private final int indexingThreadNum;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final double ramBufferSizeMB;
+    private final MergePolicy mergePolicy;
+
+    /**
+     * Creates a BulkLoadConfig with the default settings.
+     */
+    public BulkLoadConfig() {
+        this(DEFAULT_INDEXING_THREAD_NUM, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY,
+                DEFAULT_RAM_BUFFER_SIZE_MB, getDefaultMergePolicy());
+    }
+
+    public BulkLoadConfig(int indexingThreadNum, int batchSize, int queueCapacity,
+            double ramBufferSizeMB, MergePolicy mergePolicy) {
+        if (indexingThreadNum <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "indexingThreadNum, batchSize and queueCapacity must be positive");
+        }
+        this.indexingThreadNum = indexingThreadNum;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.ramBufferSizeMB = ramBufferSizeMB;
+        this.mergePolicy = mergePolicy;
+    }
+
+    public int getIndexingThreadNum() {
+        return indexingThreadNum;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public double getRamBufferSizeMB() {
+        return ramBufferSizeMB;
+    }
+
+    public MergePolicy getMergePolicy() {
+        return mergePolicy;
+    }
+
+    /*
+     * Bulk loads create many segments, allowing larger merges (and more segments per tier)
+     *   reduces the number of times the same documents are re-merged.
+     */
+    private static MergePolicy getDefaultMergePolicy() {
+        TieredMergePolicy mergePolicy = new TieredMergePolicy();
+        mergePolicy.setMaxMergeAtOnce(20);
+        mergePolicy.setSegmentsPerTier(20);
+        mergePolicy.setMaxMergedSegmentMB(5 * 1024);
+        return mergePolicy;
+    }
+
+}
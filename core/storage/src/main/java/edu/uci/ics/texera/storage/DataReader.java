@@ -3,36 +3,63 @@ package edu.uci.ics.texera.storage;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.text.ParseException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.TexeraException;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.dataflow.IOperator;
 import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DoubleField;
 import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
 import edu.uci.ics.texera.api.field.ListField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.*;
+import edu.uci.ics.texera.storage.utils.BinaryPayload;
+import edu.uci.ics.texera.storage.utils.PayloadSpanList;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
@@ -40,7 +67,7 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  *   and performs corresponding operations to Lucene.
  *   
  * DataReader can get tuples from the Lucene index folder by a lucene query,
- *   and return the tuples in an iterative way through "getNextTuple()"
+ *   and return the tuples in an iterative way through "getNextTuple()", or in batches through "getNextBatch()".
  * 
  * DataReader currently has the option to append a "payload" field to a tuple, the "payload" field is a list of spans. 
  * Each span contains the start, end, and token offset position of a token in the original document.
@@ -48,10 +75,34 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  * 
  * The purpose of the "payload" field is to make subsequent keyword match, fuzzy token match, and dictionary match faster,
  * because they don't need to tokenize the tuple every time.
+ * If the table uses the binary payload layout, the payload is decoded lazily from the binary token streams stored
+ *   in the document (see BinaryPayload and PayloadSpanList), otherwise it's reconstructed from the term vectors.
+ * 
+ * By default, DataReader collects all the matching documents ordered by their Lucene scores when it's opened.
+ * In streaming mode, DataReader doesn't score the documents, instead it walks the matching documents 
+ *   segment by segment in index order, and only reads a document when the next tuple is requested.
+ *   This makes the time to get the first tuple and the memory usage independent of the number of results.
+ * 
+ * An optional limit can be set to stop reading after a number of tuples are returned.
+ * 
+ * An opened DataReader in streaming mode can be split into slice DataReaders (see getSliceReaders()),
+ *   each slice reads a contiguous range of the index segments, so that the slices can be read in parallel.
+ * 
+ * An optional set of required attributes can be set to only read these attributes (and _id) from the index,
+ *   the stored fields of the other attributes are not decoded, and the output schema only contains the required attributes.
+ * 
+ * INTEGER, DOUBLE and DATE values are read from the doc values of the index (see StorageUtils.getLuceneFields()) 
+ *   instead of the stored fields if the index has them.
+ * Filter queries (for example, the range queries of the comparison predicates) can be added to the query,
+ *   to only read the documents matching the filters.
  *   
  * 
  * DataReader for a specific table is only accessible from RelationManager.
  * 
+ * DataReader doesn't open the Lucene index by itself, it acquires a searcher from the
+ *   searcher manager shared by all DataReaders of the same table (see RelationManager),
+ *   and releases the searcher when it's closed.
+ * 
  * 
  * @author Zuozhi Wang
  *
@@ -64,13 +115,40 @@ public class DataReader implements IOperator {
     private Schema inputSchema;
     private Schema outputSchema;
 
+    private SearcherManager luceneSearcherManager;
     private IndexReader luceneIndexReader;
     private IndexSearcher luceneIndexSearcher;
     private ScoreDoc[] scoreDocs;
+    
+    // the state of walking the matching documents in streaming mode
+    private Weight luceneWeight;
+    private List<LeafReaderContext> leafContexts;
+    private int leafIndex;
+    private DocIdSetIterator leafDocIterator;
+    private Bits leafLiveDocs;
+    private int leafDocBase;
 
     private int cursor = CLOSED;
 
     private boolean payloadAdded;
+    private boolean streaming = false;
+    private int limit = Integer.MAX_VALUE;
+    
+    // lower case names of the required attributes, null if all attributes are required
+    private Set<String> requiredAttributes = null;
+    // the names of the stored fields to load
+    private Set<String> fieldsToLoad = null;
+    // the names of the attributes read from the doc values instead of the stored fields
+    private Set<String> docValuesAttributes = null;
+    // the doc values of the segment of the last document read from the doc values
+    private int docValuesLeafOrd = -1;
+    private Map<String, NumericDocValues> leafDocValuesMap;
+    private Map<String, Bits> leafDocsWithFieldMap;
+    
+    // for a slice DataReader, the DataReader it's split from and the range of segments it reads
+    private DataReader sliceParent = null;
+    private int sliceLeafStart;
+    private int sliceLeafEnd;
 
     /*
      * The package-only level constructor is only accessible inside the storage package.
@@ -93,14 +171,47 @@ public class DataReader implements IOperator {
             return;
         }
         try {
-            Directory indexDirectory = FSDirectory.open(this.dataStore.getDataDirectory());
-            luceneIndexReader = DirectoryReader.open(indexDirectory);
-            luceneIndexSearcher = new IndexSearcher(luceneIndexReader);
-
-            TopDocs topDocs = luceneIndexSearcher.search(query, Integer.MAX_VALUE);
-            scoreDocs = topDocs.scoreDocs;
+            if (sliceParent == null) {
+                luceneSearcherManager = RelationManager.getSearcherManager(this.dataStore.getDataDirectory());
+                luceneIndexSearcher = luceneSearcherManager.acquire();
+            } else {
+                // a slice reads the same snapshot as the DataReader it's split from
+                if (sliceParent.luceneIndexSearcher == null) {
+                    throw new StorageException("the DataReader of this slice is closed");
+                }
+                luceneIndexSearcher = sliceParent.luceneIndexSearcher;
+            }
+            luceneIndexReader = luceneIndexSearcher.getIndexReader();
+
+            if (streaming) {
+                // scores are not needed, the matching documents are walked in index order
+                luceneWeight = luceneIndexSearcher.createNormalizedWeight(query, false);
+                leafContexts = luceneIndexReader.leaves();
+                if (sliceParent != null) {
+                    leafContexts = leafContexts.subList(sliceLeafStart, sliceLeafEnd);
+                }
+                leafIndex = 0;
+                leafDocIterator = null;
+            } else if (limit > 0) {
+                TopDocs topDocs = luceneIndexSearcher.search(query, limit);
+                scoreDocs = topDocs.scoreDocs;
+            } else {
+                scoreDocs = new ScoreDoc[0];
+            }
 
-            inputSchema = this.dataStore.getSchema();
+            inputSchema = getRequiredSchema(this.dataStore.getSchema());
+            // only load the stored fields of the required attributes, and their binary payloads if the payload is needed
+            fieldsToLoad = new HashSet<>(inputSchema.getAttributeNames());
+            docValuesAttributes = getDocValuesAttributes();
+            fieldsToLoad.removeAll(docValuesAttributes);
+            docValuesLeafOrd = -1;
+            if (payloadAdded) {
+                for (Attribute attr : inputSchema.getAttributes()) {
+                    if (attr.getType() == AttributeType.TEXT) {
+                        fieldsToLoad.add(BinaryPayload.getPayloadFieldName(attr.getName()));
+                    }
+                }
+            }
             if (payloadAdded) {
                 outputSchema = new Schema.Builder(inputSchema).add(SchemaConstants.PAYLOAD_ATTRIBUTE).build();
             } else {
@@ -120,12 +231,24 @@ public class DataReader implements IOperator {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
 
+        if (cursor >= limit) {
+            return null;
+        }
+
         Tuple resultTuple;
         try {
-            if (cursor >= scoreDocs.length) {
-                return null;
+            int docID;
+            if (streaming) {
+                docID = nextMatchingDocID();
+                if (docID == DocIdSetIterator.NO_MORE_DOCS) {
+                    return null;
+                }
+            } else {
+                if (cursor >= scoreDocs.length) {
+                    return null;
+                }
+                docID = scoreDocs[cursor].doc;
             }
-            int docID = scoreDocs[cursor].doc;
             resultTuple = constructTuple(docID);
 
         } catch (IOException | ParseException e) {
@@ -135,27 +258,180 @@ public class DataReader implements IOperator {
         cursor++;
         return resultTuple;
     }
+    
+    /**
+     * Gets the next batch of at most maxSize tuples, an empty list if there are no more tuples.
+     * The tuples are read in one pass without going through getNextTuple() for each tuple.
+     */
+    @Override
+    public List<Tuple> getNextBatch(int maxSize) throws StorageException {
+        if (cursor == CLOSED) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        int batchSize = (int) Math.min(maxSize, (long) limit - cursor);
+        if (! streaming) {
+            batchSize = Math.min(batchSize, scoreDocs.length - cursor);
+        }
+        if (batchSize <= 0) {
+            return new ArrayList<>();
+        }
+        List<Tuple> batch = new ArrayList<>(Math.min(batchSize, DEFAULT_BATCH_SIZE));
+        try {
+            while (batch.size() < batchSize) {
+                int docID;
+                if (streaming) {
+                    docID = nextMatchingDocID();
+                    if (docID == DocIdSetIterator.NO_MORE_DOCS) {
+                        break;
+                    }
+                } else {
+                    docID = scoreDocs[cursor].doc;
+                }
+                batch.add(constructTuple(docID));
+                cursor++;
+            }
+        } catch (IOException | ParseException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+        return batch;
+    }
 
     @Override
     public void close() throws StorageException {
         cursor = CLOSED;
-        if (luceneIndexReader != null) {
+        if (luceneIndexSearcher != null) {
             try {
-                luceneIndexReader.close();
+                // the searcher of a slice is released by the DataReader it's split from
+                if (sliceParent == null) {
+                    luceneSearcherManager.release(luceneIndexSearcher);
+                }
+                luceneIndexSearcher = null;
                 luceneIndexReader = null;
+                scoreDocs = null;
+                luceneWeight = null;
+                leafContexts = null;
+                leafDocIterator = null;
+                leafLiveDocs = null;
+                leafDocValuesMap = null;
+                leafDocsWithFieldMap = null;
             } catch (IOException e) {
                 throw new StorageException(e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * Splits the DataReader into at most maxSlices slice DataReaders.
+     * Each slice reads a contiguous range of the index segments (with roughly the same number of documents),
+     *   from the same index snapshot as this DataReader. 
+     * Reading the slices one after another returns the same tuples in the same order as this DataReader.
+     * 
+     * This DataReader must be opened in streaming mode, and it must not be closed before the slices are closed.
+     * The slices have the same settings as this DataReader, the limit is applied to each slice.
+     * 
+     * @param maxSlices, the maximum number of slices
+     * @return a list of unopened slice DataReaders, there's at least one slice
+     * @throws StorageException
+     */
+    public List<DataReader> getSliceReaders(int maxSlices) throws StorageException {
+        if (cursor == CLOSED) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        if (! streaming) {
+            throw new StorageException("only a DataReader in streaming mode can be split into slices");
+        }
+        List<LeafReaderContext> leaves = luceneIndexReader.leaves();
+        int numSlices = Math.max(1, Math.min(maxSlices, leaves.size()));
+        long totalDocs = Math.max(1, luceneIndexReader.maxDoc());
+        
+        List<DataReader> sliceReaders = new ArrayList<>();
+        int sliceStart = 0;
+        long accumulatedDocs = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            accumulatedDocs += leaves.get(i).reader().maxDoc();
+            int remainingLeaves = leaves.size() - i - 1;
+            int remainingSlices = numSlices - sliceReaders.size() - 1;
+            // cut a slice when it reaches its share of the documents, or when each remaining slice needs one segment
+            boolean reachesShare = accumulatedDocs * numSlices >= totalDocs * (sliceReaders.size() + 1);
+            if (remainingSlices > 0 && (reachesShare || remainingLeaves == remainingSlices)) {
+                sliceReaders.add(newSliceReader(sliceStart, i + 1));
+                sliceStart = i + 1;
+            }
+        }
+        sliceReaders.add(newSliceReader(sliceStart, leaves.size()));
+        return sliceReaders;
+    }
+    
+    private DataReader newSliceReader(int leafStart, int leafEnd) {
+        DataReader sliceReader = new DataReader(this.dataStore, this.query, this.payloadAdded);
+        sliceReader.streaming = true;
+        sliceReader.limit = this.limit;
+        sliceReader.requiredAttributes = this.requiredAttributes;
+        sliceReader.sliceParent = this;
+        sliceReader.sliceLeafStart = leafStart;
+        sliceReader.sliceLeafEnd = leafEnd;
+        return sliceReader;
+    }
+
+    /*
+     * Advances to the next live document matching the query in streaming mode,
+     *   going through the index segments one by one.
+     * Returns the index-wide document ID, or NO_MORE_DOCS if all the matching documents are consumed.
+     */
+    private int nextMatchingDocID() throws IOException {
+        while (true) {
+            if (leafDocIterator == null) {
+                if (leafIndex >= leafContexts.size()) {
+                    return DocIdSetIterator.NO_MORE_DOCS;
+                }
+                LeafReaderContext leafContext = leafContexts.get(leafIndex);
+                leafIndex++;
+                Scorer leafScorer = luceneWeight.scorer(leafContext);
+                // the scorer is null if no document in this segment matches the query
+                if (leafScorer == null) {
+                    continue;
+                }
+                leafDocIterator = leafScorer.iterator();
+                leafLiveDocs = leafContext.reader().getLiveDocs();
+                leafDocBase = leafContext.docBase;
+            }
+            int leafDocID = leafDocIterator.nextDoc();
+            if (leafDocID == DocIdSetIterator.NO_MORE_DOCS) {
+                leafDocIterator = null;
+                continue;
+            }
+            // skip the deleted documents
+            if (leafLiveDocs == null || leafLiveDocs.get(leafDocID)) {
+                return leafDocBase + leafDocID;
+            }
+        }
+    }
+
+    /*
+     * Narrows the table's schema to the required attributes, _id is always kept.
+     */
+    private Schema getRequiredSchema(Schema tableSchema) {
+        if (requiredAttributes == null) {
+            return tableSchema;
+        }
+        return new Schema(tableSchema.getAttributes().stream()
+                .filter(attr -> attr.getName().equalsIgnoreCase(SchemaConstants._ID)
+                        || requiredAttributes.contains(attr.getName().toLowerCase()))
+                .toArray(Attribute[]::new));
+    }
+
     private Tuple constructTuple(int docID) throws IOException, ParseException {
-        Document luceneDocument = luceneIndexSearcher.doc(docID);
-        ArrayList<IField> docFields = documentToFields(luceneDocument);
+        // only decode the stored fields that are needed
+        DocumentStoredFieldVisitor fieldVisitor = new DocumentStoredFieldVisitor(fieldsToLoad);
+        luceneIndexReader.document(docID, fieldVisitor);
+        Document luceneDocument = fieldVisitor.getDocument();
+        ArrayList<IField> docFields = documentToFields(luceneDocument, docID);
 
         if (payloadAdded) {
-            ArrayList<Span> payloadSpanList = buildPayloadFromTermVector(docFields, docID);
-            ListField<Span> payloadField = new ListField<Span>(payloadSpanList);
+            ListField<Span> payloadField = buildPayloadFromBinary(luceneDocument);
+            if (payloadField == null) {
+                payloadField = new ListField<Span>(buildPayloadFromTermVector(docFields, docID));
+            }
             docFields.add(payloadField);
         }
 
@@ -163,15 +439,117 @@ public class DataReader implements IOperator {
         return resultTuple;
     }
 
-    private ArrayList<IField> documentToFields(Document luceneDocument) throws ParseException {
+    private ArrayList<IField> documentToFields(Document luceneDocument, int docID) throws IOException, ParseException {
         ArrayList<IField> fields = new ArrayList<>();
         for (Attribute attr : inputSchema.getAttributes()) {
             AttributeType attributeType = attr.getType();
+            if (docValuesAttributes.contains(attr.getName())) {
+                IField docValuesField = getDocValuesField(attr, docID);
+                if (docValuesField != null) {
+                    fields.add(docValuesField);
+                    continue;
+                }
+                // the document is written before the doc values are added, load its stored field
+                String fieldValue = luceneIndexReader.document(docID, Collections.singleton(attr.getName())).get(attr.getName());
+                fields.add(StorageUtils.getField(attributeType, fieldValue));
+                continue;
+            }
             String fieldValue = luceneDocument.get(attr.getName());
             fields.add(StorageUtils.getField(attributeType, fieldValue));
         }
         return fields;
     }
+    
+    /*
+     * Gets the INTEGER, DOUBLE and DATE attributes that have numeric doc values in the index.
+     * DATETIME values are not read from the doc values because the doc values are truncated to milliseconds.
+     */
+    private Set<String> getDocValuesAttributes() {
+        Set<String> attributes = new HashSet<>();
+        for (Attribute attr : inputSchema.getAttributes()) {
+            AttributeType attributeType = attr.getType();
+            if (attributeType != AttributeType.INTEGER && attributeType != AttributeType.DOUBLE
+                    && attributeType != AttributeType.DATE) {
+                continue;
+            }
+            for (LeafReaderContext leafContext : luceneIndexReader.leaves()) {
+                FieldInfo fieldInfo = leafContext.reader().getFieldInfos().fieldInfo(attr.getName());
+                if (fieldInfo != null && fieldInfo.getDocValuesType() == DocValuesType.NUMERIC) {
+                    attributes.add(attr.getName());
+                    break;
+                }
+            }
+        }
+        return attributes;
+    }
+    
+    /*
+     * Reads the value of an attribute of a document from the doc values.
+     * Returns null if the document doesn't have the doc value.
+     */
+    private IField getDocValuesField(Attribute attr, int docID) throws IOException {
+        List<LeafReaderContext> leaves = luceneIndexReader.leaves();
+        int leafOrd = ReaderUtil.subIndex(docID, leaves);
+        if (leafOrd != docValuesLeafOrd) {
+            docValuesLeafOrd = leafOrd;
+            leafDocValuesMap = new HashMap<>();
+            leafDocsWithFieldMap = new HashMap<>();
+            LeafReader leafReader = leaves.get(leafOrd).reader();
+            for (String attributeName : docValuesAttributes) {
+                NumericDocValues docValues = leafReader.getNumericDocValues(attributeName);
+                if (docValues != null) {
+                    leafDocValuesMap.put(attributeName, docValues);
+                    leafDocsWithFieldMap.put(attributeName, leafReader.getDocsWithField(attributeName));
+                }
+            }
+        }
+        NumericDocValues docValues = leafDocValuesMap.get(attr.getName());
+        int leafDocID = docID - leaves.get(leafOrd).docBase;
+        if (docValues == null || ! leafDocsWithFieldMap.get(attr.getName()).get(leafDocID)) {
+            return null;
+        }
+        long value = docValues.get(leafDocID);
+        switch (attr.getType()) {
+        case INTEGER:
+            return new IntegerField((int) value);
+        case DOUBLE:
+            return new DoubleField(Double.longBitsToDouble(value));
+        case DATE:
+            return new DateField(LocalDate.ofEpochDay(value));
+        default:
+            return null;
+        }
+    }
+
+    /*
+     * Builds the payload from the binary token streams stored in the document (see BinaryPayload),
+     *   the spans are decoded lazily when they are accessed.
+     * Returns null if the table doesn't use the binary payload layout.
+     */
+    private ListField<Span> buildPayloadFromBinary(Document luceneDocument) {
+        LinkedHashMap<String, BytesRef> encodedTokensMap = new LinkedHashMap<>();
+        Map<String, String> fieldValueMap = new HashMap<>();
+        for (Attribute attr : inputSchema.getAttributes()) {
+            if (attr.getType() != AttributeType.TEXT) {
+                continue;
+            }
+            BytesRef encodedTokens = luceneDocument.getBinaryValue(BinaryPayload.getPayloadFieldName(attr.getName()));
+            String fieldValue = luceneDocument.get(attr.getName());
+            if (encodedTokens == null) {
+                // an empty TEXT field doesn't have tokens
+                if (fieldValue == null || fieldValue.isEmpty()) {
+                    continue;
+                }
+                return null;
+            }
+            encodedTokensMap.put(attr.getName(), encodedTokens);
+            fieldValueMap.put(attr.getName(), fieldValue);
+        }
+        if (encodedTokensMap.isEmpty()) {
+            return null;
+        }
+        return ListField.wrap(new PayloadSpanList(encodedTokensMap, fieldValueMap));
+    }
 
     private ArrayList<Span> buildPayloadFromTermVector(List<IField> fields, int docID) throws IOException {
         ArrayList<Span> payloadSpanList = new ArrayList<>();
@@ -219,6 +597,24 @@ public class DataReader implements IOperator {
         return payloadSpanList;
     }
     
+    /**
+     * Adds a filter query to the query, only the documents matching both the query and the filter are read.
+     * The filter doesn't affect the scores of the documents.
+     * It must be added before the DataReader is opened.
+     * 
+     * @param filterQuery
+     */
+    public void addFilterQuery(Query filterQuery) {
+        this.query = new BooleanQuery.Builder()
+                .add(this.query, Occur.MUST)
+                .add(filterQuery, Occur.FILTER)
+                .build();
+    }
+    
+    public Query getQuery() {
+        return this.query;
+    }
+    
     public boolean isPayloadAdded() {
         return this.payloadAdded;
     }
@@ -226,6 +622,56 @@ public class DataReader implements IOperator {
     public void setPayloadAdded(boolean payloadAdded) {
         this.payloadAdded = payloadAdded;
     }
+    
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+    
+    /**
+     * Sets if the DataReader walks the matching documents in index order without scoring them,
+     *   instead of collecting all the matching documents ordered by score when it's opened.
+     * It must be set before the DataReader is opened.
+     * 
+     * @param streaming
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    
+    public int getLimit() {
+        return this.limit;
+    }
+    
+    /**
+     * Sets the maximum number of tuples the DataReader returns.
+     * It must be set before the DataReader is opened.
+     * 
+     * @param limit
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public Set<String> getRequiredAttributes() {
+        return this.requiredAttributes;
+    }
+    
+    /**
+     * Sets the attributes that need to be read, the other attributes (except _id) are not read from the index
+     *   and are not in the output schema.
+     * Attribute names that are not in the table are ignored.
+     * It must be set before the DataReader is opened.
+     * 
+     * @param requiredAttributes, the names of the required attributes, or null if all attributes are required
+     */
+    public void setRequiredAttributes(Collection<String> requiredAttributes) {
+        if (requiredAttributes == null) {
+            this.requiredAttributes = null;
+        } else {
+            this.requiredAttributes = requiredAttributes.stream()
+                    .map(attributeName -> attributeName.toLowerCase()).collect(Collectors.toSet());
+        }
+    }
 
     public Schema getOutputSchema() {
         return outputSchema;
@@ -3,27 +3,48 @@ package edu.uci.ics.texera.storage;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
 
 import edu.uci.ics.texera.api.constants.ErrorMessages;
 import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.api.field.DateField;
+import edu.uci.ics.texera.api.field.DateTimeField;
+import edu.uci.ics.texera.api.field.DoubleField;
 import edu.uci.ics.texera.api.field.IDField;
 import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.IntegerField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
+import edu.uci.ics.texera.storage.statistics.NumericHistogram;
+import edu.uci.ics.texera.storage.statistics.TableStatistics;
+import edu.uci.ics.texera.storage.utils.BinaryPayload;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 /**
@@ -43,6 +64,29 @@ import edu.uci.ics.texera.storage.utils.StorageUtils;
  * Update Operations:
  *   DataWriter can update the tuple, with the tuple's _id remaining the same.
  *   
+ * Bulk-load Mode:
+ *   When opened by openBulkLoad(), the inserted tuples are grouped into batches and handed 
+ *   through a bounded queue to a pool of indexing threads, which convert them to Lucene documents
+ *   and add them to the index in batches. The index is committed once when the DataWriter is closed.
+ *   Delete and update operations are not allowed in bulk-load mode.
+ *   If an indexing thread fails to index a batch, the error is thrown by a later insertTuple() or by close().
+ *   
+ * Binary Payload:
+ *   If the table is created with the binary payload layout, DataWriter also stores the tokens of every TEXT field
+ *   as a binary token stream (see BinaryPayload), so that DataReader can build the payload without the term vectors.
+ *   The layout is recorded in the commit data of the index.
+ *   
+ * Near-real-time Mode:
+ *   When opened by openNearRealTime(), DataWriter attaches to the long-lived writer of the table 
+ *   (see NearRealTimeWriter), which publishes the inserted tuples to the DataReaders every refresh interval
+ *   and commits them every commit interval. Closing the DataWriter doesn't commit.
+ *   While a table has a near-real-time writer, DataWriters opened by open() or openBulkLoad() also attach to it,
+ *   and their changes are committed when they are closed.
+ *   
+ * Statistics:
+ *   DataWriter maintains the histograms of the numeric attributes of the inserted tuples (see TableStatistics),
+ *   the histograms are saved in the commit data of the index when the DataWriter is closed.
+ *   
  *   
  * DataWriter for a specific table is only accessible from RelationManager.
  * 
@@ -60,6 +104,35 @@ public class DataWriter {
     private IndexWriter luceneIndexWriter;
     
     private boolean isOpen = false;
+    
+    // the schema that an inserted tuple must have (the table's schema without _id)
+    private Schema insertTupleSchema;
+    
+    // the state of the bulk-load mode
+    private BulkLoadConfig bulkLoadConfig;
+    private BlockingQueue<List<Document>> bulkLoadQueue;
+    private List<Thread> bulkLoadThreads;
+    private List<Document> bulkLoadBatch;
+    private AtomicReference<Throwable> bulkLoadError;
+    
+    // an empty batch put into the bulk-load queue to signal an indexing thread to stop
+    private static final List<Document> END_OF_BULK_LOAD = new ArrayList<>();
+    // how long the inserting thread waits for the full bulk-load queue before checking if the indexing threads are alive
+    private static final long BULK_LOAD_QUEUE_WAIT_MILLIS = 100;
+    
+    // if the binary token streams of the TEXT fields are stored
+    private boolean binaryPayload = false;
+    
+    // the histogram of each numeric attribute, null if the index has tuples written without statistics
+    private Map<String, NumericHistogram> histograms;
+    private boolean histogramsChanged;
+    
+    // the long-lived writer of the table that the DataWriter is attached to, null if it has its own writer
+    private NearRealTimeWriter nearRealTimeWriter;
+    // if the DataWriter is opened by openNearRealTime(), its changes are not committed when it's closed
+    private boolean nearRealTime = false;
+    
+    static final String BINARY_PAYLOAD_COMMIT_KEY = "texera.binaryPayload";
 
     /*
      * The package-only level constructor is only accessible inside the storage package.
@@ -75,6 +148,7 @@ public class DataWriter {
         }
         this.dataStore = new DataStore(indexDirectory, schema);
         this.analyzer = analyzer;
+        this.insertTupleSchema = new Schema.Builder(this.schema).remove(SchemaConstants._ID).build();
     }
     
     public DataStore getDataStore() {
@@ -83,25 +157,179 @@ public class DataWriter {
     
     public void open() throws StorageException {
         if (this.luceneIndexWriter == null || ! this.luceneIndexWriter.isOpen()) {
-            try {
-                Directory directory = FSDirectory.open(this.indexDirectory);
-                IndexWriterConfig conf = new IndexWriterConfig(analyzer);
-                this.luceneIndexWriter = new IndexWriter(directory, conf);
-                this.isOpen = true;
-            } catch (IOException e) {
-                throw new StorageException(e.getMessage(), e);
+            openIndexWriter(new IndexWriterConfig(analyzer));
+        }
+    }
+    
+    /**
+     * Opens the DataWriter in near-real-time mode.
+     * 
+     * The DataWriter attaches to the long-lived writer of the table, which is created if it doesn't exist.
+     * The inserted tuples become visible to the DataReaders of the table within (config.getRefreshIntervalMillis()),
+     *   and are committed every (config.getCommitIntervalMillis()), 
+     *   or when RelationManager.commitNearRealTimeWriter() or RelationManager.closeNearRealTimeWriter() is called.
+     * Closing the DataWriter doesn't commit the tuples.
+     * 
+     * @param config, the settings used if the long-lived writer is created
+     * @throws StorageException
+     */
+    public void openNearRealTime(NearRealTimeConfig config) throws StorageException {
+        if (this.luceneIndexWriter != null && this.luceneIndexWriter.isOpen()) {
+            return;
+        }
+        attachNearRealTimeWriter(RelationManager.getNearRealTimeWriter(this.indexDirectory, this.analyzer, config));
+        this.nearRealTime = true;
+    }
+    
+    public boolean isNearRealTime() {
+        return this.nearRealTime;
+    }
+    
+    /*
+     * Uses the long-lived writer of the table instead of opening a new Lucene writer.
+     */
+    private void attachNearRealTimeWriter(NearRealTimeWriter nearRealTimeWriter) {
+        this.nearRealTimeWriter = nearRealTimeWriter;
+        this.luceneIndexWriter = nearRealTimeWriter.getIndexWriter();
+        this.isOpen = true;
+        Map<String, String> commitData = this.luceneIndexWriter.getCommitData();
+        this.binaryPayload = commitData != null && Boolean.parseBoolean(commitData.get(BINARY_PAYLOAD_COMMIT_KEY));
+        this.histograms = nearRealTimeWriter.getHistograms();
+        if (this.histograms != null) {
+            synchronized (this.histograms) {
+                addEmptyHistograms(this.histograms, this.schema);
             }
         }
+        this.histogramsChanged = false;
+    }
+    
+    /**
+     * Opens the DataWriter in bulk-load mode.
+     * 
+     * Tuples inserted by insertTuple() are indexed by (config.getIndexingThreadNum()) threads,
+     *   using the RAM buffer size and the merge policy in the config.
+     * All the tuples are committed once when close() is called.
+     * If the table has a near-real-time writer, the tuples are added to it with its settings instead.
+     * 
+     * @param config, the bulk-load settings
+     * @throws StorageException
+     */
+    public void openBulkLoad(BulkLoadConfig config) throws StorageException {
+        if (this.luceneIndexWriter != null && this.luceneIndexWriter.isOpen()) {
+            return;
+        }
+        IndexWriterConfig conf = new IndexWriterConfig(analyzer);
+        conf.setRAMBufferSizeMB(config.getRamBufferSizeMB());
+        conf.setMergePolicy(config.getMergePolicy());
+        openIndexWriter(conf);
+        
+        this.bulkLoadConfig = config;
+        this.bulkLoadQueue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.bulkLoadBatch = new ArrayList<>(config.getBatchSize());
+        this.bulkLoadError = new AtomicReference<>();
+        this.bulkLoadThreads = new ArrayList<>();
+        for (int i = 0; i < config.getIndexingThreadNum(); i++) {
+            Thread indexingThread = new Thread(this::runBulkLoadIndexing, 
+                    "texera-bulk-load-" + indexDirectory.getFileName() + "-" + i);
+            indexingThread.setDaemon(true);
+            indexingThread.start();
+            this.bulkLoadThreads.add(indexingThread);
+        }
+    }
+    
+    public boolean isBulkLoad() {
+        return this.bulkLoadConfig != null;
+    }
+    
+    private void openIndexWriter(IndexWriterConfig conf) throws StorageException {
+        NearRealTimeWriter tableNearRealTimeWriter = RelationManager.findNearRealTimeWriter(this.indexDirectory);
+        if (tableNearRealTimeWriter != null) {
+            attachNearRealTimeWriter(tableNearRealTimeWriter);
+            return;
+        }
+        try {
+            Directory directory = FSDirectory.open(this.indexDirectory);
+            this.luceneIndexWriter = new IndexWriter(directory, conf);
+            this.isOpen = true;
+            Map<String, String> commitData = this.luceneIndexWriter.getCommitData();
+            this.binaryPayload = commitData != null && Boolean.parseBoolean(commitData.get(BINARY_PAYLOAD_COMMIT_KEY));
+            this.histograms = TableStatistics.readHistograms(commitData);
+            if (this.histograms == null && this.luceneIndexWriter.maxDoc() == 0) {
+                this.histograms = new HashMap<>();
+            }
+            if (this.histograms != null) {
+                addEmptyHistograms(this.histograms, this.schema);
+            }
+            this.histogramsChanged = false;
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    public boolean isBinaryPayload() {
+        return this.binaryPayload;
+    }
+    
+    /*
+     * Sets if the binary token streams of the TEXT fields are stored, 
+     *   the setting is saved in the commit data of the index when the DataWriter is closed.
+     * Only the RelationManager sets it when the table is created.
+     */
+    void setBinaryPayload(boolean binaryPayload) throws StorageException {
+        if (! isOpen) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        Map<String, String> commitData = new HashMap<>();
+        if (this.luceneIndexWriter.getCommitData() != null) {
+            commitData.putAll(this.luceneIndexWriter.getCommitData());
+        }
+        commitData.put(BINARY_PAYLOAD_COMMIT_KEY, Boolean.toString(binaryPayload));
+        this.luceneIndexWriter.setCommitData(commitData);
+        this.binaryPayload = binaryPayload;
     }
 
     public void close() throws StorageException {
         if (this.luceneIndexWriter != null) {
+            if (isBulkLoad()) {
+                finishBulkLoad();
+            }
+            if (this.nearRealTimeWriter != null) {
+                detachNearRealTimeWriter();
+                return;
+            }
+            if (this.isOpen && this.histogramsChanged) {
+                Map<String, String> commitData = new HashMap<>();
+                if (this.luceneIndexWriter.getCommitData() != null) {
+                    commitData.putAll(this.luceneIndexWriter.getCommitData());
+                }
+                TableStatistics.writeHistograms(this.histograms, commitData);
+                this.luceneIndexWriter.setCommitData(commitData);
+                this.histogramsChanged = false;
+            }
             try {
                 this.luceneIndexWriter.close();
                 this.isOpen = false;
             } catch (IOException e) {
                 throw new StorageException(e.getMessage(), e);
             }
+            // make the committed changes visible to the DataReaders of this table
+            RelationManager.refreshSearcherManager(this.indexDirectory);
+        }
+    }
+
+    /*
+     * Detaches from the long-lived writer of the table without closing it,
+     *   the changes are committed unless the DataWriter is in near-real-time mode.
+     */
+    private void detachNearRealTimeWriter() throws StorageException {
+        NearRealTimeWriter tableNearRealTimeWriter = this.nearRealTimeWriter;
+        boolean commit = this.isOpen && ! this.nearRealTime;
+        this.nearRealTimeWriter = null;
+        this.nearRealTime = false;
+        this.luceneIndexWriter = null;
+        this.isOpen = false;
+        if (commit) {
+            tableNearRealTimeWriter.commit();
         }
     }
 
@@ -111,6 +339,9 @@ public class DataWriter {
         }
         try {
             this.luceneIndexWriter.deleteAll();
+            Map<String, NumericHistogram> newHistograms = new HashMap<>();
+            addEmptyHistograms(newHistograms, this.schema);
+            replaceHistograms(newHistograms);
         } catch (IOException e) {
             close();
             throw new StorageException(e.getMessage(), e);
@@ -121,24 +352,36 @@ public class DataWriter {
         if (! isOpen) {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
+        if (this.nearRealTimeWriter != null) {
+            // don't pile up tuples that the broken shared writer would never commit
+            this.nearRealTimeWriter.checkError();
+        }
         try {
             // tuple must not contain _id field
             if (tuple.getSchema().containsAttribute(SchemaConstants._ID)) {
                 throw new StorageException("Tuple must not contain _id field. _id must be generated by the system");
             }
             
-            // generate a random ID for this tuple
-            IDField idField = new IDField(UUID.randomUUID().toString());
-            Tuple tupleWithID = getTupleWithID(tuple, idField);
-            
             // make sure the tuple's schema agrees with the table's schema
-            if (! tupleWithID.getSchema().equals(this.schema)) {
+            if (! tuple.getSchema().equals(this.insertTupleSchema)) {
                 throw new StorageException("Tuple's schema is not the same as the table's schema");
             }
             
-            Document document = getLuceneDocument(tupleWithID);
-            this.luceneIndexWriter.addDocument(document);
+            // generate a random ID for this tuple
+            IDField idField = new IDField(newRandomUUID().toString());
+            Document document = getLuceneDocument(idField, tuple);
+            
+            if (isBulkLoad()) {
+                // the binary payload is added by the indexing threads
+                addToBulkLoadBatch(document);
+            } else {
+                if (binaryPayload) {
+                    addBinaryPayloadFields(document);
+                }
+                this.luceneIndexWriter.addDocument(document);
+            }
             this.dataStore.incrementNumDocuments(1);
+            addToHistograms(tuple);
             
             return idField;
         } catch (IOException e) {
@@ -147,6 +390,131 @@ public class DataWriter {
         }
     }
     
+    /*
+     * Adds a document to the current batch, 
+     *   and hands the batch to the indexing threads if it's full.
+     */
+    private void addToBulkLoadBatch(Document document) throws StorageException {
+        checkBulkLoadError();
+        bulkLoadBatch.add(document);
+        if (bulkLoadBatch.size() >= bulkLoadConfig.getBatchSize()) {
+            if (! putBulkLoadQueue(bulkLoadBatch)) {
+                checkBulkLoadError();
+                throw new StorageException("bulk load failed: the indexing threads have stopped");
+            }
+            bulkLoadBatch = new ArrayList<>(bulkLoadConfig.getBatchSize());
+        }
+    }
+    
+    /*
+     * The loop of an indexing thread in bulk-load mode.
+     * An error of a batch is recorded, and the thread keeps draining the queue until the end of the bulk load,
+     *   so that the inserting thread is never blocked.
+     */
+    private void runBulkLoadIndexing() {
+        while (true) {
+            List<Document> batch;
+            try {
+                batch = bulkLoadQueue.take();
+            } catch (InterruptedException e) {
+                // an interrupted thread stops, the inserting thread stops waiting once no indexing thread is alive
+                bulkLoadError.compareAndSet(null, e);
+                return;
+            }
+            if (batch == END_OF_BULK_LOAD) {
+                return;
+            }
+            if (bulkLoadError.get() != null) {
+                continue;
+            }
+            try {
+                if (binaryPayload) {
+                    for (Document document : batch) {
+                        addBinaryPayloadFields(document);
+                    }
+                }
+                luceneIndexWriter.addDocuments(batch);
+            } catch (Throwable e) {
+                bulkLoadError.compareAndSet(null, e);
+            }
+        }
+    }
+    
+    /*
+     * Flushes the last batch, waits for the indexing threads to finish, 
+     *   and throws the first error encountered by the indexing threads.
+     */
+    private void finishBulkLoad() throws StorageException {
+        try {
+            if (! bulkLoadBatch.isEmpty() && bulkLoadError.get() == null && ! putBulkLoadQueue(bulkLoadBatch)) {
+                bulkLoadError.compareAndSet(null, new StorageException("the indexing threads have stopped"));
+            }
+            for (int i = 0; i < bulkLoadThreads.size(); i++) {
+                if (! putBulkLoadQueue(END_OF_BULK_LOAD)) {
+                    break;
+                }
+            }
+            for (Thread indexingThread : bulkLoadThreads) {
+                indexingThread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            bulkLoadError.compareAndSet(null, e);
+        } finally {
+            this.bulkLoadConfig = null;
+            this.bulkLoadQueue = null;
+            this.bulkLoadThreads = null;
+            this.bulkLoadBatch = null;
+        }
+        Throwable error = bulkLoadError.get();
+        if (error != null && this.nearRealTimeWriter != null) {
+            // the shared writer can't be rolled back, the documents added by other DataWriters would be lost
+            this.isOpen = false;
+            throw new StorageException("bulk load failed: " + error.getMessage(), error);
+        }
+        if (error != null) {
+            try {
+                // discard the uncommitted documents
+                this.luceneIndexWriter.rollback();
+                this.isOpen = false;
+            } catch (IOException e) {
+                error.addSuppressed(e);
+            }
+            throw new StorageException("bulk load failed: " + error.getMessage(), error);
+        }
+    }
+    
+    /*
+     * Puts a batch into the queue, waiting while the queue is full and an indexing thread is alive.
+     * Returns false if all the indexing threads have stopped.
+     */
+    private boolean putBulkLoadQueue(List<Document> batch) throws StorageException {
+        try {
+            while (! bulkLoadQueue.offer(batch, BULK_LOAD_QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (bulkLoadThreads.stream().noneMatch(Thread::isAlive)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    private void checkBulkLoadError() throws StorageException {
+        Throwable error = bulkLoadError.get();
+        if (error != null) {
+            throw new StorageException("bulk load failed: " + error.getMessage(), error);
+        }
+    }
+    
+    private void checkNotBulkLoad() throws StorageException {
+        if (isBulkLoad()) {
+            throw new StorageException("delete and update operations are not allowed in bulk-load mode");
+        }
+    }
+    
     /**
      * Deletes a tuple by its ID field.
      * 
@@ -157,6 +525,7 @@ public class DataWriter {
         if (! isOpen) {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
+        checkNotBulkLoad();
         try {
             this.luceneIndexWriter.deleteDocuments(new Term(SchemaConstants._ID, idField.getValue().toString()));
         } catch (IOException e) {
@@ -172,6 +541,7 @@ public class DataWriter {
      * @throws StorageException
      */
     public void deleteTuple(Query... deletionQuery) throws StorageException {
+        checkNotBulkLoad();
         try {
             this.luceneIndexWriter.deleteDocuments(deletionQuery);
         } catch (IOException e) {
@@ -191,6 +561,7 @@ public class DataWriter {
         if (! isOpen) {
             throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
         }
+        checkNotBulkLoad();
         try {
             // if the newTuple contains the _id field, make sure the ID is consistent.
             if (newTuple.getSchema().containsAttribute(SchemaConstants._ID)) {
@@ -201,15 +572,122 @@ public class DataWriter {
                 newTuple = getTupleWithID(newTuple, idField);
             }
             
+            Document document = getLuceneDocument(newTuple);
+            // the old values stay in the histograms until the statistics are refreshed
+            addToHistograms(newTuple);
+            if (binaryPayload) {
+                addBinaryPayloadFields(document);
+            }
             this.luceneIndexWriter.updateDocument(
-                    new Term(SchemaConstants._ID, idField.getValue().toString()),
-                    getLuceneDocument(newTuple)); 
+                    new Term(SchemaConstants._ID, idField.getValue().toString()), document); 
         } catch (IOException e) {
             close();
             throw new StorageException(e);
         }
     }
 
+    /*
+     * Creates an empty histogram for every numeric attribute that doesn't have one.
+     */
+    private static void addEmptyHistograms(Map<String, NumericHistogram> histograms, Schema schema) {
+        for (Attribute attr : schema.getAttributes()) {
+            if (isHistogramType(attr.getType())) {
+                histograms.putIfAbsent(attr.getName(), new NumericHistogram());
+            }
+        }
+    }
+    
+    private static boolean isHistogramType(AttributeType attributeType) {
+        return attributeType == AttributeType.INTEGER || attributeType == AttributeType.DOUBLE
+                || attributeType == AttributeType.DATE || attributeType == AttributeType.DATETIME;
+    }
+    
+    /*
+     * Adds the numeric values of a tuple to the histograms,
+     *   DATE and DATETIME values are added as their encodings in the index.
+     */
+    private void addToHistograms(Tuple tuple) {
+        // the histograms of a near-real-time writer are shared by the DataWriters attached to it
+        Map<String, NumericHistogram> currentHistograms = this.nearRealTimeWriter != null ? 
+                this.nearRealTimeWriter.getHistograms() : this.histograms;
+        if (currentHistograms == null) {
+            return;
+        }
+        List<IField> fields = tuple.getFields();
+        List<Attribute> attributes = tuple.getSchema().getAttributes();
+        synchronized (currentHistograms) {
+            for (int count = 0; count < fields.size(); count++) {
+                Attribute attr = attributes.get(count);
+                NumericHistogram histogram = currentHistograms.get(attr.getName());
+                if (histogram == null) {
+                    continue;
+                }
+                IField field = fields.get(count);
+                if (field instanceof IntegerField) {
+                    histogram.add(((IntegerField) field).getValue());
+                } else if (field instanceof DoubleField) {
+                    histogram.add(((DoubleField) field).getValue());
+                } else if (field instanceof DateField) {
+                    histogram.add(StorageUtils.getDateLongValue(((DateField) field).getValue()));
+                } else if (field instanceof DateTimeField) {
+                    histogram.add(StorageUtils.getDateTimeLongValue(((DateTimeField) field).getValue()));
+                }
+            }
+        }
+        this.histogramsChanged = true;
+    }
+    
+    /*
+     * Replaces the histograms (of the near-real-time writer if the DataWriter is attached to one).
+     */
+    private void replaceHistograms(Map<String, NumericHistogram> newHistograms) {
+        this.histograms = newHistograms;
+        this.histogramsChanged = true;
+        if (this.nearRealTimeWriter != null) {
+            this.nearRealTimeWriter.setHistograms(newHistograms);
+        }
+    }
+    
+    /*
+     * Rebuilds the histograms from the doc values of the tuples in the index, 
+     *   which removes the values of the deleted tuples.
+     * The values of the tuples written before the doc values are added are not counted.
+     * The histograms are saved when the DataWriter is closed.
+     * Only the RelationManager refreshes the statistics.
+     */
+    void refreshStatistics() throws StorageException {
+        if (! isOpen) {
+            throw new StorageException(ErrorMessages.OPERATOR_NOT_OPENED);
+        }
+        checkNotBulkLoad();
+        Map<String, NumericHistogram> newHistograms = new HashMap<>();
+        addEmptyHistograms(newHistograms, this.schema);
+        try (DirectoryReader indexReader = DirectoryReader.open(this.luceneIndexWriter, true)) {
+            for (LeafReaderContext leafContext : indexReader.leaves()) {
+                LeafReader leafReader = leafContext.reader();
+                Bits liveDocs = leafReader.getLiveDocs();
+                for (Attribute attr : this.schema.getAttributes()) {
+                    NumericHistogram histogram = newHistograms.get(attr.getName());
+                    NumericDocValues docValues = leafReader.getNumericDocValues(attr.getName());
+                    if (histogram == null || docValues == null) {
+                        continue;
+                    }
+                    Bits docsWithField = leafReader.getDocsWithField(attr.getName());
+                    for (int docID = 0; docID < leafReader.maxDoc(); docID++) {
+                        if ((liveDocs != null && ! liveDocs.get(docID)) || ! docsWithField.get(docID)) {
+                            continue;
+                        }
+                        long value = docValues.get(docID);
+                        histogram.add(attr.getType() == AttributeType.DOUBLE ? Double.longBitsToDouble(value) : value);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+        replaceHistograms(newHistograms);
+    }
+
     /*
      * Converts a Texera tuple to a Lucene document
      */
@@ -221,11 +699,60 @@ public class DataWriter {
             IField field = fields.get(count);
             Attribute attr = attributes.get(count);
             AttributeType attributeType = attr.getType();
-            doc.add(StorageUtils.getLuceneField(attributeType, attr.getName(), field.getValue()));
+            for (IndexableField luceneField : StorageUtils.getLuceneFields(attributeType, attr.getName(), field.getValue())) {
+                doc.add(luceneField);
+            }
         }
         return doc;
     }
     
+    /*
+     * Converts a Texera tuple without _id to a Lucene document with the _id field,
+     *   without creating an intermediate tuple with _id.
+     */
+    private static Document getLuceneDocument(IDField idField, Tuple tuple) {
+        Document doc = new Document();
+        doc.add(StorageUtils.getLuceneField(AttributeType._ID_TYPE, SchemaConstants._ID, idField.getValue()));
+        List<IField> fields = tuple.getFields();
+        List<Attribute> attributes = tuple.getSchema().getAttributes();
+        for (int count = 0; count < fields.size(); count++) {
+            Attribute attr = attributes.get(count);
+            for (IndexableField luceneField : StorageUtils.getLuceneFields(attr.getType(), attr.getName(), fields.get(count).getValue())) {
+                doc.add(luceneField);
+            }
+        }
+        return doc;
+    }
+    
+    /*
+     * Stores the binary token stream of every TEXT field in the document.
+     */
+    private void addBinaryPayloadFields(Document document) throws IOException {
+        for (Attribute attr : this.schema.getAttributes()) {
+            if (attr.getType() != AttributeType.TEXT) {
+                continue;
+            }
+            String fieldValue = document.get(attr.getName());
+            if (fieldValue == null) {
+                continue;
+            }
+            document.add(new StoredField(BinaryPayload.getPayloadFieldName(attr.getName()), 
+                    BinaryPayload.encode(this.analyzer, attr.getName(), fieldValue)));
+        }
+    }
+    
+    /*
+     * Generates a random (version 4) UUID.
+     * UUID.randomUUID() uses a shared SecureRandom, which becomes a bottleneck when inserting many tuples,
+     *   the _id only needs to be unique, not unpredictable.
+     */
+    private static UUID newRandomUUID() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+    
     /*
      * Adds the _id to the front of the tuple, if the _id field doesn't exist in the tuple.
      */
@@ -0,0 +1,54 @@
+package edu.uci.ics.texera.storage;
+
+/**
+ * NearRealTimeConfig contains the settings of the long-lived writer of a table in near-real-time mode
+ *   (see DataWriter.openNearRealTime()).
+ *
+ *   refreshIntervalMillis: how often the tuples added by the writer are published to the DataReaders of the table,
+ *     without a commit.
+ *   commitIntervalMillis: how often the tuples added by the writer are committed to disk.
+ *   ramBufferSizeMB: the amount of RAM Lucene uses to buffer documents before flushing a segment.
+ *
+ * The settings are used when the writer of the table is created,
+ *   DataWriters attaching to an existing writer share its settings.
+ *
+ */
+public class NearRealTimeConfig {
+
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 60 * 1000;
+    public static final double DEFAULT_RAM_BUFFER_SIZE_MB = 64;
+
+    private final long refreshIntervalMillis;
+    private final long commitIntervalMillis;
+    private final double ramBufferSizeMB;
+
+    /**
+     * Creates a NearRealTimeConfig with the default settings.
+     */
+    public NearRealTimeConfig() {
+        this(DEFAULT_REFRESH_INTERVAL_MILLIS, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_RAM_BUFFER_SIZE_MB);
+    }
+
+    public NearRealTimeConfig(long refreshIntervalMillis, long commitIntervalMillis, double ramBufferSizeMB) {
+        if (refreshIntervalMillis <= 0 || commitIntervalMillis <= 0) {
+            throw new IllegalArgumentException("refreshIntervalMillis and commitIntervalMillis must be positive");
+        }
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.ramBufferSizeMB = ramBufferSizeMB;
+    }
+
+    public long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    public long getCommitIntervalMillis() {
+        return commitIntervalMillis;
+    }
+
+    public double getRamBufferSizeMB() {
+        return ramBufferSizeMB;
+    }
+
+}
@@ -0,0 +1,213 @@
+package edu.uci.ics.texera.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.FSDirectory;
+
+import edu.uci.ics.texera.api.exception.StorageException;
+import edu.uci.ics.texera.storage.statistics.NumericHistogram;
+import edu.uci.ics.texera.storage.statistics.TableStatistics;
+
+/**
+ * NearRealTimeWriter is the long-lived Lucene IndexWriter of a table in near-real-time mode.
+ *
+ * The DataWriters of the table attach to the shared writer instead of opening their own (see DataWriter.open()).
+ * The searcher manager of the table is opened from the writer,
+ *   so the tuples added by the writer become visible to the DataReaders when the manager is refreshed,
+ *   before they are committed.
+ * A background thread refreshes the manager every (refreshIntervalMillis),
+ *   and commits the changes every (commitIntervalMillis).
+ *   A failed refresh or commit is logged and retried in the next interval,
+ *   unless the writer is broken, then the DataWriters fail when they insert tuples or commit (see checkError()).
+ *
+ * The histograms of the table (see TableStatistics) are kept by the shared writer
+ *   and saved in the commit data every time the writer commits.
+ *
+ * NearRealTimeWriters are only created and closed by the RelationManager.
+ *
+ */
+class NearRealTimeWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(NearRealTimeWriter.class.getName());
+
+    private final NearRealTimeConfig config;
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+
+    // the histogram of each numeric attribute, null if the index has tuples written without statistics
+    private volatile Map<String, NumericHistogram> histograms;
+    private volatile boolean histogramsReplaced = false;
+
+    private final Thread refreshThread;
+    private final AtomicReference<Throwable> refreshError = new AtomicReference<>();
+    // the background thread waits on the lock between refreshes, close() wakes it up
+    private final Object refreshLock = new Object();
+    private volatile boolean isClosed = false;
+
+    NearRealTimeWriter(Path indexDirectory, Analyzer analyzer, NearRealTimeConfig config) throws StorageException {
+        this.config = config;
+        IndexWriterConfig conf = new IndexWriterConfig(analyzer);
+        conf.setRAMBufferSizeMB(config.getRamBufferSizeMB());
+        try {
+            this.indexWriter = new IndexWriter(FSDirectory.open(indexDirectory), conf);
+            this.searcherManager = new SearcherManager(this.indexWriter, true, null);
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+        this.histograms = TableStatistics.readHistograms(this.indexWriter.getCommitData());
+        if (this.histograms == null && this.indexWriter.maxDoc() == 0) {
+            this.histograms = new HashMap<>();
+        }
+
+        this.refreshThread = new Thread(this::runRefresh, "texera-nrt-refresh-" + indexDirectory.getFileName());
+        this.refreshThread.setDaemon(true);
+        this.refreshThread.start();
+    }
+
+    IndexWriter getIndexWriter() {
+        return this.indexWriter;
+    }
+
+    SearcherManager getSearcherManager() {
+        return this.searcherManager;
+    }
+
+    NearRealTimeConfig getConfig() {
+        return this.config;
+    }
+
+    Map<String, NumericHistogram> getHistograms() {
+        return this.histograms;
+    }
+
+    void setHistograms(Map<String, NumericHistogram> histograms) {
+        this.histograms = histograms;
+        this.histogramsReplaced = true;
+    }
+
+    boolean isClosed() {
+        return this.isClosed;
+    }
+
+    /*
+     * The loop of the background thread,
+     *   which publishes the new segments to the readers and commits them periodically.
+     */
+    private void runRefresh() {
+        long lastCommitTime = System.currentTimeMillis();
+        while (true) {
+            synchronized (refreshLock) {
+                try {
+                    if (! isClosed) {
+                        refreshLock.wait(config.getRefreshIntervalMillis());
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (isClosed) {
+                    return;
+                }
+            }
+            try {
+                searcherManager.maybeRefresh();
+                if (System.currentTimeMillis() - lastCommitTime >= config.getCommitIntervalMillis()) {
+                    commit();
+                    lastCommitTime = System.currentTimeMillis();
+                }
+            } catch (Throwable e) {
+                // the writer is closed by close() while refreshing
+                if (isClosed) {
+                    return;
+                }
+                // the writer is broken, the error is thrown when the writer is used next time
+                if (! indexWriter.isOpen() || indexWriter.getTragicException() != null) {
+                    refreshError.compareAndSet(null, e);
+                    return;
+                }
+                LOGGER.log(Level.WARNING, "near-real-time refresh failed, retrying in the next interval", e);
+            }
+        }
+    }
+
+    /**
+     * Throws the error that broke the shared writer in the background thread, if there is one.
+     *
+     * @throws StorageException
+     */
+    void checkError() throws StorageException {
+        Throwable error = refreshError.get();
+        if (error != null) {
+            throw new StorageException("near-real-time writer failed: " + error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Commits the changes of the shared writer together with the histograms,
+     *   and makes them visible to the DataReaders of the table.
+     *
+     * @throws StorageException
+     */
+    synchronized void commit() throws StorageException {
+        checkError();
+        try {
+            Map<String, NumericHistogram> currentHistograms = this.histograms;
+            if (currentHistograms != null && (this.indexWriter.hasUncommittedChanges() || histogramsReplaced)) {
+                Map<String, String> commitData = new HashMap<>();
+                if (this.indexWriter.getCommitData() != null) {
+                    commitData.putAll(this.indexWriter.getCommitData());
+                }
+                synchronized (currentHistograms) {
+                    TableStatistics.writeHistograms(currentHistograms, commitData);
+                }
+                this.indexWriter.setCommitData(commitData);
+                histogramsReplaced = false;
+            }
+            this.indexWriter.commit();
+            this.searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops the background thread, commits the changes and closes the shared writer.
+     * The searcher manager opened from the writer is closed by the RelationManager.
+     *
+     * @throws StorageException
+     */
+    void close() throws StorageException {
+        synchronized (refreshLock) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            refreshLock.notifyAll();
+        }
+        // the thread isn't interrupted, interrupting Lucene I/O may break the writer
+        try {
+            refreshThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            commit();
+        } finally {
+            try {
+                this.indexWriter.close();
+            } catch (IOException e) {
+                throw new StorageException(e.getMessage(), e);
+            }
+        }
+    }
+
+}
@@ -3,33 +3,62 @@ package edu.uci.ics.texera.storage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 
 import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.exception.DataflowException;
 import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.field.IDField;
-import edu.uci.ics.texera.api.field.IField;
 import edu.uci.ics.texera.api.schema.Attribute;
 import edu.uci.ics.texera.api.schema.AttributeType;
 import edu.uci.ics.texera.api.schema.Schema;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.statistics.NumericHistogram;
+import edu.uci.ics.texera.storage.statistics.TableStatistics;
 import edu.uci.ics.texera.storage.utils.StorageUtils;
 
 public class RelationManager {
     
+    private static final Logger LOGGER = Logger.getLogger(RelationManager.class.getName());
+    
     private static volatile RelationManager singletonInstance = null;
     
+    // a map from the (canonical) index directory of a table to its shared searcher manager
+    private static final ConcurrentHashMap<Path, SearcherManagerEntry> searcherManagerMap = new ConcurrentHashMap<>();
+    // a map from the (canonical) index directory of a table to its long-lived writer in near-real-time mode
+    private static final ConcurrentHashMap<Path, NearRealTimeWriter> nearRealTimeWriterMap = new ConcurrentHashMap<>();
+    private static volatile boolean nearRealTimeShutdownHookAdded = false;
+    
+    // an in-memory cache of the catalog, a map from the (lower case) table name to the table's catalog information
+    private final ConcurrentHashMap<String, TableCatalogEntry> catalogCache = new ConcurrentHashMap<>();
+    // the version of the catalog, it's increased every time a table is created or deleted
+    private volatile long catalogVersion = 0;
+    
     private RelationManager() throws StorageException {
         if (! checkCatalogExistence()) {
             initializeCatalog();
@@ -54,8 +83,7 @@ public class RelationManager {
      * @return
      */
     public boolean checkTableExistence(String tableName) {
-        tableName = tableName.toLowerCase();
-        return getTableCatalogTuple(tableName) != null;
+        return getTableCatalogEntry(tableName) != null;
     }
 
     /**
@@ -73,8 +101,27 @@ public class RelationManager {
      * @param luceneAnalyzerString, the string representing the lucene analyzer used
      * @throws StorageException
      */
-    public void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString)
+    public synchronized void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString)
             throws StorageException {
+        createTable(tableName, indexDirectory, schema, luceneAnalyzerString, false);
+    }
+    
+    /**
+     * Creates a new table, optionally with the binary payload layout.
+     * 
+     * With the binary payload layout, the tokens of every TEXT field are also stored as a compact binary token stream
+     *   when a tuple is written, and DataReaders decode the payload from it lazily, 
+     *   instead of reconstructing the payload from the term vectors.
+     * 
+     * @param tableName, the name of the table, must be unique, case is not sensitive
+     * @param indexDirectory, the directory to store the index and data, must not duplicate with other tables' directories
+     * @param schema, the schema of the table
+     * @param luceneAnalyzerString, the string representing the lucene analyzer used
+     * @param binaryPayload, if the table uses the binary payload layout
+     * @throws StorageException
+     */
+    public synchronized void createTable(String tableName, Path indexDirectory, Schema schema, String luceneAnalyzerString,
+            boolean binaryPayload) throws StorageException {
         // convert the table name to lower case
         tableName = tableName.toLowerCase();
         // table should not exist
@@ -98,6 +145,7 @@ public class RelationManager {
         Query indexDirectoryQuery = new TermQuery(new Term(CatalogConstants.TABLE_DIRECTORY, indexDirectoryStr));
         DataReader tableCatalogDataReader = new DataReader(CatalogConstants.TABLE_CATALOG_DATASTORE, indexDirectoryQuery);
         tableCatalogDataReader.setPayloadAdded(false);
+        tableCatalogDataReader.setStreaming(true);
         
         tableCatalogDataReader.open();
         Tuple nextTuple = tableCatalogDataReader.getNextTuple();
@@ -122,13 +170,17 @@ public class RelationManager {
         // create the directory and clear all data in the index directory
         Schema tableSchema = Schema.Builder.getSchemaWithID(schema);
         DataStore tableDataStore = new DataStore(indexDirectory, tableSchema);
+        closeNearRealTimeWriter(indexDirectory);
+        closeSearcherManager(indexDirectory);
         DataWriter dataWriter = new DataWriter(tableDataStore, luceneAnalyzer);
         dataWriter.open();
         dataWriter.clearData();
+        dataWriter.setBinaryPayload(binaryPayload);
         dataWriter.close();
         
         // write table info to catalog
         writeTableInfoToCatalog(tableName, indexDirectory, schema, luceneAnalyzerString);
+        invalidateCatalogCache(tableName);
 
     }
 
@@ -140,7 +192,7 @@ public class RelationManager {
      * @param tableName, the name of a table, case insensitive
      * @throws StorageException
      */
-    public void deleteTable(String tableName) throws StorageException {
+    public synchronized void deleteTable(String tableName) throws StorageException {
         tableName = tableName.toLowerCase();
         // User can't delete catalog table
         if (isSystemCatalog(tableName)) {
@@ -151,12 +203,17 @@ public class RelationManager {
             return;
         }
         
+        // stop the near-real-time writer of the table, if any
+        closeNearRealTimeWriter(Paths.get(getTableDirectory(tableName)));
+        
         // try to clear all data in the table
         DataWriter dataWriter = getTableDataWriter(tableName);
         dataWriter.open();
         dataWriter.clearData();
         dataWriter.close();
-        StorageUtils.deleteDirectory(getTableDirectory(tableName));
+        String tableDirectory = getTableDirectory(tableName);
+        closeSearcherManager(Paths.get(tableDirectory));
+        StorageUtils.deleteDirectory(tableDirectory);
 
         // generate a query for the table name
         Query catalogTableNameQuery = new TermQuery(new Term(CatalogConstants.TABLE_NAME, tableName));
@@ -175,6 +232,7 @@ public class RelationManager {
         schemaCatalogWriter.deleteTuple(catalogTableNameQuery);
         schemaCatalogWriter.close();
         
+        invalidateCatalogCache(tableName);
     }
     
     /**
@@ -193,6 +251,8 @@ public class RelationManager {
         // find the tuple using DataReader
         DataReader dataReader = getTableDataReader(tableName, tupleIDQuery);
         dataReader.setPayloadAdded(false);
+        dataReader.setStreaming(true);
+        dataReader.setLimit(1);
 
         dataReader.open(); 
         Tuple tuple = dataReader.getNextTuple();
@@ -251,17 +311,14 @@ public class RelationManager {
      * @throws StorageException
      */
     public String getTableDirectory(String tableName) throws StorageException {
-        // get the tuples with tableName from the table catalog
-        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        TableCatalogEntry catalogEntry = getTableCatalogEntry(tableName);
         
-        // if the tuple is not found, then the table name is not found
-        if (tableCatalogTuple == null) {
+        // if the entry is not found, then the table name is not found
+        if (catalogEntry == null) {
             throw new StorageException(String.format("The directory for table %s is not found.", tableName));
         }
 
-        // get the directory field
-        IField directoryField = tableCatalogTuple.getField(CatalogConstants.TABLE_DIRECTORY);
-        return directoryField.getValue().toString();
+        return catalogEntry.tableDirectory;
     }
 
     /**
@@ -272,25 +329,14 @@ public class RelationManager {
      * @throws StorageException
      */
     public Schema getTableSchema(String tableName) throws StorageException {
-        // get the tuples with tableName from the schema catalog
-        List<Tuple> tableAttributeTuples = getSchemaCatalogTuples(tableName);
+        TableCatalogEntry catalogEntry = getTableCatalogEntry(tableName);
 
-        // if the list is empty, then the schema is not found
-        if (tableAttributeTuples.isEmpty()) {
+        // if the schema is not in the catalog, then the schema is not found
+        if (catalogEntry == null || catalogEntry.tableSchema == null) {
             throw new StorageException(String.format("The schema of table %s is not found.", tableName));
         }
         
-        // convert the unordered list of tuples to an order list of attributes
-        List<Attribute> tableSchemaData = tableAttributeTuples.stream()
-                // sort the tuples based on the attributePosition field.
-                .sorted((tuple1, tuple2) -> Integer.compare((int) tuple1.getField(CatalogConstants.ATTR_POSITION).getValue(), 
-                        (int) tuple2.getField(CatalogConstants.ATTR_POSITION).getValue()))
-                // map one tuple to one attribute
-                .map(tuple -> new Attribute(tuple.getField(CatalogConstants.ATTR_NAME).getValue().toString(),
-                        convertAttributeType(tuple.getField(CatalogConstants.ATTR_TYPE).getValue().toString())))
-                .collect(Collectors.toList());
-        
-        return new Schema(tableSchemaData.stream().toArray(Attribute[]::new));
+        return catalogEntry.tableSchema;
     }
     
     /**
@@ -301,40 +347,372 @@ public class RelationManager {
      * @throws StorageException
      */
     public String getTableAnalyzerString(String tableName) throws StorageException {
-        // get the tuples with tableName from the table catalog
-        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        TableCatalogEntry catalogEntry = getTableCatalogEntry(tableName);
         
-        // if the tuple is not found, then the table name is not found
-        if (tableCatalogTuple == null) {
+        // if the entry is not found, then the table name is not found
+        if (catalogEntry == null) {
             throw new StorageException(String.format("The analyzer for table %s is not found.", tableName));
         }
         
-        // get the lucene analyzer string
-        IField analyzerField = tableCatalogTuple.getField(CatalogConstants.TABLE_LUCENE_ANALYZER);
-        String analyzerString = analyzerField.getValue().toString();
-        
-        return analyzerString;
+        return catalogEntry.luceneAnalyzerString;
     }
 
     /**
      * Gets the Lucene analyzer of a table.
+     * The analyzer instance is cached and shared, it must not be closed by the caller.
      *   
      * @param tableName, the name of the table, case insensitive
      * @return
      * @throws StorageException
      */
     public Analyzer getTableAnalyzer(String tableName) throws StorageException {
-        String analyzerString = getTableAnalyzerString(tableName);
+        TableCatalogEntry catalogEntry = getTableCatalogEntry(tableName);
         
-        // convert a lucene analyzer string to an analyzer object
-        Analyzer luceneAnalyzer = null;
-        try {
-            luceneAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(analyzerString);
-        } catch (DataflowException e) {
-            throw new StorageException(e);
+        // if the entry is not found, then the table name is not found
+        if (catalogEntry == null) {
+            throw new StorageException(String.format("The analyzer for table %s is not found.", tableName));
         }
         
-        return luceneAnalyzer;
+        return catalogEntry.getLuceneAnalyzer();
+    }
+    
+    /**
+     * Gets the statistics of a table: the number of tuples, which is exact,
+     *   and the histograms of the numeric attributes, which are saved by the DataWriters of the table.
+     * A table with tuples written before the statistics are added doesn't have histograms
+     *   until its statistics are refreshed.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @return the statistics of the last committed version of the table
+     * @throws StorageException
+     */
+    public TableStatistics getTableStatistics(String tableName) throws StorageException {
+        DataStore dataStore = getTableDataStore(tableName);
+        SearcherManager searcherManager = getSearcherManager(dataStore.getDataDirectory());
+        try {
+            IndexSearcher indexSearcher = searcherManager.acquire();
+            try {
+                IndexReader indexReader = indexSearcher.getIndexReader();
+                Map<String, NumericHistogram> histograms = null;
+                if (indexReader instanceof DirectoryReader) {
+                    histograms = TableStatistics.readHistograms(
+                            ((DirectoryReader) indexReader).getIndexCommit().getUserData());
+                }
+                if (histograms == null && indexReader.maxDoc() == 0) {
+                    histograms = new HashMap<>();
+                }
+                if (histograms != null) {
+                    // the attributes without values don't have their histograms saved
+                    for (Attribute attr : dataStore.getSchema().getAttributes()) {
+                        AttributeType attributeType = attr.getType();
+                        if (attributeType == AttributeType.INTEGER || attributeType == AttributeType.DOUBLE
+                                || attributeType == AttributeType.DATE || attributeType == AttributeType.DATETIME) {
+                            histograms.putIfAbsent(attr.getName(), new NumericHistogram());
+                        }
+                    }
+                } else {
+                    histograms = new HashMap<>();
+                }
+                return new TableStatistics(indexReader.numDocs(), histograms);
+            } finally {
+                searcherManager.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Gets the number of tuples in a table that contain a term in an attribute,
+     *   the deleted tuples that are not merged away yet are also counted.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @param attributeName, the name of the attribute
+     * @param term, the term (analyzed by the analyzer of the table for TEXT attributes)
+     * @return the document frequency of the term
+     * @throws StorageException
+     */
+    public int getTermDocumentFrequency(String tableName, String attributeName, String term) throws StorageException {
+        SearcherManager searcherManager = getSearcherManager(getTableDataStore(tableName).getDataDirectory());
+        try {
+            IndexSearcher indexSearcher = searcherManager.acquire();
+            try {
+                return indexSearcher.getIndexReader().docFreq(new Term(attributeName, term));
+            } finally {
+                searcherManager.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Rebuilds the histograms of a table from the tuples in the table,
+     *   which removes the values of the deleted and updated tuples from the histograms.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @throws StorageException
+     */
+    public void refreshTableStatistics(String tableName) throws StorageException {
+        DataWriter dataWriter = getTableDataWriter(tableName);
+        dataWriter.open();
+        try {
+            dataWriter.refreshStatistics();
+        } finally {
+            dataWriter.close();
+        }
+    }
+    
+    /**
+     * Checks if every document in a table has the range field of a DATE or DATETIME attribute 
+     *   (see StorageUtils.getLuceneFields()), so that the attribute can be filtered by range queries.
+     * The documents written before the range fields are added don't have them.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @param attributeName, the name of the DATE or DATETIME attribute
+     * @return
+     * @throws StorageException
+     */
+    public boolean isRangeFieldIndexed(String tableName, String attributeName) throws StorageException {
+        SearcherManager searcherManager = getSearcherManager(getTableDataStore(tableName).getDataDirectory());
+        try {
+            IndexSearcher indexSearcher = searcherManager.acquire();
+            try {
+                for (LeafReaderContext leafContext : indexSearcher.getIndexReader().leaves()) {
+                    LeafReader leafReader = leafContext.reader();
+                    if (getTermsDocCount(leafReader.terms(attributeName)) 
+                            != getTermsDocCount(leafReader.terms(StorageUtils.getRangeFieldName(attributeName)))) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                searcherManager.release(indexSearcher);
+            }
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        }
+    }
+    
+    private static int getTermsDocCount(Terms terms) throws IOException {
+        return terms == null ? 0 : terms.getDocCount();
+    }
+    
+    /**
+     * Gets the shared searcher manager of the index in the directory.
+     * 
+     * A single searcher manager is kept for every index directory (including the catalog tables),
+     *   so that DataReaders reading the same table share one Lucene IndexReader 
+     *   instead of opening the index from scratch every time.
+     * Searchers must be acquired from and released to the manager, 
+     *   the underlying IndexReader is reference-counted by the manager.
+     * 
+     * @param indexDirectory, the directory of the index
+     * @return the searcher manager of the index
+     * @throws StorageException
+     */
+    static SearcherManager getSearcherManager(Path indexDirectory) throws StorageException {
+        Path directoryKey = getCanonicalDirectory(indexDirectory);
+        SearcherManagerEntry searcherManagerEntry = searcherManagerMap.get(directoryKey);
+        if (searcherManagerEntry != null) {
+            return searcherManagerEntry.searcherManager;
+        }
+        synchronized (searcherManagerMap) {
+            searcherManagerEntry = searcherManagerMap.get(directoryKey);
+            if (searcherManagerEntry == null) {
+                Directory directory = null;
+                try {
+                    directory = FSDirectory.open(directoryKey);
+                    searcherManagerEntry = new SearcherManagerEntry(new SearcherManager(directory, null), directory);
+                } catch (IOException e) {
+                    closeDirectory(directory);
+                    throw new StorageException(e.getMessage(), e);
+                }
+                searcherManagerMap.put(directoryKey, searcherManagerEntry);
+            }
+            return searcherManagerEntry.searcherManager;
+        }
+    }
+    
+    /**
+     * Refreshes the shared searcher manager of the index in the directory,
+     *   so that the changes committed to the index are visible to the DataReaders opened afterwards.
+     * It does nothing if no searcher manager has been created for the directory.
+     * 
+     * @param indexDirectory, the directory of the index
+     * @throws StorageException
+     */
+    static void refreshSearcherManager(Path indexDirectory) throws StorageException {
+        Path directoryKey = getCanonicalDirectory(indexDirectory);
+        SearcherManagerEntry searcherManagerEntry = searcherManagerMap.get(directoryKey);
+        if (searcherManagerEntry == null) {
+            return;
+        }
+        try {
+            searcherManagerEntry.searcherManager.maybeRefreshBlocking();
+        } catch (IOException | RuntimeException e) {
+            // the index can't be refreshed (for example, it has been removed), 
+            // drop the manager so that it's re-created when the index is read next time,
+            // unless it's opened from a near-real-time writer
+            if (findNearRealTimeWriter(indexDirectory) == null) {
+                closeSearcherManager(indexDirectory);
+            }
+        }
+    }
+    
+    /**
+     * Commits the tuples written to a table in near-real-time mode (see DataWriter.openNearRealTime()),
+     *   without waiting for the commit interval.
+     * It does nothing if the table doesn't have a near-real-time writer.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @throws StorageException
+     */
+    public void commitNearRealTimeWriter(String tableName) throws StorageException {
+        NearRealTimeWriter nearRealTimeWriter = findNearRealTimeWriter(Paths.get(getTableDirectory(tableName)));
+        if (nearRealTimeWriter != null) {
+            nearRealTimeWriter.commit();
+        }
+    }
+    
+    /**
+     * Commits and closes the near-real-time writer of a table, 
+     *   the DataWriters opened afterwards open their own Lucene writers again.
+     * It does nothing if the table doesn't have a near-real-time writer.
+     * 
+     * @param tableName, the name of the table, case insensitive
+     * @throws StorageException
+     */
+    public void closeNearRealTimeWriter(String tableName) throws StorageException {
+        closeNearRealTimeWriter(Paths.get(getTableDirectory(tableName)));
+    }
+    
+    /**
+     * Gets the near-real-time writer of the index in the directory, the writer is created if it doesn't exist.
+     * 
+     * The shared searcher manager of the index is replaced by a manager opened from the writer,
+     *   so that the DataReaders see the tuples added by the writer after every refresh.
+     * 
+     * @param indexDirectory, the directory of the index
+     * @param analyzer, the analyzer of the table
+     * @param config, the settings used if the writer is created
+     * @return the near-real-time writer of the index
+     * @throws StorageException
+     */
+    static NearRealTimeWriter getNearRealTimeWriter(Path indexDirectory, Analyzer analyzer, NearRealTimeConfig config) 
+            throws StorageException {
+        Path directoryKey = getCanonicalDirectory(indexDirectory);
+        NearRealTimeWriter nearRealTimeWriter = nearRealTimeWriterMap.get(directoryKey);
+        if (nearRealTimeWriter != null) {
+            return nearRealTimeWriter;
+        }
+        synchronized (searcherManagerMap) {
+            nearRealTimeWriter = nearRealTimeWriterMap.get(directoryKey);
+            if (nearRealTimeWriter == null) {
+                addNearRealTimeShutdownHook();
+                closeSearcherManager(directoryKey);
+                nearRealTimeWriter = new NearRealTimeWriter(directoryKey, analyzer, config);
+                searcherManagerMap.put(directoryKey, new SearcherManagerEntry(nearRealTimeWriter.getSearcherManager(),
+                        nearRealTimeWriter.getIndexWriter().getDirectory()));
+                nearRealTimeWriterMap.put(directoryKey, nearRealTimeWriter);
+            }
+            return nearRealTimeWriter;
+        }
+    }
+    
+    /**
+     * Finds the near-real-time writer of the index in the directory.
+     * 
+     * @param indexDirectory, the directory of the index
+     * @return the near-real-time writer, or null if the index doesn't have one
+     */
+    static NearRealTimeWriter findNearRealTimeWriter(Path indexDirectory) {
+        if (nearRealTimeWriterMap.isEmpty()) {
+            return null;
+        }
+        return nearRealTimeWriterMap.get(getCanonicalDirectory(indexDirectory));
+    }
+    
+    /*
+     * Commits and closes the near-real-time writer of the index in the directory,
+     *   and closes the searcher manager opened from it.
+     */
+    private static void closeNearRealTimeWriter(Path indexDirectory) throws StorageException {
+        Path directoryKey = getCanonicalDirectory(indexDirectory);
+        synchronized (searcherManagerMap) {
+            NearRealTimeWriter nearRealTimeWriter = nearRealTimeWriterMap.remove(directoryKey);
+            if (nearRealTimeWriter == null) {
+                return;
+            }
+            try {
+                nearRealTimeWriter.close();
+            } finally {
+                closeSearcherManager(directoryKey);
+            }
+        }
+    }
+    
+    /*
+     * Commits the tuples of the near-real-time writers when the JVM exits.
+     */
+    private static void addNearRealTimeShutdownHook() {
+        if (nearRealTimeShutdownHookAdded) {
+            return;
+        }
+        nearRealTimeShutdownHookAdded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Path directoryKey : new ArrayList<>(nearRealTimeWriterMap.keySet())) {
+                try {
+                    closeNearRealTimeWriter(directoryKey);
+                } catch (StorageException e) {
+                    LOGGER.log(Level.SEVERE, "failed to close the near-real-time writer of " + directoryKey, e);
+                }
+            }
+        }, "texera-nrt-shutdown"));
+    }
+    
+    /*
+     * Closes and removes the shared searcher manager of the index in the directory, 
+     *   and closes the Lucene directory it's opened on.
+     * The searchers that are still being used are released when their DataReaders are closed.
+     */
+    private static void closeSearcherManager(Path indexDirectory) throws StorageException {
+        SearcherManagerEntry searcherManagerEntry = searcherManagerMap.remove(getCanonicalDirectory(indexDirectory));
+        if (searcherManagerEntry == null) {
+            return;
+        }
+        try {
+            searcherManagerEntry.searcherManager.close();
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage(), e);
+        } finally {
+            closeDirectory(searcherManagerEntry.directory);
+        }
+    }
+    
+    /*
+     * Closes a Lucene directory, the error is ignored since the directory isn't used afterwards.
+     */
+    private static void closeDirectory(Directory directory) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            directory.close();
+        } catch (IOException e) {
+            // the directory can't be used anyway
+        }
+    }
+    
+    /*
+     * Converts an index directory to the key used in the searcher manager map.
+     */
+    private static Path getCanonicalDirectory(Path indexDirectory) {
+        try {
+            return indexDirectory.toRealPath();
+        } catch (IOException e) {
+            return indexDirectory.toAbsolutePath().normalize();
+        }
     }
     
     /*
@@ -364,6 +742,66 @@ public class RelationManager {
         dataWriter.close();
     }
     
+    /*
+     * Gets the catalog information of a table from the in-memory catalog cache.
+     * If the table is not in the cache, its information is read from the catalog tables and then cached,
+     *   unless a table is created or deleted in the meantime.
+     * 
+     * Returns null if the table doesn't exist.
+     */
+    private TableCatalogEntry getTableCatalogEntry(String tableName) throws StorageException {
+        tableName = tableName.toLowerCase();
+        TableCatalogEntry catalogEntry = catalogCache.get(tableName);
+        if (catalogEntry != null) {
+            return catalogEntry;
+        }
+        
+        long loadedCatalogVersion = catalogVersion;
+        Tuple tableCatalogTuple = getTableCatalogTuple(tableName);
+        if (tableCatalogTuple == null) {
+            return null;
+        }
+        List<Tuple> tableAttributeTuples = getSchemaCatalogTuples(tableName);
+        
+        catalogEntry = new TableCatalogEntry(
+                tableCatalogTuple.getField(CatalogConstants.TABLE_DIRECTORY).getValue().toString(),
+                tableCatalogTuple.getField(CatalogConstants.TABLE_LUCENE_ANALYZER).getValue().toString(),
+                tableAttributeTuples.isEmpty() ? null : convertSchemaCatalogTuples(tableAttributeTuples));
+        
+        // only cache the complete information of a table that's not modified since it's read
+        synchronized (this) {
+            if (catalogEntry.tableSchema != null && loadedCatalogVersion == catalogVersion) {
+                catalogCache.put(tableName, catalogEntry);
+            }
+        }
+        return catalogEntry;
+    }
+    
+    /*
+     * Removes a table from the in-memory catalog cache and increases the catalog version,
+     *   it must be called after a table is created or deleted.
+     */
+    private synchronized void invalidateCatalogCache(String tableName) {
+        catalogVersion++;
+        catalogCache.remove(tableName.toLowerCase());
+    }
+    
+    /*
+     * Converts the unordered list of schema catalog tuples of a table to the table's schema.
+     */
+    private static Schema convertSchemaCatalogTuples(List<Tuple> tableAttributeTuples) {
+        List<Attribute> tableSchemaData = tableAttributeTuples.stream()
+                // sort the tuples based on the attributePosition field.
+                .sorted((tuple1, tuple2) -> Integer.compare((int) tuple1.getField(CatalogConstants.ATTR_POSITION).getValue(), 
+                        (int) tuple2.getField(CatalogConstants.ATTR_POSITION).getValue()))
+                // map one tuple to one attribute
+                .map(tuple -> new Attribute(tuple.getField(CatalogConstants.ATTR_NAME).getValue().toString(),
+                        convertAttributeType(tuple.getField(CatalogConstants.ATTR_TYPE).getValue().toString())))
+                .collect(Collectors.toList());
+        
+        return new Schema(tableSchemaData.stream().toArray(Attribute[]::new));
+    }
+    
     /*
      * Gets the a tuple of a table from table catalog.
      */
@@ -373,6 +811,7 @@ public class RelationManager {
         Query tableNameQuery = new TermQuery(new Term(CatalogConstants.TABLE_NAME, tableName));
         DataReader tableCatalogDataReader = new DataReader(CatalogConstants.TABLE_CATALOG_DATASTORE, tableNameQuery);
         tableCatalogDataReader.setPayloadAdded(false);
+        tableCatalogDataReader.setStreaming(true);
         
         tableCatalogDataReader.open();
         List<Tuple> tupleList = new ArrayList<>();
@@ -399,6 +838,7 @@ public class RelationManager {
         
         Query tableNameQuery = new TermQuery(new Term(CatalogConstants.TABLE_NAME, tableName));
         DataReader schemaCatalogDataReader = new DataReader(CatalogConstants.SCHEMA_CATALOG_DATASTORE, tableNameQuery);  
+        schemaCatalogDataReader.setStreaming(true);
         
         // read the tuples into a list
         schemaCatalogDataReader.open();    
@@ -462,6 +902,7 @@ public class RelationManager {
 
     public List<TableMetadata> getMetaData() throws StorageException {
         DataReader dataReader = RelationManager.getInstance().getTableDataReader(CatalogConstants.TABLE_CATALOG, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
 
         List<TableMetadata> result = new ArrayList<>();
         Tuple t = null;
@@ -478,4 +919,51 @@ public class RelationManager {
 
         return result;
     }
+    
+    /*
+     * The shared searcher manager of an index, and the Lucene directory it's opened on,
+     *   which is closed together with the manager.
+     */
+    private static class SearcherManagerEntry {
+        private final SearcherManager searcherManager;
+        private final Directory directory;
+        
+        private SearcherManagerEntry(SearcherManager searcherManager, Directory directory) {
+            this.searcherManager = searcherManager;
+            this.directory = directory;
+        }
+    }
+    
+    /*
+     * The catalog information of a table kept in the in-memory catalog cache.
+     * The Lucene analyzer is created when it's requested for the first time.
+     */
+    private static class TableCatalogEntry {
+        private final String tableDirectory;
+        private final String luceneAnalyzerString;
+        private final Schema tableSchema;
+        private volatile Analyzer luceneAnalyzer;
+        
+        private TableCatalogEntry(String tableDirectory, String luceneAnalyzerString, Schema tableSchema) {
+            this.tableDirectory = tableDirectory;
+            this.luceneAnalyzerString = luceneAnalyzerString;
+            this.tableSchema = tableSchema;
+        }
+        
+        private Analyzer getLuceneAnalyzer() throws StorageException {
+            if (luceneAnalyzer == null) {
+                synchronized (this) {
+                    if (luceneAnalyzer == null) {
+                        // convert a lucene analyzer string to an analyzer object
+                        try {
+                            luceneAnalyzer = LuceneAnalyzerConstants.getLuceneAnalyzer(luceneAnalyzerString);
+                        } catch (DataflowException e) {
+                            throw new StorageException(e);
+                        }
+                    }
+                }
+            }
+            return luceneAnalyzer;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package edu.uci.ics.texera.storage.constants;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
@@ -24,6 +25,9 @@ public class LuceneAnalyzerConstants {
     
     public static final String CHINESE_ANALYZER = "chinese";
     
+    // the shared analyzer of each analyzer string, see getLuceneAnalyzer()
+    private static final ConcurrentHashMap<String, Analyzer> analyzerMap = new ConcurrentHashMap<>();
+    
     
     public static String standardAnalyzerString() {
         return STANDARD_ANALYZER;
@@ -48,11 +52,29 @@ public class LuceneAnalyzerConstants {
      *   "n-gram", n represents the number of grams, for example, "3-gram",
      *     same as calling nGramAnalyzerString(3).
      * 
+     * The analyzer of each string is created once and shared, Lucene analyzers can be used by several threads.
+     * The shared analyzer must not be closed by the caller.
+     * 
      * @param luceneAnalyzerString
      * @return
      * @throws DataflowException, if the luceneAnalyzerString is invalid
      */
     public static Analyzer getLuceneAnalyzer(String luceneAnalyzerString) throws DataflowException {
+        Analyzer luceneAnalyzer = analyzerMap.get(luceneAnalyzerString);
+        if (luceneAnalyzer == null) {
+            luceneAnalyzer = analyzerMap.computeIfAbsent(luceneAnalyzerString, LuceneAnalyzerConstants::newLuceneAnalyzer);
+        }
+        return luceneAnalyzer;
+    }
+    
+    /**
+     * Creates a new lucene analyzer based on the string, see getLuceneAnalyzer().
+     * 
+     * @param luceneAnalyzerString
+     * @return
+     * @throws DataflowException, if the luceneAnalyzerString is invalid
+     */
+    public static Analyzer newLuceneAnalyzer(String luceneAnalyzerString) throws DataflowException {
         if (luceneAnalyzerString.equals("standard")) {
             return LuceneAnalyzerConstants.getStandardAnalyzer();
         }
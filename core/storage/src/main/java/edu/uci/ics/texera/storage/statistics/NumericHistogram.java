@@ -0,0 +1,215 @@
+package edu.uci.ics.texera.storage.statistics;
+
+import java.util.Arrays;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * NumericHistogram is an equi-width histogram of the values of a numeric attribute,
+ *   which is used to estimate the selectivity of range predicates.
+ *
+ * The histogram is built incrementally: it has a fixed number of buckets,
+ *   when a value falls outside the current range, every two adjacent buckets are merged
+ *   and the range is doubled towards the value. So the histogram never needs to see the values again.
+ *
+ * DATE and DATETIME values are added as their long encodings (see StorageUtils.getDateLongValue()).
+ *
+ */
+public class NumericHistogram {
+
+    public static final int NUM_BUCKETS = 64;
+
+    private long count;
+    private double min;
+    private double max;
+    // bucket i covers [lower + i * bucketWidth, lower + (i + 1) * bucketWidth),
+    //   the width is 0 if all the values are the same
+    private double lower;
+    private double bucketWidth;
+    private long[] bucketCounts;
+
+    public NumericHistogram() {
+        this(0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0, 0, new long[NUM_BUCKETS]);
+    }
+
+    @JsonCreator
+    public NumericHistogram(
+            @JsonProperty(value = "count", required = true)
+            long count,
+            @JsonProperty(value = "min", required = true)
+            double min,
+            @JsonProperty(value = "max", required = true)
+            double max,
+            @JsonProperty(value = "lower", required = true)
+            double lower,
+            @JsonProperty(value = "bucketWidth", required = true)
+            double bucketWidth,
+            @JsonProperty(value = "bucketCounts", required = true)
+            long[] bucketCounts) {
+        if (bucketCounts.length != NUM_BUCKETS) {
+            throw new IllegalArgumentException("the histogram must have " + NUM_BUCKETS + " buckets");
+        }
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.lower = lower;
+        this.bucketWidth = bucketWidth;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * Adds a value to the histogram. NaN and infinite values are ignored.
+     *
+     * @param value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        if (count == 0) {
+            lower = value;
+            bucketWidth = 0;
+        } else if (bucketWidth == 0 && value != lower) {
+            // the second distinct value, spread the range between the two values over the buckets
+            double width = Math.abs(value - lower) / (NUM_BUCKETS - 1);
+            if (width > 0 && ! Double.isInfinite(width)) {
+                if (value < lower) {
+                    bucketCounts[NUM_BUCKETS - 1] = bucketCounts[0];
+                    bucketCounts[0] = 0;
+                    lower = value;
+                }
+                bucketWidth = width;
+            }
+        }
+        if (bucketWidth > 0) {
+            while (value >= lower + bucketWidth * NUM_BUCKETS) {
+                growRight();
+            }
+            while (value < lower) {
+                growLeft();
+            }
+        }
+        bucketCounts[getBucketIndex(value)]++;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /*
+     * Doubles the range towards the larger values, the old buckets are merged into the lower half.
+     */
+    private void growRight() {
+        long[] newBucketCounts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            newBucketCounts[i / 2] += bucketCounts[i];
+        }
+        bucketCounts = newBucketCounts;
+        bucketWidth *= 2;
+    }
+
+    /*
+     * Doubles the range towards the smaller values, the old buckets are merged into the upper half.
+     */
+    private void growLeft() {
+        long[] newBucketCounts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            newBucketCounts[NUM_BUCKETS / 2 + i / 2] += bucketCounts[i];
+        }
+        bucketCounts = newBucketCounts;
+        lower -= bucketWidth * NUM_BUCKETS;
+        bucketWidth *= 2;
+    }
+
+    private int getBucketIndex(double value) {
+        if (bucketWidth == 0) {
+            return 0;
+        }
+        int index = (int) ((value - lower) / bucketWidth);
+        return Math.max(0, Math.min(NUM_BUCKETS - 1, index));
+    }
+
+    /**
+     * Estimates the fraction of the values in a range,
+     *   assuming the values are uniformly distributed in each bucket.
+     *
+     * @param lowerBound, the lower bound of the range, null if there's no lower bound
+     * @param upperBound, the upper bound of the range, null if there's no upper bound
+     * @return the estimated fraction, between 0 and 1
+     */
+    public double estimateRangeFraction(Double lowerBound, Double upperBound) {
+        if (count == 0) {
+            return 0;
+        }
+        double rangeLower = lowerBound == null ? Double.NEGATIVE_INFINITY : lowerBound;
+        double rangeUpper = upperBound == null ? Double.POSITIVE_INFINITY : upperBound;
+        if (rangeLower > rangeUpper || rangeLower > max || rangeUpper < min) {
+            return 0;
+        }
+        if (bucketWidth == 0) {
+            return 1;
+        }
+        if (rangeLower == rangeUpper) {
+            // a point in a bucket, assume the bucket has one distinct value per unit
+            int index = getBucketIndex(rangeLower);
+            return (double) bucketCounts[index] / count / Math.max(1, bucketWidth);
+        }
+        double matchingCount = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            if (bucketCounts[i] == 0) {
+                continue;
+            }
+            // the part of the bucket containing values
+            double bucketLower = Math.max(lower + i * bucketWidth, min);
+            double bucketUpper = Math.min(lower + (i + 1) * bucketWidth, max);
+            double overlapLower = Math.max(bucketLower, rangeLower);
+            double overlapUpper = Math.min(bucketUpper, rangeUpper);
+            if (overlapLower > overlapUpper) {
+                continue;
+            }
+            if (bucketUpper <= bucketLower) {
+                matchingCount += bucketCounts[i];
+            } else {
+                matchingCount += bucketCounts[i] * (overlapUpper - overlapLower) / (bucketUpper - bucketLower);
+            }
+        }
+        return Math.min(1, matchingCount / count);
+    }
+
+    @JsonProperty(value = "count")
+    public long getCount() {
+        return count;
+    }
+
+    @JsonProperty(value = "min")
+    public double getMin() {
+        return min;
+    }
+
+    @JsonProperty(value = "max")
+    public double getMax() {
+        return max;
+    }
+
+    @JsonProperty(value = "lower")
+    public double getLower() {
+        return lower;
+    }
+
+    @JsonProperty(value = "bucketWidth")
+    public double getBucketWidth() {
+        return bucketWidth;
+    }
+
+    @JsonProperty(value = "bucketCounts")
+    public long[] getBucketCounts() {
+        return Arrays.copyOf(bucketCounts, bucketCounts.length);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+}
@@ -0,0 +1,115 @@
+package edu.uci.ics.texera.storage.statistics;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import edu.uci.ics.texera.api.constants.DataConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
+
+/**
+ * TableStatistics is a snapshot of the statistics of a table, which is used to make cost-based plan choices.
+ *
+ * The row count and the document frequencies of the terms are exact, they're read from the Lucene index
+ *   (see RelationManager.getTableStatistics() and RelationManager.getTermDocumentFrequency()).
+ * The histograms of the INTEGER, DOUBLE, DATE and DATETIME attributes are maintained by the DataWriter
+ *   when tuples are inserted, and persisted in the commit data of the index together with the tuples.
+ * Values of deleted tuples stay in the histograms until the statistics are refreshed
+ *   (see RelationManager.refreshTableStatistics()).
+ *
+ */
+public class TableStatistics {
+
+    public static final String STATISTICS_COMMIT_KEY = "texera.statistics";
+
+    private final long rowCount;
+    private final Map<String, NumericHistogram> histograms;
+
+    /**
+     * @param rowCount, the number of the (live) tuples in the table
+     * @param histograms, the histogram of each numeric attribute, an attribute without a histogram has no statistics
+     */
+    public TableStatistics(long rowCount, Map<String, NumericHistogram> histograms) {
+        this.rowCount = rowCount;
+        this.histograms = Collections.unmodifiableMap(new HashMap<>(histograms));
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the histogram of a numeric attribute.
+     *
+     * @param attributeName
+     * @return the histogram, or null if the attribute doesn't have statistics
+     */
+    public NumericHistogram getHistogram(String attributeName) {
+        return histograms.get(attributeName);
+    }
+
+    public Map<String, NumericHistogram> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Estimates the fraction of the tuples whose value of a numeric attribute is in a range.
+     *
+     * @param attributeName
+     * @param lowerBound, the lower bound of the range (encoded as in the histogram), null if there's no lower bound
+     * @param upperBound, the upper bound of the range (encoded as in the histogram), null if there's no upper bound
+     * @return the estimated selectivity between 0 and 1, or null if the attribute doesn't have statistics
+     */
+    public Double estimateRangeSelectivity(String attributeName, Double lowerBound, Double upperBound) {
+        NumericHistogram histogram = histograms.get(attributeName);
+        if (histogram == null) {
+            return null;
+        }
+        return histogram.estimateRangeFraction(lowerBound, upperBound);
+    }
+
+    /**
+     * Reads the histograms from the commit data of an index.
+     *
+     * @param commitData, the commit data of the index
+     * @return the histograms, or null if the commit data doesn't have statistics
+     * @throws StorageException
+     */
+    public static Map<String, NumericHistogram> readHistograms(Map<String, String> commitData) throws StorageException {
+        if (commitData == null || ! commitData.containsKey(STATISTICS_COMMIT_KEY)) {
+            return null;
+        }
+        try {
+            return DataConstants.defaultObjectMapper.readValue(commitData.get(STATISTICS_COMMIT_KEY),
+                    new TypeReference<HashMap<String, NumericHistogram>>() {});
+        } catch (IOException e) {
+            throw new StorageException("failed to read the table statistics: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the histograms into the commit data of an index, the empty histograms are not written.
+     *
+     * @param histograms
+     * @param commitData, the commit data to write to
+     * @throws StorageException
+     */
+    public static void writeHistograms(Map<String, NumericHistogram> histograms, Map<String, String> commitData)
+            throws StorageException {
+        Map<String, NumericHistogram> nonEmptyHistograms = new HashMap<>();
+        histograms.forEach((attributeName, histogram) -> {
+            if (! histogram.isEmpty()) {
+                nonEmptyHistograms.put(attributeName, histogram);
+            }
+        });
+        try {
+            commitData.put(STATISTICS_COMMIT_KEY, DataConstants.defaultObjectMapper.writeValueAsString(nonEmptyHistograms));
+        } catch (IOException e) {
+            throw new StorageException("failed to write the table statistics: " + e.getMessage(), e);
+        }
+    }
+
+}
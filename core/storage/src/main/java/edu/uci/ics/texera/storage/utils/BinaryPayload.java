@@ -0,0 +1,131 @@
+package edu.uci.ics.texera.storage.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.BytesRef;
+
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
+
+/**
+ * BinaryPayload encodes the tokens of a TEXT field into a compact binary token stream at index time,
+ *   and decodes the token stream into the payload spans at read time.
+ *
+ * The token stream of a field is stored in the stored field "_payload_<attribute name>".
+ * It reads the payload of a document without reconstructing it from the term vectors.
+ *
+ * Format of the token stream:
+ *   numTerms, followed by the distinct terms of the field (each term is decoded only once),
+ *   numTokens, followed by (term id, start offset, length, position increment) of each token,
+ *   all integers are written as variable-length ints.
+ *
+ */
+public class BinaryPayload {
+
+    public static final String PAYLOAD_FIELD_PREFIX = "_payload_";
+
+    public static String getPayloadFieldName(String attributeName) {
+        return PAYLOAD_FIELD_PREFIX + attributeName;
+    }
+
+    /**
+     * Tokenizes the value of a TEXT field with the analyzer and encodes the tokens.
+     *
+     * @param analyzer, the analyzer of the table
+     * @param attributeName, the name of the TEXT attribute
+     * @param fieldValue, the value of the field
+     * @return the encoded token stream
+     * @throws IOException
+     */
+    public static BytesRef encode(Analyzer analyzer, String attributeName, String fieldValue) throws IOException {
+        List<String> terms = new ArrayList<>();
+        Map<String, Integer> termIDMap = new HashMap<>();
+        // (term id, start, end, position increment) of each token
+        List<int[]> tokens = new ArrayList<>();
+
+        try (TokenStream tokenStream = analyzer.tokenStream(attributeName, fieldValue)) {
+            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
+            OffsetAttribute offsetAttribute = tokenStream.addAttribute(OffsetAttribute.class);
+            PositionIncrementAttribute positionIncrementAttribute = tokenStream.addAttribute(PositionIncrementAttribute.class);
+
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                String term = termAttribute.toString();
+                Integer termID = termIDMap.get(term);
+                if (termID == null) {
+                    termID = terms.size();
+                    termIDMap.put(term, termID);
+                    terms.add(term);
+                }
+                tokens.add(new int[] {termID, offsetAttribute.startOffset(), offsetAttribute.endOffset(),
+                        positionIncrementAttribute.getPositionIncrement()});
+            }
+            tokenStream.end();
+        }
+
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        OutputStreamDataOutput output = new OutputStreamDataOutput(byteStream);
+        output.writeVInt(terms.size());
+        for (String term : terms) {
+            output.writeString(term);
+        }
+        output.writeVInt(tokens.size());
+        for (int[] token : tokens) {
+            output.writeVInt(token[0]);
+            output.writeVInt(token[1]);
+            output.writeVInt(token[2] - token[1]);
+            output.writeVInt(token[3]);
+        }
+        output.close();
+        return new BytesRef(byteStream.toByteArray());
+    }
+
+    /**
+     * Decodes the token stream of a field into a list of spans.
+     * The decoded terms are shared by all the spans of the same term,
+     *   and the original text of a token is the substring of the field value, which isn't copied (see ColumnarSpanList).
+     *
+     * @param attributeName, the name of the TEXT attribute
+     * @param fieldValue, the value of the field
+     * @param encodedTokens, the encoded token stream
+     * @return the spans of the tokens
+     */
+    public static ColumnarSpanList decode(String attributeName, String fieldValue, BytesRef encodedTokens) {
+        ByteArrayDataInput input = new ByteArrayDataInput(encodedTokens.bytes, encodedTokens.offset, encodedTokens.length);
+
+        int numTerms = input.readVInt();
+        String[] terms = new String[numTerms];
+        for (int i = 0; i < numTerms; i++) {
+            int termLength = input.readVInt();
+            int termOffset = input.getPosition();
+            terms[i] = new String(encodedTokens.bytes, termOffset, termLength, StandardCharsets.UTF_8);
+            input.setPosition(termOffset + termLength);
+        }
+
+        int numTokens = input.readVInt();
+        ColumnarSpanList.Builder spanListBuilder = new ColumnarSpanList.Builder();
+        spanListBuilder.setFieldValue(attributeName, fieldValue);
+        int position = -1;
+        for (int i = 0; i < numTokens; i++) {
+            String term = terms[input.readVInt()];
+            int start = input.readVInt();
+            int end = start + input.readVInt();
+            position += input.readVInt();
+            spanListBuilder.add(attributeName, start, end, term, position);
+        }
+        return spanListBuilder.build();
+    }
+
+}
@@ -0,0 +1,85 @@
+package edu.uci.ics.texera.storage.utils;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.lucene.util.BytesRef;
+
+import edu.uci.ics.texera.api.span.ColumnarSpanList;
+import edu.uci.ics.texera.api.span.Span;
+
+/**
+ * PayloadSpanList is an immutable list of the payload spans of a tuple,
+ *   which is decoded lazily from the binary token streams of its TEXT fields (see BinaryPayload).
+ *
+ * getSpans(attributeName) only decodes the spans of one attribute,
+ *   accessing the list as a whole decodes the spans of all the attributes.
+ * The decoded spans are kept in ColumnarSpanLists.
+ *
+ */
+public class PayloadSpanList extends AbstractList<Span> {
+
+    // the encoded token streams and the field values, in the order of the attributes
+    private final LinkedHashMap<String, BytesRef> encodedTokensMap;
+    private final Map<String, String> fieldValueMap;
+
+    private final Map<String, ColumnarSpanList> decodedSpansMap = new HashMap<>();
+    private ColumnarSpanList allSpans = null;
+
+    /**
+     * @param encodedTokensMap, the encoded token stream of each TEXT attribute, in the order of the attributes
+     * @param fieldValueMap, the field value of each TEXT attribute
+     */
+    public PayloadSpanList(LinkedHashMap<String, BytesRef> encodedTokensMap, Map<String, String> fieldValueMap) {
+        this.encodedTokensMap = encodedTokensMap;
+        this.fieldValueMap = fieldValueMap;
+    }
+
+    /**
+     * Gets the spans of an attribute, only the token stream of this attribute is decoded.
+     *
+     * @param attributeName
+     * @return the spans of the attribute, or an empty list if the attribute doesn't have a payload
+     */
+    public synchronized ColumnarSpanList getSpans(String attributeName) {
+        ColumnarSpanList spans = decodedSpansMap.get(attributeName);
+        if (spans == null) {
+            BytesRef encodedTokens = encodedTokensMap.get(attributeName);
+            if (encodedTokens == null) {
+                return ColumnarSpanList.emptyList();
+            }
+            spans = BinaryPayload.decode(attributeName, fieldValueMap.get(attributeName), encodedTokens);
+            decodedSpansMap.put(attributeName, spans);
+        }
+        return spans;
+    }
+
+    /**
+     * Gets the spans of all the attributes, in the order of the attributes.
+     *
+     * @return the spans of all the attributes
+     */
+    public synchronized ColumnarSpanList getAllSpans() {
+        if (allSpans == null) {
+            ColumnarSpanList.Builder spanListBuilder = new ColumnarSpanList.Builder();
+            for (String attributeName : encodedTokensMap.keySet()) {
+                spanListBuilder.addAll(getSpans(attributeName));
+            }
+            allSpans = spanListBuilder.build();
+        }
+        return allSpans;
+    }
+
+    @Override
+    public Span get(int index) {
+        return getAllSpans().get(index);
+    }
+
+    @Override
+    public int size() {
+        return getAllSpans().size();
+    }
+
+}
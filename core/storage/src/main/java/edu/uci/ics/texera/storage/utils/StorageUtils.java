@@ -8,9 +8,17 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import org.apache.lucene.document.DoubleDocValuesField;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexableField;
 
@@ -28,6 +36,33 @@ import edu.uci.ics.texera.api.schema.AttributeType;
 
 public class StorageUtils {
     
+    public static final String RANGE_FIELD_PREFIX = "_range_";
+    
+    /**
+     * DATE and DATETIME fields are stored as strings, their values are also indexed as numbers
+     *   in the range field "_range_<attribute name>" to support range queries.
+     */
+    public static String getRangeFieldName(String attributeName) {
+        return RANGE_FIELD_PREFIX + attributeName;
+    }
+    
+    /**
+     * Encodes a date as the number of days since the epoch, 
+     *   which is the value of the date in the range field and in the doc values.
+     */
+    public static long getDateLongValue(LocalDate date) {
+        return date.toEpochDay();
+    }
+    
+    /**
+     * Encodes a date time as the number of milliseconds since the epoch (in UTC),
+     *   which is the value of the date time in the range field and in the doc values.
+     * The sub-millisecond part is truncated.
+     */
+    public static long getDateTimeLongValue(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
     public static IField getField(AttributeType attributeType, String fieldValue) throws ParseException {
         IField field = null;
         switch (attributeType) {
@@ -107,6 +142,42 @@ public class StorageUtils {
         return luceneField;
     }
     
+    /**
+     * Gets all the Lucene fields of a Texera field: the field itself (see getLuceneField()),
+     *   and the doc values and the range field of INTEGER, DOUBLE, DATE and DATETIME fields,
+     *   which are used to filter the documents by range queries and to read the values by columns.
+     * 
+     * @param attributeType
+     * @param attributeName
+     * @param fieldValue
+     * @return the Lucene fields
+     */
+    public static List<IndexableField> getLuceneFields(AttributeType attributeType, String attributeName, Object fieldValue) {
+        List<IndexableField> luceneFields = new ArrayList<>();
+        luceneFields.add(getLuceneField(attributeType, attributeName, fieldValue));
+        switch (attributeType) {
+        case INTEGER:
+            luceneFields.add(new NumericDocValuesField(attributeName, (Integer) fieldValue));
+            break;
+        case DOUBLE:
+            luceneFields.add(new DoubleDocValuesField(attributeName, (Double) fieldValue));
+            break;
+        case DATE:
+            long dateValue = getDateLongValue((LocalDate) fieldValue);
+            luceneFields.add(new LongField(getRangeFieldName(attributeName), dateValue, Store.NO));
+            luceneFields.add(new NumericDocValuesField(attributeName, dateValue));
+            break;
+        case DATETIME:
+            long dateTimeValue = getDateTimeLongValue((LocalDateTime) fieldValue);
+            luceneFields.add(new LongField(getRangeFieldName(attributeName), dateTimeValue, Store.NO));
+            luceneFields.add(new NumericDocValuesField(attributeName, dateTimeValue));
+            break;
+        default:
+            break;
+        }
+        return luceneFields;
+    }
+    
     public static void deleteDirectory(String indexDir) throws StorageException {
         Path directory = Paths.get(indexDir);
         if (!Files.exists(directory)) {
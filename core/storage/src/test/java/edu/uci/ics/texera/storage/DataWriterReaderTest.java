@@ -1,19 +1,32 @@
 package edu.uci.ics.texera.storage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import org.apache.lucene.index.TieredMergePolicy;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import edu.uci.ics.texera.api.constants.SchemaConstants;
 import edu.uci.ics.texera.api.constants.test.TestConstants;
+import edu.uci.ics.texera.api.exception.StorageException;
 import edu.uci.ics.texera.api.exception.TexeraException;
+import edu.uci.ics.texera.api.field.IDField;
+import edu.uci.ics.texera.api.field.IField;
+import edu.uci.ics.texera.api.field.ListField;
+import edu.uci.ics.texera.api.field.StringField;
+import edu.uci.ics.texera.api.schema.Schema;
+import edu.uci.ics.texera.api.span.Span;
 import edu.uci.ics.texera.api.tuple.Tuple;
 import edu.uci.ics.texera.api.utils.TestUtils;
 import edu.uci.ics.texera.storage.constants.LuceneAnalyzerConstants;
+import edu.uci.ics.texera.storage.statistics.TableStatistics;
+import edu.uci.ics.texera.storage.utils.PayloadSpanList;
 
 public class DataWriterReaderTest {
     
@@ -58,4 +71,462 @@ public class DataWriterReaderTest {
         Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
     }
 
+    @Test
+    public void testStreamingReadData() throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        
+        Tuple nextTuple = null;
+        List<Tuple> returnedTuples = new ArrayList<Tuple>();
+        
+        dataReader.open();
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            returnedTuples.add(nextTuple);
+        }
+        dataReader.close();
+        
+        Assert.assertTrue(TestUtils.equals(TestConstants.getSamplePeopleTuples(), returnedTuples));
+    }
+    
+    @Test
+    public void testReadDataWithLimit() throws Exception {
+        for (boolean streaming : new boolean[] { false, true }) {
+            DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                    PEOPLE_TABLE, new MatchAllDocsQuery());
+            dataReader.setStreaming(streaming);
+            dataReader.setLimit(2);
+            
+            List<Tuple> returnedTuples = new ArrayList<Tuple>();
+            
+            dataReader.open();
+            Tuple nextTuple = null;
+            while ((nextTuple = dataReader.getNextTuple()) != null) {
+                returnedTuples.add(nextTuple);
+            }
+            dataReader.close();
+            
+            Assert.assertEquals(2, returnedTuples.size());
+            Assert.assertTrue(TestUtils.containsAll(TestConstants.getSamplePeopleTuples(), returnedTuples));
+        }
+    }
+    
+    /*
+     * Test that a DataReader with required attributes only returns these attributes and _id,
+     *   and the payload is only built on the required TEXT attributes.
+     */
+    @Test
+    public void testReadRequiredAttributes() throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(
+                PEOPLE_TABLE, new MatchAllDocsQuery());
+        dataReader.setRequiredAttributes(Arrays.asList(TestConstants.FIRST_NAME, TestConstants.DESCRIPTION));
+        dataReader.setPayloadAdded(true);
+        
+        List<Tuple> returnedTuples = new ArrayList<Tuple>();
+        
+        dataReader.open();
+        Tuple nextTuple = null;
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            returnedTuples.add(nextTuple);
+        }
+        dataReader.close();
+        
+        Schema expectedSchema = new Schema.Builder().add(SchemaConstants._ID_ATTRIBUTE)
+                .add(TestConstants.SCHEMA_PEOPLE.getAttribute(TestConstants.FIRST_NAME))
+                .add(TestConstants.SCHEMA_PEOPLE.getAttribute(TestConstants.DESCRIPTION))
+                .add(SchemaConstants.PAYLOAD_ATTRIBUTE).build();
+        Assert.assertEquals(expectedSchema, dataReader.getOutputSchema());
+        
+        List<Tuple> expectedTuples = new ArrayList<>();
+        for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+            expectedTuples.add(new Tuple.Builder(tuple)
+                    .removeIfExists(TestConstants.LAST_NAME, TestConstants.AGE, TestConstants.HEIGHT, TestConstants.DATE_OF_BIRTH)
+                    .build());
+        }
+        Assert.assertTrue(TestUtils.equals(expectedTuples, returnedTuples));
+        
+        for (Tuple tuple : returnedTuples) {
+            ListField<Span> payloadField = tuple.getField(SchemaConstants.PAYLOAD);
+            Assert.assertTrue(payloadField.getValue().stream()
+                    .allMatch(span -> span.getAttributeName().equals(TestConstants.DESCRIPTION)));
+        }
+    }
+    
+    /*
+     * Test that the payload decoded from the binary payload layout is the same as 
+     *   the payload reconstructed from the term vectors,
+     *   and the layout is kept when the table is written again.
+     */
+    @Test
+    public void testBinaryPayload() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String binaryPayloadTable = "data_writer_reader_test_binary_payload";
+        relationManager.createTable(binaryPayloadTable, TestUtils.getDefaultTestIndex().resolve(binaryPayloadTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString(), true);
+        
+        List<Tuple> sampleTuples = TestConstants.getSamplePeopleTuples();
+        DataWriter dataWriter = relationManager.getTableDataWriter(binaryPayloadTable);
+        dataWriter.open();
+        Assert.assertTrue(dataWriter.isBinaryPayload());
+        for (Tuple tuple : sampleTuples.subList(0, sampleTuples.size() / 2)) {
+            dataWriter.insertTuple(tuple);
+        }
+        dataWriter.close();
+        
+        dataWriter.openBulkLoad(new BulkLoadConfig(2, 1, 1, 16, new TieredMergePolicy()));
+        Assert.assertTrue(dataWriter.isBinaryPayload());
+        for (Tuple tuple : sampleTuples.subList(sampleTuples.size() / 2, sampleTuples.size())) {
+            dataWriter.insertTuple(tuple);
+        }
+        dataWriter.close();
+        
+        List<Span> binaryPayload = readPayload(binaryPayloadTable, true);
+        List<Span> termVectorPayload = readPayload(PEOPLE_TABLE, false);
+        
+        Assert.assertFalse(binaryPayload.isEmpty());
+        Assert.assertEquals(termVectorPayload.size(), binaryPayload.size());
+        Assert.assertTrue(termVectorPayload.containsAll(binaryPayload));
+        Assert.assertTrue(binaryPayload.containsAll(termVectorPayload));
+        
+        relationManager.deleteTable(binaryPayloadTable);
+    }
+    
+    private static List<Span> readPayload(String tableName, boolean binaryPayload) throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(tableName, new MatchAllDocsQuery());
+        dataReader.setPayloadAdded(true);
+        
+        List<Span> payload = new ArrayList<>();
+        dataReader.open();
+        Tuple nextTuple = null;
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            ListField<Span> payloadField = nextTuple.getField(SchemaConstants.PAYLOAD);
+            Assert.assertEquals(binaryPayload, payloadField.getValue() instanceof PayloadSpanList);
+            payload.addAll(payloadField.getValue());
+        }
+        dataReader.close();
+        return payload;
+    }
+    
+    /*
+     * Test that reading the slices of a DataReader one after another returns the same tuples in the same order.
+     */
+    @Test
+    public void testSliceReaders() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String sliceTable = "data_writer_reader_test_slice";
+        relationManager.createTable(sliceTable, TestUtils.getDefaultTestIndex().resolve(sliceTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        // every DataWriter session writes a new segment
+        int numSegments = 5;
+        for (int i = 0; i < numSegments; i++) {
+            DataWriter dataWriter = relationManager.getTableDataWriter(sliceTable);
+            dataWriter.open();
+            for (Tuple tuple : TestConstants.getSamplePeopleTuples()) {
+                dataWriter.insertTuple(tuple);
+            }
+            dataWriter.close();
+        }
+        
+        DataReader dataReader = relationManager.getTableDataReader(sliceTable, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        dataReader.open();
+        List<Tuple> expectedTuples = new ArrayList<>();
+        Tuple nextTuple = null;
+        while ((nextTuple = dataReader.getNextTuple()) != null) {
+            expectedTuples.add(nextTuple);
+        }
+        
+        List<DataReader> sliceReaders = dataReader.getSliceReaders(3);
+        Assert.assertEquals(3, sliceReaders.size());
+        List<Tuple> sliceTuples = new ArrayList<>();
+        for (DataReader sliceReader : sliceReaders) {
+            sliceReader.open();
+            while ((nextTuple = sliceReader.getNextTuple()) != null) {
+                sliceTuples.add(nextTuple);
+            }
+            sliceReader.close();
+        }
+        
+        Assert.assertEquals(numSegments, dataReader.getLuceneIndexReader().leaves().size());
+        Assert.assertEquals(1, dataReader.getSliceReaders(1).size());
+        Assert.assertEquals(numSegments, dataReader.getSliceReaders(numSegments * 2).size());
+        dataReader.close();
+        
+        Assert.assertEquals(expectedTuples, sliceTuples);
+        
+        relationManager.deleteTable(sliceTable);
+    }
+    
+    /*
+     * Test that DataReaders opened after a DataWriter commits can see the new tuples,
+     *   while a DataReader opened before the commit keeps reading its own snapshot.
+     */
+    @Test
+    public void testReadAfterWrite() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        
+        DataReader oldReader = relationManager.getTableDataReader(PEOPLE_TABLE, new MatchAllDocsQuery());
+        oldReader.open();
+        
+        DataWriter peopleDataWriter = relationManager.getTableDataWriter(PEOPLE_TABLE);
+        peopleDataWriter.open();
+        IDField insertedID = peopleDataWriter.insertTuple(TestConstants.getSamplePeopleTuples().get(0));
+        peopleDataWriter.close();
+        
+        DataReader newReader = relationManager.getTableDataReader(PEOPLE_TABLE, new MatchAllDocsQuery());
+        newReader.open();
+        
+        int oldReaderCount = 0;
+        while (oldReader.getNextTuple() != null) {
+            oldReaderCount++;
+        }
+        int newReaderCount = 0;
+        while (newReader.getNextTuple() != null) {
+            newReaderCount++;
+        }
+        oldReader.close();
+        newReader.close();
+        
+        Assert.assertEquals(TestConstants.getSamplePeopleTuples().size(), oldReaderCount);
+        Assert.assertEquals(TestConstants.getSamplePeopleTuples().size() + 1, newReaderCount);
+        Assert.assertNotNull(relationManager.getTupleByID(PEOPLE_TABLE, insertedID));
+        
+        peopleDataWriter.open();
+        peopleDataWriter.deleteTupleByID(insertedID);
+        peopleDataWriter.close();
+        
+        Assert.assertNull(relationManager.getTupleByID(PEOPLE_TABLE, insertedID));
+    }
+    
+    /*
+     * Test that tuples inserted in bulk-load mode by multiple indexing threads are all visible after close.
+     */
+    @Test
+    public void testBulkLoad() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String bulkLoadTable = "data_writer_reader_test_bulk_load";
+        relationManager.createTable(bulkLoadTable, TestUtils.getDefaultTestIndex().resolve(bulkLoadTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        List<Tuple> sampleTuples = TestConstants.getSamplePeopleTuples();
+        int numTuples = 5000;
+        
+        DataWriter dataWriter = relationManager.getTableDataWriter(bulkLoadTable);
+        dataWriter.openBulkLoad(new BulkLoadConfig(3, 100, 2, 16, new TieredMergePolicy()));
+        IDField lastID = null;
+        for (int i = 0; i < numTuples; i++) {
+            lastID = dataWriter.insertTuple(sampleTuples.get(i % sampleTuples.size()));
+        }
+        dataWriter.close();
+        
+        DataReader dataReader = relationManager.getTableDataReader(bulkLoadTable, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        int count = 0;
+        dataReader.open();
+        while (dataReader.getNextTuple() != null) {
+            count++;
+        }
+        dataReader.close();
+        
+        Assert.assertEquals(numTuples, count);
+        Assert.assertNotNull(relationManager.getTupleByID(bulkLoadTable, lastID));
+        
+        relationManager.deleteTable(bulkLoadTable);
+    }
+    
+    /*
+     * Test that a failure of the only indexing thread makes inserting and closing in bulk-load mode throw,
+     *   instead of blocking on the full queue.
+     */
+    @Test(timeout = 60000)
+    public void testBulkLoadIndexingFailure() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String bulkLoadTable = "data_writer_reader_test_bulk_load_failure";
+        relationManager.createTable(bulkLoadTable, TestUtils.getDefaultTestIndex().resolve(bulkLoadTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        // a string field is indexed as a single term, Lucene rejects a term longer than 32766 bytes
+        Tuple sampleTuple = TestConstants.getSamplePeopleTuples().get(0);
+        List<IField> fields = new ArrayList<>(sampleTuple.getFields());
+        fields.set(TestConstants.SCHEMA_PEOPLE.getIndex(TestConstants.LAST_NAME), 
+                new StringField(String.join("", Collections.nCopies(40000, "a"))));
+        Tuple immenseTermTuple = new Tuple(TestConstants.SCHEMA_PEOPLE, fields);
+        
+        DataWriter dataWriter = relationManager.getTableDataWriter(bulkLoadTable);
+        dataWriter.openBulkLoad(new BulkLoadConfig(1, 1, 1, 16, new TieredMergePolicy()));
+        dataWriter.insertTuple(immenseTermTuple);
+        
+        boolean insertFailed = false;
+        try {
+            for (int i = 0; i < 1000; i++) {
+                dataWriter.insertTuple(sampleTuple);
+            }
+        } catch (StorageException e) {
+            insertFailed = true;
+        }
+        Assert.assertTrue(insertFailed);
+        
+        boolean closeFailed = false;
+        try {
+            dataWriter.close();
+        } catch (StorageException e) {
+            closeFailed = true;
+        }
+        Assert.assertTrue(closeFailed);
+        
+        relationManager.deleteTable(bulkLoadTable);
+    }
+    
+    /*
+     * Test that reading in batches returns the same tuples as reading one by one, with and without a limit.
+     */
+    @Test
+    public void testReadBatches() throws Exception {
+        for (boolean streaming : Arrays.asList(false, true)) {
+            for (int limit : Arrays.asList(Integer.MAX_VALUE, 4)) {
+                DataReader tupleReader = RelationManager.getInstance().getTableDataReader(
+                        PEOPLE_TABLE, new MatchAllDocsQuery());
+                tupleReader.setStreaming(streaming);
+                tupleReader.setLimit(limit);
+                List<Tuple> expectedTuples = new ArrayList<>();
+                Tuple nextTuple;
+                tupleReader.open();
+                while ((nextTuple = tupleReader.getNextTuple()) != null) {
+                    expectedTuples.add(nextTuple);
+                }
+                tupleReader.close();
+                
+                DataReader batchReader = RelationManager.getInstance().getTableDataReader(
+                        PEOPLE_TABLE, new MatchAllDocsQuery());
+                batchReader.setStreaming(streaming);
+                batchReader.setLimit(limit);
+                List<Tuple> returnedTuples = new ArrayList<>();
+                List<Tuple> batch;
+                batchReader.open();
+                while (! (batch = batchReader.getNextBatch(3)).isEmpty()) {
+                    Assert.assertTrue(batch.size() <= 3);
+                    returnedTuples.addAll(batch);
+                }
+                batchReader.close();
+                
+                Assert.assertEquals(expectedTuples.size(), returnedTuples.size());
+                Assert.assertTrue(TestUtils.equals(expectedTuples, returnedTuples));
+            }
+        }
+    }
+    
+    /*
+     * Test that tuples appended in near-real-time mode become visible to the DataReaders without a commit,
+     *   and are committed when the near-real-time writer is closed.
+     */
+    @Test
+    public void testNearRealTimeAppend() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String nearRealTimeTable = "data_writer_reader_test_near_real_time";
+        relationManager.createTable(nearRealTimeTable, TestUtils.getDefaultTestIndex().resolve(nearRealTimeTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        List<Tuple> sampleTuples = TestConstants.getSamplePeopleTuples();
+        
+        // a long commit interval, the tuples can only be seen through the refreshes
+        DataWriter dataWriter = relationManager.getTableDataWriter(nearRealTimeTable);
+        dataWriter.openNearRealTime(new NearRealTimeConfig(20, 60 * 60 * 1000, 16));
+        for (Tuple tuple : sampleTuples) {
+            dataWriter.insertTuple(tuple);
+        }
+        dataWriter.close();
+        
+        long deadline = System.currentTimeMillis() + 10 * 1000;
+        while (countTuples(nearRealTimeTable) < sampleTuples.size() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(sampleTuples.size(), countTuples(nearRealTimeTable));
+        Assert.assertEquals(sampleTuples.size(), relationManager.getTableStatistics(nearRealTimeTable).getRowCount());
+        
+        // a DataWriter opened by open() attaches to the near-real-time writer, and commits when it's closed
+        dataWriter.open();
+        IDField insertedID = dataWriter.insertTuple(sampleTuples.get(0));
+        dataWriter.close();
+        Assert.assertNotNull(relationManager.getTupleByID(nearRealTimeTable, insertedID));
+        
+        relationManager.closeNearRealTimeWriter(nearRealTimeTable);
+        Assert.assertEquals(sampleTuples.size() + 1, countTuples(nearRealTimeTable));
+        Assert.assertEquals(sampleTuples.size() + 1, 
+                relationManager.getTableStatistics(nearRealTimeTable).getHistogram(TestConstants.AGE).getCount());
+        
+        // the table can be written with its own writer again
+        dataWriter.open();
+        dataWriter.deleteTupleByID(insertedID);
+        dataWriter.close();
+        Assert.assertEquals(sampleTuples.size(), countTuples(nearRealTimeTable));
+        
+        relationManager.deleteTable(nearRealTimeTable);
+    }
+    
+    private static int countTuples(String tableName) throws Exception {
+        DataReader dataReader = RelationManager.getInstance().getTableDataReader(tableName, new MatchAllDocsQuery());
+        dataReader.setStreaming(true);
+        int count = 0;
+        dataReader.open();
+        while (dataReader.getNextTuple() != null) {
+            count++;
+        }
+        dataReader.close();
+        return count;
+    }
+    
+    @Test
+    public void testTableStatistics() throws Exception {
+        RelationManager relationManager = RelationManager.getInstance();
+        String statisticsTable = "data_writer_reader_test_statistics";
+        relationManager.createTable(statisticsTable, TestUtils.getDefaultTestIndex().resolve(statisticsTable), 
+                TestConstants.SCHEMA_PEOPLE, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        // insert the tuples in two commits, the histograms are updated incrementally
+        List<Tuple> sampleTuples = TestConstants.getSamplePeopleTuples();
+        List<IDField> idFields = new ArrayList<>();
+        DataWriter dataWriter = relationManager.getTableDataWriter(statisticsTable);
+        dataWriter.open();
+        for (Tuple tuple : sampleTuples.subList(0, 3)) {
+            idFields.add(dataWriter.insertTuple(tuple));
+        }
+        dataWriter.close();
+        dataWriter.open();
+        for (Tuple tuple : sampleTuples.subList(3, sampleTuples.size())) {
+            idFields.add(dataWriter.insertTuple(tuple));
+        }
+        dataWriter.close();
+        
+        TableStatistics statistics = relationManager.getTableStatistics(statisticsTable);
+        Assert.assertEquals(6, statistics.getRowCount());
+        Assert.assertEquals(6, statistics.getHistogram(TestConstants.AGE).getCount());
+        Assert.assertEquals(42, statistics.getHistogram(TestConstants.AGE).getMin(), 0);
+        Assert.assertEquals(46, statistics.getHistogram(TestConstants.AGE).getMax(), 0);
+        Assert.assertEquals(6, statistics.getHistogram(TestConstants.DATE_OF_BIRTH).getCount());
+        Assert.assertNull(statistics.getHistogram(TestConstants.DESCRIPTION));
+        // ages are 46, 45, 44, 43, 42, 42
+        Assert.assertEquals(0.5, statistics.estimateRangeSelectivity(TestConstants.AGE, 43.5, null), 0.1);
+        Assert.assertEquals(0, statistics.estimateRangeSelectivity(TestConstants.AGE, 50.0, null), 0);
+        Assert.assertEquals(1, statistics.estimateRangeSelectivity(TestConstants.AGE, null, 46.0), 0);
+        
+        Assert.assertEquals(2, relationManager.getTermDocumentFrequency(statisticsTable, TestConstants.DESCRIPTION, "tall"));
+        Assert.assertEquals(0, relationManager.getTermDocumentFrequency(statisticsTable, TestConstants.DESCRIPTION, "purple"));
+        
+        // the deleted values stay in the histograms until the statistics are refreshed
+        dataWriter.open();
+        dataWriter.deleteTupleByID(idFields.get(0));
+        dataWriter.close();
+        statistics = relationManager.getTableStatistics(statisticsTable);
+        Assert.assertEquals(5, statistics.getRowCount());
+        Assert.assertEquals(6, statistics.getHistogram(TestConstants.AGE).getCount());
+        
+        relationManager.refreshTableStatistics(statisticsTable);
+        statistics = relationManager.getTableStatistics(statisticsTable);
+        Assert.assertEquals(5, statistics.getRowCount());
+        Assert.assertEquals(5, statistics.getHistogram(TestConstants.AGE).getCount());
+        Assert.assertEquals(45, statistics.getHistogram(TestConstants.AGE).getMax(), 0);
+        Assert.assertEquals(5, statistics.getHistogram(TestConstants.HEIGHT).getCount());
+        
+        relationManager.deleteTable(statisticsTable);
+    }
 }
@@ -429,4 +429,38 @@ public class RelationManagerTest {
 
         relationManager.deleteTable(tableName);
     }
+    
+    /*
+     * Test that the cached catalog information of a table is updated after 
+     *   the table is deleted and re-created with a different schema and analyzer.
+     */
+    @Test
+    public void test18() throws Exception {
+        String tableName = "relation_manager_test_table";
+        String tableDirectory = "./index/test_table";
+        Schema tableSchema = new Schema(
+                new Attribute("content", AttributeType.STRING), new Attribute("number", AttributeType.STRING));
+        Schema newTableSchema = new Schema(new Attribute("description", AttributeType.TEXT));
+
+        RelationManager relationManager = RelationManager.getInstance();
+
+        relationManager.deleteTable(tableName);
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), tableSchema, LuceneAnalyzerConstants.standardAnalyzerString());
+        
+        Assert.assertEquals(Schema.Builder.getSchemaWithID(tableSchema), relationManager.getTableSchema(tableName));
+        Assert.assertSame(relationManager.getTableAnalyzer(tableName), relationManager.getTableAnalyzer(tableName));
+        
+        relationManager.deleteTable(tableName);
+        Assert.assertFalse(relationManager.checkTableExistence(tableName));
+        
+        relationManager.createTable(
+                tableName, Paths.get(tableDirectory), newTableSchema, LuceneAnalyzerConstants.nGramAnalyzerString(3));
+        
+        Assert.assertTrue(relationManager.checkTableExistence(tableName));
+        Assert.assertEquals(Schema.Builder.getSchemaWithID(newTableSchema), relationManager.getTableSchema(tableName));
+        Assert.assertEquals(LuceneAnalyzerConstants.nGramAnalyzerString(3), relationManager.getTableAnalyzerString(tableName));
+
+        relationManager.deleteTable(tableName);
+    }
 }